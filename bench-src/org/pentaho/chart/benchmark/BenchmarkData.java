@@ -0,0 +1,144 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.benchmark;
+
+import java.util.Random;
+
+import org.pentaho.chart.data.ChartTableModel;
+import org.pentaho.chart.data.MultiSeriesDataModel;
+import org.pentaho.chart.data.NamedValue;
+import org.pentaho.chart.data.NamedValuesDataModel;
+import org.pentaho.chart.model.AreaPlot;
+import org.pentaho.chart.model.BarPlot;
+import org.pentaho.chart.model.ChartModel;
+import org.pentaho.chart.model.DialPlot;
+import org.pentaho.chart.model.LinePlot;
+import org.pentaho.chart.model.PiePlot;
+import org.pentaho.chart.model.Plot;
+import org.pentaho.chart.model.ScatterPlot;
+
+/**
+ * Synthetic chart models and data for the benchmarks. Data is generated from a fixed seed, so every run measures the
+ * same input.
+ */
+public final class BenchmarkData {
+
+  /**
+   * Number of series of the generated multi series data.
+   */
+  public static final int SERIES_COUNT = 4;
+
+  /**
+   * Column layout of the generated query rows.
+   */
+  public static final int DOMAIN_COLUMN = 0;
+  public static final int SERIES_COLUMN = 1;
+  public static final int RANGE_COLUMN = 2;
+
+  private static final long SEED = 42;
+
+  private BenchmarkData() {
+  }
+
+  /**
+   * Creates a chart model of the specified plot type: bar, line, area, pie, scatter or dial.
+   */
+  public static ChartModel createChartModel( String plotType, String chartEngineId ) {
+    ChartModel chartModel = new ChartModel();
+    chartModel.setChartEngineId( chartEngineId );
+    chartModel.getTitle().setText( plotType + " benchmark" ); //$NON-NLS-1$
+    chartModel.setPlot( createPlot( plotType ) );
+    return chartModel;
+  }
+
+  public static Plot createPlot( String plotType ) {
+    if ( "bar".equals( plotType ) ) { //$NON-NLS-1$
+      return new BarPlot();
+    } else if ( "line".equals( plotType ) ) { //$NON-NLS-1$
+      return new LinePlot();
+    } else if ( "area".equals( plotType ) ) { //$NON-NLS-1$
+      return new AreaPlot();
+    } else if ( "pie".equals( plotType ) ) { //$NON-NLS-1$
+      return new PiePlot();
+    } else if ( "scatter".equals( plotType ) ) { //$NON-NLS-1$
+      return new ScatterPlot();
+    } else if ( "dial".equals( plotType ) ) { //$NON-NLS-1$
+      return new DialPlot();
+    }
+    throw new IllegalArgumentException( plotType );
+  }
+
+  /**
+   * Creates query rows of (domain, series, value) holding <code>dataPoints</code> values spread over
+   * {@link #SERIES_COUNT} series. Scatter plots get numeric domains.
+   */
+  public static Object[][] createRows( int dataPoints, boolean numericDomains ) {
+    Random random = new Random( SEED );
+    Object[][] rows = new Object[dataPoints][];
+    for ( int i = 0; i < dataPoints; i++ ) {
+      int domain = i / SERIES_COUNT;
+      rows[i] =
+          new Object[] { numericDomains ? (Object) Integer.valueOf( domain ) : "domain" + domain, //$NON-NLS-1$
+            "series" + ( i % SERIES_COUNT ), random.nextDouble() * 1000 }; //$NON-NLS-1$
+    }
+    return rows;
+  }
+
+  /**
+   * Creates a multi series model holding <code>dataPoints</code> values spread over {@link #SERIES_COUNT} series.
+   */
+  public static MultiSeriesDataModel createMultiSeriesDataModel( int dataPoints ) {
+    MultiSeriesDataModel dataModel = new MultiSeriesDataModel();
+    for ( Object[] row : createRows( dataPoints, false ) ) {
+      dataModel.addValue( (String) row[DOMAIN_COLUMN], (String) row[SERIES_COLUMN], (Number) row[RANGE_COLUMN] );
+    }
+    return dataModel;
+  }
+
+  public static NamedValuesDataModel createNamedValuesDataModel( int dataPoints ) {
+    Random random = new Random( SEED );
+    NamedValuesDataModel dataModel = new NamedValuesDataModel();
+    for ( int i = 0; i < dataPoints; i++ ) {
+      dataModel.add( new NamedValue( "slice" + i, random.nextDouble() * 1000 ) ); //$NON-NLS-1$
+    }
+    return dataModel;
+  }
+
+  /**
+   * Creates a table of <code>dataPoints</code> values, with one column per series and one row per domain.
+   */
+  public static ChartTableModel createChartTableModel( int dataPoints ) {
+    Random random = new Random( SEED );
+    int rowCount = Math.max( dataPoints / SERIES_COUNT, 1 );
+    Object[][] data = new Object[rowCount][SERIES_COUNT];
+    for ( int row = 0; row < rowCount; row++ ) {
+      for ( int column = 0; column < SERIES_COUNT; column++ ) {
+        data[row][column] = random.nextDouble() * 1000;
+      }
+    }
+    ChartTableModel chartTableModel = new ChartTableModel();
+    chartTableModel.setData( data );
+    for ( int column = 0; column < SERIES_COUNT; column++ ) {
+      chartTableModel.setColumnName( column, "series" + column ); //$NON-NLS-1$
+    }
+    for ( int row = 0; row < rowCount; row++ ) {
+      chartTableModel.setRowName( row, "domain" + row ); //$NON-NLS-1$
+    }
+    return chartTableModel;
+  }
+}
@@ -0,0 +1,68 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.pentaho.chart.ChartBeanFactory;
+import org.pentaho.chart.data.IChartDataModel;
+import org.pentaho.chart.model.ChartModel;
+import org.pentaho.chart.plugin.jfreechart.JFreeChartPlugin;
+
+/**
+ * Measures building the chart data model from query rows with
+ * {@link ChartBeanFactory#createChartDataModel(Object[][], Number, boolean, int, int, int, ChartModel,
+ * org.pentaho.commons.connection.IPentahoMetaData)} for each plot type.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+public class ChartDataModelBenchmark {
+
+  @Param( { "bar", "line", "pie", "scatter", "dial" } )
+  public String plotType;
+
+  @Param( { "100", "10000", "100000" } )
+  public int dataSize;
+
+  private ChartModel chartModel;
+  private Object[][] rows;
+  private int seriesColumn;
+
+  @Setup
+  public void setUp() {
+    ChartBeanFactory.setMaxDataPointsPerChart( Integer.MAX_VALUE );
+    chartModel = BenchmarkData.createChartModel( plotType, JFreeChartPlugin.PLUGIN_ID );
+    rows = BenchmarkData.createRows( dataSize, "scatter".equals( plotType ) ); //$NON-NLS-1$
+    seriesColumn = "dial".equals( plotType ) ? -1 : BenchmarkData.SERIES_COLUMN; //$NON-NLS-1$
+  }
+
+  @Benchmark
+  public IChartDataModel createChartDataModel() throws Exception {
+    return ChartBeanFactory.createChartDataModel( rows, 1, false, BenchmarkData.RANGE_COLUMN, seriesColumn,
+        BenchmarkData.DOMAIN_COLUMN, chartModel, null );
+  }
+}
@@ -0,0 +1,60 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.benchmark;
+
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.pentaho.chart.ChartBoot;
+import org.pentaho.chart.ChartFactory;
+import org.pentaho.chart.core.ChartDocument;
+
+/**
+ * Measures parsing a chart definition with {@link ChartFactory#getChartDocument(URL, boolean)}, with and without
+ * resolving the styles of its elements. The chart document cache is disabled, so every call parses the definition.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+public class ChartDocumentParseBenchmark {
+
+  @Param( { "true", "false" } )
+  public boolean cascadeStyles;
+
+  private URL chartDefinition;
+
+  @Setup
+  public void setUp() {
+    ChartBoot.getInstance().start();
+    ChartFactory.setChartDocumentCache( null );
+    chartDefinition = getClass().getResource( "bar-chart.xml" ); //$NON-NLS-1$
+  }
+
+  @Benchmark
+  public ChartDocument getChartDocument() throws Exception {
+    return ChartFactory.getChartDocument( chartDefinition, cascadeStyles );
+  }
+}
@@ -0,0 +1,76 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.pentaho.chart.data.IChartDataModel;
+import org.pentaho.chart.model.ChartModel;
+import org.pentaho.chart.plugin.api.IOutput;
+import org.pentaho.chart.plugin.jfreechart.JFreeChartFactoryEngine;
+import org.pentaho.chart.plugin.jfreechart.JFreeChartPlugin;
+import org.pentaho.chart.plugin.openflashchart.OpenFlashChartFactoryEngine;
+import org.pentaho.chart.plugin.openflashchart.OpenFlashChartPlugin;
+
+/**
+ * Measures turning a chart model and its data into an engine chart, without rendering it, for both chart engines.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+public class ChartEngineBenchmark {
+
+  @Param( { "bar", "line", "area", "pie" } )
+  public String plotType;
+
+  @Param( { "100", "10000", "100000" } )
+  public int dataSize;
+
+  private final JFreeChartFactoryEngine jFreeChartEngine = new JFreeChartFactoryEngine();
+  private final OpenFlashChartFactoryEngine openFlashChartEngine = new OpenFlashChartFactoryEngine();
+  private ChartModel jFreeChartModel;
+  private ChartModel openFlashChartModel;
+  private IChartDataModel chartDataModel;
+
+  @Setup
+  public void setUp() {
+    jFreeChartModel = BenchmarkData.createChartModel( plotType, JFreeChartPlugin.PLUGIN_ID );
+    openFlashChartModel = BenchmarkData.createChartModel( plotType, OpenFlashChartPlugin.PLUGIN_ID );
+    chartDataModel =
+        "pie".equals( plotType ) ? BenchmarkData.createNamedValuesDataModel( dataSize ) : BenchmarkData //$NON-NLS-1$
+            .createMultiSeriesDataModel( dataSize );
+  }
+
+  @Benchmark
+  public IOutput jFreeChart() {
+    return jFreeChartEngine.makeChart( jFreeChartModel, chartDataModel );
+  }
+
+  @Benchmark
+  public IOutput openFlashChart() {
+    return openFlashChartEngine.makeChart( openFlashChartModel, chartDataModel );
+  }
+}
@@ -0,0 +1,81 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.pentaho.chart.data.IChartDataModel;
+import org.pentaho.chart.plugin.api.IOutput;
+import org.pentaho.chart.plugin.api.IOutput.OutputTypes;
+import org.pentaho.chart.plugin.jfreechart.JFreeChartFactoryEngine;
+import org.pentaho.chart.plugin.jfreechart.JFreeChartPlugin;
+import org.pentaho.chart.plugin.openflashchart.OpenFlashChartFactoryEngine;
+import org.pentaho.chart.plugin.openflashchart.OpenFlashChartPlugin;
+
+/**
+ * Measures writing a bar chart with {@link IOutput#persistChart(OutputStream, OutputTypes, int, int)}: PNG and JPEG
+ * images rendered by JFreeChart, and the JSON chart definition of OpenFlashChart.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+public class ChartOutputBenchmark {
+
+  private static final int WIDTH = 800;
+  private static final int HEIGHT = 600;
+
+  @Param( { "PNG", "JPEG", "JSON" } )
+  public String format;
+
+  @Param( { "100", "10000", "100000" } )
+  public int dataSize;
+
+  private IOutput output;
+  private OutputTypes outputType;
+
+  @Setup
+  public void setUp() {
+    IChartDataModel chartDataModel = BenchmarkData.createMultiSeriesDataModel( dataSize );
+    if ( "JSON".equals( format ) ) { //$NON-NLS-1$
+      output =
+          new OpenFlashChartFactoryEngine().makeChart( BenchmarkData.createChartModel( "bar", //$NON-NLS-1$
+              OpenFlashChartPlugin.PLUGIN_ID ), chartDataModel );
+      outputType = OutputTypes.DATA_TYPE_STREAM;
+    } else {
+      output =
+          new JFreeChartFactoryEngine().makeChart( BenchmarkData.createChartModel( "bar", //$NON-NLS-1$
+              JFreeChartPlugin.PLUGIN_ID ), chartDataModel );
+      outputType = "PNG".equals( format ) ? OutputTypes.FILE_TYPE_PNG : OutputTypes.FILE_TYPE_JPEG; //$NON-NLS-1$
+    }
+  }
+
+  @Benchmark
+  public OutputStream persistChart() throws Exception {
+    return output.persistChart( new ByteArrayOutputStream(), outputType, WIDTH, HEIGHT );
+  }
+}
@@ -0,0 +1,72 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.pentaho.chart.model.ChartModel;
+import org.pentaho.chart.model.util.ChartSerializer;
+import org.pentaho.chart.model.util.ChartSerializer.ChartSerializationFormat;
+import org.pentaho.chart.plugin.jfreechart.JFreeChartPlugin;
+
+/**
+ * Measures serializing a chart model with the <code>ChartSerializer</code> and reading it back.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+public class ChartSerializerBenchmark {
+
+  @Param( { "XML", "JSON" } )
+  public ChartSerializationFormat format;
+
+  @Param( { "bar", "line", "pie", "dial" } )
+  public String plotType;
+
+  private ChartModel chartModel;
+  private String serializedChartModel;
+
+  @Setup
+  public void setUp() {
+    chartModel = BenchmarkData.createChartModel( plotType, JFreeChartPlugin.PLUGIN_ID );
+    serializedChartModel = ChartSerializer.serialize( chartModel, format );
+  }
+
+  @Benchmark
+  public String serialize() {
+    return ChartSerializer.serialize( chartModel, format );
+  }
+
+  @Benchmark
+  public ChartModel deserialize() {
+    return ChartSerializer.deSerialize( serializedChartModel, format );
+  }
+
+  @Benchmark
+  public ChartModel roundTrip() {
+    return ChartSerializer.deSerialize( ChartSerializer.serialize( chartModel, format ), format );
+  }
+}
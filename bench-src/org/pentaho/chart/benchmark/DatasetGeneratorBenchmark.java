@@ -0,0 +1,78 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.pentaho.chart.ChartBoot;
+import org.pentaho.chart.ChartDocumentContext;
+import org.pentaho.chart.ChartFactory;
+import org.pentaho.chart.data.ChartTableModel;
+import org.pentaho.chart.plugin.jfreechart.dataset.DatasetGeneratorFactory;
+import org.pentaho.chart.plugin.jfreechart.dataset.JFreeDefaultCategoryDatasetGenerator;
+
+/**
+ * Measures creating the JFreeChart category dataset of a chart document from a chart table model, directly and
+ * through the <code>DatasetGeneratorFactory</code>.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+public class DatasetGeneratorBenchmark {
+
+  @Param( { "100", "10000", "100000" } )
+  public int dataSize;
+
+  private ChartDocumentContext chartDocumentContext;
+  private ChartTableModel chartTableModel;
+  private final DatasetGeneratorFactory datasetGeneratorFactory = new DatasetGeneratorFactory();
+  private final JFreeDefaultCategoryDatasetGenerator categoryDatasetGenerator =
+      new JFreeDefaultCategoryDatasetGenerator();
+
+  @Setup
+  public void setUp() throws Exception {
+    ChartBoot.getInstance().start();
+    chartDocumentContext = ChartFactory.generateChart( getClass().getResource( "bar-chart.xml" ) ); //$NON-NLS-1$
+    chartTableModel = BenchmarkData.createChartTableModel( dataSize );
+  }
+
+  @Benchmark
+  public DefaultCategoryDataset categoryDatasetGenerator() {
+    return categoryDatasetGenerator.createDataset( chartDocumentContext, chartTableModel );
+  }
+
+  @Benchmark
+  public DefaultCategoryDataset datasetGeneratorFactory() {
+    return datasetGeneratorFactory.createDefaultCategoryDataset( chartDocumentContext, chartTableModel );
+  }
+
+  @Benchmark
+  public CategoryDataset categoryDatasetAdapter() {
+    return datasetGeneratorFactory.createCategoryDataset( chartDocumentContext, chartTableModel );
+  }
+}
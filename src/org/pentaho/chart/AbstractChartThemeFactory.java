@@ -31,24 +31,28 @@ import org.pentaho.reporting.libraries.css.keys.color.ColorStyleKeys;
 
 public abstract class AbstractChartThemeFactory implements IChartThemeFactory {
 
-  protected List<Theme> themes = null;
+  protected volatile List<Theme> themes = null;
   
   protected AbstractChartThemeFactory() {    
   }
   
   public Theme getTheme(ChartTheme chartTheme) {
     Theme theme = null;
-    if ((chartTheme != null) && (chartTheme.ordinal() < getThemes().size())) {
-      theme = getThemes().get(chartTheme.ordinal());
+    final List<Theme> loadedThemes = getThemes();
+    if ((chartTheme != null) && (chartTheme.ordinal() < loadedThemes.size())) {
+      theme = loadedThemes.get(chartTheme.ordinal());
     }
     return theme;
   }
   
   public List<Theme> getThemes() {
-    if (themes == null) {
+    List<Theme> loadedThemes = themes;
+    if (loadedThemes == null) {
       synchronized(this) {
-        if (themes == null) {
-          themes = new ArrayList<Theme>();
+        loadedThemes = themes;
+        if (loadedThemes == null) {
+          // Load into a local list and publish it once complete, so concurrent renders never see a partial list.
+          loadedThemes = new ArrayList<Theme>();
           for (File themeFile : getThemeFiles()) {
             try {
               ChartDocument themeDocument = org.pentaho.chart.ChartFactory.getChartDocument(themeFile.toURL(), true);
@@ -62,15 +66,16 @@ public abstract class AbstractChartThemeFactory implements IChartThemeFactory {
                   chartTheme.getColors().add(0x00FFFFFF & color.getRGB());
                 }
               }
-              themes.add(chartTheme);
+              loadedThemes.add(chartTheme);
             } catch (Exception e) {
               e.printStackTrace();
             }
           }
+          themes = loadedThemes;
         }
       }
     }
-    return themes;
+    return loadedThemes;
   }
   
   protected abstract List<File> getThemeFiles();
@@ -0,0 +1,77 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+
+package org.pentaho.chart;
+
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Output stream writing into a byte buffer. When the buffer is full its content is moved to a buffer of twice the
+ * size, of the same kind (heap or direct), so the buffer must be fetched with {@link #getBuffer()} once writing is
+ * done.
+ */
+class ByteBufferOutputStream extends OutputStream {
+
+  private ByteBuffer buffer;
+
+  ByteBufferOutputStream( ByteBuffer buffer ) {
+    if ( buffer == null ) {
+      throw new NullPointerException();
+    }
+    this.buffer = buffer;
+  }
+
+  /**
+   * Returns the buffer written into, which is the buffer the stream was created with unless it has been outgrown.
+   */
+  ByteBuffer getBuffer() {
+    return buffer;
+  }
+
+  public void write( int b ) {
+    ensureRemaining( 1 );
+    buffer.put( (byte) b );
+  }
+
+  public void write( byte[] b, int off, int len ) {
+    ensureRemaining( len );
+    buffer.put( b, off, len );
+  }
+
+  void write( ByteBuffer source ) {
+    ensureRemaining( source.remaining() );
+    buffer.put( source );
+  }
+
+  private void ensureRemaining( int length ) {
+    if ( buffer.remaining() >= length ) {
+      return;
+    }
+    long newCapacity = Math.max( (long) buffer.position() + length, 2L * buffer.capacity() );
+    if ( newCapacity > Integer.MAX_VALUE ) {
+      throw new OutOfMemoryError();
+    }
+    int capacity = (int) newCapacity;
+    ByteBuffer newBuffer = buffer.isDirect() ? ByteBuffer.allocateDirect( capacity ) : ByteBuffer.allocate( capacity );
+    newBuffer.order( buffer.order() );
+    buffer.flip();
+    newBuffer.put( buffer );
+    buffer = newBuffer;
+  }
+}
@@ -17,68 +17,57 @@
 
 package org.pentaho.chart;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
-import org.pentaho.chart.data.BasicDataModel;
 import org.pentaho.chart.data.IChartDataModel;
-import org.pentaho.chart.data.IScalableDataModel;
-import org.pentaho.chart.data.MultiSeriesDataModel;
-import org.pentaho.chart.data.MultiSeriesXYDataModel;
-import org.pentaho.chart.data.NamedValue;
-import org.pentaho.chart.data.NamedValuesDataModel;
-import org.pentaho.chart.data.XYDataModel;
-import org.pentaho.chart.data.XYDataPoint;
-import org.pentaho.chart.data.MultiSeriesDataModel.DomainData;
-import org.pentaho.chart.data.MultiSeriesXYDataModel.Series;
+import org.pentaho.chart.data.IDataDecimator;
+import org.pentaho.chart.data.TopNAggregator;
+import org.pentaho.chart.model.ChartDataDefinition;
 import org.pentaho.chart.model.ChartModel;
-import org.pentaho.chart.model.DialPlot;
-import org.pentaho.chart.model.PiePlot;
-import org.pentaho.chart.model.Plot;
-import org.pentaho.chart.model.ScatterPlot;
 import org.pentaho.chart.plugin.ChartDataOverflowException;
+import org.pentaho.chart.plugin.ChartPluginRegistry;
 import org.pentaho.chart.plugin.ChartProcessingException;
 import org.pentaho.chart.plugin.IChartPlugin;
 import org.pentaho.chart.plugin.NoChartDataException;
 import org.pentaho.chart.plugin.api.IOutput;
 import org.pentaho.chart.plugin.api.PersistenceException;
 import org.pentaho.chart.plugin.api.IOutput.OutputTypes;
-import org.pentaho.chart.plugin.jfreechart.JFreeChartPlugin;
-import org.pentaho.chart.plugin.openflashchart.OpenFlashChartPlugin;
 import org.pentaho.commons.connection.IPentahoMetaData;
-import org.pentaho.metadata.model.concept.types.DataType;
-import org.pentaho.metadata.model.concept.util.DataFormatter;
 
 public class ChartBeanFactory {
 
-  private static String META_DATA_MASK_ATTRIBUTE = "mask";
-  private static String META_DATA_DATATYPE_ATTRIBUTE = "datatype";
-  private static int META_DATA_ROW_WITH_ATTRIBUTE = 0;
+  /**
+   * Size of the buffer through which charts are written to a channel.
+   */
+  public static final int CHANNEL_BUFFER_SIZE = 64 * 1024;
 
-  private static int MAX_ALLOWED_DATA_POINTS = 100;
-  private static List<IChartPlugin> chartPlugins = new ArrayList<IChartPlugin>();
+  private static volatile int MAX_ALLOWED_DATA_POINTS = 100;
+  private static final ChartPluginRegistry chartPlugins = new ChartPluginRegistry();
+  private static volatile ChartResultCache chartResultCache;
+  private static volatile IDataDecimator dataDecimator;
+  private static volatile ForkJoinPool dataModelPool;
 
   private ChartBeanFactory() {
   }
 
   public static IChartPlugin getPlugin( String pluginId ) {
-    IChartPlugin plugin = null;
-    for ( IChartPlugin tmpPlugin : chartPlugins ) {
-      if ( tmpPlugin.getPluginId().equals( pluginId ) ) {
-        plugin = tmpPlugin;
-      }
-    }
-    if ( ( plugin == null ) && ( chartPlugins.size() == 0 ) ) {
-      if ( JFreeChartPlugin.PLUGIN_ID.equals( pluginId ) ) {
-        plugin = new JFreeChartPlugin();
-      } else if ( OpenFlashChartPlugin.PLUGIN_ID.equals( pluginId ) ) {
-        plugin = new OpenFlashChartPlugin();
-      }
-    }
-    return plugin;
+    return chartPlugins.getPlugin( pluginId );
+  }
+
+  public static ChartPluginRegistry getPluginRegistry() {
+    return chartPlugins;
   }
 
   public static int getMaxDataPointsPerChart() {
@@ -91,12 +80,55 @@ public class ChartBeanFactory {
     }
   }
 
+  public static ChartResultCache getChartResultCache() {
+    return chartResultCache;
+  }
+
+  /**
+   * Sets the cache consulted by {@link #createChart(Object[][], Number, boolean, int, int, int, ChartModel,
+   * IChartLinkGenerator, int, int, OutputTypes)}, or <code>null</code> to always render.
+   */
+  public static void setChartResultCache( ChartResultCache cache ) {
+    chartResultCache = cache;
+  }
+
+  public static IDataDecimator getDataDecimator() {
+    return dataDecimator;
+  }
+
+  /**
+   * Sets the decimator applied to line and area charts by {@link #createChart(Object[][], Number, boolean, int, int,
+   * int, ChartModel, IChartLinkGenerator, int, int, OutputTypes)}, which decimates them to the chart width, or to
+   * the maximum number of data points shared by their series, instead of failing once that maximum is exceeded.
+   * <code>null</code> disables decimation.
+   * 
+   * @see ChartDataModelBuilder#setDataDecimator(IDataDecimator, int)
+   */
+  public static void setDataDecimator( IDataDecimator decimator ) {
+    dataDecimator = decimator;
+  }
+
+  public static ForkJoinPool getDataModelPool() {
+    return dataModelPool;
+  }
+
+  /**
+   * Sets the pool used to build data models from large <code>Object[][]</code> query results in parallel, or
+   * <code>null</code> to build them on the calling thread. Query results read from an iterator or result set are
+   * always built on the calling thread.
+   * 
+   * @see ChartDataModelBuilder#addRows(Object[][], ForkJoinPool)
+   */
+  public static void setDataModelPool( ForkJoinPool pool ) {
+    dataModelPool = pool;
+  }
+
   /**
    * This method is called from a platform system listener on startup, to initialize the available plugins from the
    * chartbeans configuration file.
    */
   public static void loadDefaultChartPlugins( List<IChartPlugin> plugins ) {
-    chartPlugins = plugins;
+    chartPlugins.setPlugins( plugins );
   }
 
   /**
@@ -116,63 +148,60 @@ public class ChartBeanFactory {
   public static IChartDataModel createChartDataModel( Object[][] queryResults, Number scalingFactor,
       boolean convertNullsToZero, int rangeColumnIndex, int seriesColumnIdx, int domainColumnIdx, ChartModel chartModel,
       IPentahoMetaData metadata ) throws ChartDataOverflowException, NoChartDataException {
-    IChartDataModel chartDataModel = null;
-    int numberOfDataPoints = 0;
-
-    Plot plot = chartModel.getPlot();
-    if ( ( plot instanceof PiePlot ) && ( seriesColumnIdx >= 0 ) && ( rangeColumnIndex >= 0 ) ) {
-      NamedValuesDataModel namedValueDataModel =
-          createNamedValueDataModel( queryResults, seriesColumnIdx, rangeColumnIndex, convertNullsToZero, true );
-      numberOfDataPoints = namedValueDataModel.size();
-      chartDataModel = namedValueDataModel;
-    } else if ( ( plot instanceof DialPlot ) && ( rangeColumnIndex >= 0 ) ) {
-      BasicDataModel basicDataModel = createBasicDataModel( queryResults, rangeColumnIndex, true, true );
-      numberOfDataPoints = basicDataModel.getData().size();
-      chartDataModel = basicDataModel;
-    } else if ( plot instanceof ScatterPlot ) {
-      if ( ( seriesColumnIdx >= 0 ) && ( domainColumnIdx >= 0 ) ) {
-        MultiSeriesXYDataModel multiSeriesXYDataModel =
-            createMultiSeriesXYDataModel( queryResults, seriesColumnIdx, domainColumnIdx, rangeColumnIndex,
-                convertNullsToZero, metadata );
-        for ( Series series : multiSeriesXYDataModel.getSeries() ) {
-          numberOfDataPoints += series.size();
-        }
-        chartDataModel = multiSeriesXYDataModel;
-      } else if ( domainColumnIdx >= 0 ) {
-        XYDataModel xyDataModel =
-            createXYDataModel( queryResults, domainColumnIdx, rangeColumnIndex, convertNullsToZero );
-        numberOfDataPoints = xyDataModel.size();
-        chartDataModel = xyDataModel;
-      }
-    } else {
-      if ( ( seriesColumnIdx >= 0 ) ) {
-        MultiSeriesDataModel multiSeriesDataModel =
-            createMultiSeriesDataModel( queryResults, seriesColumnIdx, domainColumnIdx, rangeColumnIndex,
-                convertNullsToZero, metadata );
-        List<DomainData> domainData = multiSeriesDataModel.getDomainData();
-        if ( domainData.size() > 0 ) {
-          for ( DomainData domain : domainData ) {
-            numberOfDataPoints += domain.size();
-          }
-        }
-        chartDataModel = multiSeriesDataModel;
-      } else {
-        NamedValuesDataModel namedValueDataModel =
-            createNamedValueDataModel( queryResults, domainColumnIdx, rangeColumnIndex, convertNullsToZero, true );
-        numberOfDataPoints = namedValueDataModel.size();
-        chartDataModel = namedValueDataModel;
-      }
-    }
-    if ( numberOfDataPoints == 0 ) {
-      throw new NoChartDataException();
-    } else if ( numberOfDataPoints > MAX_ALLOWED_DATA_POINTS ) {
-      throw new ChartDataOverflowException( numberOfDataPoints, MAX_ALLOWED_DATA_POINTS );
-    } else {
-      if ( chartDataModel instanceof IScalableDataModel ) {
-        ( (IScalableDataModel) chartDataModel ).setScalingFactor( scalingFactor );
-      }
-    }
-    return chartDataModel;
+    ChartDataModelBuilder builder =
+        new ChartDataModelBuilder( chartModel, convertNullsToZero, rangeColumnIndex, seriesColumnIdx, domainColumnIdx,
+            metadata );
+    builder.addRows( queryResults, dataModelPool );
+    return builder.build( scalingFactor );
+  }
+
+  /**
+   * Creates the chart data model as specified by the data definition: its scaling factor, whether it converts nulls
+   * to zero, and the number of categories and series the chart is capped to.
+   */
+  public static IChartDataModel createChartDataModel( Object[][] queryResults, ChartDataDefinition dataDefinition,
+      int rangeColumnIndex, int seriesColumnIdx, int domainColumnIdx, ChartModel chartModel,
+      IPentahoMetaData metadata ) throws ChartDataOverflowException, NoChartDataException {
+    ChartDataModelBuilder builder =
+        new ChartDataModelBuilder( chartModel, dataDefinition.getConvertNullsToZero(), rangeColumnIndex,
+            seriesColumnIdx, domainColumnIdx, metadata );
+    builder.setTopNAggregator( TopNAggregator.forDataDefinition( dataDefinition ) );
+    builder.addRows( queryResults, dataModelPool );
+    return builder.build( dataDefinition.getScalingFactor() );
+  }
+
+  /**
+   * Creates the chart data model from query rows which are consumed one at a time. Building stops with a
+   * <code>ChartDataOverflowException</code> as soon as the maximum number of data points is exceeded, leaving the
+   * remaining rows unread.
+   * 
+   * @see ChartDataModelBuilder
+   */
+  public static IChartDataModel createChartDataModel( Iterator<Object[]> queryResults, Number scalingFactor,
+      boolean convertNullsToZero, int rangeColumnIndex, int seriesColumnIdx, int domainColumnIdx, ChartModel chartModel,
+      IPentahoMetaData metadata ) throws ChartDataOverflowException, NoChartDataException {
+    ChartDataModelBuilder builder =
+        new ChartDataModelBuilder( chartModel, convertNullsToZero, rangeColumnIndex, seriesColumnIdx, domainColumnIdx,
+            metadata );
+    builder.addRows( queryResults );
+    return builder.build( scalingFactor );
+  }
+
+  /**
+   * Creates the chart data model from the remaining rows of a result set. Column indexes are 0-based. Building stops
+   * with a <code>ChartDataOverflowException</code> as soon as the maximum number of data points is exceeded, leaving
+   * the remaining rows unread. The result set is not closed.
+   * 
+   * @see ChartDataModelBuilder
+   */
+  public static IChartDataModel createChartDataModel( ResultSet queryResults, Number scalingFactor,
+      boolean convertNullsToZero, int rangeColumnIndex, int seriesColumnIdx, int domainColumnIdx, ChartModel chartModel,
+      IPentahoMetaData metadata ) throws ChartDataOverflowException, NoChartDataException, SQLException {
+    ChartDataModelBuilder builder =
+        new ChartDataModelBuilder( chartModel, convertNullsToZero, rangeColumnIndex, seriesColumnIdx, domainColumnIdx,
+            metadata );
+    builder.addRows( queryResults );
+    return builder.build( scalingFactor );
   }
 
   public static IOutput createChart( ChartModel chartModel, IChartDataModel chartDataModel,
@@ -187,183 +216,152 @@ public class ChartBeanFactory {
     return output;
   }
 
+  /**
+   * Renders the chart of the query results. The returned stream reads the rendered chart in place.
+   */
   public static InputStream createChart( Object[][] queryResults, Number scalingFactor, boolean convertNullsToZero,
       int rangeColumnIndex, int seriesColumnIdx, int domainColumnIdx, ChartModel chartModel,
       IChartLinkGenerator contentLinkGenerator, int width, int height, OutputTypes outputType )
         throws NoChartDataException, ChartDataOverflowException, ChartProcessingException, PersistenceException {
-
     IChartDataModel chartDataModel =
-        createChartDataModel( queryResults, scalingFactor, convertNullsToZero, rangeColumnIndex, seriesColumnIdx,
-            domainColumnIdx, chartModel );
-    IOutput output = createChart( chartModel, chartDataModel, contentLinkGenerator );
-
-    final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-    output.persistChart( outputStream, outputType, width, height );
-    ByteArrayInputStream inputStream = new ByteArrayInputStream( outputStream.toByteArray() );
-
-    return inputStream;
+        buildChartDataModel( queryResults, scalingFactor, convertNullsToZero, rangeColumnIndex, seriesColumnIdx,
+            domainColumnIdx, chartModel, null, width );
+    return renderChart( chartModel, chartDataModel, contentLinkGenerator, width, height, outputType );
   }
 
-  private static MultiSeriesDataModel createMultiSeriesDataModel( Object[][] queryResults, int seriesColumn,
-      int domainColumn, int rangeColumn, boolean convertNullValuesToZero, IPentahoMetaData metaData ) {
-    MultiSeriesDataModel multiSeriesDataModel = new MultiSeriesDataModel();
-
-    for ( int i = 0; i < queryResults.length; i++ ) {
-      String domainValue =
-          domainColumn >= 0 && queryResults[i][domainColumn] != null ? formatSeriesString(
-              queryResults[i][domainColumn], metaData, i, domainColumn ) : "";
-      Object seriesValue =
-          queryResults[i][seriesColumn] != null ? formatSeriesString( queryResults[i][seriesColumn], metaData, i,
-              seriesColumn ) : "null";
-      Object rangeValue = queryResults[i][rangeColumn];
-      if ( rangeValue == null ) {
-        if ( convertNullValuesToZero ) {
-          rangeValue = new Integer( 0 );
-        }
-      } else if ( !( rangeValue instanceof Number ) ) {
-        rangeValue = null;
-      }
-
-      multiSeriesDataModel.addValue( domainValue, seriesValue.toString(), (Number) rangeValue );
-    }
-
-    return multiSeriesDataModel;
+  /**
+   * Renders the chart of the query results as specified by the data definition, see
+   * {@link #createChartDataModel(Object[][], ChartDataDefinition, int, int, int, ChartModel, IPentahoMetaData)}. The
+   * returned stream reads the rendered chart in place.
+   */
+  public static InputStream createChart( Object[][] queryResults, ChartDataDefinition dataDefinition,
+      int rangeColumnIndex, int seriesColumnIdx, int domainColumnIdx, ChartModel chartModel,
+      IChartLinkGenerator contentLinkGenerator, int width, int height, OutputTypes outputType )
+        throws NoChartDataException, ChartDataOverflowException, ChartProcessingException, PersistenceException {
+    IChartDataModel chartDataModel =
+        buildChartDataModel( queryResults, dataDefinition.getScalingFactor(), dataDefinition.getConvertNullsToZero(),
+            rangeColumnIndex, seriesColumnIdx, domainColumnIdx, chartModel,
+            TopNAggregator.forDataDefinition( dataDefinition ), width );
+    return renderChart( chartModel, chartDataModel, contentLinkGenerator, width, height, outputType );
   }
 
-  private static String formatSeriesString( Object data, IPentahoMetaData metaData, int rowNo, int columnNo ) {
-    if ( metaData != null ) {
-      String mask = (String) metaData.getAttribute( META_DATA_ROW_WITH_ATTRIBUTE, columnNo, META_DATA_MASK_ATTRIBUTE );
-      DataType datatype =
-          (DataType) metaData.getAttribute( META_DATA_ROW_WITH_ATTRIBUTE, columnNo, META_DATA_DATATYPE_ATTRIBUTE );
-      return DataFormatter.getFormatedString( datatype, mask, data );
+  /**
+   * Renders the chart of the query results into the output stream, which is neither flushed nor closed.
+   */
+  public static void createChart( Object[][] queryResults, Number scalingFactor, boolean convertNullsToZero,
+      int rangeColumnIndex, int seriesColumnIdx, int domainColumnIdx, ChartModel chartModel,
+      IChartLinkGenerator contentLinkGenerator, int width, int height, OutputTypes outputType,
+      OutputStream outputStream ) throws NoChartDataException, ChartDataOverflowException, ChartProcessingException,
+    PersistenceException {
+    if ( outputStream == null ) {
+      throw new NullPointerException();
     }
-    return data.toString();
-  }
-
-  private static MultiSeriesXYDataModel createMultiSeriesXYDataModel( Object[][] queryResults, int seriesColumn,
-      int domainColumn, int rangeColumn, boolean convertNullValuesToZero, IPentahoMetaData metadata ) {
-    MultiSeriesXYDataModel multiSeriesDataModel = new MultiSeriesXYDataModel();
-
-    for ( int i = 0; i < queryResults.length; i++ ) {
-      Object domainValue = queryResults[i][domainColumn];
-      String seriesName =
-          queryResults[i][seriesColumn] != null ? formatSeriesString( queryResults[i][seriesColumn], metadata, i,
-              seriesColumn ) : "null";
-
-      if ( domainValue == null ) {
-        if ( convertNullValuesToZero ) {
-          domainValue = new Integer( 0 );
-        }
-      } else if ( !( domainValue instanceof Number ) ) {
-        domainValue = null;
-      }
-
-      Object rangeValue = queryResults[i][rangeColumn];
-      if ( rangeValue == null ) {
-        if ( convertNullValuesToZero ) {
-          rangeValue = new Integer( 0 );
-        }
-      } else if ( !( rangeValue instanceof Number ) ) {
-        rangeValue = null;
+    IChartDataModel chartDataModel =
+        buildChartDataModel( queryResults, scalingFactor, convertNullsToZero, rangeColumnIndex, seriesColumnIdx,
+            domainColumnIdx, chartModel, null, width );
+    ChartResultCache cache = chartResultCache;
+    if ( cache != null ) {
+      try {
+        outputStream.write( cache.getChart( chartModel, chartDataModel, contentLinkGenerator, width, height,
+            outputType ) );
+      } catch ( IOException e ) {
+        throw new PersistenceException( e );
       }
-
-      multiSeriesDataModel.addDataPoint( seriesName, (Number) domainValue, (Number) rangeValue );
+      return;
     }
-
-    return multiSeriesDataModel;
+    createChart( chartModel, chartDataModel, contentLinkGenerator ).persistChart( outputStream, outputType, width,
+        height );
   }
 
-  private static NamedValuesDataModel createNamedValueDataModel( Object[][] queryResults, int domainColumn,
-      int rangeColumn, boolean convertNullsToZero, boolean autoSum ) {
-    NamedValuesDataModel basicChartDataModel = new NamedValuesDataModel();
-
-    for ( int i = 0; i < queryResults.length; i++ ) {
-      Object domainValue = null;
-      if ( domainColumn > -1 ) {
-        domainValue = queryResults[i][domainColumn];
-      }
-      if ( domainValue == null ) {
-        domainValue = "null";
-      }
-
-      String name = domainValue.toString();
-
-      Object rangeValue = queryResults[i][rangeColumn];
-      if ( rangeValue == null ) {
-        if ( convertNullsToZero ) {
-          rangeValue = new Integer( 0 );
-        }
-      } else if ( !( rangeValue instanceof Number ) ) {
-        rangeValue = null;
-      }
-
-      if ( autoSum ) {
-        NamedValue existingDataPoint = basicChartDataModel.getNamedValue( name );
-        if ( existingDataPoint == null ) {
-          basicChartDataModel.add( new NamedValue( name, (Number) rangeValue ) );
-        } else if ( existingDataPoint.getValue() == null ) {
-          existingDataPoint.setValue( (Number) rangeValue );
-        } else if ( rangeValue != null ) {
-          existingDataPoint.setValue( ( (Number) existingDataPoint.getValue() ).doubleValue() + ( (Number) rangeValue )
-              .doubleValue() );
+  /**
+   * Renders the chart of the query results into the channel, which is not closed. The chart is written through a
+   * buffer of {@link #CHANNEL_BUFFER_SIZE} bytes.
+   */
+  public static void createChart( Object[][] queryResults, Number scalingFactor, boolean convertNullsToZero,
+      int rangeColumnIndex, int seriesColumnIdx, int domainColumnIdx, ChartModel chartModel,
+      IChartLinkGenerator contentLinkGenerator, int width, int height, OutputTypes outputType,
+      WritableByteChannel channel ) throws NoChartDataException, ChartDataOverflowException,
+    ChartProcessingException, PersistenceException {
+    if ( channel == null ) {
+      throw new NullPointerException();
+    }
+    IChartDataModel chartDataModel =
+        buildChartDataModel( queryResults, scalingFactor, convertNullsToZero, rangeColumnIndex, seriesColumnIdx,
+            domainColumnIdx, chartModel, null, width );
+    try {
+      ChartResultCache cache = chartResultCache;
+      if ( cache != null ) {
+        ByteBuffer chart =
+            ByteBuffer.wrap( cache.getChart( chartModel, chartDataModel, contentLinkGenerator, width, height,
+                outputType ) );
+        while ( chart.hasRemaining() ) {
+          channel.write( chart );
         }
-      } else {
-        basicChartDataModel.add( new NamedValue( name, (Number) rangeValue ) );
+        return;
       }
+      OutputStream outputStream =
+          new BufferedOutputStream( Channels.newOutputStream( channel ), CHANNEL_BUFFER_SIZE );
+      createChart( chartModel, chartDataModel, contentLinkGenerator ).persistChart( outputStream, outputType, width,
+          height );
+      outputStream.flush();
+    } catch ( IOException e ) {
+      throw new PersistenceException( e );
     }
-
-    return basicChartDataModel;
   }
 
-  private static BasicDataModel createBasicDataModel( Object[][] queryResults, int rangeColumn,
-      boolean convertNullsToZero, boolean autoSum ) {
-    BasicDataModel oneDimensionalDataModel = new BasicDataModel( autoSum );
-
-    for ( int i = 0; i < queryResults.length; i++ ) {
-      Object rangeValue = queryResults[i][rangeColumn];
-      if ( rangeValue == null ) {
-        if ( convertNullsToZero ) {
-          rangeValue = new Integer( 0 );
-        }
-      } else if ( !( rangeValue instanceof Number ) ) {
-        rangeValue = null;
-      }
-
-      oneDimensionalDataModel.addDataPoint( (Number) rangeValue );
+  /**
+   * Renders the chart of the query results into the buffer, starting at its position. If the chart doesn't fit in the
+   * buffer, the content of the buffer is moved to a larger buffer of the same kind (heap or direct); the buffer passed
+   * in must not be used afterwards in that case, so that it can be taken from and returned to a pool.
+   *
+   * @return the buffer holding the chart, flipped for reading: either the specified buffer or a larger one
+   */
+  public static ByteBuffer createChart( Object[][] queryResults, Number scalingFactor, boolean convertNullsToZero,
+      int rangeColumnIndex, int seriesColumnIdx, int domainColumnIdx, ChartModel chartModel,
+      IChartLinkGenerator contentLinkGenerator, int width, int height, OutputTypes outputType, ByteBuffer buffer )
+        throws NoChartDataException, ChartDataOverflowException, ChartProcessingException, PersistenceException {
+    ByteBufferOutputStream outputStream = new ByteBufferOutputStream( buffer );
+    IChartDataModel chartDataModel =
+        buildChartDataModel( queryResults, scalingFactor, convertNullsToZero, rangeColumnIndex, seriesColumnIdx,
+            domainColumnIdx, chartModel, null, width );
+    ChartResultCache cache = chartResultCache;
+    if ( cache != null ) {
+      outputStream.write( ByteBuffer.wrap( cache.getChart( chartModel, chartDataModel, contentLinkGenerator, width,
+          height, outputType ) ) );
+    } else {
+      createChart( chartModel, chartDataModel, contentLinkGenerator ).persistChart( outputStream, outputType, width,
+          height );
     }
-
-    return oneDimensionalDataModel;
+    ByteBuffer chart = outputStream.getBuffer();
+    chart.flip();
+    return chart;
   }
 
-  private static XYDataModel createXYDataModel( Object[][] queryResults, int seriesColumn, int rangeColumn,
-      boolean convertNullsToZero ) {
-    XYDataModel basicChartDataModel = new XYDataModel();
-
-    for ( int i = 0; i < queryResults.length; i++ ) {
-      Object domainValue = queryResults[i][rangeColumn];
-      if ( domainValue == null ) {
-        if ( convertNullsToZero ) {
-          domainValue = new Integer( 0 );
-        }
-      } else if ( !( domainValue instanceof Number ) ) {
-        domainValue = null;
-      }
-
-      Object rangeValue = queryResults[i][rangeColumn];
-      if ( rangeValue == null ) {
-        if ( convertNullsToZero ) {
-          rangeValue = new Integer( 0 );
-        }
-      } else if ( !( rangeValue instanceof Number ) ) {
-        rangeValue = null;
-      }
-
-      if ( ( domainValue != null ) && ( rangeValue != null ) ) {
-        basicChartDataModel.add( new XYDataPoint( (Number) domainValue, (Number) rangeValue ) );
-      }
+  private static InputStream renderChart( ChartModel chartModel, IChartDataModel chartDataModel,
+      IChartLinkGenerator contentLinkGenerator, int width, int height, OutputTypes outputType )
+        throws ChartProcessingException, PersistenceException {
+    ChartResultCache cache = chartResultCache;
+    if ( cache != null ) {
+      return new ByteArrayInputStream( cache.getChart( chartModel, chartDataModel, contentLinkGenerator, width, height,
+          outputType ) );
     }
+    ChartOutputBuffer outputBuffer = new ChartOutputBuffer();
+    createChart( chartModel, chartDataModel, contentLinkGenerator ).persistChart( outputBuffer, outputType, width,
+        height );
+    return outputBuffer.toInputStream();
+  }
 
-    return basicChartDataModel;
+  private static IChartDataModel buildChartDataModel( Object[][] queryResults, Number scalingFactor,
+      boolean convertNullsToZero, int rangeColumnIndex, int seriesColumnIdx, int domainColumnIdx,
+      ChartModel chartModel, TopNAggregator topNAggregator, int width ) throws NoChartDataException,
+    ChartDataOverflowException {
+    ChartDataModelBuilder builder =
+        new ChartDataModelBuilder( chartModel, convertNullsToZero, rangeColumnIndex, seriesColumnIdx, domainColumnIdx,
+            null );
+    builder.setDataDecimator( dataDecimator, width );
+    builder.setTopNAggregator( topNAggregator );
+    builder.addRows( queryResults, dataModelPool );
+    return builder.build( scalingFactor );
   }
 
 }
@@ -0,0 +1,630 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.pentaho.chart.data.BasicDataModel;
+import org.pentaho.chart.data.IChartDataModel;
+import org.pentaho.chart.data.IDataDecimator;
+import org.pentaho.chart.data.IScalableDataModel;
+import org.pentaho.chart.data.MultiSeriesDataModel;
+import org.pentaho.chart.data.MultiSeriesXYDataModel;
+import org.pentaho.chart.data.NamedValue;
+import org.pentaho.chart.data.NamedValuesDataModel;
+import org.pentaho.chart.data.TopNAggregator;
+import org.pentaho.chart.data.XYDataModel;
+import org.pentaho.chart.data.XYDataPoint;
+import org.pentaho.chart.model.AreaPlot;
+import org.pentaho.chart.model.ChartModel;
+import org.pentaho.chart.model.DialPlot;
+import org.pentaho.chart.model.LinePlot;
+import org.pentaho.chart.model.PiePlot;
+import org.pentaho.chart.model.Plot;
+import org.pentaho.chart.model.ScatterPlot;
+import org.pentaho.chart.plugin.ChartDataOverflowException;
+import org.pentaho.chart.plugin.NoChartDataException;
+import org.pentaho.commons.connection.IPentahoMetaData;
+import org.pentaho.metadata.model.concept.types.DataType;
+import org.pentaho.metadata.model.concept.util.DataFormatter;
+
+/**
+ * Builds the chart data model for a chart one query row at a time, so a query result never has to be materialized as
+ * an <code>Object[][]</code> before the model is built. The kind of model created is chosen from the chart's plot the
+ * same way {@link ChartBeanFactory#createChartDataModel(Object[][], Number, boolean, int, int, int, ChartModel,
+ * IPentahoMetaData)} does.
+ * <p/>
+ * The number of data points is tracked while rows are added and a <code>ChartDataOverflowException</code> is thrown
+ * as soon as the maximum allowed number of data points is exceeded, without reading the remaining rows. Line and
+ * area charts can instead be decimated to a target number of points, see
+ * {@link #setDataDecimator(IDataDecimator, int)}. The number of categories and series can be capped as well, see
+ * {@link #setTopNAggregator(TopNAggregator)}.
+ * <p/>
+ * Rows passed to the builder are not retained, so callers may reuse the same row array. Instances are not thread
+ * safe, but large row arrays can be added in parallel, see {@link #addRows(Object[][], ForkJoinPool)}.
+ */
+public class ChartDataModelBuilder {
+
+  private static final String META_DATA_MASK_ATTRIBUTE = "mask"; //$NON-NLS-1$
+  private static final String META_DATA_DATATYPE_ATTRIBUTE = "datatype"; //$NON-NLS-1$
+  private static final int META_DATA_ROW_WITH_ATTRIBUTE = 0;
+  /**
+   * Number of rows below which rows are added on a single thread.
+   */
+  private static final int PARALLEL_CHUNK_SIZE = 8192;
+  /**
+   * Number of distinct values whose label is remembered per column.
+   */
+  private static final int MAX_FORMATTED_VALUES = 4096;
+  /**
+   * Smallest number of points a model is decimated to, below which decimators leave the model unchanged.
+   */
+  private static final int MIN_DECIMATED_POINTS = 3;
+
+  private final boolean convertNullsToZero;
+  private final int rangeColumn;
+  private final int seriesColumn;
+  private final int domainColumn;
+  private final IPentahoMetaData metaData;
+  private ColumnFormatter[] columnFormatters = new ColumnFormatter[0];
+  private final boolean decimatable;
+  private int maxDataPoints = ChartBeanFactory.getMaxDataPointsPerChart();
+  private IDataDecimator dataDecimator;
+  private int targetPoints;
+  private TopNAggregator topNAggregator;
+
+  private NamedValuesDataModel namedValuesDataModel;
+  private Map<String, NamedValue> namedValueIndex;
+  private int namedValueColumn = -1;
+  private BasicDataModel basicDataModel;
+  private MultiSeriesXYDataModel multiSeriesXYDataModel;
+  private XYDataModel xyDataModel;
+  private MultiSeriesDataModel multiSeriesDataModel;
+
+  private int numberOfDataPoints;
+
+  /**
+   * Creates a builder for the data model of the specified chart.
+   *
+   * @param chartModel         the chart the data model is built for; its plot decides the kind of data model
+   * @param convertNullsToZero whether <code>null</code> numeric values are converted to zero
+   * @param rangeColumnIndex   the index of the range (value) column
+   * @param seriesColumnIdx    the index of the series column, or <code>-1</code>
+   * @param domainColumnIdx    the index of the domain (category) column, or <code>-1</code>
+   * @param metadata           metadata used to format series and domain names, may be <code>null</code>
+   */
+  public ChartDataModelBuilder( ChartModel chartModel, boolean convertNullsToZero, int rangeColumnIndex,
+      int seriesColumnIdx, int domainColumnIdx, IPentahoMetaData metadata ) {
+    this.convertNullsToZero = convertNullsToZero;
+    this.rangeColumn = rangeColumnIndex;
+    this.seriesColumn = seriesColumnIdx;
+    this.domainColumn = domainColumnIdx;
+    this.metaData = metadata;
+
+    Plot plot = chartModel.getPlot();
+    this.decimatable = ( plot instanceof LinePlot ) || ( plot instanceof AreaPlot );
+    if ( ( plot instanceof PiePlot ) && ( seriesColumnIdx >= 0 ) && ( rangeColumnIndex >= 0 ) ) {
+      createNamedValuesDataModel( seriesColumnIdx );
+    } else if ( ( plot instanceof DialPlot ) && ( rangeColumnIndex >= 0 ) ) {
+      basicDataModel = new BasicDataModel( true );
+    } else if ( plot instanceof ScatterPlot ) {
+      if ( ( seriesColumnIdx >= 0 ) && ( domainColumnIdx >= 0 ) ) {
+        multiSeriesXYDataModel = new MultiSeriesXYDataModel();
+      } else if ( domainColumnIdx >= 0 ) {
+        xyDataModel = new XYDataModel();
+      }
+    } else if ( seriesColumnIdx >= 0 ) {
+      multiSeriesDataModel = new MultiSeriesDataModel();
+    } else {
+      createNamedValuesDataModel( domainColumnIdx );
+    }
+  }
+
+  /**
+   * Creates an empty builder of the same kind of data model and with the same settings as <code>template</code>.
+   */
+  private ChartDataModelBuilder( ChartDataModelBuilder template ) {
+    this.convertNullsToZero = template.convertNullsToZero;
+    this.rangeColumn = template.rangeColumn;
+    this.seriesColumn = template.seriesColumn;
+    this.domainColumn = template.domainColumn;
+    this.metaData = template.metaData;
+    this.decimatable = template.decimatable;
+    this.maxDataPoints = template.maxDataPoints;
+    this.dataDecimator = template.dataDecimator;
+    this.targetPoints = template.targetPoints;
+    this.topNAggregator = template.topNAggregator;
+    if ( template.namedValuesDataModel != null ) {
+      createNamedValuesDataModel( template.namedValueColumn );
+    } else if ( template.basicDataModel != null ) {
+      basicDataModel = new BasicDataModel( true );
+    } else if ( template.multiSeriesXYDataModel != null ) {
+      multiSeriesXYDataModel = new MultiSeriesXYDataModel();
+    } else if ( template.xyDataModel != null ) {
+      xyDataModel = new XYDataModel();
+    } else if ( template.multiSeriesDataModel != null ) {
+      multiSeriesDataModel = new MultiSeriesDataModel();
+    }
+  }
+
+  public int getMaxDataPoints() {
+    return maxDataPoints;
+  }
+
+  /**
+   * Overrides the maximum number of data points, which defaults to
+   * {@link ChartBeanFactory#getMaxDataPointsPerChart()}.
+   */
+  public void setMaxDataPoints( int maxDataPoints ) {
+    if ( maxDataPoints > 0 ) {
+      this.maxDataPoints = maxDataPoints;
+    }
+  }
+
+  public IDataDecimator getDataDecimator() {
+    return dataDecimator;
+  }
+
+  /**
+   * Sets the decimator applied to line and area chart models when they are built. The rows added to those models are
+   * not limited to the maximum number of data points; they are decimated instead, to at most
+   * <code>targetPoints</code> domains and as many domains as the maximum number of data points allows for their
+   * series. Other charts are not affected.
+   *
+   * @param dataDecimator the decimator, or <code>null</code> to enforce the maximum number of data points
+   * @param targetPoints  the number of points to keep, typically the width of the chart in pixels
+   */
+  public void setDataDecimator( IDataDecimator dataDecimator, int targetPoints ) {
+    this.dataDecimator = dataDecimator;
+    this.targetPoints = targetPoints;
+  }
+
+  public TopNAggregator getTopNAggregator() {
+    return topNAggregator;
+  }
+
+  /**
+   * Sets the aggregator folding the smallest categories and series into "Other" when the model is built. The
+   * maximum number of data points then applies to the aggregated model rather than to the rows added.
+   *
+   * @param topNAggregator the aggregator, or <code>null</code> to keep every category and series
+   */
+  public void setTopNAggregator( TopNAggregator topNAggregator ) {
+    this.topNAggregator = topNAggregator;
+  }
+
+  /**
+   * Returns the number of data points in the model built so far.
+   */
+  public int getNumberOfDataPoints() {
+    return numberOfDataPoints;
+  }
+
+  /**
+   * Adds a single query row to the data model.
+   *
+   * @param row the row values, indexed by column
+   * @throws ChartDataOverflowException if the row takes the model over the maximum allowed number of data points
+   */
+  public void addRow( Object[] row ) throws ChartDataOverflowException {
+    if ( namedValuesDataModel != null ) {
+      addNamedValue( row );
+      numberOfDataPoints = namedValuesDataModel.size();
+    } else if ( basicDataModel != null ) {
+      // Dial charts always chart nulls as zero
+      basicDataModel.addDataPoint( toNumber( row[rangeColumn], true ) );
+      numberOfDataPoints = basicDataModel.getData().size();
+    } else if ( multiSeriesXYDataModel != null ) {
+      addMultiSeriesXYDataPoint( row );
+      numberOfDataPoints++;
+    } else if ( xyDataModel != null ) {
+      addXYDataPoint( row );
+      numberOfDataPoints = xyDataModel.size();
+    } else if ( multiSeriesDataModel != null ) {
+      addMultiSeriesValue( row );
+      numberOfDataPoints = multiSeriesDataModel.getDomainCount() * multiSeriesDataModel.getSeriesCount();
+    }
+
+    checkDataPoints();
+  }
+
+  public void addRows( Object[][] rows ) throws ChartDataOverflowException {
+    for ( int i = 0; i < rows.length; i++ ) {
+      addRow( rows[i] );
+    }
+  }
+
+  /**
+   * Adds the rows using the fork/join pool. Chunks of rows are added to partial data models in parallel, which are
+   * then merged in row order, so the model is the same as if the rows were added one by one: values of the same
+   * category and series are summed, and categories and series keep the order in which they were first seen. The
+   * metadata, if any, must support concurrent reads.
+   * <p/>
+   * Unlike adding rows one by one, every row is read before an overflow is reported.
+   *
+   * @param pool the pool adding the rows, or <code>null</code> to add them on the calling thread
+   */
+  public void addRows( Object[][] rows, ForkJoinPool pool ) throws ChartDataOverflowException {
+    if ( ( pool == null ) || ( rows.length <= PARALLEL_CHUNK_SIZE ) || ( pool.getParallelism() < 2 ) ) {
+      addRows( rows );
+      return;
+    }
+    ChartDataModelBuilder partial;
+    try {
+      partial = pool.invoke( new AddRowsTask( this, rows, 0, rows.length ) );
+    } catch ( RuntimeException e ) {
+      // The pool may rethrow a copy of the exception thrown by the task
+      for ( Throwable cause = e; cause != null; cause = cause.getCause() ) {
+        if ( cause instanceof ChartDataOverflowException ) {
+          throw (ChartDataOverflowException) cause;
+        }
+      }
+      throw e;
+    }
+    merge( partial );
+    checkDataPoints();
+  }
+
+  public void addRows( Iterator<Object[]> rows ) throws ChartDataOverflowException {
+    while ( rows.hasNext() ) {
+      addRow( rows.next() );
+    }
+  }
+
+  /**
+   * Adds the remaining rows of the result set. Column indexes used by this builder are 0-based, so column
+   * <code>i</code> refers to result set column <code>i + 1</code>. The result set is not closed.
+   */
+  public void addRows( ResultSet resultSet ) throws SQLException, ChartDataOverflowException {
+    Object[] row = new Object[resultSet.getMetaData().getColumnCount()];
+    while ( resultSet.next() ) {
+      for ( int i = 0; i < row.length; i++ ) {
+        row[i] = resultSet.getObject( i + 1 );
+      }
+      addRow( row );
+    }
+  }
+
+  /**
+   * Returns the data model built from the rows added so far.
+   *
+   * @param scalingFactor the scaling factor applied to scalable data models
+   * @throws NoChartDataException if the model holds no data points
+   * @throws ChartDataOverflowException if a decimated model has too many series to fit the maximum allowed number of
+   *                                    data points
+   */
+  public IChartDataModel build( Number scalingFactor ) throws NoChartDataException, ChartDataOverflowException {
+    if ( numberOfDataPoints == 0 ) {
+      throw new NoChartDataException();
+    }
+
+    IChartDataModel chartDataModel = null;
+    if ( namedValuesDataModel != null ) {
+      chartDataModel = namedValuesDataModel;
+    } else if ( basicDataModel != null ) {
+      chartDataModel = basicDataModel;
+    } else if ( multiSeriesXYDataModel != null ) {
+      chartDataModel = multiSeriesXYDataModel;
+    } else if ( xyDataModel != null ) {
+      chartDataModel = xyDataModel;
+    } else if ( multiSeriesDataModel != null ) {
+      chartDataModel = multiSeriesDataModel;
+    }
+    if ( chartDataModel instanceof IScalableDataModel ) {
+      ( (IScalableDataModel) chartDataModel ).setScalingFactor( scalingFactor );
+    }
+    if ( topNAggregator != null ) {
+      chartDataModel = topNAggregator.aggregate( chartDataModel );
+    }
+    if ( isDecimated() ) {
+      chartDataModel = decimate( chartDataModel );
+    }
+    return chartDataModel;
+  }
+
+  /**
+   * Decimates the model to the target number of points, or fewer if its series would otherwise chart more than the
+   * maximum number of data points.
+   */
+  private IChartDataModel decimate( IChartDataModel chartDataModel ) throws ChartDataOverflowException {
+    int seriesCount =
+        ( chartDataModel instanceof MultiSeriesDataModel ) ? ( (MultiSeriesDataModel) chartDataModel ).getSeriesCount()
+            : 1;
+    int points = Math.min( targetPoints, maxDataPoints / Math.max( seriesCount, 1 ) );
+    IChartDataModel decimatedModel = dataDecimator.decimate( chartDataModel, points );
+    int chartedDataPoints = getDataPoints( decimatedModel );
+    // The domains kept are the union of those kept for each series, so the target is lowered until the union fits
+    while ( ( chartedDataPoints > maxDataPoints ) && ( points > MIN_DECIMATED_POINTS ) ) {
+      points = Math.max( MIN_DECIMATED_POINTS,
+          Math.min( points - 1, (int) ( (long) points * maxDataPoints / chartedDataPoints ) ) );
+      decimatedModel = dataDecimator.decimate( chartDataModel, points );
+      chartedDataPoints = getDataPoints( decimatedModel );
+    }
+    if ( chartedDataPoints > maxDataPoints ) {
+      throw new ChartDataOverflowException( chartedDataPoints, maxDataPoints );
+    }
+    return decimatedModel;
+  }
+
+  private void checkDataPoints() throws ChartDataOverflowException {
+    if ( !isDecimated() ) {
+      int chartedDataPoints = getChartedDataPoints();
+      if ( chartedDataPoints > maxDataPoints ) {
+        throw new ChartDataOverflowException( chartedDataPoints, maxDataPoints );
+      }
+    }
+  }
+
+  /**
+   * Appends the data added to another builder of the same kind, as if its rows had been added to this builder.
+   */
+  private void merge( ChartDataModelBuilder partial ) {
+    if ( namedValuesDataModel != null ) {
+      for ( NamedValue namedValue : partial.namedValuesDataModel ) {
+        addNamedValue( namedValue.getName(), namedValue.getValue() );
+      }
+      numberOfDataPoints = namedValuesDataModel.size();
+    } else if ( basicDataModel != null ) {
+      for ( Number value : partial.basicDataModel.getData() ) {
+        basicDataModel.addDataPoint( value );
+      }
+      numberOfDataPoints = basicDataModel.getData().size();
+    } else if ( multiSeriesXYDataModel != null ) {
+      for ( Map.Entry<String, XYDataModel> series : partial.multiSeriesXYDataModel.getSeriesData().entrySet() ) {
+        for ( XYDataPoint dataPoint : series.getValue() ) {
+          multiSeriesXYDataModel.addDataPoint( series.getKey(), dataPoint.getDomainValue(), dataPoint.getRangeValue() );
+        }
+      }
+      numberOfDataPoints += partial.numberOfDataPoints;
+    } else if ( xyDataModel != null ) {
+      xyDataModel.addAll( partial.xyDataModel );
+      numberOfDataPoints = xyDataModel.size();
+    } else if ( multiSeriesDataModel != null ) {
+      mergeMultiSeries( partial.multiSeriesDataModel );
+      numberOfDataPoints = multiSeriesDataModel.getDomainCount() * multiSeriesDataModel.getSeriesCount();
+    }
+  }
+
+  private void mergeMultiSeries( MultiSeriesDataModel partial ) {
+    List<String> domainNames = partial.getDomainNames();
+    List<String> seriesNames = partial.getSeriesNames();
+    if ( domainNames.isEmpty() ) {
+      return;
+    }
+    // Register the categories and series in the order the partial model first saw them, including those without
+    // any value, then sum the values
+    for ( String seriesName : seriesNames ) {
+      multiSeriesDataModel.addValue( domainNames.get( 0 ), seriesName, null );
+    }
+    for ( String domainName : domainNames ) {
+      multiSeriesDataModel.addValue( domainName, seriesNames.get( 0 ), null );
+    }
+    for ( int series = 0; series < seriesNames.size(); series++ ) {
+      for ( int domain = 0; domain < domainNames.size(); domain++ ) {
+        Number value = partial.getValue( series, domain );
+        if ( value != null ) {
+          multiSeriesDataModel.addValue( domainNames.get( domain ), seriesNames.get( series ), value );
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the number of data points the built model will chart, once the categories and series capped by the top
+   * N aggregator have been folded.
+   */
+  private int getChartedDataPoints() {
+    if ( topNAggregator == null ) {
+      return numberOfDataPoints;
+    } else if ( namedValuesDataModel != null ) {
+      return cap( namedValuesDataModel.size(), topNAggregator.getMaxCategories() );
+    } else if ( multiSeriesDataModel != null ) {
+      return cap( multiSeriesDataModel.getDomainCount(), topNAggregator.getMaxCategories() )
+          * cap( multiSeriesDataModel.getSeriesCount(), topNAggregator.getMaxSeries() );
+    }
+    return numberOfDataPoints;
+  }
+
+  /**
+   * Returns the number of data points of a built model, or of the rows added if the model isn't a category model.
+   */
+  private int getDataPoints( IChartDataModel chartDataModel ) {
+    if ( chartDataModel instanceof NamedValuesDataModel ) {
+      return ( (NamedValuesDataModel) chartDataModel ).size();
+    } else if ( chartDataModel instanceof MultiSeriesDataModel ) {
+      MultiSeriesDataModel model = (MultiSeriesDataModel) chartDataModel;
+      return model.getDomainCount() * model.getSeriesCount();
+    }
+    return numberOfDataPoints;
+  }
+
+  private static int cap( int count, int max ) {
+    // The capped entries are followed by "Other"
+    return ( max > 0 ) && ( count > max ) ? max + 1 : count;
+  }
+
+  private boolean isDecimated() {
+    return decimatable && ( dataDecimator != null );
+  }
+
+  private void createNamedValuesDataModel( int nameColumn ) {
+    namedValuesDataModel = new NamedValuesDataModel();
+    namedValueIndex = new HashMap<String, NamedValue>();
+    namedValueColumn = nameColumn;
+  }
+
+  private void addNamedValue( Object[] row ) {
+    Object domainValue = null;
+    if ( namedValueColumn > -1 ) {
+      domainValue = row[namedValueColumn];
+    }
+    if ( domainValue == null ) {
+      domainValue = "null";
+    }
+
+    addNamedValue( domainValue.toString(), toNumber( row[rangeColumn], convertNullsToZero ) );
+  }
+
+  private void addNamedValue( String name, Number rangeValue ) {
+    NamedValue existingDataPoint = namedValueIndex.get( name );
+    if ( existingDataPoint == null ) {
+      NamedValue namedValue = new NamedValue( name, rangeValue );
+      namedValuesDataModel.add( namedValue );
+      namedValueIndex.put( name, namedValue );
+    } else if ( existingDataPoint.getValue() == null ) {
+      existingDataPoint.setValue( rangeValue );
+    } else if ( rangeValue != null ) {
+      existingDataPoint.setValue( existingDataPoint.getValue().doubleValue() + rangeValue.doubleValue() );
+    }
+  }
+
+  private void addMultiSeriesValue( Object[] row ) {
+    String domainValue =
+        domainColumn >= 0 && row[domainColumn] != null ? formatSeriesString( row[domainColumn], domainColumn ) : "";
+    String seriesValue = row[seriesColumn] != null ? formatSeriesString( row[seriesColumn], seriesColumn ) : "null";
+    multiSeriesDataModel.addValue( domainValue, seriesValue, toNumber( row[rangeColumn], convertNullsToZero ) );
+  }
+
+  private void addMultiSeriesXYDataPoint( Object[] row ) {
+    String seriesName = row[seriesColumn] != null ? formatSeriesString( row[seriesColumn], seriesColumn ) : "null";
+    multiSeriesXYDataModel.addDataPoint( seriesName, toNumber( row[domainColumn], convertNullsToZero ),
+        toNumber( row[rangeColumn], convertNullsToZero ) );
+  }
+
+  private void addXYDataPoint( Object[] row ) {
+    // The domain value has always been read from the range column for single series scatter charts
+    Number domainValue = toNumber( row[rangeColumn], convertNullsToZero );
+    Number rangeValue = toNumber( row[rangeColumn], convertNullsToZero );
+    if ( ( domainValue != null ) && ( rangeValue != null ) ) {
+      xyDataModel.add( new XYDataPoint( domainValue, rangeValue ) );
+    }
+  }
+
+  /**
+   * Converts a raw query value into the number charted for it: <code>null</code> becomes zero when
+   * <code>convertNulls</code> is set, and anything which is not a number becomes <code>null</code>.
+   */
+  private static Number toNumber( Object value, boolean convertNulls ) {
+    if ( value == null ) {
+      return convertNulls ? Integer.valueOf( 0 ) : null;
+    }
+    return value instanceof Number ? (Number) value : null;
+  }
+
+  private String formatSeriesString( Object data, int columnNo ) {
+    if ( metaData != null ) {
+      return getColumnFormatter( columnNo ).format( data );
+    }
+    return data.toString();
+  }
+
+  private ColumnFormatter getColumnFormatter( int columnNo ) {
+    if ( columnNo >= columnFormatters.length ) {
+      ColumnFormatter[] formatters = new ColumnFormatter[columnNo + 1];
+      System.arraycopy( columnFormatters, 0, formatters, 0, columnFormatters.length );
+      columnFormatters = formatters;
+    }
+    ColumnFormatter formatter = columnFormatters[columnNo];
+    if ( formatter == null ) {
+      String mask = (String) metaData.getAttribute( META_DATA_ROW_WITH_ATTRIBUTE, columnNo, META_DATA_MASK_ATTRIBUTE );
+      DataType datatype =
+          (DataType) metaData.getAttribute( META_DATA_ROW_WITH_ATTRIBUTE, columnNo, META_DATA_DATATYPE_ATTRIBUTE );
+      formatter = new ColumnFormatter( datatype, mask );
+      columnFormatters[columnNo] = formatter;
+    }
+    return formatter;
+  }
+
+  /**
+   * Formats the labels of one column with the mask and data type the metadata holds for it. Query results usually
+   * repeat a few distinct labels (months, regions) over many rows, so the label of each distinct value is remembered
+   * and formatted only once; past <code>MAX_FORMATTED_VALUES</code> distinct values the remaining ones are formatted
+   * every time. Each builder has its own formatters, so they are never shared between threads.
+   */
+  private static class ColumnFormatter {
+    private final DataType datatype;
+    private final String mask;
+    private final Map<Object, String> formattedValues = new HashMap<Object, String>();
+
+    ColumnFormatter( DataType datatype, String mask ) {
+      this.datatype = datatype;
+      this.mask = mask;
+    }
+
+    String format( Object data ) {
+      String formatted = formattedValues.get( data );
+      if ( formatted == null ) {
+        formatted = DataFormatter.getFormatedString( datatype, mask, data );
+        if ( formattedValues.size() < MAX_FORMATTED_VALUES ) {
+          formattedValues.put( data, formatted );
+        }
+      }
+      return formatted;
+    }
+  }
+
+  /**
+   * Adds a range of rows to a new partial builder, splitting the range in halves added in parallel and merged in row
+   * order while it is larger than <code>PARALLEL_CHUNK_SIZE</code>.
+   */
+  private static class AddRowsTask extends RecursiveTask<ChartDataModelBuilder> {
+    private static final long serialVersionUID = 1L;
+
+    private final ChartDataModelBuilder template;
+    private final Object[][] rows;
+    private final int from;
+    private final int to;
+
+    AddRowsTask( ChartDataModelBuilder template, Object[][] rows, int from, int to ) {
+      this.template = template;
+      this.rows = rows;
+      this.from = from;
+      this.to = to;
+    }
+
+    protected ChartDataModelBuilder compute() {
+      if ( to - from <= PARALLEL_CHUNK_SIZE ) {
+        ChartDataModelBuilder partial = new ChartDataModelBuilder( template );
+        try {
+          for ( int i = from; i < to; i++ ) {
+            partial.addRow( rows[i] );
+          }
+        } catch ( ChartDataOverflowException e ) {
+          // A part of the rows already holds too many data points, and merging only adds to them
+          throw new IllegalStateException( e );
+        }
+        return partial;
+      }
+      int middle = ( from + to ) >>> 1;
+      AddRowsTask first = new AddRowsTask( template, rows, from, middle );
+      AddRowsTask second = new AddRowsTask( template, rows, middle, to );
+      first.fork();
+      ChartDataModelBuilder secondPartial = second.compute();
+      ChartDataModelBuilder firstPartial = first.join();
+      firstPartial.merge( secondPartial );
+      return firstPartial;
+    }
+  }
+}
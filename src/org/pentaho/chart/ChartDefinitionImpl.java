@@ -22,6 +22,7 @@ import org.pentaho.reporting.libraries.resourceloader.ResourceException;
 import org.pentaho.reporting.libraries.resourceloader.ResourceKey;
 import org.pentaho.reporting.libraries.resourceloader.ResourceManager;
 import org.pentaho.chart.core.ChartDocument;
+import org.pentaho.chart.core.parser.ChartParsingService;
 
 /**
  * The implementation of the ChartDefinition interface. This class
@@ -65,8 +66,7 @@ public class ChartDefinitionImpl implements ChartDefinition {
     this.chartKey = this.chartDocument.getResourceKey();
     this.resourceManager = this.chartDocument.getResourceManager();
     if (this.resourceManager == null) {
-      this.resourceManager = new ResourceManager();
-      this.resourceManager.registerDefaults();
+      this.resourceManager = ChartParsingService.getInstance().getResourceManager();
     }
   }
 
@@ -95,8 +95,7 @@ public class ChartDefinitionImpl implements ChartDefinition {
     this.chartKey = key;
     this.resourceManager = manager;
     if (this.resourceManager == null) {
-      this.resourceManager = new ResourceManager();
-      this.resourceManager.registerDefaults();
+      this.resourceManager = ChartParsingService.getInstance().getResourceManager();
     }
     final Resource resource = this.resourceManager.create(this.chartKey, null, ChartDocument.class);
     this.chartDocument = (ChartDocument)resource.getResource();
@@ -0,0 +1,129 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart;
+
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.pentaho.chart.core.ChartDocument;
+import org.pentaho.chart.core.parser.ChartParsingService;
+import org.pentaho.reporting.libraries.resourceloader.Resource;
+import org.pentaho.reporting.libraries.resourceloader.ResourceException;
+import org.pentaho.reporting.libraries.resourceloader.ResourceKey;
+
+/**
+ * Cache of parsed (and optionally style resolved) chart documents keyed by the location of the chart definition.
+ * A cached document is parsed again once libloader reports that the chart definition, or any resource it depends
+ * on, has changed.
+ * <p/>
+ * Cached documents are shared between all callers, so they are frozen before they are cached: modifying the document
+ * or its elements throws an <code>IllegalStateException</code> rather than changing the chart seen by every other
+ * caller. The lazily computed element lookups of the document are populated before it is frozen, so concurrent
+ * readers never modify it. The layout styles of the elements are not frozen and must still be treated as read only.
+ */
+public class ChartDocumentCache {
+
+  private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+  /**
+   * Returns the chart document parsed from the specified location, parsing it if it is not cached or has changed.
+   */
+  public ChartDocument getChartDocument(final URL chartURL, final boolean cascadeStyles) throws ResourceException {
+    final String key = getKey(chartURL, cascadeStyles);
+    final Entry entry = entries.get(key);
+    if ((entry != null) && entry.isUnchanged()) {
+      return entry.chartDocument;
+    }
+
+    final ChartParsingService parsingService = ChartParsingService.getInstance();
+    final Resource resource = parsingService.loadChartResource(chartURL);
+    final ChartDocument chart = parsingService.parseChartDocument(resource);
+    if (cascadeStyles) {
+      ChartFactory.resolveStyles(chart, new ChartDocumentContext(chart));
+    }
+    prepareForSharing(chart);
+    entries.put(key, new Entry(chart, resource));
+    return chart;
+  }
+
+  /**
+   * Removes the cached documents parsed from the specified location.
+   */
+  public void invalidate(final URL chartURL) {
+    entries.remove(getKey(chartURL, true));
+    entries.remove(getKey(chartURL, false));
+  }
+
+  /**
+   * Removes the cached documents whose chart definition was loaded from the specified resource key.
+   */
+  public void invalidate(final ResourceKey resourceKey) {
+    for (final Entry entry : entries.values()) {
+      if (resourceKey.equals(entry.chartDocument.getResourceKey())) {
+        entries.values().remove(entry);
+      }
+    }
+  }
+
+  /**
+   * Removes every cached document.
+   */
+  public void invalidateAll() {
+    entries.clear();
+  }
+
+  public int getSize() {
+    return entries.size();
+  }
+
+  /**
+   * Uses URL.toExternalForm() rather than the URL itself since URL.equals() resolves host names.
+   */
+  private static String getKey(final URL chartURL, final boolean cascadeStyles) {
+    return (cascadeStyles ? "styled:" : "raw:") + chartURL.toExternalForm(); //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
+  private static void prepareForSharing(final ChartDocument chart) {
+    chart.getSeriesChartElements();
+    chart.getGroupChartElements();
+    chart.getPlotElement();
+    chart.getAxisElements();
+    chart.getAxisSeriesLinkInfo();
+    chart.freeze();
+  }
+
+  private static class Entry {
+    final ChartDocument chartDocument;
+    final Resource resource;
+
+    Entry(final ChartDocument chartDocument, final Resource resource) {
+      this.chartDocument = chartDocument;
+      this.resource = resource;
+    }
+
+    boolean isUnchanged() {
+      try {
+        synchronized (this) {
+          return chartDocument.getResourceManager().isResourceUnchanged(resource);
+        }
+      } catch (ResourceException e) {
+        return false;
+      }
+    }
+  }
+}
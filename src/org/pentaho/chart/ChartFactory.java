@@ -23,7 +23,6 @@ import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.net.URL;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Properties;
@@ -33,20 +32,19 @@ import java.util.TreeSet;
 import org.pentaho.chart.core.ChartDocument;
 import org.pentaho.chart.core.ChartElement;
 import org.pentaho.chart.core.ChartSeriesDataLinkInfoFactory;
-import org.pentaho.chart.core.parser.ChartXMLParser;
+import org.pentaho.chart.core.parser.ChartParsingService;
 import org.pentaho.chart.data.ChartTableModel;
 import org.pentaho.chart.model.ChartModel;
 import org.pentaho.chart.model.PiePlot;
 import org.pentaho.chart.model.StyledText;
 import org.pentaho.chart.model.CssStyle.FontStyle;
 import org.pentaho.chart.model.CssStyle.FontWeight;
+import org.pentaho.chart.plugin.ChartPluginRegistry;
 import org.pentaho.chart.plugin.ChartProcessingException;
 import org.pentaho.chart.plugin.IChartPlugin;
 import org.pentaho.chart.plugin.api.IOutput;
 import org.pentaho.chart.plugin.api.PersistenceException;
 import org.pentaho.chart.plugin.api.IOutput.OutputTypes;
-import org.pentaho.chart.plugin.jfreechart.JFreeChartPlugin;
-import org.pentaho.chart.plugin.openflashchart.OpenFlashChartPlugin;
 import org.pentaho.reporting.libraries.css.dom.LayoutStyle;
 import org.pentaho.reporting.libraries.css.keys.color.ColorStyleKeys;
 import org.pentaho.reporting.libraries.css.keys.font.FontStyleKeys;
@@ -67,26 +65,19 @@ import org.pentaho.reporting.libraries.resourceloader.ResourceKeyCreationExcepti
 public class ChartFactory {
   private static final String UNIDENTIFIED = "Unable To Identify";
 
-  private static List<IChartPlugin> chartPlugins = new ArrayList<IChartPlugin>();
+  private static final ChartPluginRegistry chartPlugins = new ChartPluginRegistry();
+
+  private static volatile ChartDocumentCache chartDocumentCache;
 
   private ChartFactory() {
   }
 
   public static IChartPlugin getPlugin(String pluginId) {
-    IChartPlugin plugin = null;
-    for (IChartPlugin tmpPlugin : chartPlugins) {
-      if (tmpPlugin.getPluginId().equals(pluginId)) {
-        plugin = tmpPlugin;
-      }
-    }
-    if ((plugin == null) && (chartPlugins.size() == 0)) {
-      if (JFreeChartPlugin.PLUGIN_ID.equals(pluginId)) {
-        plugin = new JFreeChartPlugin();
-      } else if (OpenFlashChartPlugin.PLUGIN_ID.equals(pluginId)){
-        plugin = new OpenFlashChartPlugin();
-      }
-    }
-    return plugin;
+    return chartPlugins.getPlugin(pluginId);
+  }
+
+  public static ChartPluginRegistry getPluginRegistry() {
+    return chartPlugins;
   }
 
   /**
@@ -94,7 +85,7 @@ public class ChartFactory {
    *  to initialize the available plugins from the chartbeans configuration file. 
    */
   public static void loadDefaultChartPlugins(List <IChartPlugin> plugins) {
-	  chartPlugins = plugins;
+	  chartPlugins.setPlugins(plugins);
   }
 
 
@@ -114,10 +105,26 @@ public class ChartFactory {
     return getChartDocument(chartURL, true);
   }
 
+  public static ChartDocumentCache getChartDocumentCache() {
+    return chartDocumentCache;
+  }
+
+  /**
+   * Sets the cache used by {@link #getChartDocument(URL, boolean)}, or <code>null</code> to parse the chart definition
+   * on every call. Documents returned from the cache are shared and frozen.
+   */
+  public static void setChartDocumentCache(final ChartDocumentCache cache) {
+    chartDocumentCache = cache;
+  }
+
   public static ChartDocument getChartDocument(final URL chartURL, boolean cascadeStyles) throws ResourceException {
+    final ChartDocumentCache cache = chartDocumentCache;
+    if (cache != null) {
+      return cache.getChartDocument(chartURL, cascadeStyles);
+    }
+
     // Parse the chart
-    final ChartXMLParser chartParser = new ChartXMLParser();
-    final ChartDocument chart = chartParser.parseChartDocument(chartURL);
+    final ChartDocument chart = ChartParsingService.getInstance().parseChartDocument(chartURL);
 
     if (cascadeStyles) {
       // Create a ChartDocumentContext
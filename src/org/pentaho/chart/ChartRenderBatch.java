@@ -0,0 +1,121 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A set of charts rendering in parallel, handed back in the order they complete rather than the order they were
+ * submitted, so callers can stream each chart as soon as it is ready.
+ * <p/>
+ * Jobs of a batch share the fonts, plot colors and themes resolved by the chart engines, which are cached across
+ * renders. A batch is meant to be consumed by a single thread.
+ *
+ * @see ChartRenderService#submitBatch(List)
+ */
+public class ChartRenderBatch {
+
+  private final CompletionService<ChartRenderResult> completionService;
+  private final List<Future<ChartRenderResult>> futures;
+  private int remaining;
+
+  ChartRenderBatch( CompletionService<ChartRenderResult> completionService, int size ) {
+    this.completionService = completionService;
+    this.futures = new ArrayList<Future<ChartRenderResult>>( size );
+  }
+
+  void add( Future<ChartRenderResult> future ) {
+    futures.add( future );
+    remaining++;
+  }
+
+  /**
+   * Returns the number of jobs in the batch.
+   */
+  public int size() {
+    return futures.size();
+  }
+
+  /**
+   * Returns <code>true</code> while some results haven't been taken yet.
+   */
+  public boolean hasNext() {
+    return remaining > 0;
+  }
+
+  /**
+   * Waits for the next chart to complete.
+   *
+   * @return the next completed result, or <code>null</code> once every result has been taken
+   */
+  public ChartRenderResult next() throws InterruptedException {
+    while ( remaining > 0 ) {
+      Future<ChartRenderResult> future = completionService.take();
+      if ( !future.isCancelled() ) {
+        return getResult( future );
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Waits up to the specified time for the next chart to complete.
+   *
+   * @return the next completed result, or <code>null</code> if none completed in time or every result has been taken
+   */
+  public ChartRenderResult next( long timeout, TimeUnit unit ) throws InterruptedException {
+    long deadline = System.nanoTime() + unit.toNanos( timeout );
+    while ( remaining > 0 ) {
+      Future<ChartRenderResult> future =
+          completionService.poll( deadline - System.nanoTime(), TimeUnit.NANOSECONDS );
+      if ( future == null ) {
+        return null;
+      }
+      if ( !future.isCancelled() ) {
+        return getResult( future );
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Cancels the jobs which haven't started rendering yet. Their results are not handed back.
+   */
+  public void cancel() {
+    for ( Future<ChartRenderResult> future : futures ) {
+      if ( future.cancel( false ) ) {
+        remaining--;
+      }
+    }
+  }
+
+  private ChartRenderResult getResult( Future<ChartRenderResult> future ) throws InterruptedException {
+    remaining--;
+    try {
+      return future.get();
+    } catch ( ExecutionException e ) {
+      // Render failures are captured in the result, so only unexpected errors get here.
+      throw new IllegalStateException( e.getCause() );
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart;
+
+import java.io.ByteArrayOutputStream;
+
+import org.pentaho.chart.data.IChartDataModel;
+import org.pentaho.chart.model.ChartModel;
+import org.pentaho.chart.plugin.ChartProcessingException;
+import org.pentaho.chart.plugin.api.IOutput;
+import org.pentaho.chart.plugin.api.IOutput.OutputTypes;
+import org.pentaho.chart.plugin.api.PersistenceException;
+
+/**
+ * A chart to render: the chart model, its data and the requested output. The chart and data models must not be
+ * modified while the job is rendered.
+ */
+public class ChartRenderJob {
+
+  private final ChartModel chartModel;
+  private final IChartDataModel chartDataModel;
+  private final IChartLinkGenerator linkGenerator;
+  private final int width;
+  private final int height;
+  private final OutputTypes outputType;
+
+  public ChartRenderJob( ChartModel chartModel, IChartDataModel chartDataModel, int width, int height,
+      OutputTypes outputType ) {
+    this( chartModel, chartDataModel, null, width, height, outputType );
+  }
+
+  public ChartRenderJob( ChartModel chartModel, IChartDataModel chartDataModel, IChartLinkGenerator linkGenerator,
+      int width, int height, OutputTypes outputType ) {
+    if ( ( chartModel == null ) || ( chartDataModel == null ) ) {
+      throw new NullPointerException();
+    }
+    this.chartModel = chartModel;
+    this.chartDataModel = chartDataModel;
+    this.linkGenerator = linkGenerator;
+    this.width = width;
+    this.height = height;
+    this.outputType = outputType;
+  }
+
+  public ChartModel getChartModel() {
+    return chartModel;
+  }
+
+  public IChartDataModel getChartDataModel() {
+    return chartDataModel;
+  }
+
+  public IChartLinkGenerator getLinkGenerator() {
+    return linkGenerator;
+  }
+
+  public int getWidth() {
+    return width;
+  }
+
+  public int getHeight() {
+    return height;
+  }
+
+  public OutputTypes getOutputType() {
+    return outputType;
+  }
+
+  /**
+   * Renders the chart on the calling thread, going through the <code>ChartBeanFactory</code> result cache if one is
+   * installed.
+   */
+  public byte[] render() throws ChartProcessingException, PersistenceException {
+    ChartResultCache cache = ChartBeanFactory.getChartResultCache();
+    if ( cache != null ) {
+      return cache.getChart( chartModel, chartDataModel, linkGenerator, width, height, outputType );
+    }
+    IOutput output = ChartBeanFactory.createChart( chartModel, chartDataModel, linkGenerator );
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    output.persistChart( outputStream, outputType, width, height );
+    return outputStream.toByteArray();
+  }
+}
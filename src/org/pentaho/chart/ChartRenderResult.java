@@ -0,0 +1,67 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart;
+
+/**
+ * The outcome of one job of a {@link ChartRenderBatch}: either the rendered chart or the exception raised while
+ * rendering it.
+ */
+public class ChartRenderResult {
+
+  private final int index;
+  private final ChartRenderJob job;
+  private final byte[] chart;
+  private final Exception error;
+
+  ChartRenderResult( int index, ChartRenderJob job, byte[] chart, Exception error ) {
+    this.index = index;
+    this.job = job;
+    this.chart = chart;
+    this.error = error;
+  }
+
+  /**
+   * Returns the position of the job in the submitted batch.
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  public ChartRenderJob getJob() {
+    return job;
+  }
+
+  /**
+   * Returns the rendered chart, or <code>null</code> if rendering failed.
+   */
+  public byte[] getChart() {
+    return chart;
+  }
+
+  /**
+   * Returns the <code>ChartProcessingException</code> or <code>PersistenceException</code> raised while rendering,
+   * or <code>null</code> if the chart was rendered.
+   */
+  public Exception getError() {
+    return error;
+  }
+
+  public boolean isSuccessful() {
+    return error == null;
+  }
+}
@@ -0,0 +1,193 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.pentaho.chart.data.IChartDataModel;
+import org.pentaho.chart.model.ChartModel;
+import org.pentaho.chart.plugin.api.IOutput.OutputTypes;
+
+/**
+ * Renders charts concurrently. Each job gets its own chart output, so jobs share no mutable state beyond the thread
+ * safe plugin registry and caches of <code>ChartBeanFactory</code> and <code>ChartFactory</code>.
+ * <p/>
+ * By default jobs run on a fixed size pool with a bounded queue; once the queue is full the submitting thread renders
+ * the job itself, which throttles producers instead of failing. Alternatively jobs can run on an executor supplied by
+ * the caller (for example a virtual thread per task executor), with the number of concurrent renders bounded by the
+ * service.
+ */
+public class ChartRenderService {
+
+  private final ExecutorService executor;
+  private final Semaphore renderPermits;
+  private final boolean ownsExecutor;
+
+  /**
+   * Creates a service rendering on one thread per available processor.
+   */
+  public ChartRenderService() {
+    this( Runtime.getRuntime().availableProcessors(), 1024 );
+  }
+
+  /**
+   * Creates a service rendering on a fixed pool of threads.
+   *
+   * @param threads
+   *          number of render threads
+   * @param maxQueuedJobs
+   *          number of jobs which may wait for a render thread
+   */
+  public ChartRenderService( int threads, int maxQueuedJobs ) {
+    this.executor =
+        new ThreadPoolExecutor( threads, threads, 60, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(
+            maxQueuedJobs ), new RenderThreadFactory(), new CallerRendersPolicy() );
+    this.renderPermits = null;
+    this.ownsExecutor = true;
+  }
+
+  /**
+   * Creates a service rendering on the specified executor, which is not shut down with the service.
+   *
+   * @param executor
+   *          the executor running the jobs
+   * @param maxConcurrentRenders
+   *          maximum number of jobs rendering at the same time
+   */
+  public ChartRenderService( ExecutorService executor, int maxConcurrentRenders ) {
+    if ( executor == null ) {
+      throw new NullPointerException();
+    }
+    this.executor = executor;
+    this.renderPermits = new Semaphore( maxConcurrentRenders );
+    this.ownsExecutor = false;
+  }
+
+  /**
+   * Queues the job for rendering.
+   *
+   * @return a future holding the rendered chart, or the <code>ChartProcessingException</code> or
+   *         <code>PersistenceException</code> raised while rendering
+   * @throws RejectedExecutionException
+   *           if the service has been shut down
+   */
+  public Future<byte[]> submit( final ChartRenderJob job ) {
+    return executor.submit( new Callable<byte[]>() {
+      public byte[] call() throws Exception {
+        return render( job );
+      }
+    } );
+  }
+
+  public Future<byte[]> submit( ChartModel chartModel, IChartDataModel chartDataModel,
+      IChartLinkGenerator linkGenerator, int width, int height, OutputTypes outputType ) {
+    return submit( new ChartRenderJob( chartModel, chartDataModel, linkGenerator, width, height, outputType ) );
+  }
+
+  /**
+   * Queues the jobs for rendering in parallel. Results are handed back by the returned batch as each chart completes;
+   * a job failing to render doesn't affect the other jobs.
+   *
+   * @throws RejectedExecutionException
+   *           if the service has been shut down
+   */
+  public ChartRenderBatch submitBatch( List<ChartRenderJob> jobs ) {
+    CompletionService<ChartRenderResult> completionService =
+        new ExecutorCompletionService<ChartRenderResult>( executor );
+    ChartRenderBatch batch = new ChartRenderBatch( completionService, jobs.size() );
+    for ( int i = 0; i < jobs.size(); i++ ) {
+      final int index = i;
+      final ChartRenderJob job = jobs.get( i );
+      batch.add( completionService.submit( new Callable<ChartRenderResult>() {
+        public ChartRenderResult call() throws Exception {
+          try {
+            return new ChartRenderResult( index, job, render( job ), null );
+          } catch ( InterruptedException e ) {
+            throw e;
+          } catch ( Exception e ) {
+            return new ChartRenderResult( index, job, null, e );
+          }
+        }
+      } ) );
+    }
+    return batch;
+  }
+
+  /**
+   * Stops accepting jobs. Queued jobs are still rendered.
+   */
+  public void shutdown() {
+    if ( ownsExecutor ) {
+      executor.shutdown();
+    }
+  }
+
+  public boolean awaitTermination( long timeout, TimeUnit unit ) throws InterruptedException {
+    return executor.awaitTermination( timeout, unit );
+  }
+
+  byte[] render( ChartRenderJob job ) throws Exception {
+    if ( renderPermits == null ) {
+      return job.render();
+    }
+    renderPermits.acquire();
+    try {
+      return job.render();
+    } finally {
+      renderPermits.release();
+    }
+  }
+
+  /**
+   * Renders jobs rejected by a full queue on the submitting thread. Unlike <code>CallerRunsPolicy</code>, which
+   * silently discards them, jobs submitted after shutdown are rejected, so their futures don't wait forever.
+   */
+  private static class CallerRendersPolicy implements RejectedExecutionHandler {
+    public void rejectedExecution( Runnable runnable, ThreadPoolExecutor executor ) {
+      if ( executor.isShutdown() ) {
+        throw new RejectedExecutionException( "Chart render service has been shut down" ); //$NON-NLS-1$
+      }
+      runnable.run();
+    }
+  }
+
+  private static class RenderThreadFactory implements ThreadFactory {
+    private static final AtomicInteger poolNumber = new AtomicInteger();
+    private final AtomicInteger threadNumber = new AtomicInteger();
+    private final String prefix = "chart-render-" + poolNumber.incrementAndGet() + "-"; //$NON-NLS-1$ //$NON-NLS-2$
+
+    public Thread newThread( Runnable runnable ) {
+      Thread thread = new Thread( runnable, prefix + threadNumber.incrementAndGet() );
+      thread.setDaemon( true );
+      return thread;
+    }
+  }
+}
@@ -0,0 +1,227 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.pentaho.chart.data.ChartDataFingerprint;
+import org.pentaho.chart.data.IChartDataModel;
+import org.pentaho.chart.model.ChartModel;
+import org.pentaho.chart.model.util.ChartSerializer;
+import org.pentaho.chart.model.util.ChartSerializer.ChartSerializationFormat;
+import org.pentaho.chart.plugin.ChartProcessingException;
+import org.pentaho.chart.plugin.api.IOutput;
+import org.pentaho.chart.plugin.api.IOutput.OutputTypes;
+import org.pentaho.chart.plugin.api.PersistenceException;
+
+/**
+ * Bounded cache of rendered charts. Entries are keyed by a hash of the serialized <code>ChartModel</code>, a content
+ * hash of the <code>IChartDataModel</code>, the output type and the chart dimensions. Entries are evicted least
+ * recently used first once the number of entries or the total number of cached bytes exceeds its limit, and expire
+ * after a fixed time to live.
+ * <p/>
+ * Charts rendered with a link generator are never cached since the generated links are not part of the key, and
+ * neither are charts whose data model type has no known fingerprint.
+ */
+public class ChartResultCache {
+
+  private final int maxEntries;
+  private final long maxBytes;
+  private final long timeToLiveMillis;
+
+  private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<Key, Entry>( 16, 0.75f, true );
+  private long cachedBytes;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  /**
+   * @param maxEntries
+   *          maximum number of cached charts
+   * @param maxBytes
+   *          maximum total size of the cached charts, in bytes
+   * @param timeToLiveMillis
+   *          time after which a cached chart is rendered again, or <code>0</code> for no expiry
+   */
+  public ChartResultCache( int maxEntries, long maxBytes, long timeToLiveMillis ) {
+    if ( ( maxEntries <= 0 ) || ( maxBytes <= 0 ) || ( timeToLiveMillis < 0 ) ) {
+      throw new IllegalArgumentException();
+    }
+    this.maxEntries = maxEntries;
+    this.maxBytes = maxBytes;
+    this.timeToLiveMillis = timeToLiveMillis;
+  }
+
+  /**
+   * Returns the rendered chart, rendering and caching it first if there is no live entry for it. The returned array
+   * may be shared with other callers and must not be modified.
+   */
+  public byte[] getChart( ChartModel chartModel, IChartDataModel chartDataModel,
+      IChartLinkGenerator contentLinkGenerator, int width, int height, OutputTypes outputType )
+    throws ChartProcessingException, PersistenceException {
+    Key key = null;
+    if ( contentLinkGenerator == null ) {
+      String dataFingerprint = ChartDataFingerprint.getFingerprint( chartDataModel );
+      if ( dataFingerprint != null ) {
+        key = new Key( getModelFingerprint( chartModel ), dataFingerprint, outputType, width, height );
+        byte[] chart = get( key );
+        if ( chart != null ) {
+          return chart;
+        }
+      }
+    }
+
+    IOutput output = ChartBeanFactory.createChart( chartModel, chartDataModel, contentLinkGenerator );
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    output.persistChart( outputStream, outputType, width, height );
+    byte[] chart = outputStream.toByteArray();
+    if ( key != null ) {
+      put( key, chart );
+    }
+    return chart;
+  }
+
+  /**
+   * Removes every cached rendering of the specified chart model, whatever its data.
+   */
+  public synchronized void invalidate( ChartModel chartModel ) {
+    String modelFingerprint = getModelFingerprint( chartModel );
+    for ( Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator(); iterator.hasNext(); ) {
+      Map.Entry<Key, Entry> entry = iterator.next();
+      if ( entry.getKey().modelFingerprint.equals( modelFingerprint ) ) {
+        cachedBytes -= entry.getValue().chart.length;
+        iterator.remove();
+      }
+    }
+  }
+
+  /**
+   * Removes every cached chart.
+   */
+  public synchronized void invalidateAll() {
+    entries.clear();
+    cachedBytes = 0;
+  }
+
+  public synchronized int getSize() {
+    return entries.size();
+  }
+
+  public synchronized long getCachedBytes() {
+    return cachedBytes;
+  }
+
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
+  long currentTimeMillis() {
+    return System.currentTimeMillis();
+  }
+
+  private synchronized byte[] get( Key key ) {
+    Entry entry = entries.get( key );
+    if ( ( entry != null ) && ( timeToLiveMillis > 0 ) && ( currentTimeMillis() - entry.created >= timeToLiveMillis ) ) {
+      entries.remove( key );
+      cachedBytes -= entry.chart.length;
+      evictionCount++;
+      entry = null;
+    }
+    if ( entry == null ) {
+      missCount++;
+      return null;
+    }
+    hitCount++;
+    return entry.chart;
+  }
+
+  private synchronized void put( Key key, byte[] chart ) {
+    if ( chart.length > maxBytes ) {
+      return;
+    }
+    Entry previous = entries.put( key, new Entry( chart, currentTimeMillis() ) );
+    if ( previous != null ) {
+      cachedBytes -= previous.chart.length;
+    }
+    cachedBytes += chart.length;
+    for ( Iterator<Entry> iterator = entries.values().iterator(); iterator.hasNext()
+        && ( ( entries.size() > maxEntries ) || ( cachedBytes > maxBytes ) ); ) {
+      cachedBytes -= iterator.next().chart.length;
+      iterator.remove();
+      evictionCount++;
+    }
+  }
+
+  private static String getModelFingerprint( ChartModel chartModel ) {
+    return ChartDataFingerprint.getFingerprint( ChartSerializer.serialize( chartModel, ChartSerializationFormat.XML ) );
+  }
+
+  private static class Key {
+    final String modelFingerprint;
+    final String dataFingerprint;
+    final OutputTypes outputType;
+    final int width;
+    final int height;
+
+    Key( String modelFingerprint, String dataFingerprint, OutputTypes outputType, int width, int height ) {
+      this.modelFingerprint = modelFingerprint;
+      this.dataFingerprint = dataFingerprint;
+      this.outputType = outputType;
+      this.width = width;
+      this.height = height;
+    }
+
+    public boolean equals( Object obj ) {
+      if ( !( obj instanceof Key ) ) {
+        return false;
+      }
+      Key key = (Key) obj;
+      return modelFingerprint.equals( key.modelFingerprint ) && dataFingerprint.equals( key.dataFingerprint )
+          && ( outputType == key.outputType ) && ( width == key.width ) && ( height == key.height );
+    }
+
+    public int hashCode() {
+      int hash = modelFingerprint.hashCode();
+      hash = 31 * hash + dataFingerprint.hashCode();
+      hash = 31 * hash + ( outputType != null ? outputType.hashCode() : 0 );
+      hash = 31 * hash + width;
+      return 31 * hash + height;
+    }
+  }
+
+  private static class Entry {
+    final byte[] chart;
+    final long created;
+
+    Entry( byte[] chart, long created ) {
+      this.chart = chart;
+      this.created = created;
+    }
+  }
+}
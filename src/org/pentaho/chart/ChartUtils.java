@@ -18,8 +18,12 @@
 package org.pentaho.chart;
 
 import java.awt.Font;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.pentaho.chart.core.ChartElement;
 import org.pentaho.chart.css.styles.ChartCSSFontSizeMappingConstants;
@@ -36,6 +40,14 @@ import org.pentaho.reporting.libraries.css.values.CSSValue;
 public class ChartUtils {
 
   private static Map<String, String> cssFamilyToAwtFamilyMap;
+
+  private static final int MAX_CACHED_FONTS = 256;
+
+  private static final ConcurrentHashMap<String, Font> fontCache = new ConcurrentHashMap<String, Font>();
+
+  private static final int MAX_CACHED_PALETTES = 256;
+
+  private static final ConcurrentHashMap<List<Integer>, List<Integer>> plotColorsCache = new ConcurrentHashMap<List<Integer>, List<Integer>>();
   
   static {
     cssFamilyToAwtFamilyMap = new HashMap<String, String>();
@@ -44,6 +56,10 @@ public class ChartUtils {
     cssFamilyToAwtFamilyMap.put("sans-serif", "SansSerif");
   }
   
+  /**
+   * Returns the font for the chart model style. Fonts are immutable, so they are created once and shared by every
+   * chart rendered with the same style.
+   */
   public static Font getFont(String fontFamily, org.pentaho.chart.model.CssStyle.FontStyle fontStyle, org.pentaho.chart.model.CssStyle.FontWeight fontWeight, Integer fontSize) {
     Font font = null;
     if (fontFamily != null) {
@@ -62,12 +78,41 @@ public class ChartUtils {
         styleFlag |= Font.BOLD;
       }
       
-      // Creating the requisite font and setting the default size of 10. This will be overwritten below.
-      font = new Font(fontFamily, styleFlag, fontSize == null ? 10 : fontSize);
+      final int size = fontSize == null ? 10 : fontSize;
+      final String key = fontFamily + '\u0000' + styleFlag + '\u0000' + size;
+      font = fontCache.get(key);
+      if (font == null) {
+        if (fontCache.size() >= MAX_CACHED_FONTS) {
+          fontCache.clear();
+        }
+        font = new Font(fontFamily, styleFlag, size);
+        fontCache.put(key, font);
+      }
     }
     return font;
   }
   
+  /**
+   * Returns the colors used to paint the plot series: the plot palette followed by the default palette colors it
+   * doesn't contain. The returned list is shared by all plots with the same palette and can't be modified.
+   */
+  public static List<Integer> getPlotColors(org.pentaho.chart.model.Plot plot) {
+    final List<Integer> palette = plot.getPalette() != null ? new ArrayList<Integer>(plot.getPalette()) : Collections.<Integer>emptyList();
+    List<Integer> colors = plotColorsCache.get(palette);
+    if (colors == null) {
+      final ArrayList<Integer> newColors = new ArrayList<Integer>(palette);
+      final ArrayList<Integer> defaultColors = new ArrayList<Integer>(org.pentaho.chart.model.Plot.DEFAULT_PALETTE);
+      defaultColors.removeAll(newColors);
+      newColors.addAll(defaultColors);
+      colors = Collections.unmodifiableList(newColors);
+      if (plotColorsCache.size() >= MAX_CACHED_PALETTES) {
+        plotColorsCache.clear();
+      }
+      plotColorsCache.put(palette, colors);
+    }
+    return colors;
+  }
+
   /**
    * This method creates a Font object based on the font-family, font-size, and
    * font-style defined in the chart xml doc for the current series
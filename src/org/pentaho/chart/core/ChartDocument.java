@@ -99,6 +99,11 @@ public class ChartDocument {
    */
   private AxisSeriesLinkInfo axisSeriesLinkInfo;
 
+  /**
+   * Is true once the document has been frozen and can no longer be modified.
+   */
+  private boolean frozen = false;
+
   /**
    * Constructor that creats the chart document.
    *
@@ -134,18 +139,47 @@ public class ChartDocument {
 
   /**
    * Sets the resource manager for this chart document
+   *
+   * @throws IllegalStateException indicates the document has been frozen
    */
   public void setResourceManager(final ResourceManager resourceManager) {
+    checkModifiable();
     this.resourceManager = resourceManager;
   }
 
   /**
    * Sets the resource key for this chart document
+   *
+   * @throws IllegalStateException indicates the document has been frozen
    */
   public void setResourceKey(final ResourceKey resourceKey) {
+    checkModifiable();
     this.resourceKey = resourceKey;
   }
 
+  /**
+   * Prevents any further modification of this chart document and all of its elements. Once frozen, the setters
+   * of the document and the methods that modify its elements throw an <code>IllegalStateException</code>.
+   * NOTE: the layout styles of the elements are not frozen.
+   */
+  public void freeze() {
+    frozen = true;
+    rootElement.freeze();
+  }
+
+  /**
+   * Indicates if this chart document has been frozen and can no longer be modified.
+   */
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  private void checkModifiable() {
+    if (frozen) {
+      throw new IllegalStateException("Chart Document has been frozen and can not be modified"); //$NON-NLS-1$
+    }
+  }
+
   /**
    * Returns the modification number from the root element. This number
    * can be used to invalidate cache information.
@@ -254,6 +254,7 @@ public class ChartElement extends HeirarchicalLinkedListItem implements Cloneabl
    * Sets the tagname for this element.
    */
   public void setTagName(final String tagName) {
+    checkModifiable();
     if (StringUtils.isEmpty(tagName)) {
       throw new NullPointerException();
     }
@@ -304,6 +305,7 @@ public class ChartElement extends HeirarchicalLinkedListItem implements Cloneabl
    * @param value
    */
   public void setAttribute(final String namespace, final String name, final Object value) {
+    checkModifiable();
     if (StringUtils.isEmpty(name)) {
       throw new NullPointerException();
     }
@@ -417,6 +419,7 @@ public class ChartElement extends HeirarchicalLinkedListItem implements Cloneabl
   }
 
   public void setText(final String text) {
+    checkModifiable();
     this.text = text;
 
     // Mark this item as modified
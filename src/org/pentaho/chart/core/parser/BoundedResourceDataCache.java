@@ -0,0 +1,82 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.core.parser;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.pentaho.reporting.libraries.resourceloader.ResourceData;
+import org.pentaho.reporting.libraries.resourceloader.ResourceKey;
+import org.pentaho.reporting.libraries.resourceloader.ResourceLoadingException;
+import org.pentaho.reporting.libraries.resourceloader.ResourceManager;
+import org.pentaho.reporting.libraries.resourceloader.cache.CachingResourceData;
+import org.pentaho.reporting.libraries.resourceloader.cache.DefaultResourceDataCacheEntry;
+import org.pentaho.reporting.libraries.resourceloader.cache.ResourceDataCache;
+import org.pentaho.reporting.libraries.resourceloader.cache.ResourceDataCacheEntry;
+
+/**
+ * Thread safe resource data cache holding the raw content of the most recently loaded resources. Once the cache is
+ * full the least recently used entry is evicted. The <code>ResourceManager</code> compares the version of a cached
+ * entry with the version of its source before using it, so modified chart definitions are loaded again.
+ */
+public class BoundedResourceDataCache implements ResourceDataCache {
+
+  private final Map<ResourceKey, ResourceDataCacheEntry> entries;
+
+  public BoundedResourceDataCache(final int maxEntries) {
+    if (maxEntries < 1) {
+      throw new IllegalArgumentException();
+    }
+    entries = new LinkedHashMap<ResourceKey, ResourceDataCacheEntry>(16, 0.75f, true) {
+      private static final long serialVersionUID = 1L;
+
+      protected boolean removeEldestEntry(final Map.Entry<ResourceKey, ResourceDataCacheEntry> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  public synchronized ResourceDataCacheEntry get(final ResourceKey key) {
+    return entries.get(key);
+  }
+
+  public ResourceData put(final ResourceManager caller, final ResourceData data) throws ResourceLoadingException {
+    final ResourceData cachingData = new CachingResourceData(data);
+    final ResourceDataCacheEntry entry = new DefaultResourceDataCacheEntry(cachingData, caller);
+    synchronized (this) {
+      entries.put(data.getKey(), entry);
+    }
+    return cachingData;
+  }
+
+  public synchronized boolean remove(final ResourceData data) {
+    return entries.remove(data.getKey()) != null;
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  public void shutdown() {
+    clear();
+  }
+
+  public synchronized int getSize() {
+    return entries.size();
+  }
+}
@@ -0,0 +1,97 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.core.parser;
+
+import java.net.URL;
+
+import org.pentaho.chart.ChartBoot;
+import org.pentaho.chart.core.ChartDocument;
+import org.pentaho.reporting.libraries.base.util.ParserUtil;
+import org.pentaho.reporting.libraries.resourceloader.Resource;
+import org.pentaho.reporting.libraries.resourceloader.ResourceException;
+import org.pentaho.reporting.libraries.resourceloader.ResourceManager;
+import org.pentaho.reporting.libraries.resourceloader.cache.NullResourceFactoryCache;
+
+/**
+ * Process wide chart definition parser. Registering the libloader defaults (factory discovery, cache setup and the
+ * related class loading) is expensive, so it happens once and every parse reuses the same configured
+ * <code>ResourceManager</code>.
+ * <p/>
+ * The raw content of recently loaded definitions is held in a {@link BoundedResourceDataCache}, sized by the
+ * <code>org.pentaho.chart.parser.DataCacheSize</code> configuration property. Parsed documents are not cached by the
+ * resource manager since every caller receives its own <code>ChartDocument</code> and may modify it; use a
+ * <code>ChartDocumentCache</code> to share parsed documents.
+ */
+public class ChartParsingService {
+
+  public static final String DATA_CACHE_SIZE = "org.pentaho.chart.parser.DataCacheSize"; //$NON-NLS-1$
+
+  public static final int DEFAULT_DATA_CACHE_SIZE = 256;
+
+  private final ResourceManager resourceManager;
+
+  private final ChartXMLParser parser;
+
+  /**
+   * Creates a parsing service with its own resource manager, holding the content of up to
+   * <code>dataCacheSize</code> resources.
+   */
+  public ChartParsingService(final int dataCacheSize) {
+    final ResourceManager manager = new ResourceManager();
+    manager.registerDefaults();
+    manager.setFactoryCache(new NullResourceFactoryCache());
+    manager.setDataCache(new BoundedResourceDataCache(dataCacheSize));
+    this.resourceManager = manager;
+    this.parser = new ChartXMLParser(manager);
+  }
+
+  /**
+   * Returns the shared parsing service, creating it on first use.
+   */
+  public static ChartParsingService getInstance() {
+    return Holder.INSTANCE;
+  }
+
+  public ChartDocument parseChartDocument(final URL chartDefinitionURL) throws ResourceException {
+    return parser.parseChartDocument(chartDefinitionURL);
+  }
+
+  public Resource loadChartResource(final URL chartDefinitionURL) throws ResourceException {
+    return parser.loadChartResource(chartDefinitionURL);
+  }
+
+  public ChartDocument parseChartDocument(final Resource resource) throws ResourceException {
+    return parser.parseChartDocument(resource);
+  }
+
+  /**
+   * Returns the parser using the shared resource manager.
+   */
+  public ChartXMLParser getParser() {
+    return parser;
+  }
+
+  public ResourceManager getResourceManager() {
+    return resourceManager;
+  }
+
+  private static class Holder {
+    static final ChartParsingService INSTANCE = new ChartParsingService(ParserUtil.parseInt(
+        ChartBoot.getInstance().getGlobalConfig().getConfigProperty(DATA_CACHE_SIZE), DEFAULT_DATA_CACHE_SIZE));
+  }
+}
@@ -63,7 +63,25 @@ public class ChartXMLParser {
    *          indeicates an error occurred loading the chart defintion
    */
   public ChartDocument parseChartDocument(final URL chartDefinitionURL) throws ResourceException {
-    final Resource res = resourceManager.createDirectly(chartDefinitionURL, ChartDocument.class);
+    return parseChartDocument(loadChartResource(chartDefinitionURL));
+  }
+
+  /**
+   * Loads the chart definition file as a resource, which can later be checked for modifications with
+   * <code>ResourceManager.isResourceUnchanged</code>.
+   *
+   * @param chartDefinitionURL the location of the chart definition file
+   * @throws org.pentaho.reporting.libraries.resourceloader.ResourceException
+   *          indeicates an error occurred loading the chart defintion
+   */
+  public Resource loadChartResource(final URL chartDefinitionURL) throws ResourceException {
+    return resourceManager.createDirectly(chartDefinitionURL, ChartDocument.class);
+  }
+
+  /**
+   * Returns the <code>ChartDocument</code> held by a resource loaded with {@link #loadChartResource(URL)}.
+   */
+  public ChartDocument parseChartDocument(final Resource res) throws ResourceException {
     final ResourceKey key = res.getSource();
     final ChartDocument chart = (ChartDocument) res.getResource();
     chart.setResourceManager(resourceManager);
@@ -0,0 +1,146 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.data;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Base class of the decimators of category data models. Domains are treated as evenly spaced along the x axis in the
+ * order they were added, and each series is decimated as an array of values in which missing values are
+ * <code>Double.NaN</code>.
+ * <p/>
+ * Subclasses select the domains to keep for each series. Since all series of a <code>MultiSeriesDataModel</code>
+ * share their domains, the domains kept are the union of the domains selected for each series. Each domain kept
+ * stands for the domains up to the next domain kept, whose values are combined by {@link #aggregate(double[], int,
+ * int, int)}.
+ * <p/>
+ * <code>NamedValuesDataModel</code> and <code>MultiSeriesDataModel</code> are decimated, other models are returned
+ * unchanged.
+ */
+public abstract class AbstractDataDecimator implements IDataDecimator {
+
+  public IChartDataModel decimate(IChartDataModel chartDataModel, int targetPoints) {
+    if (chartDataModel instanceof MultiSeriesDataModel) {
+      return decimate((MultiSeriesDataModel) chartDataModel, targetPoints);
+    } else if (chartDataModel instanceof NamedValuesDataModel) {
+      return decimate((NamedValuesDataModel) chartDataModel, targetPoints);
+    }
+    return chartDataModel;
+  }
+
+  /**
+   * Marks the domains to keep for one series.
+   *
+   * @param values       the series values indexed by domain, <code>Double.NaN</code> where there is no value
+   * @param targetPoints the number of domains to keep, greater than 2 and less than the number of domains
+   * @param selected     the domains to keep
+   */
+  protected abstract void selectDomains(double[] values, int targetPoints, BitSet selected);
+
+  /**
+   * Returns the value charted for a kept domain. By default this is the value of the kept domain itself.
+   *
+   * @param values         the series values indexed by domain
+   * @param from           the kept domain
+   * @param to             the next kept domain, or the number of domains
+   * @param selectedDomain the kept domain
+   * @return the value, or <code>Double.NaN</code> if there is none
+   */
+  protected double aggregate(double[] values, int from, int to, int selectedDomain) {
+    return values[selectedDomain];
+  }
+
+  private IChartDataModel decimate(NamedValuesDataModel model, int targetPoints) {
+    final int domainCount = model.size();
+    if (!isDecimated(domainCount, targetPoints)) {
+      return model;
+    }
+    final String[] names = new String[domainCount];
+    final double[] values = new double[domainCount];
+    final Iterator<NamedValue> namedValues = model.iterator();
+    for (int i = 0; i < domainCount; i++) {
+      final NamedValue namedValue = namedValues.next();
+      names[i] = namedValue.getName();
+      values[i] = toDouble(namedValue.getValue());
+    }
+
+    final int[] domains = getSelectedDomains(new double[][] {values}, targetPoints);
+    final NamedValuesDataModel decimatedModel = new NamedValuesDataModel();
+    decimatedModel.setScalingFactor(model.getScalingFactor());
+    for (int i = 0; i < domains.length; i++) {
+      final int to = i + 1 < domains.length ? domains[i + 1] : domainCount;
+      decimatedModel.add(new NamedValue(names[domains[i]], toNumber(aggregate(values, domains[i], to, domains[i]))));
+    }
+    return decimatedModel;
+  }
+
+  private IChartDataModel decimate(MultiSeriesDataModel model, int targetPoints) {
+    final int domainCount = model.getDomainCount();
+    if (!isDecimated(domainCount, targetPoints)) {
+      return model;
+    }
+    final int seriesCount = model.getSeriesCount();
+    final double[][] values = new double[seriesCount][domainCount];
+    for (int series = 0; series < seriesCount; series++) {
+      for (int domain = 0; domain < domainCount; domain++) {
+        values[series][domain] = model.getDouble(series, domain);
+      }
+    }
+
+    final int[] domains = getSelectedDomains(values, targetPoints);
+    final List<String> domainNames = model.getDomainNames();
+    final List<String> seriesNames = model.getSeriesNames();
+    final MultiSeriesDataModel decimatedModel = new MultiSeriesDataModel();
+    decimatedModel.setScalingFactor(model.getScalingFactor());
+    for (int i = 0; i < domains.length; i++) {
+      final int to = i + 1 < domains.length ? domains[i + 1] : domainCount;
+      for (int series = 0; series < seriesCount; series++) {
+        // Null values still register the domain and series, so the decimated model keeps their order.
+        decimatedModel.addValue(domainNames.get(domains[i]), seriesNames.get(series),
+            toNumber(aggregate(values[series], domains[i], to, domains[i])));
+      }
+    }
+    return decimatedModel;
+  }
+
+  private static boolean isDecimated(int domainCount, int targetPoints) {
+    return (targetPoints > 2) && (domainCount > targetPoints);
+  }
+
+  private int[] getSelectedDomains(double[][] values, int targetPoints) {
+    final BitSet selected = new BitSet(values[0].length);
+    for (double[] seriesValues : values) {
+      selectDomains(seriesValues, targetPoints, selected);
+    }
+    final int[] domains = new int[selected.cardinality()];
+    for (int i = 0, domain = selected.nextSetBit(0); domain >= 0; i++, domain = selected.nextSetBit(domain + 1)) {
+      domains[i] = domain;
+    }
+    return domains;
+  }
+
+  private static double toDouble(Number value) {
+    return value != null ? value.doubleValue() : Double.NaN;
+  }
+
+  private static Number toNumber(double value) {
+    return Double.isNaN(value) ? null : Double.valueOf(value);
+  }
+}
@@ -0,0 +1,46 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.data;
+
+import java.util.BitSet;
+
+/**
+ * Decimates by splitting the domains into <code>targetPoints</code> buckets and charting the average value of each
+ * bucket under the name of its first domain. Missing values are ignored; a bucket without any value has none.
+ */
+public class AverageDecimator extends AbstractDataDecimator {
+
+  protected void selectDomains(double[] values, int targetPoints, BitSet selected) {
+    final int domainCount = values.length;
+    for (int bucket = 0; bucket < targetPoints; bucket++) {
+      selected.set((int) ((long) bucket * domainCount / targetPoints));
+    }
+  }
+
+  protected double aggregate(double[] values, int from, int to, int selectedDomain) {
+    double sum = 0;
+    int count = 0;
+    for (int domain = from; domain < to; domain++) {
+      if (!Double.isNaN(values[domain])) {
+        sum += values[domain];
+        count++;
+      }
+    }
+    return count > 0 ? sum / count : Double.NaN;
+  }
+}
@@ -0,0 +1,161 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.data;
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+
+/**
+ * Computes a content hash of a chart data model. Two models holding the same names and values in the same order
+ * have the same fingerprint, regardless of the boxed type of their values.
+ */
+public class ChartDataFingerprint {
+
+  private static final String DIGEST_ALGORITHM = "SHA-1"; //$NON-NLS-1$
+  private static final Charset UTF_8 = Charset.forName("UTF-8"); //$NON-NLS-1$
+
+  private final MessageDigest digest;
+  private final byte[] buffer = new byte[8];
+
+  private ChartDataFingerprint() {
+    try {
+      digest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Returns the fingerprint of the specified data model as a hex string, or <code>null</code> if the type of the
+   * model is not known.
+   */
+  public static String getFingerprint(IChartDataModel dataModel) {
+    final ChartDataFingerprint fingerprint = new ChartDataFingerprint();
+    return fingerprint.update(dataModel) ? fingerprint.toHexString() : null;
+  }
+
+  /**
+   * Returns the hex encoded SHA-1 hash of the specified string.
+   */
+  public static String getFingerprint(String content) {
+    final ChartDataFingerprint fingerprint = new ChartDataFingerprint();
+    fingerprint.update(content);
+    return fingerprint.toHexString();
+  }
+
+  private boolean update(IChartDataModel dataModel) {
+    if (dataModel instanceof MultiSeriesDataModel) {
+      final MultiSeriesDataModel model = (MultiSeriesDataModel) dataModel;
+      update('M');
+      update(model.getScalingFactor());
+      update(model.getSeriesCount());
+      for (String series : model.getSeriesNames()) {
+        update(series);
+      }
+      update(model.getDomainCount());
+      for (String domain : model.getDomainNames()) {
+        update(domain);
+      }
+      for (int series = 0; series < model.getSeriesCount(); series++) {
+        for (int domain = 0; domain < model.getDomainCount(); domain++) {
+          update(model.getDouble(series, domain));
+        }
+      }
+    } else if (dataModel instanceof NamedValuesDataModel) {
+      final NamedValuesDataModel model = (NamedValuesDataModel) dataModel;
+      update('N');
+      update(model.getScalingFactor());
+      update(model.size());
+      for (NamedValue namedValue : model) {
+        update(namedValue.getName());
+        update(namedValue.getValue());
+      }
+    } else if (dataModel instanceof MultiSeriesXYDataModel) {
+      final MultiSeriesXYDataModel model = (MultiSeriesXYDataModel) dataModel;
+      update('S');
+      update(model.chartData.size());
+      for (Map.Entry<String, XYDataModel> series : model.chartData.entrySet()) {
+        update(series.getKey());
+        update(series.getValue());
+      }
+    } else if (dataModel instanceof XYDataModel) {
+      update('X');
+      update((XYDataModel) dataModel);
+    } else if (dataModel instanceof BasicDataModel) {
+      final BasicDataModel model = (BasicDataModel) dataModel;
+      update('B');
+      update(model.getScalingFactor());
+      update(model.getData().size());
+      for (Number value : model.getData()) {
+        update(value);
+      }
+    } else {
+      return false;
+    }
+    return true;
+  }
+
+  private void update(XYDataModel model) {
+    update(model.size());
+    for (XYDataPoint dataPoint : model) {
+      update(dataPoint.getDomainValue());
+      update(dataPoint.getRangeValue());
+    }
+  }
+
+  private void update(String value) {
+    if (value == null) {
+      update(-1);
+    } else {
+      final byte[] bytes = value.getBytes(UTF_8);
+      update(bytes.length);
+      digest.update(bytes);
+    }
+  }
+
+  private void update(Number value) {
+    update(value != null ? value.doubleValue() : Double.NaN);
+  }
+
+  private void update(double value) {
+    update(Double.doubleToLongBits(value), 8);
+  }
+
+  private void update(int value) {
+    update(value, 4);
+  }
+
+  private void update(long value, int length) {
+    for (int i = 0; i < length; i++) {
+      buffer[i] = (byte) (value >>> (8 * i));
+    }
+    digest.update(buffer, 0, length);
+  }
+
+  private String toHexString() {
+    final byte[] hash = digest.digest();
+    final StringBuilder hex = new StringBuilder(hash.length * 2);
+    for (byte b : hash) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+      hex.append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+}
@@ -0,0 +1,215 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.data;
+
+/**
+ * Summary of the values held by a <code>MultiSeriesDataModel</code>, kept up to date by the model as values are
+ * added so chart engines can size their axes without walking the data. Besides the count, sum, minimum and maximum
+ * of the values it holds, per category (domain), the sums of the positive and of the negative values, which are the
+ * extents of a stacked bar.
+ * <p/>
+ * Values are reported unscaled. The minimum and maximum are recomputed from the model on the next read only if a
+ * value holding one of them was changed towards the others.
+ */
+public class ChartDataStatistics {
+
+  private final MultiSeriesDataModel model;
+  private int count;
+  private double sum;
+  private double min = Double.NaN;
+  private double max = Double.NaN;
+  private volatile boolean minMaxStale;
+  private double[] positiveStacks;
+  private double[] negativeStacks;
+
+  ChartDataStatistics(MultiSeriesDataModel model, int categoryCapacity) {
+    this.model = model;
+    this.positiveStacks = new double[categoryCapacity];
+    this.negativeStacks = new double[categoryCapacity];
+  }
+
+  /**
+   * Returns the number of values.
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the number of (series, category) pairs without a value.
+   */
+  public int getNullCount() {
+    return (model.getDomainCount() * model.getSeriesCount()) - count;
+  }
+
+  public double getSum() {
+    return sum;
+  }
+
+  /**
+   * Returns the smallest value, or <code>Double.NaN</code> if there are none.
+   */
+  public double getMin() {
+    if (minMaxStale) {
+      refreshMinMax();
+    }
+    return min;
+  }
+
+  /**
+   * Returns the largest value, or <code>Double.NaN</code> if there are none.
+   */
+  public double getMax() {
+    if (minMaxStale) {
+      refreshMinMax();
+    }
+    return max;
+  }
+
+  public int getCategoryCount() {
+    return model.getDomainCount();
+  }
+
+  /**
+   * Returns the sum of the positive values of the category, or <code>0</code> if there are none.
+   */
+  public double getPositiveStackExtent(int category) {
+    return positiveStacks[category];
+  }
+
+  /**
+   * Returns the sum of the negative values of the category, or <code>0</code> if there are none.
+   */
+  public double getNegativeStackExtent(int category) {
+    return negativeStacks[category];
+  }
+
+  /**
+   * Returns the largest positive stack extent of all categories, or <code>0</code> if there is none.
+   */
+  public double getMaxStackExtent() {
+    double maxExtent = 0;
+    final int categoryCount = getCategoryCount();
+    for (int category = 0; category < categoryCount; category++) {
+      maxExtent = Math.max(maxExtent, positiveStacks[category]);
+    }
+    return maxExtent;
+  }
+
+  /**
+   * Returns the smallest negative stack extent of all categories, or <code>0</code> if there is none.
+   */
+  public double getMinStackExtent() {
+    double minExtent = 0;
+    final int categoryCount = getCategoryCount();
+    for (int category = 0; category < categoryCount; category++) {
+      minExtent = Math.min(minExtent, negativeStacks[category]);
+    }
+    return minExtent;
+  }
+
+  /**
+   * Records a value of the category changing from <code>oldValue</code>, which is <code>Double.NaN</code> for a new
+   * value, to <code>newValue</code>, which is <code>Double.NaN</code> for a removed value.
+   */
+  void valueChanged(int category, double oldValue, double newValue) {
+    if (Double.isNaN(newValue)) {
+      if (!Double.isNaN(oldValue)) {
+        count--;
+        sum -= oldValue;
+        removeFromStack(category, oldValue);
+        if ((oldValue == min) || (oldValue == max)) {
+          minMaxStale = true;
+        }
+      }
+      return;
+    }
+    if (Double.isNaN(oldValue)) {
+      count++;
+      sum += newValue;
+    } else {
+      sum += newValue - oldValue;
+      removeFromStack(category, oldValue);
+      if (((oldValue == min) && (newValue > min)) || ((oldValue == max) && (newValue < max))) {
+        minMaxStale = true;
+      }
+    }
+    addToStack(category, newValue);
+    if (!minMaxStale) {
+      if (Double.isNaN(min) || (newValue < min)) {
+        min = newValue;
+      }
+      if (Double.isNaN(max) || (newValue > max)) {
+        max = newValue;
+      }
+    }
+  }
+
+  void ensureCategoryCapacity(int capacity) {
+    if (capacity > positiveStacks.length) {
+      final double[] newPositiveStacks = new double[capacity];
+      System.arraycopy(positiveStacks, 0, newPositiveStacks, 0, positiveStacks.length);
+      positiveStacks = newPositiveStacks;
+      final double[] newNegativeStacks = new double[capacity];
+      System.arraycopy(negativeStacks, 0, newNegativeStacks, 0, negativeStacks.length);
+      negativeStacks = newNegativeStacks;
+    }
+  }
+
+  private void addToStack(int category, double value) {
+    if (value > 0) {
+      positiveStacks[category] += value;
+    } else if (value < 0) {
+      negativeStacks[category] += value;
+    }
+  }
+
+  private void removeFromStack(int category, double value) {
+    if (value > 0) {
+      positiveStacks[category] -= value;
+    } else if (value < 0) {
+      negativeStacks[category] -= value;
+    }
+  }
+
+  private synchronized void refreshMinMax() {
+    if (!minMaxStale) {
+      return;
+    }
+    double newMin = Double.NaN;
+    double newMax = Double.NaN;
+    final int seriesCount = model.getSeriesCount();
+    final int domainCount = model.getDomainCount();
+    for (int series = 0; series < seriesCount; series++) {
+      for (int domain = 0; domain < domainCount; domain++) {
+        final double value = model.getDouble(series, domain);
+        if (!Double.isNaN(value)) {
+          if (Double.isNaN(newMin) || (value < newMin)) {
+            newMin = value;
+          }
+          if (Double.isNaN(newMax) || (value > newMax)) {
+            newMax = value;
+          }
+        }
+      }
+    }
+    min = newMin;
+    max = newMax;
+    minMaxStale = false;
+  }
+}
@@ -99,6 +99,17 @@ public class ChartTableModel extends BaseChartTableModel {
     return (rotated ? super.getValueAt(col, row) : super.getValueAt(row, col));
   }
 
+  /**
+   * Returns the numeric value at the specified (row, col). Subclasses backed by primitive storage override this
+   * method so callers only interested in numbers can read them without boxing.
+   *
+   * @return the value as a double, or <code>Double.NaN</code> if the cell is empty or not numeric
+   */
+  public double getDouble(final int row, final int col) {
+    final Object value = getValueAt(row, col);
+    return (value instanceof Number ? ((Number) value).doubleValue() : Double.NaN);
+  }
+
   /**
    * Sets the data at the specified (row, col)
    *
@@ -0,0 +1,383 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.data;
+
+import java.util.BitSet;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.pentaho.util.messages.Messages;
+
+/**
+ * A <code>ChartTableModel</code> which stores its data column by column. Numeric columns are kept in primitive
+ * <code>double[]</code> or <code>long[]</code> arrays with a null bitmap, so large result sets do not hold a boxed
+ * <code>Number</code> per cell and can be read through {@link #getDouble(int, int)} without boxing. Columns holding
+ * anything other than numbers are kept as plain <code>Object[]</code> arrays.
+ * <p/>
+ * Row/column names and metadata as well as rotation behave exactly as they do for <code>ChartTableModel</code>,
+ * so an instance of this class can be handed to any API accepting a <code>ChartTableModel</code>.
+ * <p/>
+ * Note: {@link #getValueAt(int, int)} returns <code>Long</code> values for integral columns and <code>Double</code>
+ * values for other numeric columns, regardless of the <code>Number</code> subclass originally stored.
+ */
+public class ColumnarChartTableModel extends ChartTableModel {
+
+  private static final long serialVersionUID = 6526437364217962371L;
+
+  private static final Log logger = LogFactory.getLog(ColumnarChartTableModel.class);
+
+  /**
+   * The storage used for a single column.
+   */
+  public enum ColumnType {
+    LONG, DOUBLE, OBJECT
+  }
+
+  private int rowCount;
+  private int colCount;
+  private ColumnType[] columnTypes = new ColumnType[0];
+  private long[][] longColumns = new long[0][];
+  private double[][] doubleColumns = new double[0][];
+  private Object[][] objectColumns = new Object[0][];
+  /**
+   * Per column null bitmap. Only used by numeric columns; object columns store <code>null</code> directly.
+   */
+  private BitSet[] nullMasks = new BitSet[0];
+
+  /**
+   * Creates an empty ColumnarChartTableModel
+   */
+  public ColumnarChartTableModel() {
+  }
+
+  /**
+   * Creates a ColumnarChartTableModel of the given size. All cells are initially <code>null</code> and all columns
+   * start out as <code>LONG</code> columns; a column is widened to <code>DOUBLE</code> or <code>OBJECT</code> storage
+   * as soon as a value which does not fit is set into it.
+   *
+   * @param rowCount    the number of rows
+   * @param columnCount the number of columns
+   */
+  public ColumnarChartTableModel(final int rowCount, final int columnCount) {
+    if (rowCount < 0) {
+      throw new IllegalArgumentException(Messages.getErrorString("ChartTableModel.ERROR_0003_ROW_NUM_LOWER_THAN_ZERO")); //$NON-NLS-1$
+    } else if (columnCount < 0) {
+      throw new IllegalArgumentException(Messages.getErrorString("ChartTableModel.ERROR_0001_COLUMN_NUM_LOWER_THAN_ZERO")); //$NON-NLS-1$
+    }
+    allocate(rowCount, columnCount);
+    for (int col = 0; col < columnCount; col++) {
+      setLongColumn(col, new long[rowCount], allNulls(rowCount));
+    }
+  }
+
+  /**
+   * Returns the number of columns in the table
+   */
+  public int getColumnCount() {
+    return (isRotated() ? rowCount : colCount);
+  }
+
+  /**
+   * Returns the number of rows in the table
+   */
+  public int getRowCount() {
+    return (isRotated() ? colCount : rowCount);
+  }
+
+  /**
+   * Returns the storage type of the specified column of the underlying (unrotated) data.
+   *
+   * @param col the 0-based column number
+   * @return the storage type of the column
+   */
+  public ColumnType getColumnType(final int col) {
+    return columnTypes[col];
+  }
+
+  /**
+   * Returns the data at the specified (row, col). Numeric cells are boxed on the way out; use
+   * {@link #getDouble(int, int)} to read them without allocating.
+   */
+  public Object getValueAt(final int row, final int col) {
+    final int dataRow = isRotated() ? col : row;
+    final int dataCol = isRotated() ? row : col;
+
+    if (dataRow < 0 || dataRow >= rowCount) {
+      logger.error(Messages.getErrorString("ChartTableModel.ERROR_0004_ROW_NUM_OUT_OF_BOUNDS")); //$NON-NLS-1$
+      return null;
+    } else if (dataCol < 0 || dataCol >= colCount) {
+      logger.error(Messages.getErrorString("ChartTableModel.ERROR_0002_COLUMN_NUM_OUT_OF_BOUNDS")); //$NON-NLS-1$
+      return null;
+    }
+    return getDataValue(dataRow, dataCol);
+  }
+
+  /**
+   * Returns the numeric value at the specified (row, col) straight from the primitive column storage. Unlike
+   * {@link #getValueAt(int, int)} no range checking or logging takes place.
+   *
+   * @return the value as a double, or <code>Double.NaN</code> if the cell is empty or not numeric
+   * @throws ArrayIndexOutOfBoundsException if the row or column number are out of bounds
+   */
+  public double getDouble(final int row, final int col) {
+    final int dataRow = isRotated() ? col : row;
+    final int dataCol = isRotated() ? row : col;
+
+    switch (columnTypes[dataCol]) {
+      case LONG:
+        return nullMasks[dataCol].get(dataRow) ? Double.NaN : longColumns[dataCol][dataRow];
+      case DOUBLE:
+        return nullMasks[dataCol].get(dataRow) ? Double.NaN : doubleColumns[dataCol][dataRow];
+      default:
+        final Object value = objectColumns[dataCol][dataRow];
+        return (value instanceof Number ? ((Number) value).doubleValue() : Double.NaN);
+    }
+  }
+
+  /**
+   * Sets the data at the specified (row, col). Setting a value which the column's current storage cannot hold
+   * widens the column (<code>LONG</code> to <code>DOUBLE</code>, numeric to <code>OBJECT</code>).
+   *
+   * @throws ArrayIndexOutOfBoundsException indicates the row or column are invalid
+   */
+  public void setValueAt(final Object value, final int row, final int col) throws ArrayIndexOutOfBoundsException {
+    final int dataRow = isRotated() ? col : row;
+    final int dataCol = isRotated() ? row : col;
+
+    if (dataRow < 0 || dataRow >= rowCount) {
+      throw new ArrayIndexOutOfBoundsException(Messages.getErrorString("ChartTableModel.ERROR_0004_ROW_NUM_OUT_OF_BOUNDS")); //$NON-NLS-1$
+    } else if (dataCol < 0 || dataCol >= colCount) {
+      throw new ArrayIndexOutOfBoundsException(Messages.getErrorString("ChartTableModel.ERROR_0002_COLUMN_NUM_OUT_OF_BOUNDS")); //$NON-NLS-1$
+    }
+
+    if (value == null) {
+      if (columnTypes[dataCol] == ColumnType.OBJECT) {
+        objectColumns[dataCol][dataRow] = null;
+      } else {
+        nullMasks[dataCol].set(dataRow);
+      }
+      return;
+    }
+
+    final ColumnType required = typeOf(value);
+    if (required.compareTo(columnTypes[dataCol]) > 0) {
+      widenColumn(dataCol, required);
+    }
+    switch (columnTypes[dataCol]) {
+      case LONG:
+        longColumns[dataCol][dataRow] = ((Number) value).longValue();
+        nullMasks[dataCol].clear(dataRow);
+        break;
+      case DOUBLE:
+        doubleColumns[dataCol][dataRow] = ((Number) value).doubleValue();
+        nullMasks[dataCol].clear(dataRow);
+        break;
+      default:
+        objectColumns[dataCol][dataRow] = value;
+    }
+  }
+
+  /**
+   * Sets the data based on the input Object array passed. The data is converted into columnar storage, using the
+   * narrowest storage type able to hold every value of each column. The input array is not retained.
+   *
+   * @param inData The input data
+   * @throws IllegalStateException if any data element within the array is null.
+   */
+  public void setData(final Object[][] inData) throws IllegalStateException {
+    if (null == inData) {
+      allocate(0, 0);
+      return;
+    }
+
+    int columns = 0;
+    for (int i = 0; i < inData.length; i++) {
+      if (null == inData[i]) {
+        throw new IllegalStateException(Messages.getErrorString("ChartTableModel.ERROR_0008_DATA_HAS_NULL_ELEMENTS")); //$NON-NLS-1$
+      }
+      columns = Math.max(columns, inData[i].length);
+    }
+
+    final int rows = inData.length;
+    allocate(rows, columns);
+    for (int col = 0; col < columns; col++) {
+      ColumnType type = ColumnType.LONG;
+      for (int row = 0; row < rows && type != ColumnType.OBJECT; row++) {
+        final Object value = (col < inData[row].length ? inData[row][col] : null);
+        if (value != null) {
+          final ColumnType valueType = typeOf(value);
+          if (valueType.compareTo(type) > 0) {
+            type = valueType;
+          }
+        }
+      }
+
+      final BitSet nulls = new BitSet(rows);
+      switch (type) {
+        case LONG:
+          final long[] longs = new long[rows];
+          for (int row = 0; row < rows; row++) {
+            final Object value = (col < inData[row].length ? inData[row][col] : null);
+            if (value == null) {
+              nulls.set(row);
+            } else {
+              longs[row] = ((Number) value).longValue();
+            }
+          }
+          setLongColumn(col, longs, nulls);
+          break;
+        case DOUBLE:
+          final double[] doubles = new double[rows];
+          for (int row = 0; row < rows; row++) {
+            final Object value = (col < inData[row].length ? inData[row][col] : null);
+            if (value == null) {
+              nulls.set(row);
+            } else {
+              doubles[row] = ((Number) value).doubleValue();
+            }
+          }
+          setDoubleColumn(col, doubles, nulls);
+          break;
+        default:
+          final Object[] objects = new Object[rows];
+          for (int row = 0; row < rows; row++) {
+            objects[row] = (col < inData[row].length ? inData[row][col] : null);
+          }
+          setObjectColumn(col, objects);
+      }
+    }
+  }
+
+  /**
+   * Replaces the specified column of the underlying (unrotated) data with the given values. The array is used as is,
+   * without copying.
+   *
+   * @param col    the 0-based column number
+   * @param values the column values, one per row
+   * @param nulls  the rows which hold <code>null</code>, or <code>null</code> if no row does
+   * @throws IllegalArgumentException if the number of values does not match the row count
+   */
+  public void setDoubleColumn(final int col, final double[] values, final BitSet nulls) throws IllegalArgumentException {
+    checkColumn(col, values.length);
+    clearColumn(col);
+    columnTypes[col] = ColumnType.DOUBLE;
+    doubleColumns[col] = values;
+    nullMasks[col] = (nulls != null ? nulls : new BitSet(0));
+  }
+
+  /**
+   * Replaces the specified column of the underlying (unrotated) data with the given values. The array is used as is,
+   * without copying.
+   *
+   * @param col    the 0-based column number
+   * @param values the column values, one per row
+   * @param nulls  the rows which hold <code>null</code>, or <code>null</code> if no row does
+   * @throws IllegalArgumentException if the number of values does not match the row count
+   */
+  public void setLongColumn(final int col, final long[] values, final BitSet nulls) throws IllegalArgumentException {
+    checkColumn(col, values.length);
+    clearColumn(col);
+    columnTypes[col] = ColumnType.LONG;
+    longColumns[col] = values;
+    nullMasks[col] = (nulls != null ? nulls : new BitSet(0));
+  }
+
+  /**
+   * Replaces the specified column of the underlying (unrotated) data with the given values. The array is used as is,
+   * without copying.
+   *
+   * @param col    the 0-based column number
+   * @param values the column values, one per row
+   * @throws IllegalArgumentException if the number of values does not match the row count
+   */
+  public void setObjectColumn(final int col, final Object[] values) throws IllegalArgumentException {
+    checkColumn(col, values.length);
+    clearColumn(col);
+    columnTypes[col] = ColumnType.OBJECT;
+    objectColumns[col] = values;
+  }
+
+  private void allocate(final int rows, final int columns) {
+    rowCount = rows;
+    colCount = columns;
+    columnTypes = new ColumnType[columns];
+    longColumns = new long[columns][];
+    doubleColumns = new double[columns][];
+    objectColumns = new Object[columns][];
+    nullMasks = new BitSet[columns];
+  }
+
+  private void checkColumn(final int col, final int length) throws IllegalArgumentException {
+    if (col < 0 || col >= colCount) {
+      throw new IllegalArgumentException(Messages.getErrorString("ChartTableModel.ERROR_0002_COLUMN_NUM_OUT_OF_BOUNDS")); //$NON-NLS-1$
+    } else if (length != rowCount) {
+      throw new IllegalArgumentException(Messages.getErrorString("ChartTableModel.ERROR_0004_ROW_NUM_OUT_OF_BOUNDS")); //$NON-NLS-1$
+    }
+  }
+
+  private void clearColumn(final int col) {
+    longColumns[col] = null;
+    doubleColumns[col] = null;
+    objectColumns[col] = null;
+    nullMasks[col] = null;
+  }
+
+  private void widenColumn(final int col, final ColumnType type) {
+    final BitSet nulls = nullMasks[col];
+    if (type == ColumnType.DOUBLE) {
+      final long[] longs = longColumns[col];
+      final double[] doubles = new double[rowCount];
+      for (int row = 0; row < rowCount; row++) {
+        doubles[row] = longs[row];
+      }
+      setDoubleColumn(col, doubles, nulls);
+    } else {
+      final Object[] objects = new Object[rowCount];
+      for (int row = 0; row < rowCount; row++) {
+        objects[row] = getDataValue(row, col);
+      }
+      setObjectColumn(col, objects);
+    }
+  }
+
+  private Object getDataValue(final int dataRow, final int dataCol) {
+    switch (columnTypes[dataCol]) {
+      case LONG:
+        return nullMasks[dataCol].get(dataRow) ? null : Long.valueOf(longColumns[dataCol][dataRow]);
+      case DOUBLE:
+        return nullMasks[dataCol].get(dataRow) ? null : Double.valueOf(doubleColumns[dataCol][dataRow]);
+      default:
+        return objectColumns[dataCol][dataRow];
+    }
+  }
+
+  private static ColumnType typeOf(final Object value) {
+    if (value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte) {
+      return ColumnType.LONG;
+    } else if (value instanceof Number) {
+      return ColumnType.DOUBLE;
+    }
+    return ColumnType.OBJECT;
+  }
+
+  private static BitSet allNulls(final int rows) {
+    final BitSet nulls = new BitSet(rows);
+    nulls.set(0, rows);
+    return nulls;
+  }
+}
@@ -0,0 +1,34 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.data;
+
+/**
+ * Reduces the number of data points of a chart data model, so the cost of rendering a chart is bounded by the
+ * number of points which can actually be told apart on screen rather than by the size of the query result.
+ */
+public interface IDataDecimator {
+
+  /**
+   * Returns a model holding at most about <code>targetPoints</code> domains per series, or the model itself if it is
+   * already small enough or its type can't be decimated. The specified model is not modified.
+   *
+   * @param chartDataModel the model to decimate
+   * @param targetPoints   the number of points to keep, typically the width of the plot in pixels
+   */
+  public IChartDataModel decimate(IChartDataModel chartDataModel, int targetPoints);
+}
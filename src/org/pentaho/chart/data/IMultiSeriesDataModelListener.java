@@ -0,0 +1,31 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.data;
+
+/**
+ * Notified by a <code>MultiSeriesDataModel</code> each time one of its values is added or changed, so views of the
+ * model such as chart datasets can update the changed cell only.
+ */
+public interface IMultiSeriesDataModelListener {
+
+  /**
+   * Called after the value for the specified series and domain indexes changed. The series or the domain may have
+   * been added to the model by the change.
+   */
+  public void valueChanged(MultiSeriesDataModel model, int seriesIndex, int domainIndex);
+}
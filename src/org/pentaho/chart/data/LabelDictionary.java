@@ -0,0 +1,136 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.data;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Table of distinct labels, such as category or series names, each identified by an int code. Codes are assigned
+ * consecutively in the order labels are first added, so data models can index their values by code and each
+ * distinct label is held once however many values refer to it. Lookups hash into an array of codes rather than a
+ * map of boxed indexes.
+ * <p/>
+ * Labels can't be removed. Instances are not thread safe, but may be read concurrently once no labels are added.
+ */
+public class LabelDictionary {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private String[] labels = new String[INITIAL_CAPACITY];
+  /**
+   * Open addressing hash table of label codes plus one, <code>0</code> marking an empty slot. Kept at most half full.
+   */
+  private int[] slots = new int[INITIAL_CAPACITY * 2];
+  private int size;
+  private final List<String> labelList = new LabelList();
+
+  /**
+   * Returns the code of the label, or <code>-1</code> if the dictionary does not contain it.
+   */
+  public int getCode(String label) {
+    final int mask = slots.length - 1;
+    for (int slot = hash(label) & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+      final String other = labels[slots[slot] - 1];
+      if ((label == other) || ((label != null) && label.equals(other))) {
+        return slots[slot] - 1;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the code of the label, adding the label with the next code if the dictionary does not contain it.
+   */
+  public int add(String label) {
+    final int mask = slots.length - 1;
+    int slot = hash(label) & mask;
+    for (; slots[slot] != 0; slot = (slot + 1) & mask) {
+      final String other = labels[slots[slot] - 1];
+      if ((label == other) || ((label != null) && label.equals(other))) {
+        return slots[slot] - 1;
+      }
+    }
+    final int code = size;
+    if (code == labels.length) {
+      final String[] newLabels = new String[labels.length * 2];
+      System.arraycopy(labels, 0, newLabels, 0, code);
+      labels = newLabels;
+    }
+    labels[code] = label;
+    size++;
+    if (size * 2 > slots.length) {
+      rehash(slots.length * 2);
+    } else {
+      slots[slot] = code + 1;
+    }
+    return code;
+  }
+
+  /**
+   * Returns the label with the specified code.
+   *
+   * @throws IndexOutOfBoundsException if no label has the code
+   */
+  public String getLabel(int code) {
+    if ((code < 0) || (code >= size)) {
+      throw new IndexOutOfBoundsException(String.valueOf(code));
+    }
+    return labels[code];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns a read-only list of the labels indexed by code, which reflects labels added afterwards.
+   */
+  public List<String> getLabels() {
+    return labelList;
+  }
+
+  private void rehash(int capacity) {
+    final int[] newSlots = new int[capacity];
+    final int mask = capacity - 1;
+    for (int code = 0; code < size; code++) {
+      int slot = hash(labels[code]) & mask;
+      while (newSlots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      newSlots[slot] = code + 1;
+    }
+    slots = newSlots;
+  }
+
+  private static int hash(String label) {
+    final int hash = label != null ? label.hashCode() : 0;
+    return hash ^ (hash >>> 16);
+  }
+
+  private class LabelList extends AbstractList<String> implements RandomAccess {
+    public String get(int index) {
+      return getLabel(index);
+    }
+
+    public int size() {
+      return size;
+    }
+  }
+}
@@ -0,0 +1,82 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.data;
+
+import java.util.BitSet;
+
+/**
+ * Decimates with the Largest-Triangle-Three-Buckets algorithm (S. Steinarsson, "Downsampling Time Series for Visual
+ * Representation", 2013). The first and last domains are kept and the domains in between are split into
+ * <code>targetPoints - 2</code> buckets; from each bucket the domain forming the largest triangle with the domain
+ * kept from the previous bucket and the average of the next bucket is kept. This preserves the visual shape of a line
+ * far better than sampling or averaging.
+ */
+public class LargestTriangleThreeBucketsDecimator extends AbstractDataDecimator {
+
+  protected void selectDomains(double[] values, int targetPoints, BitSet selected) {
+    final int domainCount = values.length;
+    final double bucketSize = (double) (domainCount - 2) / (targetPoints - 2);
+
+    int previous = 0;
+    selected.set(0);
+    for (int bucket = 0; bucket < targetPoints - 2; bucket++) {
+      final int from = (int) (bucket * bucketSize) + 1;
+      final int to = (int) ((bucket + 1) * bucketSize) + 1;
+
+      // Average of the next bucket, the last domain being the bucket following the last one
+      final int nextFrom = to;
+      final int nextTo = Math.min((int) ((bucket + 2) * bucketSize) + 1, domainCount);
+      double averageX = 0;
+      double averageY = 0;
+      int count = 0;
+      for (int domain = nextFrom; domain < nextTo; domain++) {
+        if (!Double.isNaN(values[domain])) {
+          averageX += domain;
+          averageY += values[domain];
+          count++;
+        }
+      }
+      if (count > 0) {
+        averageX /= count;
+        averageY /= count;
+      } else {
+        averageX = (nextFrom + nextTo - 1) / 2.0;
+        averageY = Double.isNaN(values[previous]) ? 0 : values[previous];
+      }
+
+      final double previousY = Double.isNaN(values[previous]) ? averageY : values[previous];
+      int kept = from;
+      double maxArea = -1;
+      for (int domain = from; domain < to; domain++) {
+        if (!Double.isNaN(values[domain])) {
+          // Twice the triangle area, the factor doesn't matter for the comparison
+          final double area =
+              Math.abs((previous - averageX) * (values[domain] - previousY) - (previous - domain)
+                  * (averageY - previousY));
+          if (area > maxArea) {
+            maxArea = area;
+            kept = domain;
+          }
+        }
+      }
+      selected.set(kept);
+      previous = kept;
+    }
+    selected.set(domainCount - 1);
+  }
+}
@@ -0,0 +1,57 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.data;
+
+import java.util.BitSet;
+
+/**
+ * Decimates by keeping the smallest and largest value of every bucket of domains, which guarantees that no peak is
+ * lost. Domains are split into <code>targetPoints / 2</code> buckets, so that at most about
+ * <code>targetPoints</code> domains are kept per series; the first and last domains are always kept.
+ */
+public class MinMaxDecimator extends AbstractDataDecimator {
+
+  protected void selectDomains(double[] values, int targetPoints, BitSet selected) {
+    final int domainCount = values.length;
+    final int bucketCount = targetPoints / 2;
+
+    selected.set(0);
+    for (int bucket = 0; bucket < bucketCount; bucket++) {
+      final int from = (int) ((long) bucket * domainCount / bucketCount);
+      final int to = (int) ((long) (bucket + 1) * domainCount / bucketCount);
+      int min = -1;
+      int max = -1;
+      for (int domain = from; domain < to; domain++) {
+        final double value = values[domain];
+        if (!Double.isNaN(value)) {
+          if ((min < 0) || (value < values[min])) {
+            min = domain;
+          }
+          if ((max < 0) || (value > values[max])) {
+            max = domain;
+          }
+        }
+      }
+      if (min >= 0) {
+        selected.set(min);
+        selected.set(max);
+      }
+    }
+    selected.set(domainCount - 1);
+  }
+}
@@ -18,23 +18,104 @@
 package org.pentaho.chart.data;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
+import java.util.NoSuchElementException;
 
+/**
+ * Holds a value per (domain, series) pair. Values are kept in a dense matrix indexed by the position at which a
+ * domain or series name was first seen, its code in the {@link LabelDictionary} of domain or series names, so adding
+ * a value is a constant time operation regardless of how many domains and series the model already holds. Missing
+ * values are <code>null</code>. Listeners can follow the model as values are added or replaced, see
+ * {@link IMultiSeriesDataModelListener}.
+ */
 public class MultiSeriesDataModel implements IChartDataModel, IScalableDataModel {
-  
-  LinkedHashMap<String, NamedValuesDataModel> chartData = new LinkedHashMap<String, NamedValuesDataModel>();
+
+  private static final int INITIAL_DOMAIN_CAPACITY = 16;
+
+  private LabelDictionary domainNames = new LabelDictionary();
+  private LabelDictionary seriesNames = new LabelDictionary();
+  private ArrayList<DomainData> domainViews = new ArrayList<DomainData>();
+  private ArrayList<SeriesData> seriesViews = new ArrayList<SeriesData>();
+  private List<DomainData> domainViewList = Collections.unmodifiableList(domainViews);
+  private List<SeriesData> seriesViewList = Collections.unmodifiableList(seriesViews);
+  /**
+   * Values indexed by [series][domain]. Each series array has room for <code>domainCapacity</code> domains.
+   */
+  private double[][] values = new double[0][];
+  /**
+   * Per series, the domains which hold a (non null) value.
+   */
+  private BitSet[] presentValues = new BitSet[0];
+  private int domainCapacity = INITIAL_DOMAIN_CAPACITY;
+  private ChartDataStatistics statistics = new ChartDataStatistics(this, INITIAL_DOMAIN_CAPACITY);
+  private IMultiSeriesDataModelListener[] listeners = new IMultiSeriesDataModelListener[0];
   Number scalingFactor = 1;
   
-  public class SeriesData extends NamedValuesDataModel {
-    String seriesName;
-    
-    SeriesData() {
+  /**
+   * Read-only view of a row or column of the model. The inherited <code>LinkedHashSet</code> storage stays empty, so
+   * every method reading it is implemented on the model, and views are serialized as a copy of their values.
+   */
+  abstract class ValuesView extends NamedValuesDataModel {
+
+    public boolean contains(Object o) {
+      return (o instanceof NamedValue) && containsValue(getNamedValue(((NamedValue) o).getName()), (NamedValue) o);
+    }
+
+    public boolean isEmpty() {
+      return size() == 0;
+    }
+
+    public Object[] toArray() {
+      return copyValues().toArray();
+    }
+
+    public <T> T[] toArray(T[] a) {
+      return copyValues().toArray(a);
+    }
+
+    public boolean add(NamedValue namedValue) {
+      throw new UnsupportedOperationException();
+    }
+
+    public boolean remove(Object o) {
+      throw new UnsupportedOperationException();
     }
+
+    public void clear() {
+      throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Serializes the view as a detached <code>NamedValuesDataModel</code> holding the current values.
+     */
+    Object writeReplace() {
+      final NamedValuesDataModel copy = new NamedValuesDataModel();
+      copy.addAll(copyValues());
+      copy.setScalingFactor(getScalingFactor());
+      return copy;
+    }
+
+    private List<NamedValue> copyValues() {
+      final List<NamedValue> namedValues = new ArrayList<NamedValue>(size());
+      for (final Iterator<NamedValue> iterator = iterator(); iterator.hasNext();) {
+        namedValues.add(iterator.next());
+      }
+      return namedValues;
+    }
+  }
+
+  /**
+   * Read-only view of the values of one series, backed by the model. The view reflects values and domains added to
+   * the model after it was obtained.
+   */
+  public class SeriesData extends ValuesView {
+    final int seriesIndex;
     
-    SeriesData(String seriesName) {
-      this.seriesName = seriesName;
+    SeriesData(int seriesIndex) {
+      this.seriesIndex = seriesIndex;
     }
     
     public List<String> getDomains() {
@@ -42,22 +123,44 @@ public class MultiSeriesDataModel implements IChartDataModel, IScalableDataModel
     }
     
     public String getSeriesName() {
-      return seriesName;
+      return seriesNames.getLabel(seriesIndex);
     }
 
     public void setSeriesName(String seriesName) {
-      this.seriesName = seriesName;
+      throw new UnsupportedOperationException();
+    }
+
+    public List<String> getNames() {
+      return getDomainNames();
+    }
+
+    public NamedValue getNamedValue(String name) {
+      final int domain = getDomainIndex(name);
+      return domain >= 0 ? new NamedValue(name, getValue(seriesIndex, domain)) : null;
+    }
+
+    public Iterator<NamedValue> iterator() {
+      return new NamedValueIterator(domainNames.getLabels()) {
+        Number getValue(int index) {
+          return MultiSeriesDataModel.this.getValue(seriesIndex, index);
+        }
+      };
+    }
+
+    public int size() {
+      return domainNames.size();
     }
   }
   
-  public class DomainData extends NamedValuesDataModel {
-    String domainName;
-    
-    DomainData() {
-    }
+  /**
+   * Read-only view of the values of one domain, backed by the model. The view reflects values and series added to
+   * the model after it was obtained.
+   */
+  public class DomainData extends ValuesView {
+    final int domainIndex;
     
-    DomainData(String domainName) {
-      this.domainName = domainName;
+    DomainData(int domainIndex) {
+      this.domainIndex = domainIndex;
     }
     
     public List<String> getSeries() {
@@ -65,96 +168,216 @@ public class MultiSeriesDataModel implements IChartDataModel, IScalableDataModel
     }
     
     public String getDomainName() {
-      return domainName;
+      return domainNames.getLabel(domainIndex);
     }
 
     public void setDomainName(String domainName) {
-      this.domainName = domainName;
+      throw new UnsupportedOperationException();
     }
-  }
-  
-  public void addValue(String categoryName, String seriesName, Number value) {    
-    NamedValuesDataModel namedValueDataModel = chartData.get(categoryName);
-    if (namedValueDataModel == null) {
-      namedValueDataModel = new NamedValuesDataModel();
-      if (chartData.size() > 0) {
-         for (NamedValue existingDataPoint : chartData.values().iterator().next()) {
-           namedValueDataModel.add(new NamedValue(existingDataPoint.getName(), null));
-        }
-      }
-      chartData.put(categoryName, namedValueDataModel);
+
+    public List<String> getNames() {
+      return getSeriesNames();
     }
-    
-    NamedValue existingDataPoint = namedValueDataModel.getNamedValue(seriesName);
-    if (existingDataPoint == null) {
-      namedValueDataModel.add(new NamedValue(seriesName.toString(), value));
-      for (String tmpCategory : chartData.keySet()) {
-        if (!categoryName.equals(tmpCategory)) {
-          chartData.get(tmpCategory).add(new NamedValue(seriesName.toString(), null));
+
+    public NamedValue getNamedValue(String name) {
+      final int series = getSeriesIndex(name);
+      return series >= 0 ? new NamedValue(name, getValue(series, domainIndex)) : null;
+    }
+
+    public Iterator<NamedValue> iterator() {
+      return new NamedValueIterator(seriesNames.getLabels()) {
+        Number getValue(int index) {
+          return MultiSeriesDataModel.this.getValue(index, domainIndex);
         }
-      }
-    } else if (existingDataPoint.getValue() == null) {
-      existingDataPoint.setValue(value);
-    } else if (value != null){
-      existingDataPoint.setValue(((Number)existingDataPoint.getValue()).doubleValue() + value.doubleValue());
+      };
     }
-  }
-  
-  public DomainData getDomainData(String domainName) {
-    DomainData domainData = null;
-    NamedValuesDataModel namedValueDataModel = chartData.get(domainName);
-    if (namedValueDataModel != null) {
-      domainData = new DomainData(domainName);
-      domainData.addAll(namedValueDataModel);
+
+    public int size() {
+      return seriesNames.size();
     }
-    return domainData;
   }
-  
-  public List<DomainData> getDomainData() {
-    List<DomainData> domainData = new ArrayList<DomainData>();
-    for (Map.Entry<String, NamedValuesDataModel> mapEntry : chartData.entrySet()) {
-      DomainData domain = new DomainData(mapEntry.getKey());
-      domain.addAll(mapEntry.getValue());
-      domainData.add(domain);
+
+  /**
+   * Iterates the cells of a series or domain view, creating each named value as it is reached.
+   */
+  private abstract static class NamedValueIterator implements Iterator<NamedValue> {
+    private final List<String> names;
+    private final int size;
+    private int index;
+
+    NamedValueIterator(List<String> names) {
+      this.names = names;
+      this.size = names.size();
+    }
+
+    abstract Number getValue(int index);
+
+    public boolean hasNext() {
+      return index < size;
+    }
+
+    public NamedValue next() {
+      if (index >= size) {
+        throw new NoSuchElementException();
+      }
+      final NamedValue namedValue = new NamedValue(names.get(index), getValue(index));
+      index++;
+      return namedValue;
+    }
+
+    public void remove() {
+      throw new UnsupportedOperationException();
     }
-    return domainData;
   }
   
-  public SeriesData getSeriesData(String seriesName) {
-    SeriesData seriesData = null;
-    
-    if ((chartData.size() > 0) && chartData.values().iterator().next().getNames().contains(seriesName)) {
-      seriesData = new SeriesData(seriesName);
-      for (Map.Entry<String, NamedValuesDataModel> mapEntry : chartData.entrySet()) {
-        String domainName = mapEntry.getKey();
-        Number value = mapEntry.getValue().getNamedValue(seriesName).value; 
-        seriesData.add(new NamedValue(domainName, value));
+  /**
+   * Adds the value to the value of the category and series, a <code>null</code> value only adding the category and
+   * series if they are new.
+   */
+  public void addValue(String categoryName, String seriesName, Number value) {
+    final int domain = getOrAddDomain(categoryName);
+    final int series = getOrAddSeries(seriesName);
+    if (value != null) {
+      if (presentValues[series].get(domain)) {
+        final double oldValue = values[series][domain];
+        values[series][domain] += value.doubleValue();
+        statistics.valueChanged(domain, oldValue, values[series][domain]);
+      } else {
+        values[series][domain] = value.doubleValue();
+        presentValues[series].set(domain);
+        statistics.valueChanged(domain, Double.NaN, values[series][domain]);
       }
     }
-       
-    return seriesData;
+    fireValueChanged(series, domain);
   }
-  
-  public List<SeriesData> getSeriesData() {
-    List<SeriesData> seriesList = new ArrayList<SeriesData>();
-    
-    List<String> seriesNames = new ArrayList<String>();
-    if (chartData.size() > 0) {
-      seriesNames.addAll(chartData.values().iterator().next().getNames());
+
+  /**
+   * Replaces the value of the category and series, a <code>null</code> value removing it.
+   */
+  public void setValue(String categoryName, String seriesName, Number value) {
+    final int domain = getOrAddDomain(categoryName);
+    final int series = getOrAddSeries(seriesName);
+    final double oldValue = getDouble(series, domain);
+    if (value != null) {
+      values[series][domain] = value.doubleValue();
+      presentValues[series].set(domain);
+      statistics.valueChanged(domain, oldValue, values[series][domain]);
+    } else if (!Double.isNaN(oldValue)) {
+      presentValues[series].clear(domain);
+      statistics.valueChanged(domain, oldValue, Double.NaN);
     }
-    
-    for (String seriesName : seriesNames) {
-      SeriesData series = new SeriesData(seriesName);
-      
-      for (Map.Entry<String, NamedValuesDataModel> mapEntry : chartData.entrySet()) {
-        String domainName = mapEntry.getKey();
-        Number value = mapEntry.getValue().getNamedValue(seriesName).value; 
-        series.add(new NamedValue(domainName, value));
+    fireValueChanged(series, domain);
+  }
+
+  /**
+   * Registers a listener notified of every value added or changed from now on.
+   */
+  public void addModelListener(IMultiSeriesDataModelListener listener) {
+    final IMultiSeriesDataModelListener[] newListeners = new IMultiSeriesDataModelListener[listeners.length + 1];
+    System.arraycopy(listeners, 0, newListeners, 0, listeners.length);
+    newListeners[listeners.length] = listener;
+    listeners = newListeners;
+  }
+
+  public void removeModelListener(IMultiSeriesDataModelListener listener) {
+    for (int i = 0; i < listeners.length; i++) {
+      if (listeners[i] == listener) {
+        final IMultiSeriesDataModelListener[] newListeners = new IMultiSeriesDataModelListener[listeners.length - 1];
+        System.arraycopy(listeners, 0, newListeners, 0, i);
+        System.arraycopy(listeners, i + 1, newListeners, i, newListeners.length - i);
+        listeners = newListeners;
+        return;
       }
-      seriesList.add(series);
     }
-    
-    return seriesList;
+  }
+
+  private void fireValueChanged(int series, int domain) {
+    for (int i = 0; i < listeners.length; i++) {
+      listeners[i].valueChanged(this, series, domain);
+    }
+  }
+
+  public int getDomainCount() {
+    return domainNames.size();
+  }
+
+  public int getSeriesCount() {
+    return seriesNames.size();
+  }
+
+  /**
+   * Returns the domain names in the order they were first added.
+   */
+  public List<String> getDomainNames() {
+    return domainNames.getLabels();
+  }
+
+  /**
+   * Returns the series names in the order they were first added.
+   */
+  public List<String> getSeriesNames() {
+    return seriesNames.getLabels();
+  }
+
+  /**
+   * Returns the index of the specified domain, or <code>-1</code> if the model does not contain it.
+   */
+  public int getDomainIndex(String domainName) {
+    return domainNames.getCode(domainName);
+  }
+
+  /**
+   * Returns the index of the specified series, or <code>-1</code> if the model does not contain it.
+   */
+  public int getSeriesIndex(String seriesName) {
+    return seriesNames.getCode(seriesName);
+  }
+
+  /**
+   * Returns the value for the specified series and domain indexes, or <code>null</code> if there is none.
+   */
+  public Number getValue(int seriesIndex, int domainIndex) {
+    return presentValues[seriesIndex].get(domainIndex) ? Double.valueOf(values[seriesIndex][domainIndex]) : null;
+  }
+
+  /**
+   * Returns the value for the specified series and domain indexes without boxing it.
+   *
+   * @return the value, or <code>Double.NaN</code> if there is none
+   */
+  public double getDouble(int seriesIndex, int domainIndex) {
+    return presentValues[seriesIndex].get(domainIndex) ? values[seriesIndex][domainIndex] : Double.NaN;
+  }
+
+  public DomainData getDomainData(String domainName) {
+    final int domain = getDomainIndex(domainName);
+    return domain >= 0 ? getDomainData().get(domain) : null;
+  }
+
+  /**
+   * Returns read-only views of every domain. The views are created as domains are added and shared between calls.
+   */
+  public List<DomainData> getDomainData() {
+    return domainViewList;
+  }
+
+  public SeriesData getSeriesData(String seriesName) {
+    final int series = getSeriesIndex(seriesName);
+    return series >= 0 ? getSeriesData().get(series) : null;
+  }
+
+  /**
+   * Returns read-only views of every series. The views are created as series are added and shared between calls.
+   */
+  public List<SeriesData> getSeriesData() {
+    return seriesViewList;
+  }
+
+  /**
+   * Returns the statistics of the values, maintained as values are added.
+   */
+  public ChartDataStatistics getStatistics() {
+    return statistics;
   }
 
   public Number getScalingFactor() {
@@ -164,5 +387,51 @@ public class MultiSeriesDataModel implements IChartDataModel, IScalableDataModel
   public void setScalingFactor(Number scalingFactor) {
     this.scalingFactor = scalingFactor;
   }
-  
+
+  private static boolean containsValue(NamedValue namedValue, NamedValue other) {
+    if ((namedValue == null) || (namedValue.getValue() == null)) {
+      return (namedValue != null) && (other.getValue() == null);
+    }
+    return (other.getValue() != null) && (namedValue.getValue().doubleValue() == other.getValue().doubleValue());
+  }
+
+  private int getOrAddDomain(String domainName) {
+    int index = domainNames.getCode(domainName);
+    if (index < 0) {
+      index = domainNames.size();
+      if (index == domainCapacity) {
+        domainCapacity *= 2;
+        for (int series = 0; series < seriesNames.size(); series++) {
+          final double[] seriesValues = new double[domainCapacity];
+          System.arraycopy(values[series], 0, seriesValues, 0, index);
+          values[series] = seriesValues;
+        }
+        statistics.ensureCategoryCapacity(domainCapacity);
+      }
+      domainNames.add(domainName);
+      domainViews.add(new DomainData(index));
+    }
+    return index;
+  }
+
+  private int getOrAddSeries(String seriesName) {
+    int index = seriesNames.getCode(seriesName);
+    if (index < 0) {
+      index = seriesNames.size();
+      if (index == values.length) {
+        final int capacity = Math.max(4, values.length * 2);
+        final double[][] newValues = new double[capacity][];
+        System.arraycopy(values, 0, newValues, 0, index);
+        values = newValues;
+        final BitSet[] newPresentValues = new BitSet[capacity];
+        System.arraycopy(presentValues, 0, newPresentValues, 0, index);
+        presentValues = newPresentValues;
+      }
+      values[index] = new double[domainCapacity];
+      presentValues[index] = new BitSet();
+      seriesNames.add(seriesName);
+      seriesViews.add(new SeriesData(index));
+    }
+    return index;
+  }
 }
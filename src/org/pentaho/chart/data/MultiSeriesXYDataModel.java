@@ -18,6 +18,7 @@
 package org.pentaho.chart.data;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -80,4 +81,11 @@ public class MultiSeriesXYDataModel implements IChartDataModel {
     
     return seriesList;
   }
+
+  /**
+   * Returns the data points of each series keyed by series name, without copying them as {@link #getSeries()} does.
+   */
+  public Map<String, XYDataModel> getSeriesData() {
+    return Collections.unmodifiableMap(chartData);
+  }
 }
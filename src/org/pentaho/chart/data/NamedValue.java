@@ -17,8 +17,9 @@
 
 package org.pentaho.chart.data;
 
+import java.io.Serializable;
 
-public class NamedValue {
+public class NamedValue implements Serializable {
   String name;
   Number value;
   
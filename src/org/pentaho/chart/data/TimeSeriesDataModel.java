@@ -0,0 +1,191 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.data;
+
+import java.util.List;
+
+/**
+ * Sliding window of the latest timestamped values of each series, for charts of streaming metrics. Each series keeps
+ * its points in a ring buffer of primitive timestamp and value arrays with a fixed capacity, so appending a point is
+ * a constant time operation which allocates nothing once the series exists; when the buffer is full the oldest point
+ * is dropped. Points older than a time window can be dropped as well, see {@link #removeOlderThan(long)}.
+ * <p/>
+ * Points of a series must be appended in timestamp order. <code>Double.NaN</code> values are gaps in the series.
+ * Instances are thread safe; to read several points consistently while points are appended, synchronize on the model.
+ */
+public class TimeSeriesDataModel implements IChartDataModel, IScalableDataModel {
+
+  private final int capacity;
+  private final LabelDictionary seriesNames = new LabelDictionary();
+  private long[][] timestamps = new long[0][];
+  private double[][] values = new double[0][];
+  /**
+   * Per series, the buffer index of the oldest point.
+   */
+  private int[] starts = new int[0];
+  private int[] sizes = new int[0];
+  private long modificationCount;
+  Number scalingFactor = 1;
+
+  /**
+   * @param capacity the number of points kept per series
+   */
+  public TimeSeriesDataModel(int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.capacity = capacity;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * Returns the index of the series, adding it if the model does not contain it yet.
+   */
+  public synchronized int addSeries(String seriesName) {
+    int series = seriesNames.getCode(seriesName);
+    if (series < 0) {
+      series = seriesNames.add(seriesName);
+      if (series == timestamps.length) {
+        final int seriesCapacity = Math.max(4, series * 2);
+        final long[][] newTimestamps = new long[seriesCapacity][];
+        System.arraycopy(timestamps, 0, newTimestamps, 0, series);
+        timestamps = newTimestamps;
+        final double[][] newValues = new double[seriesCapacity][];
+        System.arraycopy(values, 0, newValues, 0, series);
+        values = newValues;
+        final int[] newStarts = new int[seriesCapacity];
+        System.arraycopy(starts, 0, newStarts, 0, series);
+        starts = newStarts;
+        final int[] newSizes = new int[seriesCapacity];
+        System.arraycopy(sizes, 0, newSizes, 0, series);
+        sizes = newSizes;
+      }
+      timestamps[series] = new long[capacity];
+      values[series] = new double[capacity];
+      modificationCount++;
+    }
+    return series;
+  }
+
+  public void addPoint(String seriesName, long timestamp, double value) {
+    addPoint(addSeries(seriesName), timestamp, value);
+  }
+
+  /**
+   * Appends a point to the series with the specified index, dropping the oldest point of the series if it is full.
+   */
+  public synchronized void addPoint(int seriesIndex, long timestamp, double value) {
+    if (seriesIndex >= seriesNames.size()) {
+      throw new IndexOutOfBoundsException(String.valueOf(seriesIndex));
+    }
+    int index = starts[seriesIndex] + sizes[seriesIndex];
+    if (index >= capacity) {
+      index -= capacity;
+    }
+    timestamps[seriesIndex][index] = timestamp;
+    values[seriesIndex][index] = value;
+    if (sizes[seriesIndex] < capacity) {
+      sizes[seriesIndex]++;
+    } else {
+      starts[seriesIndex] = (index + 1 == capacity) ? 0 : index + 1;
+    }
+    modificationCount++;
+  }
+
+  /**
+   * Drops the points of every series with a timestamp before the specified one.
+   */
+  public synchronized void removeOlderThan(long timestamp) {
+    for (int series = 0; series < seriesNames.size(); series++) {
+      while ((sizes[series] > 0) && (timestamps[series][starts[series]] < timestamp)) {
+        starts[series] = (starts[series] + 1 == capacity) ? 0 : starts[series] + 1;
+        sizes[series]--;
+        modificationCount++;
+      }
+    }
+  }
+
+  public synchronized int getSeriesCount() {
+    return seriesNames.size();
+  }
+
+  /**
+   * Returns the series names in the order they were first added.
+   */
+  public synchronized List<String> getSeriesNames() {
+    return seriesNames.getLabels();
+  }
+
+  public synchronized String getSeriesName(int seriesIndex) {
+    return seriesNames.getLabel(seriesIndex);
+  }
+
+  /**
+   * Returns the index of the specified series, or <code>-1</code> if the model does not contain it.
+   */
+  public synchronized int getSeriesIndex(String seriesName) {
+    return seriesNames.getCode(seriesName);
+  }
+
+  /**
+   * Returns the number of points held for the series.
+   */
+  public synchronized int getItemCount(int seriesIndex) {
+    return sizes[seriesIndex];
+  }
+
+  /**
+   * Returns the timestamp of a point of the series, item <code>0</code> being the oldest point held.
+   */
+  public synchronized long getTimestamp(int seriesIndex, int item) {
+    return timestamps[seriesIndex][bufferIndex(seriesIndex, item)];
+  }
+
+  /**
+   * Returns the unscaled value of a point of the series, item <code>0</code> being the oldest point held.
+   */
+  public synchronized double getValue(int seriesIndex, int item) {
+    return values[seriesIndex][bufferIndex(seriesIndex, item)];
+  }
+
+  /**
+   * Returns a number incremented by every change of the model, so views can tell whether the model changed.
+   */
+  public synchronized long getModificationCount() {
+    return modificationCount;
+  }
+
+  public Number getScalingFactor() {
+    return scalingFactor;
+  }
+
+  public void setScalingFactor(Number scalingFactor) {
+    this.scalingFactor = scalingFactor;
+  }
+
+  private int bufferIndex(int seriesIndex, int item) {
+    if ((item < 0) || (item >= sizes[seriesIndex])) {
+      throw new IndexOutOfBoundsException(String.valueOf(item));
+    }
+    final int index = starts[seriesIndex] + item;
+    return index >= capacity ? index - capacity : index;
+  }
+}
@@ -0,0 +1,250 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.data;
+
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.pentaho.chart.model.ChartDataDefinition;
+import org.pentaho.util.messages.Messages;
+
+/**
+ * Caps the number of categories and series of a chart data model: the largest ones are kept and the remaining ones
+ * are folded into a single "Other" category or series holding their sum. Categories and series are ranked by the sum
+ * of the absolute values they hold; ties are broken in favor of the one added first. The kept categories and series
+ * remain in their original order, followed by "Other".
+ * <p/>
+ * The largest entries are picked with a bounded heap, in <code>O(n log N)</code> time for <code>n</code> entries.
+ * <p/>
+ * For a <code>NamedValuesDataModel</code> each named value is a category. For a <code>MultiSeriesDataModel</code> the
+ * domains are the categories. Other models are returned unchanged. The aggregated model is a new model; the specified
+ * model is not modified.
+ */
+public class TopNAggregator {
+
+  private final int maxCategories;
+  private final int maxSeries;
+  private final String otherName;
+
+  /**
+   * @param maxCategories the number of categories to keep, or <code>0</code> to keep every category
+   * @param maxSeries     the number of series of a multi series model to keep, or <code>0</code> to keep every series
+   * @param otherName     the name of the category or series holding the remaining values, or <code>null</code> for
+   *                      the default localized name
+   */
+  public TopNAggregator(int maxCategories, int maxSeries, String otherName) {
+    this.maxCategories = Math.max(maxCategories, 0);
+    this.maxSeries = Math.max(maxSeries, 0);
+    this.otherName = otherName != null ? otherName : Messages.getString("TopNAggregator.OTHER_NAME"); //$NON-NLS-1$
+  }
+
+  /**
+   * Returns the aggregator configured by the data definition, or <code>null</code> if it doesn't cap the number of
+   * categories or series.
+   */
+  public static TopNAggregator forDataDefinition(ChartDataDefinition dataDefinition) {
+    final int maxCategories = dataDefinition.getMaxCategories() != null ? dataDefinition.getMaxCategories() : 0;
+    final int maxSeries = dataDefinition.getMaxSeries() != null ? dataDefinition.getMaxSeries() : 0;
+    if ((maxCategories <= 0) && (maxSeries <= 0)) {
+      return null;
+    }
+    return new TopNAggregator(maxCategories, maxSeries, dataDefinition.getOtherName());
+  }
+
+  public int getMaxCategories() {
+    return maxCategories;
+  }
+
+  public int getMaxSeries() {
+    return maxSeries;
+  }
+
+  public String getOtherName() {
+    return otherName;
+  }
+
+  /**
+   * Returns a model holding at most <code>maxCategories</code> categories and <code>maxSeries</code> series, each
+   * plus "Other", or the model itself if it is small enough.
+   */
+  public IChartDataModel aggregate(IChartDataModel chartDataModel) {
+    if (chartDataModel instanceof MultiSeriesDataModel) {
+      return aggregate((MultiSeriesDataModel) chartDataModel);
+    } else if (chartDataModel instanceof NamedValuesDataModel) {
+      return aggregate((NamedValuesDataModel) chartDataModel);
+    }
+    return chartDataModel;
+  }
+
+  private IChartDataModel aggregate(NamedValuesDataModel model) {
+    final int size = model.size();
+    if (!isCapped(size, maxCategories)) {
+      return model;
+    }
+    final double[] ranks = new double[size];
+    int index = 0;
+    for (NamedValue namedValue : model) {
+      ranks[index++] = rank(namedValue.getValue());
+    }
+    final BitSet kept = selectLargest(ranks, maxCategories);
+
+    final NamedValuesDataModel aggregatedModel = new NamedValuesDataModel();
+    aggregatedModel.setScalingFactor(model.getScalingFactor());
+    final Sum other = new Sum();
+    final Iterator<NamedValue> namedValues = model.iterator();
+    for (int i = 0; i < size; i++) {
+      final NamedValue namedValue = namedValues.next();
+      if (kept.get(i)) {
+        aggregatedModel.add(new NamedValue(namedValue.getName(), namedValue.getValue()));
+      } else {
+        other.add(namedValue.getValue());
+      }
+    }
+    aggregatedModel.add(new NamedValue(otherName, other.getValue()));
+    return aggregatedModel;
+  }
+
+  private IChartDataModel aggregate(MultiSeriesDataModel model) {
+    final int domainCount = model.getDomainCount();
+    final int seriesCount = model.getSeriesCount();
+    final boolean domainsCapped = isCapped(domainCount, maxCategories);
+    final boolean seriesCapped = isCapped(seriesCount, maxSeries);
+    if (!domainsCapped && !seriesCapped) {
+      return model;
+    }
+
+    final double[] domainRanks = new double[domainCount];
+    final double[] seriesRanks = new double[seriesCount];
+    for (int series = 0; series < seriesCount; series++) {
+      for (int domain = 0; domain < domainCount; domain++) {
+        final double value = model.getDouble(series, domain);
+        if (!Double.isNaN(value)) {
+          domainRanks[domain] += Math.abs(value);
+          seriesRanks[series] += Math.abs(value);
+        }
+      }
+    }
+    final BitSet keptDomains = domainsCapped ? selectLargest(domainRanks, maxCategories) : all(domainCount);
+    final BitSet keptSeries = seriesCapped ? selectLargest(seriesRanks, maxSeries) : all(seriesCount);
+
+    final List<String> domainNames = model.getDomainNames();
+    final List<String> seriesNames = model.getSeriesNames();
+    final MultiSeriesDataModel aggregatedModel = new MultiSeriesDataModel();
+    aggregatedModel.setScalingFactor(model.getScalingFactor());
+    final Sum[] otherDomain = new Sum[seriesCount];
+    final Sum otherDomainOtherSeries = new Sum();
+    for (int series = 0; series < seriesCount; series++) {
+      otherDomain[series] = new Sum();
+    }
+    for (int domain = 0; domain < domainCount; domain++) {
+      final Sum otherSeries = new Sum();
+      for (int series = 0; series < seriesCount; series++) {
+        final Number value = model.getValue(series, domain);
+        if (!keptDomains.get(domain)) {
+          if (keptSeries.get(series)) {
+            otherDomain[series].add(value);
+          } else {
+            otherDomainOtherSeries.add(value);
+          }
+        } else if (keptSeries.get(series)) {
+          // Copied even when null: a kept domain whose kept series are all empty must still be charted, ahead of
+          // "Other".
+          aggregatedModel.addValue(domainNames.get(domain), seriesNames.get(series), value);
+        } else {
+          otherSeries.add(value);
+        }
+      }
+      if (keptDomains.get(domain) && seriesCapped) {
+        aggregatedModel.addValue(domainNames.get(domain), otherName, otherSeries.getValue());
+      }
+    }
+    if (domainsCapped) {
+      for (int series = 0; series < seriesCount; series++) {
+        if (keptSeries.get(series)) {
+          aggregatedModel.addValue(otherName, seriesNames.get(series), otherDomain[series].getValue());
+        }
+      }
+      if (seriesCapped) {
+        aggregatedModel.addValue(otherName, otherName, otherDomainOtherSeries.getValue());
+      }
+    }
+    return aggregatedModel;
+  }
+
+  private static boolean isCapped(int size, int max) {
+    return (max > 0) && (size > max);
+  }
+
+  private static double rank(Number value) {
+    return value != null ? Math.abs(value.doubleValue()) : 0;
+  }
+
+  private static BitSet all(int size) {
+    final BitSet bits = new BitSet(size);
+    bits.set(0, size);
+    return bits;
+  }
+
+  /**
+   * Returns the indexes of the <code>count</code> largest ranks, keeping a min-heap of the largest ranks seen so far.
+   */
+  static BitSet selectLargest(final double[] ranks, int count) {
+    final PriorityQueue<Integer> largest = new PriorityQueue<Integer>(count, new Comparator<Integer>() {
+      public int compare(Integer index1, Integer index2) {
+        final int result = Double.compare(ranks[index1], ranks[index2]);
+        // On equal ranks the entry added last is the smallest, so it is evicted first
+        return result != 0 ? result : index2.compareTo(index1);
+      }
+    });
+    for (int i = 0; i < ranks.length; i++) {
+      if (largest.size() < count) {
+        largest.add(i);
+      } else if (ranks[i] > ranks[largest.peek()]) {
+        largest.poll();
+        largest.add(i);
+      }
+    }
+    final BitSet selected = new BitSet(ranks.length);
+    for (Integer index : largest) {
+      selected.set(index);
+    }
+    return selected;
+  }
+
+  /**
+   * Sum of the non null values added, <code>null</code> if there are none.
+   */
+  private static class Sum {
+    private double sum;
+    private boolean hasValue;
+
+    void add(Number value) {
+      if (value != null) {
+        sum += value.doubleValue();
+        hasValue = true;
+      }
+    }
+
+    Number getValue() {
+      return hasValue ? Double.valueOf(sum) : null;
+    }
+  }
+}
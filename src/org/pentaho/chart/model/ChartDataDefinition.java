@@ -41,6 +41,22 @@ public class ChartDataDefinition implements Serializable {
   
   boolean convertNullsToZero = false;
 
+  /**
+   * The number of categories to chart, the remaining ones being folded into "Other". <code>null</code> charts every
+   * category.
+   */
+  private Integer maxCategories;
+
+  /**
+   * The number of series to chart, the remaining ones being folded into "Other". <code>null</code> charts every series.
+   */
+  private Integer maxSeries;
+
+  /**
+   * The name of the category or series holding the folded values, <code>null</code> for the default name.
+   */
+  private String otherName;
+
   public String getQuery() {
     return query;
   }
@@ -117,6 +133,36 @@ public class ChartDataDefinition implements Serializable {
     if (convertNullsToZero != chartDataQuery.convertNullsToZero) {
       return false;
     }
+
+    if(maxCategories == null){
+      if(chartDataQuery.maxCategories != null){
+        return false;
+      }
+    } else {
+      if(!maxCategories.equals(chartDataQuery.maxCategories)){
+        return false;
+      }
+    }
+
+    if(maxSeries == null){
+      if(chartDataQuery.maxSeries != null){
+        return false;
+      }
+    } else {
+      if(!maxSeries.equals(chartDataQuery.maxSeries)){
+        return false;
+      }
+    }
+
+    if(otherName == null){
+      if(chartDataQuery.otherName != null){
+        return false;
+      }
+    } else {
+      if(!otherName.equals(chartDataQuery.otherName)){
+        return false;
+      }
+    }
     
     if (defaultParameterMap.size() != chartDataQuery.defaultParameterMap.size()) {
       return false;
@@ -196,4 +242,28 @@ public class ChartDataDefinition implements Serializable {
     this.convertNullsToZero = convert;
   }
 
+  public Integer getMaxCategories() {
+    return maxCategories;
+  }
+
+  public void setMaxCategories(Integer maxCategories) {
+    this.maxCategories = maxCategories;
+  }
+
+  public Integer getMaxSeries() {
+    return maxSeries;
+  }
+
+  public void setMaxSeries(Integer maxSeries) {
+    this.maxSeries = maxSeries;
+  }
+
+  public String getOtherName() {
+    return otherName;
+  }
+
+  public void setOtherName(String otherName) {
+    this.otherName = otherName;
+  }
+
 }
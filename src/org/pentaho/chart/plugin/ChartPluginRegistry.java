@@ -0,0 +1,91 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.plugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pentaho.chart.plugin.jfreechart.JFreeChartPlugin;
+import org.pentaho.chart.plugin.openflashchart.OpenFlashChartPlugin;
+
+/**
+ * Thread safe set of chart plugins looked up by plugin id. The registered plugins are held in an immutable snapshot
+ * which is replaced as a whole on every change, so lookups never lock.
+ * <p/>
+ * While no plugin is registered, the JFreeChart and OpenFlashChart plugins are returned for their ids.
+ */
+public class ChartPluginRegistry {
+
+  private volatile Map<String, IChartPlugin> plugins = Collections.emptyMap();
+  private volatile Map<String, IChartPlugin> defaultPlugins;
+
+  /**
+   * Returns the plugin registered with the specified id, or <code>null</code> if there is none.
+   */
+  public IChartPlugin getPlugin(String pluginId) {
+    final Map<String, IChartPlugin> currentPlugins = plugins;
+    if (currentPlugins.isEmpty()) {
+      return getDefaultPlugins().get(pluginId);
+    }
+    return currentPlugins.get(pluginId);
+  }
+
+  /**
+   * Returns the registered plugins.
+   */
+  public List<IChartPlugin> getPlugins() {
+    return Collections.unmodifiableList(new ArrayList<IChartPlugin>(plugins.values()));
+  }
+
+  /**
+   * Replaces the registered plugins. If several plugins share an id the last one wins.
+   */
+  public synchronized void setPlugins(List<IChartPlugin> chartPlugins) {
+    final Map<String, IChartPlugin> newPlugins = new HashMap<String, IChartPlugin>();
+    if (chartPlugins != null) {
+      for (IChartPlugin chartPlugin : chartPlugins) {
+        newPlugins.put(chartPlugin.getPluginId(), chartPlugin);
+      }
+    }
+    plugins = Collections.unmodifiableMap(newPlugins);
+  }
+
+  /**
+   * Registers a plugin, replacing any plugin with the same id.
+   */
+  public synchronized void register(IChartPlugin chartPlugin) {
+    final Map<String, IChartPlugin> newPlugins = new HashMap<String, IChartPlugin>(plugins);
+    newPlugins.put(chartPlugin.getPluginId(), chartPlugin);
+    plugins = Collections.unmodifiableMap(newPlugins);
+  }
+
+  private Map<String, IChartPlugin> getDefaultPlugins() {
+    Map<String, IChartPlugin> currentDefaults = defaultPlugins;
+    if (currentDefaults == null) {
+      final Map<String, IChartPlugin> newDefaults = new HashMap<String, IChartPlugin>();
+      newDefaults.put(JFreeChartPlugin.PLUGIN_ID, new JFreeChartPlugin());
+      newDefaults.put(OpenFlashChartPlugin.PLUGIN_ID, new OpenFlashChartPlugin());
+      currentDefaults = Collections.unmodifiableMap(newDefaults);
+      defaultPlugins = currentDefaults;
+    }
+    return currentDefaults;
+  }
+}
@@ -31,7 +31,11 @@ public interface IOutput
     FILE_TYPE_JPEG,
     FILE_TYPE_PNG,
     DATA_TYPE_STREAM,
-    FILE_TYPE_HTML
+    FILE_TYPE_HTML,
+    /**
+     * 8 bit indexed color PNG, quantized to at most 256 colors.
+     */
+    FILE_TYPE_PNG_INDEXED
   }
   //  public static final int FILE_TYPE_JPEG = 1;
   //  public static final int FILE_TYPE_PNG = 2;
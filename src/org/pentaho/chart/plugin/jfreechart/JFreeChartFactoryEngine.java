@@ -33,9 +33,11 @@ import org.jfree.chart.ChartFactory;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.axis.CategoryAxis;
 import org.jfree.chart.axis.CategoryLabelPositions;
+import org.jfree.chart.axis.DateAxis;
 import org.jfree.chart.axis.NumberAxis;
 import org.jfree.chart.axis.ValueAxis;
 import org.jfree.chart.block.BlockBorder;
+import org.jfree.chart.labels.StandardCategoryToolTipGenerator;
 import org.jfree.chart.labels.StandardPieSectionLabelGenerator;
 import org.jfree.chart.plot.CategoryPlot;
 import org.jfree.chart.plot.PiePlot;
@@ -45,16 +47,17 @@ import org.jfree.chart.plot.dial.DialBackground;
 import org.jfree.chart.plot.dial.DialCap;
 import org.jfree.chart.plot.dial.DialTextAnnotation;
 import org.jfree.chart.plot.dial.DialValueIndicator;
+import org.jfree.chart.renderer.AbstractRenderer;
+import org.jfree.chart.renderer.category.StackedBarRenderer;
 import org.jfree.chart.title.TextTitle;
 import org.jfree.chart.urls.CategoryURLGenerator;
 import org.jfree.chart.urls.PieURLGenerator;
+import org.jfree.data.Range;
 import org.jfree.data.category.CategoryDataset;
 import org.jfree.data.category.DefaultCategoryDataset;
 import org.jfree.data.general.DefaultPieDataset;
 import org.jfree.data.general.DefaultValueDataset;
 import org.jfree.data.general.PieDataset;
-import org.jfree.data.xy.XYSeries;
-import org.jfree.data.xy.XYSeriesCollection;
 import org.jfree.ui.GradientPaintTransformType;
 import org.jfree.ui.HorizontalAlignment;
 import org.jfree.ui.RectangleEdge;
@@ -71,12 +74,11 @@ import org.pentaho.chart.data.MultiSeriesDataModel;
 import org.pentaho.chart.data.ChartTableModel;
 import org.pentaho.chart.data.IChartDataModel;
 import org.pentaho.chart.data.MultiSeriesXYDataModel;
+import org.pentaho.chart.data.MultiSeriesDataModel.DomainData;
 import org.pentaho.chart.data.NamedValue;
 import org.pentaho.chart.data.NamedValuesDataModel;
+import org.pentaho.chart.data.TimeSeriesDataModel;
 import org.pentaho.chart.data.XYDataModel;
-import org.pentaho.chart.data.XYDataPoint;
-import org.pentaho.chart.data.MultiSeriesDataModel.DomainData;
-import org.pentaho.chart.data.MultiSeriesXYDataModel.Series;
 import org.pentaho.chart.model.AreaPlot;
 import org.pentaho.chart.model.BarPlot;
 import org.pentaho.chart.model.ChartModel;
@@ -108,7 +110,12 @@ import org.pentaho.chart.plugin.jfreechart.chart.dial.JFreeDialChartGenerator.Va
 import org.pentaho.chart.plugin.jfreechart.chart.line.JFreeLineChartGeneratorFactory;
 import org.pentaho.chart.plugin.jfreechart.chart.multi.JFreeMultiChartGeneratorFactory;
 import org.pentaho.chart.plugin.jfreechart.chart.pie.JFreePieChartGeneratorFactory;
+import org.pentaho.chart.plugin.jfreechart.dataset.PrimitiveXYDataset;
+import org.pentaho.chart.plugin.jfreechart.dataset.StatisticsCategoryDataset;
+import org.pentaho.chart.plugin.jfreechart.dataset.TimeSeriesModelDataset;
 import org.pentaho.chart.plugin.jfreechart.outputs.JFreeChartOutput;
+import org.pentaho.chart.plugin.jfreechart.outputs.JFreeLiveChartOutput;
+import org.pentaho.chart.plugin.jfreechart.outputs.JFreeTimeSeriesChartOutput;
 import org.pentaho.chart.plugin.jfreechart.utils.JFreeChartUtils;
 import org.pentaho.reporting.libraries.css.values.CSSConstant;
 import org.pentaho.reporting.libraries.css.values.CSSValue;
@@ -133,7 +140,11 @@ public class JFreeChartFactoryEngine implements Serializable {
   
   public IOutput makeChart(ChartModel chartModel, IChartDataModel chartDataModel, IChartLinkGenerator linkGenerator) {
     IOutput chartOutput = null;
-    if (chartModel.getPlot() instanceof BarPlot) {
+    if ((chartDataModel instanceof TimeSeriesDataModel) && ((chartModel.getPlot() instanceof LinePlot) || (chartModel.getPlot() instanceof AreaPlot))) {
+      TimeSeriesDataModel timeSeriesDataModel = (TimeSeriesDataModel)chartDataModel;
+      JFreeChart chart = makeTimeSeriesChart(chartModel, timeSeriesDataModel);
+      chartOutput = new JFreeTimeSeriesChartOutput(chart, timeSeriesDataModel, (TimeSeriesModelDataset)chart.getXYPlot().getDataset());
+    } else if (chartModel.getPlot() instanceof BarPlot) {
       chartOutput = new JFreeChartOutput(makeBarChart(chartModel, (MultiSeriesDataModel)chartDataModel, linkGenerator));
     } else if (chartModel.getPlot() instanceof LinePlot) {
       chartOutput = new JFreeChartOutput(makeLineChart(chartModel, (MultiSeriesDataModel)chartDataModel, linkGenerator));
@@ -150,6 +161,57 @@ public class JFreeChartFactoryEngine implements Serializable {
         chartOutput = new JFreeChartOutput(makeScatterChart(chartModel, (XYDataModel)chartDataModel));
       }
     }
+    if (chartOutput instanceof JFreeChartOutput) {
+      ((JFreeChartOutput)chartOutput).setPaletteColors(getPaletteColors(chartModel));
+    }
+    return chartOutput;
+  }
+  
+  /**
+   * Returns the RGB colors seeding the palette of indexed PNG files of the chart: the backgrounds, black text, the plot
+   * palette and the grid lines.
+   */
+  protected int[] getPaletteColors(ChartModel chartModel) {
+    List<Integer> colors = new ArrayList<Integer>();
+    colors.add(chartModel.getBackground() instanceof Integer ? (Integer)chartModel.getBackground() : Color.WHITE.getRGB());
+    if (chartModel.getPlot().getBackground() instanceof Integer) {
+      colors.add((Integer)chartModel.getPlot().getBackground());
+    }
+    colors.add(Color.BLACK.getRGB());
+    colors.addAll(ChartUtils.getPlotColors(chartModel.getPlot()));
+    if (chartModel.getPlot() instanceof org.pentaho.chart.model.TwoAxisPlot) {
+      Grid grid = ((org.pentaho.chart.model.TwoAxisPlot)chartModel.getPlot()).getGrid();
+      colors.add(grid.getVerticalLineColor() != null ? grid.getVerticalLineColor() : Grid.DEFAULT_GRID_COLOR);
+      colors.add(grid.getHorizontalLineColor() != null ? grid.getHorizontalLineColor() : Grid.DEFAULT_GRID_COLOR);
+    }
+    int[] paletteColors = new int[colors.size()];
+    for (int i = 0; i < paletteColors.length; i++) {
+      paletteColors[i] = 0x00FFFFFF & colors.get(i);
+    }
+    return paletteColors;
+  }
+  
+  /**
+   * Creates the output of a bar, line or area chart which is updated in place, see {@link JFreeLiveChartOutput}. The
+   * chart is created and initialized once; later updates of the data only change the cells of the retained dataset.
+   *
+   * @throws IllegalArgumentException if the chart is not a bar, line or area chart
+   */
+  public JFreeLiveChartOutput makeLiveChart(ChartModel chartModel, MultiSeriesDataModel dataModel, IChartLinkGenerator linkGenerator) {
+    JFreeChart chart = null;
+    if (chartModel.getPlot() instanceof BarPlot) {
+      chart = makeBarChart(chartModel, dataModel, linkGenerator);
+    } else if (chartModel.getPlot() instanceof LinePlot) {
+      chart = makeLineChart(chartModel, dataModel, linkGenerator);
+    } else if (chartModel.getPlot() instanceof AreaPlot) {
+      chart = makeAreaChart(chartModel, dataModel, linkGenerator);
+    }
+    if ((chart == null) || !(chart.getCategoryPlot().getDataset() instanceof StatisticsCategoryDataset)) {
+      throw new IllegalArgumentException("Live charts must be bar, line or area charts"); //$NON-NLS-1$
+    }
+    JFreeLiveChartOutput chartOutput = new JFreeLiveChartOutput(chart, dataModel, (StatisticsCategoryDataset)chart.getCategoryPlot().getDataset());
+    chartOutput.setPaletteColors(getPaletteColors(chartModel));
+    chartOutput.setSeriesColors(ChartUtils.getPlotColors(chartModel.getPlot()));
     return chartOutput;
   }
   
@@ -190,7 +252,7 @@ public class JFreeChartFactoryEngine implements Serializable {
     
     org.pentaho.chart.model.PiePlot chartBeansPiePlot = (org.pentaho.chart.model.PiePlot)chartModel.getPlot();
     
-    List<Integer> colors = getPlotColors(chartBeansPiePlot);
+    List<Integer> colors = ChartUtils.getPlotColors(chartBeansPiePlot);
 
     int index = 0;
     for (NamedValue namedValue : dataModel) {
@@ -398,7 +460,7 @@ public class JFreeChartFactoryEngine implements Serializable {
    * @see org.pentaho.chart.plugin.api.engine.ChartFactoryEngine#makeLineChart(org.pentaho.chart.data.ChartTableModel, org.pentaho.chart.core.ChartDocument, org.pentaho.chart.plugin.api.IOutput)
    */
   public JFreeChart makeAreaChart(ChartModel chartModel, MultiSeriesDataModel dataModel, IChartLinkGenerator linkGenerator) {
-    DefaultCategoryDataset categoryDataset = createCategoryDataset(dataModel);
+    CategoryDataset categoryDataset = createCategoryDatasetView(dataModel);
     org.pentaho.chart.model.TwoAxisPlot twoAxisPlot = (org.pentaho.chart.model.TwoAxisPlot)chartModel.getPlot();       
     
     String title = "";
@@ -422,7 +484,7 @@ public class JFreeChartFactoryEngine implements Serializable {
    * @see org.pentaho.chart.plugin.api.engine.ChartFactoryEngine#makeLineChart(org.pentaho.chart.data.ChartTableModel, org.pentaho.chart.core.ChartDocument, org.pentaho.chart.plugin.api.IOutput)
    */
   public JFreeChart makeLineChart(ChartModel chartModel, MultiSeriesDataModel dataModel, IChartLinkGenerator linkGenerator) {
-    DefaultCategoryDataset categoryDataset = createCategoryDataset(dataModel);
+    CategoryDataset categoryDataset = createCategoryDatasetView(dataModel);
     org.pentaho.chart.model.TwoAxisPlot twoAxisPlot = (org.pentaho.chart.model.TwoAxisPlot)chartModel.getPlot();       
     
     String title = "";
@@ -451,25 +513,40 @@ public class JFreeChartFactoryEngine implements Serializable {
     return chart;
   }
   
-  private XYSeries createXYSeries(XYDataModel xyDataModel) {  
-    
-    XYSeries series = null;
-    if (xyDataModel instanceof Series) {
-      series = new XYSeries(((Series)xyDataModel).getSeriesName());
-    } else {
-      series = new XYSeries("");
+  /**
+   * Creates a line or area chart of the points of a sliding window, with a date axis as domain axis.
+   */
+  public JFreeChart makeTimeSeriesChart(ChartModel chartModel, TimeSeriesDataModel dataModel) {
+    TimeSeriesModelDataset dataset = new TimeSeriesModelDataset(dataModel);
+    org.pentaho.chart.model.TwoAxisPlot twoAxisPlot = (org.pentaho.chart.model.TwoAxisPlot)chartModel.getPlot();
+
+    String title = "";
+    if ((chartModel.getTitle() != null) && (chartModel.getTitle().getText() != null) && (chartModel.getTitle().getText().trim().length() > 0)) {
+      title = chartModel.getTitle().getText();
     }
-    for (XYDataPoint dataPoint : xyDataModel) {
-      series.add(dataPoint.getDomainValue(), dataPoint.getRangeValue());
+    AxesLabels axesLabels = getAxesLabels(chartModel);
+    PlotOrientation plotOrientation = (twoAxisPlot.getOrientation() == Orientation.HORIZONTAL) ? PlotOrientation.HORIZONTAL : PlotOrientation.VERTICAL;
+    boolean showLegend = (chartModel.getLegend() != null) && (chartModel.getLegend().getVisible());
+    JFreeChart chart = null;
+
+    if (twoAxisPlot instanceof AreaPlot) {
+      chart = ChartFactory.createXYAreaChart(title, axesLabels.domainAxisLabel, axesLabels.rangeAxisLabel, dataset, plotOrientation, showLegend, true, false);
+      chart.getXYPlot().setDomainAxis(new DateAxis(axesLabels.domainAxisLabel));
+    } else {
+      chart = ChartFactory.createTimeSeriesChart(title, axesLabels.domainAxisLabel, axesLabels.rangeAxisLabel, dataset, showLegend, true, false);
+      chart.getXYPlot().setOrientation(plotOrientation);
+      LinePlot linePlot = (LinePlot)twoAxisPlot;
+      chart.getXYPlot().getRenderer().setStroke(getLineStyleStroke(linePlot.getFlavor(), linePlot.getLineWidth()));
     }
-    
-    return series;
+
+    initXYPlot(chart, chartModel);
+    initChart(chart, chartModel);
+
+    return chart;
   }
-  
+
   protected JFreeChart makeScatterChart(ChartModel chartModel, XYDataModel data) {
-    XYSeriesCollection dataset = new XYSeriesCollection();
-    
-    dataset.addSeries(createXYSeries(data));
+    PrimitiveXYDataset dataset = PrimitiveXYDataset.fromDataModel(data);
     
     org.pentaho.chart.model.TwoAxisPlot twoAxisPlot = (org.pentaho.chart.model.TwoAxisPlot)chartModel.getPlot();       
     
@@ -491,11 +568,7 @@ public class JFreeChartFactoryEngine implements Serializable {
   
   protected JFreeChart makeScatterChart(ChartModel chartModel, MultiSeriesXYDataModel data) {
 
-    XYSeriesCollection dataset = new XYSeriesCollection();
-    
-    for (Series series : data.getSeries()) {
-      dataset.addSeries(createXYSeries(series));
-    }
+    PrimitiveXYDataset dataset = PrimitiveXYDataset.fromDataModel(data);
     
     org.pentaho.chart.model.TwoAxisPlot twoAxisPlot = (org.pentaho.chart.model.TwoAxisPlot)chartModel.getPlot();       
     
@@ -515,6 +588,10 @@ public class JFreeChartFactoryEngine implements Serializable {
     return chart;
   }
   
+  /**
+   * Returns a copy of the scaled values of the model. Kept for subclasses; the engine builds category charts over the
+   * dataset returned by {@link #createCategoryDatasetView(MultiSeriesDataModel)}.
+   */
   protected DefaultCategoryDataset createCategoryDataset(MultiSeriesDataModel data) {
     DefaultCategoryDataset categoryDataset = new DefaultCategoryDataset();
     for (DomainData category : data.getDomainData()) {
@@ -524,6 +601,13 @@ public class JFreeChartFactoryEngine implements Serializable {
     }
     return categoryDataset;
   }
+
+  /**
+   * Returns the dataset category charts are built over, a view of the model which live charts keep up to date.
+   */
+  protected CategoryDataset createCategoryDatasetView(MultiSeriesDataModel data) {
+    return new StatisticsCategoryDataset(data);
+  }
   
   private AxesLabels getAxesLabels(ChartModel chartModel) {
     org.pentaho.chart.model.TwoAxisPlot twoAxisPlot = (org.pentaho.chart.model.TwoAxisPlot)chartModel.getPlot();
@@ -545,24 +629,15 @@ public class JFreeChartFactoryEngine implements Serializable {
     return graphLabelsAndFonts;
   }
   
-  private List<Integer> getPlotColors(Plot plot) {
-    ArrayList<Integer> colors = new ArrayList<Integer>();
-    if (plot.getPalette() != null) {
-      colors.addAll(plot.getPalette());
-    }    
-    
-    ArrayList<Integer> defaultColors = new ArrayList<Integer>(org.pentaho.chart.model.Plot.DEFAULT_PALETTE);
-    defaultColors.removeAll(colors);
-    colors.addAll(defaultColors);
-    
-    return colors;
-  }
-  
   private void initCategoryPlot(JFreeChart chart, ChartModel chartModel, final IChartLinkGenerator linkGenerator) {
     initPlot(chart, chartModel);
     
     org.pentaho.chart.model.TwoAxisPlot twoAxisPlot = (org.pentaho.chart.model.TwoAxisPlot)chartModel.getPlot();
     CategoryPlot categoryPlot = chart.getCategoryPlot();
+    if ((categoryPlot.getDataset() instanceof StatisticsCategoryDataset) && (categoryPlot.getRenderer() instanceof AbstractRenderer)) {
+      // Every series is shown, so the renderer can take the range from the dataset statistics
+      ((AbstractRenderer)categoryPlot.getRenderer()).setDataBoundsIncludesVisibleSeriesOnly(false);
+    }
     
     Grid grid = twoAxisPlot.getGrid();
     if (twoAxisPlot.getOrientation() != Orientation.HORIZONTAL) {
@@ -586,7 +661,7 @@ public class JFreeChartFactoryEngine implements Serializable {
     categoryPlot.setDomainGridlineStroke(new BasicStroke(1));
     categoryPlot.setRangeGridlineStroke(new BasicStroke(1));
     
-    List<Integer> colors = getPlotColors(twoAxisPlot);
+    List<Integer> colors = ChartUtils.getPlotColors(twoAxisPlot);
     
     for (int j = 0; j < categoryPlot.getDatasetCount(); j++) {
       if (linkGenerator != null) {
@@ -659,7 +734,7 @@ public class JFreeChartFactoryEngine implements Serializable {
     org.pentaho.chart.model.TwoAxisPlot twoAxisPlot = (org.pentaho.chart.model.TwoAxisPlot)chartModel.getPlot();
     XYPlot xyPlot = chart.getXYPlot();
     
-    List<Integer> colors = getPlotColors(twoAxisPlot);
+    List<Integer> colors = ChartUtils.getPlotColors(twoAxisPlot);
     
     for (int i = 0; i < colors.size(); i++) {
       for (int j = 0; j < xyPlot.getDatasetCount(); j++) {
@@ -673,10 +748,12 @@ public class JFreeChartFactoryEngine implements Serializable {
     Font domainTitleFont = ChartUtils.getFont(twoAxisPlot.getDomainAxis().getLegend().getFontFamily(), twoAxisPlot.getDomainAxis().getLegend().getFontStyle(), twoAxisPlot.getDomainAxis().getLegend().getFontWeight(), twoAxisPlot.getDomainAxis().getLegend().getFontSize());
        
        
-    NumberAxis domainAxis = (NumberAxis)xyPlot.getDomainAxis();
+    ValueAxis domainAxis = xyPlot.getDomainAxis();
     NumberAxis rangeAxis = (NumberAxis)xyPlot.getRangeAxis();
     
-    domainAxis.setAutoRangeIncludesZero(true);
+    if (domainAxis instanceof NumberAxis) {
+      ((NumberAxis)domainAxis).setAutoRangeIncludesZero(true);
+    }
     rangeAxis.setAutoRangeIncludesZero(true);
     
     AxesLabels axesLabels = getAxesLabels(chartModel);
@@ -727,7 +804,7 @@ public class JFreeChartFactoryEngine implements Serializable {
    * @see org.pentaho.chart.plugin.api.engine.ChartFactoryEngine#makeBarChart(org.pentaho.chart.data.ChartTableModel, org.pentaho.chart.core.ChartDocument, org.pentaho.chart.plugin.api.IOutput)
    */
   public JFreeChart makeBarChart(ChartModel chartModel, MultiSeriesDataModel dataModel, IChartLinkGenerator linkGenerator) {
-    DefaultCategoryDataset categoryDataset = createCategoryDataset(dataModel);
+    CategoryDataset categoryDataset = createCategoryDatasetView(dataModel);
     org.pentaho.chart.model.TwoAxisPlot twoAxisPlot = (org.pentaho.chart.model.TwoAxisPlot)chartModel.getPlot();
 
     String title = "";
@@ -742,7 +819,7 @@ public class JFreeChartFactoryEngine implements Serializable {
     if (BarPlotFlavor.THREED == ((BarPlot)twoAxisPlot).getFlavor()) {
       chart = ChartFactory.createBarChart3D(title, axesLabels.domainAxisLabel, axesLabels.rangeAxisLabel, categoryDataset, plotOrientation, showLegend, true, false);
     } else if (BarPlotFlavor.STACKED == ((BarPlot)twoAxisPlot).getFlavor()) {
-      chart = ChartFactory.createStackedBarChart(title, axesLabels.domainAxisLabel, axesLabels.rangeAxisLabel, categoryDataset, plotOrientation, showLegend, true, false);
+      chart = createStackedBarChart(title, axesLabels.domainAxisLabel, axesLabels.rangeAxisLabel, categoryDataset, plotOrientation, showLegend);
     } else {
       chart = ChartFactory.createBarChart(title, axesLabels.domainAxisLabel, axesLabels.rangeAxisLabel, categoryDataset, plotOrientation, showLegend, true, false);
     }
@@ -753,6 +830,20 @@ public class JFreeChartFactoryEngine implements Serializable {
     return chart;
   }
 
+  /**
+   * Creates a stacked bar chart with tooltips as ChartFactory.createStackedBarChart does, but using a renderer which
+   * takes the extent of the stacks from the dataset statistics.
+   */
+  private JFreeChart createStackedBarChart(String title, String domainAxisLabel, String rangeAxisLabel, CategoryDataset dataset, PlotOrientation orientation, boolean legend) {
+    StackedBarRenderer renderer = new StatisticsStackedBarRenderer();
+    renderer.setBaseToolTipGenerator(new StandardCategoryToolTipGenerator());
+    CategoryPlot plot = new CategoryPlot(dataset, new CategoryAxis(domainAxisLabel), new NumberAxis(rangeAxisLabel), renderer);
+    plot.setOrientation(orientation);
+    JFreeChart chart = new JFreeChart(title, JFreeChart.DEFAULT_TITLE_FONT, plot, legend);
+    ChartFactory.getChartTheme().apply(chart);
+    return chart;
+  }
+
   public IOutput makeChart(final ChartTableModel data, final ChartDocumentContext chartDocumentContext, final ChartResult chartResult) {
     final ChartDocument chartDocument = chartDocumentContext.getChartDocument();
     final CSSConstant currentChartType = determineChartType(chartDocument);
@@ -967,35 +1058,17 @@ public class JFreeChartFactoryEngine implements Serializable {
   }
   
   protected Number scaleNumber(Number number, Number scale) {
-    Number scaledNumber = number;
-    if ((number != null) && (scale != null) && !scale.equals(1) && !scale.equals(0)) {
-      
-      int startingSignificantDigits = 0;
-      if (!(number instanceof Integer)) {
-        int indexOfDecimalPoint = number.toString().indexOf(".");
-        if (indexOfDecimalPoint >= 0) {
-          String fractionalPart = number.toString().substring(indexOfDecimalPoint + 1);
-          if ((fractionalPart.length() > 1) || Integer.parseInt(fractionalPart) > 0) {
-            startingSignificantDigits = fractionalPart.length();
-          }
-        }
-      }
-      
-      int preferredSignificantDigits = Math.max(2, Math.min(startingSignificantDigits, 6));
-      
-      scaledNumber = number.doubleValue() / scale.doubleValue();
-      int scaledSignificantDigits = 0;
-      int indexOfDecimalPoint = scaledNumber.toString().indexOf(".");
-      String fractionalPart = scaledNumber.toString().substring(indexOfDecimalPoint + 1);
-      if ((fractionalPart.length() > 1) || Integer.parseInt(fractionalPart) > 0) {
-        scaledSignificantDigits = fractionalPart.length();
-      }
-      
-      if (scaledSignificantDigits > preferredSignificantDigits) {
-        double multiplier = Math.pow(10, preferredSignificantDigits);
-        scaledNumber = Math.round(scaledNumber.doubleValue() * multiplier) / multiplier;
+    return JFreeChartUtils.scaleNumber(number, scale);
+  }
+
+  private static class StatisticsStackedBarRenderer extends StackedBarRenderer {
+    private static final long serialVersionUID = 1L;
+
+    public Range findRangeBounds(CategoryDataset dataset) {
+      if (!getRenderAsPercentages() && (dataset instanceof StatisticsCategoryDataset)) {
+        return ((StatisticsCategoryDataset)dataset).getStackedRangeBounds(getBase());
       }
-    }  
-    return scaledNumber;
+      return super.findRangeBounds(dataset);
+    }
   }
 }
@@ -39,7 +39,7 @@ public class JFreeChartPlugin extends AbstractChartPlugin
   public static final String PLUGIN_ID = "JFreeChart";
   private final JFreeChartFactoryEngine chartFactory;
   private static final Set<IOutput.OutputTypes> supportedOutputs =
-      EnumSet.of(IOutput.OutputTypes.FILE_TYPE_JPEG, IOutput.OutputTypes.FILE_TYPE_PNG);
+      EnumSet.of(IOutput.OutputTypes.FILE_TYPE_JPEG, IOutput.OutputTypes.FILE_TYPE_PNG, IOutput.OutputTypes.FILE_TYPE_PNG_INDEXED);
 
   public JFreeChartPlugin()
   {
@@ -39,7 +39,7 @@ import org.jfree.chart.renderer.category.BarRenderer3D;
 import org.jfree.chart.renderer.category.CategoryItemRenderer;
 import org.jfree.chart.renderer.category.GroupedStackedBarRenderer;
 import org.jfree.chart.renderer.category.LayeredBarRenderer;
-import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.category.CategoryDataset;
 import org.jfree.ui.StandardGradientPaintTransformer;
 import org.jfree.ui.TextAnchor;
 import org.pentaho.chart.ChartDocumentContext;
@@ -295,7 +295,7 @@ public abstract class JFreeChartGenerator implements IJFreeChartGenerator {
           // Create new jfreeDataset since there are more than one range axis and get the data corresponding to
           // certain columns
           final Integer[] columnPosArr = getColumPositions(chartDocContext, axisElement, axisSeriesLinkInfo);
-          final DefaultCategoryDataset currDataset = datasetGeneratorFactory.createDefaultCategoryDataset(
+          final CategoryDataset currDataset = datasetGeneratorFactory.createCategoryDataset(
               chartDocContext, data, columnPosArr);
           plot.setDataset(i, currDataset);
           plot.mapDatasetToRangeAxis(i, i);
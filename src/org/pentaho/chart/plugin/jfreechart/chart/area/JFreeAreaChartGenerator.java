@@ -26,7 +26,7 @@ import org.jfree.chart.JFreeChart;
 import org.jfree.chart.plot.Plot;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.chart.plot.CategoryPlot;
-import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.category.CategoryDataset;
 import org.pentaho.chart.ChartDocumentContext;
 import org.pentaho.chart.ChartUtils;
 import org.pentaho.chart.core.ChartDocument;
@@ -66,7 +66,7 @@ public abstract class JFreeAreaChartGenerator extends JFreeChartGenerator {
     final boolean legend = getShowLegend(chartDocument);
     final boolean toolTips = getShowToolTips(chartDocument);
 
-    final DefaultCategoryDataset categoryDataset = datasetGeneratorFactory.createDefaultCategoryDataset(chartDocContext, data);
+    final CategoryDataset categoryDataset = datasetGeneratorFactory.createCategoryDataset(chartDocContext, data);
     if (categoryDataset == null) {
       logger.error(Messages.getErrorString("JFreeChartFactoryEngine.ERROR_0001_DATASET_IS_NULL")); //$NON-NLS-1$
       return null;
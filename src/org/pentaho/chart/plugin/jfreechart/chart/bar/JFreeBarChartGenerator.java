@@ -29,7 +29,7 @@ import org.jfree.chart.axis.CategoryAxis;
 import org.jfree.chart.plot.CategoryPlot;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.chart.renderer.category.BarRenderer;
-import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.category.CategoryDataset;
 import org.jfree.data.category.DefaultIntervalCategoryDataset;
 import org.pentaho.chart.ChartDocumentContext;
 import org.pentaho.chart.core.ChartDocument;
@@ -76,13 +76,13 @@ public abstract class JFreeBarChartGenerator extends JFreeChartGenerator {
     final boolean legend = getShowLegend(chartDocument);
     final boolean toolTips = getShowToolTips(chartDocument);
 
-    DefaultCategoryDataset categoryDataset = null;
+    CategoryDataset categoryDataset = null;
     final DefaultIntervalCategoryDataset intervalCategoryDataset = null;
 
     if (JFreeBarChartTypes.INTERVAL.equalsIgnoreCase(chartType)) {
       logger.error(Messages.getErrorString("JFreeBarChartGenerator.INFO_INTERVAL_CHART_NOT_SUPPORTED")); //$NON-NLS-1$
     } else {
-      categoryDataset = datasetGeneratorFactory.createDefaultCategoryDataset(chartDocContext, data);
+      categoryDataset = datasetGeneratorFactory.createCategoryDataset(chartDocContext, data);
       if (categoryDataset == null) {
         logger.error(Messages.getErrorString("JFreeChartFactoryEngine.ERROR_0001_DATASET_IS_NULL")); //$NON-NLS-1$
         return null;
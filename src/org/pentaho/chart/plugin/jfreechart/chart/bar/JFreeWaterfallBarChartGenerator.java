@@ -27,7 +27,7 @@ import org.jfree.chart.plot.CategoryPlot;
 import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.chart.renderer.category.BarRenderer;
 import org.jfree.chart.renderer.category.WaterfallBarRenderer;
-import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.category.CategoryDataset;
 import org.pentaho.chart.ChartDocumentContext;
 import org.pentaho.chart.core.ChartDocument;
 import org.pentaho.chart.core.ChartElement;
@@ -56,7 +56,7 @@ public class JFreeWaterfallBarChartGenerator extends JFreeBarChartGenerator {
     final boolean legend = getShowLegend(chartDocument);
     final boolean toolTips = getShowToolTips(chartDocument);
 
-    final DefaultCategoryDataset categoryDataset = datasetGeneratorFactory.createDefaultCategoryDataset(
+    final CategoryDataset categoryDataset = datasetGeneratorFactory.createCategoryDataset(
         chartDocContext, data);
 
     final JFreeChart chart = ChartFactory.createWaterfallChart(title, valueCategoryLabel, valueAxisLabel,
@@ -31,7 +31,7 @@ import org.jfree.chart.plot.PlotOrientation;
 import org.jfree.chart.renderer.category.AreaRenderer;
 import org.jfree.chart.renderer.category.BarRenderer;
 import org.jfree.chart.renderer.category.LineAndShapeRenderer;
-import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.category.CategoryDataset;
 import org.pentaho.chart.ChartDocumentContext;
 import org.pentaho.chart.core.ChartDocument;
 import org.pentaho.chart.core.ChartElement;
@@ -68,7 +68,7 @@ public abstract class JFreeMultiChartGenerator extends JFreeChartGenerator {
     final boolean legend = getShowLegend(chartDocument);
     final boolean toolTips = getShowToolTips(chartDocument);
 
-    final DefaultCategoryDataset categoryDataset = datasetGeneratorFactory.createDefaultCategoryDataset(
+    final CategoryDataset categoryDataset = datasetGeneratorFactory.createCategoryDataset(
         chartDocContext, data);
     if (categoryDataset == null) {
       logger.error(Messages.getErrorString("JFreeChartFactoryEngine.ERROR_0001_DATASET_IS_NULL")); //$NON-NLS-1$
@@ -83,10 +83,10 @@ public abstract class JFreeMultiChartGenerator extends JFreeChartGenerator {
 
       CategoryPlot plot = (CategoryPlot) chart.getPlot();
 
-      DefaultCategoryDataset dataset1 = categoryDataset;
+      CategoryDataset dataset1 = categoryDataset;
       plot.setDataset(1, dataset1);
 
-      DefaultCategoryDataset dataset2 = categoryDataset;
+      CategoryDataset dataset2 = categoryDataset;
       plot.setDataset(2, dataset2);
       
       LineAndShapeRenderer renderer1 = new LineAndShapeRenderer();
@@ -0,0 +1,256 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.plugin.jfreechart.dataset;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jfree.data.UnknownKeyException;
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.general.AbstractDataset;
+import org.pentaho.chart.ChartBoot;
+import org.pentaho.chart.core.ChartDocument;
+import org.pentaho.chart.data.ChartTableModel;
+import org.pentaho.chart.plugin.jfreechart.utils.JFreeChartUtils;
+import org.pentaho.reporting.libraries.base.config.Configuration;
+
+/**
+ * Read only category dataset reading its values straight from a <code>ChartTableModel</code>. Rows of the table are
+ * the series and columns the categories, keyed by the same names <code>JFreeDefaultCategoryDatasetGenerator</code>
+ * uses, so the dataset is equivalent to the <code>DefaultCategoryDataset</code> it would fill without copying the
+ * data into JFreeChart's keyed structures. Names are resolved once per row and column when the dataset is created.
+ * <p/>
+ * Empty (NaN) cells are reported as <code>null</code>; rows and columns holding no value at all are left out. Rows
+ * or columns sharing a name are merged, the last value in the table winning. The table must not be modified while
+ * the dataset is in use.
+ */
+public class ChartTableCategoryDataset extends AbstractDataset implements CategoryDataset {
+
+  private static final long serialVersionUID = 1L;
+
+  private final ChartTableModel data;
+
+  private final double scale;
+
+  private final List<String> rowKeys;
+
+  private final List<String> columnKeys;
+
+  private final Map<String, Integer> rowIndexes;
+
+  private final Map<String, Integer> columnIndexes;
+
+  /**
+   * The table rows merged into each row key, in table order.
+   */
+  private final int[][] sourceRows;
+
+  /**
+   * The table columns merged into each column key, in table order.
+   */
+  private final int[][] sourceColumns;
+
+  /**
+   * Creates a dataset over every column of the table.
+   */
+  public ChartTableCategoryDataset(final ChartDocument chartDocument, final ChartTableModel data) {
+    this(chartDocument, data, null);
+  }
+
+  /**
+   * Creates a dataset over the specified columns of the table, using the scale defined by the chart document.
+   *
+   * @param columnPositions ascending positions of the columns holding the categories, or <code>null</code> for every
+   *                        column
+   */
+  public ChartTableCategoryDataset(final ChartDocument chartDocument, final ChartTableModel data,
+                                   final Integer[] columnPositions) {
+    this.data = data;
+    this.scale = JFreeChartUtils.getScale(chartDocument);
+
+    final int[] columns = getColumns(data.getColumnCount(), columnPositions);
+    final int rowCount = data.getRowCount();
+
+    // Find the rows and columns holding a value, in the order a row by row copy would first see them
+    final boolean[] rowHasValue = new boolean[rowCount];
+    final boolean[] columnHasValue = new boolean[columns.length];
+    final int[] columnOrder = new int[columns.length];
+    int columnsWithValue = 0;
+    for (int row = 0; row < rowCount; row++) {
+      for (int i = 0; i < columns.length; i++) {
+        if (!Double.isNaN(data.getDouble(row, columns[i]))) {
+          rowHasValue[row] = true;
+          if (!columnHasValue[i]) {
+            columnHasValue[i] = true;
+            columnOrder[columnsWithValue++] = i;
+          }
+        }
+      }
+    }
+
+    final Configuration config = ChartBoot.getInstance().getGlobalConfig();
+    final String noRowNameSpecified = config.getConfigProperty("org.pentaho.chart.namespace.row_name_not_defined"); //$NON-NLS-1$
+    final String noColumnName = config.getConfigProperty("org.pentaho.chart.namespace.column_name_not_defined"); //$NON-NLS-1$
+
+    final KeyBuilder rowKeyBuilder = new KeyBuilder();
+    for (int row = 0; row < rowCount; row++) {
+      if (rowHasValue[row]) {
+        final Object rawRowName = JFreeChartUtils.getRawRowName(data, chartDocument, row);
+        rowKeyBuilder.add(rawRowName != null ? String.valueOf(rawRowName) : (noRowNameSpecified + row), row);
+      }
+    }
+    final KeyBuilder columnKeyBuilder = new KeyBuilder();
+    for (int i = 0; i < columnsWithValue; i++) {
+      final int column = columns[columnOrder[i]];
+      final String rawColumnName = JFreeChartUtils.getColumnName(data, column);
+      columnKeyBuilder.add(rawColumnName != null ? rawColumnName : noColumnName + column, column);
+    }
+
+    this.rowKeys = rowKeyBuilder.getKeys();
+    this.rowIndexes = rowKeyBuilder.getIndexes();
+    this.sourceRows = rowKeyBuilder.getSources();
+    this.columnKeys = columnKeyBuilder.getKeys();
+    this.columnIndexes = columnKeyBuilder.getIndexes();
+    this.sourceColumns = columnKeyBuilder.getSources();
+  }
+
+  public int getRowCount() {
+    return rowKeys.size();
+  }
+
+  public int getColumnCount() {
+    return columnKeys.size();
+  }
+
+  public Number getValue(final int row, final int column) {
+    final int[] rows = sourceRows[row];
+    final int[] columns = sourceColumns[column];
+    for (int i = rows.length - 1; i >= 0; i--) {
+      for (int j = columns.length - 1; j >= 0; j--) {
+        final double value = data.getDouble(rows[i], columns[j]);
+        if (!Double.isNaN(value)) {
+          return new Double(value * scale);
+        }
+      }
+    }
+    return null;
+  }
+
+  public Number getValue(final Comparable rowKey, final Comparable columnKey) {
+    final int row = getRowIndex(rowKey);
+    if (row < 0) {
+      throw new UnknownKeyException("Unrecognised rowKey: " + rowKey); //$NON-NLS-1$
+    }
+    final int column = getColumnIndex(columnKey);
+    if (column < 0) {
+      throw new UnknownKeyException("Unrecognised columnKey: " + columnKey); //$NON-NLS-1$
+    }
+    return getValue(row, column);
+  }
+
+  public Comparable getRowKey(final int row) {
+    return rowKeys.get(row);
+  }
+
+  public int getRowIndex(final Comparable key) {
+    final Integer index = rowIndexes.get(key);
+    return index != null ? index.intValue() : -1;
+  }
+
+  public List getRowKeys() {
+    return rowKeys;
+  }
+
+  public Comparable getColumnKey(final int column) {
+    return columnKeys.get(column);
+  }
+
+  public int getColumnIndex(final Comparable key) {
+    final Integer index = columnIndexes.get(key);
+    return index != null ? index.intValue() : -1;
+  }
+
+  public List getColumnKeys() {
+    return columnKeys;
+  }
+
+  private static int[] getColumns(final int columnCount, final Integer[] columnPositions) {
+    if (columnPositions == null) {
+      final int[] columns = new int[columnCount];
+      for (int column = 0; column < columnCount; column++) {
+        columns[column] = column;
+      }
+      return columns;
+    }
+    // Like the copying generator, only ascending positions within the table are used
+    final int[] columns = new int[columnPositions.length];
+    int count = 0;
+    for (int column = 0; column < columnCount && count < columnPositions.length; column++) {
+      if (column == columnPositions[count]) {
+        columns[count++] = column;
+      }
+    }
+    return Arrays.copyOf(columns, count);
+  }
+
+  /**
+   * Assigns indexes to distinct keys, collecting the table positions merged into each key.
+   */
+  private static class KeyBuilder {
+    private final Map<String, List<Integer>> sources = new LinkedHashMap<String, List<Integer>>();
+
+    void add(final String key, final int source) {
+      List<Integer> keySources = sources.get(key);
+      if (keySources == null) {
+        keySources = new ArrayList<Integer>(1);
+        sources.put(key, keySources);
+      }
+      keySources.add(source);
+    }
+
+    List<String> getKeys() {
+      return Collections.unmodifiableList(new ArrayList<String>(sources.keySet()));
+    }
+
+    Map<String, Integer> getIndexes() {
+      final Map<String, Integer> indexes = new HashMap<String, Integer>();
+      for (final String key : sources.keySet()) {
+        indexes.put(key, indexes.size());
+      }
+      return indexes;
+    }
+
+    int[][] getSources() {
+      final int[][] result = new int[sources.size()][];
+      int index = 0;
+      for (final List<Integer> keySources : sources.values()) {
+        final int[] positions = new int[keySources.size()];
+        for (int i = 0; i < positions.length; i++) {
+          positions[i] = keySources.get(i);
+        }
+        result[index++] = positions;
+      }
+      return result;
+    }
+  }
+}
@@ -17,6 +17,7 @@
 
 package org.pentaho.chart.plugin.jfreechart.dataset;
 
+import org.jfree.data.category.CategoryDataset;
 import org.jfree.data.category.DefaultCategoryDataset;
 import org.jfree.data.category.DefaultIntervalCategoryDataset;
 import org.jfree.data.general.Dataset;
@@ -108,6 +109,50 @@ public class DatasetGeneratorFactory {
     return categoryDataset;
   }
 
+  /**
+   * Returns a category dataset reading its values straight from the data, without copying them into a
+   * DefaultCategoryDataset.
+   * </p>
+   * @param chartDocContext -- Current chart's document context.
+   * @param data            -- Data for current chart.
+   * @return Returns CategoryDataset object, or null if the plot doesn't use a categorical dataset.
+   */
+  public CategoryDataset createCategoryDataset(final ChartDocumentContext chartDocContext,
+                                               final ChartTableModel data) {
+    return createCategoryDataset(chartDocContext, data, null);
+  }
+
+  /**
+   * Returns a category dataset reading its values from specific columns of the data, without copying them into a
+   * DefaultCategoryDataset.
+   * </p>
+   * @param chartDocContext -- Current chart's document context.
+   * @param data            -- Data for current chart.
+   * @param columnPosArr    -- Specific columns to retrieve the data from, or null for all columns.
+   * @return Returns CategoryDataset object, or null if the plot doesn't use a categorical dataset.
+   * @throws IllegalArgumentException -- Chart document context or data was null
+   * @throws IllegalStateException -- Chart document was null
+   */
+  public CategoryDataset createCategoryDataset(final ChartDocumentContext chartDocContext,
+                                               final ChartTableModel data,
+                                               final Integer[] columnPosArr)
+  throws IllegalArgumentException, IllegalStateException {
+    if (chartDocContext == null || data == null) {
+      throw new IllegalArgumentException("Arguments cannot be null. ChartDocumentContext: " + chartDocContext + ", ChartTableModel: "+ data); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    final ChartDocument chartDoc = chartDocContext.getChartDocument();
+    if (chartDoc == null) {
+      throw new IllegalStateException("Chart document cannot be null!"); //$NON-NLS-1$
+    }
+
+    // Only categorical datasets (the default) were ever handed out as category datasets
+    final String datasetType = getDatasetType(chartDoc.getPlotElement());
+    if (datasetType != null && !CATEGORICAL.equalsIgnoreCase(datasetType)) {
+      return null;
+    }
+    return new JFreeDefaultCategoryDatasetGenerator().createCategoryDataset(chartDocContext, data, columnPosArr);
+  }
+
   public DefaultIntervalCategoryDataset createDefaultIntervalCategoryDataset() {
     return null;
   }
@@ -58,12 +58,9 @@ public class JFreeDefaultPieDatasetGenerator implements IJFreeDatasetGenerator {
                                          final String noRowNameSpecified,
                                          final double scale) {
     final String rowName = rawRowName != null ? String.valueOf(rawRowName): (noRowNameSpecified + row);
-    final Object rawValue = data.getValueAt(row, 0);
-    if (rawValue instanceof Number) {
-      final Number number = (Number) rawValue;
-      double value = number.doubleValue();
-      value *= scale;
-      dataset.setValue(rowName, value);
+    final double rawValue = data.getDouble(row, 0);
+    if (!Double.isNaN(rawValue)) {
+      dataset.setValue(rowName, rawValue * scale);
     }
   }
 
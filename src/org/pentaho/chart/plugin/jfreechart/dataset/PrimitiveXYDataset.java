@@ -0,0 +1,216 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.plugin.jfreechart.dataset;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.jfree.data.DomainInfo;
+import org.jfree.data.Range;
+import org.jfree.data.RangeInfo;
+import org.jfree.data.xy.AbstractXYDataset;
+import org.pentaho.chart.data.ChartTableModel;
+import org.pentaho.chart.data.MultiSeriesXYDataModel;
+import org.pentaho.chart.data.XYDataModel;
+import org.pentaho.chart.data.XYDataPoint;
+
+/**
+ * Read only <code>XYDataset</code> holding the coordinates of each series in a pair of <code>double[]</code> arrays.
+ * Unlike <code>XYSeries</code> it neither boxes the coordinates nor keeps the items sorted, so it suits scatter plots
+ * of many points. Items keep the order of the source data; missing coordinates are stored as NaN, which the
+ * renderers skip.
+ * <p/>
+ * The domain and range bounds are computed once as series are added, so the plot doesn't iterate the items to find
+ * them.
+ */
+public class PrimitiveXYDataset extends AbstractXYDataset implements DomainInfo, RangeInfo {
+
+  private static final long serialVersionUID = 1L;
+
+  private final List<Comparable> seriesKeys = new ArrayList<Comparable>();
+
+  private final List<double[]> xValues = new ArrayList<double[]>();
+
+  private final List<double[]> yValues = new ArrayList<double[]>();
+
+  private final List<Integer> itemCounts = new ArrayList<Integer>();
+
+  private double minX = Double.NaN;
+
+  private double maxX = Double.NaN;
+
+  private double minY = Double.NaN;
+
+  private double maxY = Double.NaN;
+
+  /**
+   * Creates a dataset holding a single series named "" with the points of the data model.
+   */
+  public static PrimitiveXYDataset fromDataModel(final XYDataModel data) {
+    final PrimitiveXYDataset dataset = new PrimitiveXYDataset();
+    final String seriesName = (data instanceof MultiSeriesXYDataModel.Series) ? ((MultiSeriesXYDataModel.Series) data)
+        .getSeriesName() : ""; //$NON-NLS-1$
+    dataset.addSeries(seriesName, data);
+    return dataset;
+  }
+
+  /**
+   * Creates a dataset holding one series per series of the data model, in the same order.
+   */
+  public static PrimitiveXYDataset fromDataModel(final MultiSeriesXYDataModel data) {
+    final PrimitiveXYDataset dataset = new PrimitiveXYDataset();
+    for (final Map.Entry<String, XYDataModel> series : data.getSeriesData().entrySet()) {
+      dataset.addSeries(series.getKey(), series.getValue());
+    }
+    return dataset;
+  }
+
+  /**
+   * Creates a dataset holding one series per range column of the table, named after the column and using the
+   * domain column as x values. The values are read through <code>ChartTableModel.getDouble</code>, which doesn't box
+   * them for columnar table models.
+   */
+  public static PrimitiveXYDataset fromTableModel(final ChartTableModel data, final int domainColumn,
+                                                  final int... rangeColumns) {
+    final PrimitiveXYDataset dataset = new PrimitiveXYDataset();
+    final int rowCount = data.getRowCount();
+    final double[] x = new double[rowCount];
+    for (int row = 0; row < rowCount; row++) {
+      x[row] = data.getDouble(row, domainColumn);
+    }
+    for (final int rangeColumn : rangeColumns) {
+      final double[] y = new double[rowCount];
+      for (int row = 0; row < rowCount; row++) {
+        y[row] = data.getDouble(row, rangeColumn);
+      }
+      dataset.addSeries(data.getColumnName(rangeColumn), x, y, rowCount);
+    }
+    return dataset;
+  }
+
+  /**
+   * Adds a series holding the points of the data model.
+   */
+  public void addSeries(final Comparable seriesKey, final XYDataModel data) {
+    final int itemCount = data.size();
+    final double[] x = new double[itemCount];
+    final double[] y = new double[itemCount];
+    for (int i = 0; i < itemCount; i++) {
+      final XYDataPoint dataPoint = data.get(i);
+      x[i] = toDouble(dataPoint.getDomainValue());
+      y[i] = toDouble(dataPoint.getRangeValue());
+    }
+    addSeries(seriesKey, x, y, itemCount);
+  }
+
+  /**
+   * Adds a series holding the first <code>itemCount</code> coordinates of the arrays. The arrays are not copied and
+   * must not be modified afterwards.
+   */
+  public void addSeries(final Comparable seriesKey, final double[] x, final double[] y, final int itemCount) {
+    if (seriesKey == null) {
+      throw new IllegalArgumentException("Null 'seriesKey' argument."); //$NON-NLS-1$
+    }
+    if (itemCount < 0 || itemCount > x.length || itemCount > y.length) {
+      throw new IllegalArgumentException("Invalid item count: " + itemCount); //$NON-NLS-1$
+    }
+    seriesKeys.add(seriesKey);
+    xValues.add(x);
+    yValues.add(y);
+    itemCounts.add(itemCount);
+    for (int i = 0; i < itemCount; i++) {
+      minX = min(minX, x[i]);
+      maxX = max(maxX, x[i]);
+      minY = min(minY, y[i]);
+      maxY = max(maxY, y[i]);
+    }
+    fireDatasetChanged();
+  }
+
+  public int getSeriesCount() {
+    return seriesKeys.size();
+  }
+
+  public Comparable getSeriesKey(final int series) {
+    return seriesKeys.get(series);
+  }
+
+  public int getItemCount(final int series) {
+    return itemCounts.get(series);
+  }
+
+  public double getXValue(final int series, final int item) {
+    return xValues.get(series)[item];
+  }
+
+  public double getYValue(final int series, final int item) {
+    return yValues.get(series)[item];
+  }
+
+  public Number getX(final int series, final int item) {
+    return toNumber(getXValue(series, item));
+  }
+
+  public Number getY(final int series, final int item) {
+    return toNumber(getYValue(series, item));
+  }
+
+  public double getDomainLowerBound(final boolean includeInterval) {
+    return minX;
+  }
+
+  public double getDomainUpperBound(final boolean includeInterval) {
+    return maxX;
+  }
+
+  public Range getDomainBounds(final boolean includeInterval) {
+    return Double.isNaN(minX) ? null : new Range(minX, maxX);
+  }
+
+  public double getRangeLowerBound(final boolean includeInterval) {
+    return minY;
+  }
+
+  public double getRangeUpperBound(final boolean includeInterval) {
+    return maxY;
+  }
+
+  public Range getRangeBounds(final boolean includeInterval) {
+    return Double.isNaN(minY) ? null : new Range(minY, maxY);
+  }
+
+  private static double toDouble(final Number value) {
+    return value != null ? value.doubleValue() : Double.NaN;
+  }
+
+  private static Number toNumber(final double value) {
+    return Double.isNaN(value) ? null : new Double(value);
+  }
+
+  /**
+   * Like <code>Math.min</code>, but ignoring NaN values.
+   */
+  private static double min(final double current, final double value) {
+    return (Double.isNaN(current) || value < current) ? value : current;
+  }
+
+  private static double max(final double current, final double value) {
+    return (Double.isNaN(current) || value > current) ? value : current;
+  }
+}
@@ -0,0 +1,232 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.plugin.jfreechart.dataset;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.jfree.data.Range;
+import org.jfree.data.RangeInfo;
+import org.jfree.data.UnknownKeyException;
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.general.AbstractDataset;
+import org.pentaho.chart.data.ChartDataStatistics;
+import org.pentaho.chart.data.IMultiSeriesDataModelListener;
+import org.pentaho.chart.data.MultiSeriesDataModel;
+import org.pentaho.chart.plugin.jfreechart.utils.JFreeChartUtils;
+
+/**
+ * Read only category dataset over a <code>MultiSeriesDataModel</code>. Series are the rows and domains the columns.
+ * The keys are the model's own dictionaries of series and domain names, so names are neither copied nor hashed into
+ * JFreeChart's keyed structures, and key lookups resolve to the model's int codes. The range bounds are reported from
+ * the statistics of the model, so renderers don't iterate the values to size the range axis.
+ * <p/>
+ * Values are read from the model, or from a matrix of values scaled with <code>JFreeChartUtils.scaleNumber</code>
+ * when the model is scaled. Once the dataset is registered as a listener of the model, changes to the model update
+ * the changed cells of that matrix and are published to the chart by {@link #fireChanges()}; otherwise the model must
+ * not be modified while the dataset is in use. A serialized dataset is restored as a copy of its values.
+ */
+public class StatisticsCategoryDataset extends AbstractDataset implements CategoryDataset, RangeInfo,
+    IMultiSeriesDataModelListener {
+
+  private static final long serialVersionUID = 1L;
+
+  private final MultiSeriesDataModel data;
+
+  private final ChartDataStatistics statistics;
+
+  private final Number scalingFactor;
+
+  private final double scale;
+
+  /**
+   * Scaled values indexed by [series][domain], <code>NaN</code> for missing values, or <code>null</code> to read the
+   * values of the model. Rows may be longer than the number of domains, and there may be more rows than series.
+   */
+  private double[][] scaledValues;
+
+  private boolean changed;
+
+  public StatisticsCategoryDataset(final MultiSeriesDataModel data) {
+    this.data = data;
+    this.statistics = data.getStatistics();
+    this.scalingFactor = data.getScalingFactor();
+    this.scale = (scalingFactor == null || scalingFactor.doubleValue() == 0) ? 1 : scalingFactor.doubleValue();
+    if ((scalingFactor != null) && !scalingFactor.equals(1) && !scalingFactor.equals(0)) {
+      scaledValues = new double[data.getSeriesCount()][data.getDomainCount()];
+      for (int series = 0; series < scaledValues.length; series++) {
+        for (int domain = 0; domain < scaledValues[series].length; domain++) {
+          scaledValues[series][domain] = scaleValue(series, domain);
+        }
+      }
+    }
+  }
+
+  /**
+   * Records a change of the model, updating the scaled value of the changed cell. The change is published by
+   * {@link #fireChanges()}.
+   */
+  public void valueChanged(final MultiSeriesDataModel model, final int seriesIndex, final int domainIndex) {
+    if (scaledValues != null) {
+      ensureCapacity(seriesIndex, domainIndex);
+      scaledValues[seriesIndex][domainIndex] = scaleValue(seriesIndex, domainIndex);
+    }
+    changed = true;
+  }
+
+  /**
+   * Notifies the dataset listeners, the plot recalculating its axes, if the model changed since the last call.
+   *
+   * @return whether the model changed
+   */
+  public boolean fireChanges() {
+    if (!changed) {
+      return false;
+    }
+    changed = false;
+    fireDatasetChanged();
+    return true;
+  }
+
+  public int getRowCount() {
+    return data.getSeriesCount();
+  }
+
+  public int getColumnCount() {
+    return data.getDomainCount();
+  }
+
+  public Number getValue(final int row, final int column) {
+    if (scaledValues == null) {
+      return data.getValue(row, column);
+    }
+    if ((row >= data.getSeriesCount()) || (column >= data.getDomainCount())) {
+      throw new IndexOutOfBoundsException();
+    }
+    // Rows are only grown as their own cells change, cells of domains added since holding no value
+    final double[] rowValues = scaledValues[row];
+    final double value = column < rowValues.length ? rowValues[column] : Double.NaN;
+    return Double.isNaN(value) ? null : Double.valueOf(value);
+  }
+
+  public Number getValue(final Comparable rowKey, final Comparable columnKey) {
+    final int row = getRowIndex(rowKey);
+    if (row < 0) {
+      throw new UnknownKeyException("Unrecognised rowKey: " + rowKey); //$NON-NLS-1$
+    }
+    final int column = getColumnIndex(columnKey);
+    if (column < 0) {
+      throw new UnknownKeyException("Unrecognised columnKey: " + columnKey); //$NON-NLS-1$
+    }
+    return getValue(row, column);
+  }
+
+  public Comparable getRowKey(final int row) {
+    return data.getSeriesNames().get(row);
+  }
+
+  public int getRowIndex(final Comparable key) {
+    return key instanceof String ? data.getSeriesIndex((String) key) : -1;
+  }
+
+  public List getRowKeys() {
+    return data.getSeriesNames();
+  }
+
+  public Comparable getColumnKey(final int column) {
+    return data.getDomainNames().get(column);
+  }
+
+  public int getColumnIndex(final Comparable key) {
+    return key instanceof String ? data.getDomainIndex((String) key) : -1;
+  }
+
+  public List getColumnKeys() {
+    return data.getDomainNames();
+  }
+
+  public double getRangeLowerBound(final boolean includeInterval) {
+    final Range bounds = getRangeBounds(includeInterval);
+    return bounds != null ? bounds.getLowerBound() : Double.NaN;
+  }
+
+  public double getRangeUpperBound(final boolean includeInterval) {
+    final Range bounds = getRangeBounds(includeInterval);
+    return bounds != null ? bounds.getUpperBound() : Double.NaN;
+  }
+
+  public Range getRangeBounds(final boolean includeInterval) {
+    return statistics.getCount() > 0 ? createRange(statistics.getMin(), statistics.getMax()) : null;
+  }
+
+  /**
+   * Returns the range covered by the values stacked on top of <code>base</code>, as
+   * <code>DatasetUtilities.findStackedRangeBounds</code> would.
+   */
+  public Range getStackedRangeBounds(final double base) {
+    if (statistics.getCount() == 0) {
+      return null;
+    }
+    final Range extents = createRange(statistics.getMinStackExtent(), statistics.getMaxStackExtent());
+    return new Range(base + extents.getLowerBound(), base + extents.getUpperBound());
+  }
+
+  /**
+   * Serializes the dataset as a <code>DefaultCategoryDataset</code> holding its current values, the model not being
+   * serializable. The copy no longer follows the model.
+   */
+  private Object writeReplace() {
+    final DefaultCategoryDataset copy = new DefaultCategoryDataset();
+    for (int row = 0; row < getRowCount(); row++) {
+      for (int column = 0; column < getColumnCount(); column++) {
+        copy.addValue(getValue(row, column), getRowKey(row), getColumnKey(column));
+      }
+    }
+    copy.setGroup(getGroup());
+    return copy;
+  }
+
+  private double scaleValue(final int series, final int domain) {
+    final Number value = JFreeChartUtils.scaleNumber(data.getValue(series, domain), scalingFactor);
+    return value != null ? value.doubleValue() : Double.NaN;
+  }
+
+  private void ensureCapacity(final int series, final int domain) {
+    if (series >= scaledValues.length) {
+      final double[][] newValues = new double[Math.max(series + 1, scaledValues.length * 2)][];
+      System.arraycopy(scaledValues, 0, newValues, 0, scaledValues.length);
+      for (int i = scaledValues.length; i < newValues.length; i++) {
+        newValues[i] = new double[0];
+      }
+      scaledValues = newValues;
+    }
+    if (domain >= scaledValues[series].length) {
+      final int capacity = Math.max(domain + 1, scaledValues[series].length * 2);
+      final double[] newRow = Arrays.copyOf(scaledValues[series], capacity);
+      Arrays.fill(newRow, scaledValues[series].length, capacity, Double.NaN);
+      scaledValues[series] = newRow;
+    }
+  }
+
+  private Range createRange(final double value1, final double value2) {
+    final double scaled1 = value1 / scale;
+    final double scaled2 = value2 / scale;
+    return new Range(Math.min(scaled1, scaled2), Math.max(scaled1, scaled2));
+  }
+}
@@ -0,0 +1,163 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.plugin.jfreechart.dataset;
+
+import org.jfree.data.DomainInfo;
+import org.jfree.data.Range;
+import org.jfree.data.RangeInfo;
+import org.jfree.data.xy.AbstractXYDataset;
+import org.pentaho.chart.data.TimeSeriesDataModel;
+
+/**
+ * <code>XYDataset</code> reading the points of a <code>TimeSeriesDataModel</code> in place, the x values being the
+ * timestamps in milliseconds. Renderers reading the primitive coordinates don't allocate anything, so a chart of a
+ * sliding window can be redrawn several times a second.
+ * <p/>
+ * Points appended to the model are seen as soon as they are appended. The plot recalculates its axes when
+ * {@link #fireChanges()} is called after the model changed; the domain and range bounds are computed at that time.
+ * Renders must synchronize on the model so points are not appended while the chart is drawn.
+ */
+public class TimeSeriesModelDataset extends AbstractXYDataset implements DomainInfo, RangeInfo {
+
+  private static final long serialVersionUID = 1L;
+
+  private final TimeSeriesDataModel data;
+
+  private final double scale;
+
+  private long publishedModificationCount = -1;
+
+  private Range domainBounds;
+
+  private Range rangeBounds;
+
+  public TimeSeriesModelDataset(final TimeSeriesDataModel data) {
+    final Number scalingFactor = data.getScalingFactor();
+    this.data = data;
+    this.scale = (scalingFactor == null || scalingFactor.doubleValue() == 0) ? 1 : scalingFactor.doubleValue();
+    synchronized (data) {
+      updateBounds();
+    }
+  }
+
+  /**
+   * Notifies the dataset listeners, the plot recalculating its axes, if the model changed since the last call.
+   *
+   * @return whether the model changed
+   */
+  public boolean fireChanges() {
+    synchronized (data) {
+      if (!updateBounds()) {
+        return false;
+      }
+    }
+    fireDatasetChanged();
+    return true;
+  }
+
+  public int getSeriesCount() {
+    return data.getSeriesCount();
+  }
+
+  public Comparable getSeriesKey(final int series) {
+    return data.getSeriesName(series);
+  }
+
+  public int getItemCount(final int series) {
+    return data.getItemCount(series);
+  }
+
+  public double getXValue(final int series, final int item) {
+    return data.getTimestamp(series, item);
+  }
+
+  public double getYValue(final int series, final int item) {
+    return data.getValue(series, item) / scale;
+  }
+
+  public Number getX(final int series, final int item) {
+    return Double.valueOf(getXValue(series, item));
+  }
+
+  public Number getY(final int series, final int item) {
+    final double y = getYValue(series, item);
+    return Double.isNaN(y) ? null : Double.valueOf(y);
+  }
+
+  public double getDomainLowerBound(final boolean includeInterval) {
+    return domainBounds != null ? domainBounds.getLowerBound() : Double.NaN;
+  }
+
+  public double getDomainUpperBound(final boolean includeInterval) {
+    return domainBounds != null ? domainBounds.getUpperBound() : Double.NaN;
+  }
+
+  public Range getDomainBounds(final boolean includeInterval) {
+    return domainBounds;
+  }
+
+  public double getRangeLowerBound(final boolean includeInterval) {
+    return rangeBounds != null ? rangeBounds.getLowerBound() : Double.NaN;
+  }
+
+  public double getRangeUpperBound(final boolean includeInterval) {
+    return rangeBounds != null ? rangeBounds.getUpperBound() : Double.NaN;
+  }
+
+  public Range getRangeBounds(final boolean includeInterval) {
+    return rangeBounds;
+  }
+
+  /**
+   * Recomputes the bounds if the model changed since they were last computed.
+   *
+   * @return whether the model changed
+   */
+  private boolean updateBounds() {
+    final long modificationCount = data.getModificationCount();
+    if (modificationCount == publishedModificationCount) {
+      return false;
+    }
+    publishedModificationCount = modificationCount;
+    double minX = Double.NaN;
+    double maxX = Double.NaN;
+    double minY = Double.NaN;
+    double maxY = Double.NaN;
+    for (int series = 0; series < data.getSeriesCount(); series++) {
+      final int itemCount = data.getItemCount(series);
+      if (itemCount == 0) {
+        continue;
+      }
+      // Points are in timestamp order
+      final double first = data.getTimestamp(series, 0);
+      final double last = data.getTimestamp(series, itemCount - 1);
+      minX = Double.isNaN(minX) ? first : Math.min(minX, first);
+      maxX = Double.isNaN(maxX) ? last : Math.max(maxX, last);
+      for (int item = 0; item < itemCount; item++) {
+        final double y = getYValue(series, item);
+        if (!Double.isNaN(y)) {
+          minY = Double.isNaN(minY) ? y : Math.min(minY, y);
+          maxY = Double.isNaN(maxY) ? y : Math.max(maxY, y);
+        }
+      }
+    }
+    domainBounds = Double.isNaN(minX) ? null : new Range(minX, maxX);
+    rangeBounds = Double.isNaN(minY) ? null : new Range(minY, maxY);
+    return true;
+  }
+}
@@ -0,0 +1,293 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.plugin.jfreechart.outputs;
+
+import java.util.Arrays;
+
+/**
+ * Chooses the palette of an 8 bit indexed image and maps the colours of the image to it.
+ * <p/>
+ * Images with at most 256 distinct colours keep their exact colours. Otherwise the palette holds the seed colours,
+ * typically the chart palette and backgrounds, the antialiasing ramps blending each seed colour into the most frequent
+ * colour of the image, and then the most frequent remaining colours of the image. Colours are mapped to the nearest
+ * palette entry.
+ */
+class ColorQuantizer {
+
+  static final int MAX_COLORS = 256;
+  /**
+   * Number of distinct colours counted; further new colours are only mapped.
+   */
+  private static final int MAX_COUNTED_COLORS = 1 << 16;
+  /**
+   * Number of blends between a seed colour and the dominant colour, at equal intervals.
+   */
+  private static final int RAMP_STEPS = 3;
+  /**
+   * Palette entries kept for the most frequent image colours when adding ramps.
+   */
+  private static final int RESERVED_COLORS = 32;
+  /**
+   * Squared distance from the palette entries beyond which image colors are preferred when filling the palette.
+   */
+  private static final int MIN_FILL_DISTANCE = 3 * 16 * 16;
+
+  private final int[] seedColors;
+  private int[] colors = new int[1024];
+  private int[] counts = new int[1024];
+  private int size;
+  private boolean overflow;
+  private int lastColor;
+  private int lastSlot = -1;
+
+  private int[] palette;
+  private int[] cachedColors;
+  private int[] cachedIndexes;
+  private int cacheSize;
+
+  /**
+   * @param seedColors RGB colours to include in the palette, or <code>null</code>
+   */
+  ColorQuantizer(int[] seedColors) {
+    this.seedColors = (seedColors != null) ? seedColors : new int[0];
+  }
+
+  /**
+   * Counts the ARGB colours of pixels.
+   */
+  void addPixels(int[] pixels, int length) {
+    for (int i = 0; i < length; i++) {
+      final int color = pixels[i];
+      if ((color == lastColor) && (lastSlot >= 0)) {
+        counts[lastSlot]++;
+        continue;
+      }
+      int slot = findSlot(colors, counts, color);
+      if (counts[slot] == 0) {
+        if (size >= MAX_COUNTED_COLORS) {
+          overflow = true;
+          continue;
+        }
+        colors[slot] = color;
+        size++;
+        if (size * 2 > colors.length) {
+          rehash();
+          slot = findSlot(colors, counts, color);
+        }
+      }
+      counts[slot]++;
+      lastColor = color;
+      lastSlot = slot;
+    }
+  }
+
+  /**
+   * Returns the ARGB palette, choosing it on the first call.
+   */
+  int[] getPalette() {
+    if (palette == null) {
+      palette = createPalette();
+      cachedColors = new int[1024];
+      cachedIndexes = new int[1024];
+      Arrays.fill(cachedIndexes, -1);
+    }
+    return palette;
+  }
+
+  /**
+   * Returns the index of the palette entry nearest to the ARGB colour.
+   */
+  int getIndex(int color) {
+    getPalette();
+    int slot = findCacheSlot(color);
+    if (cachedIndexes[slot] < 0) {
+      cachedColors[slot] = color;
+      cachedIndexes[slot] = findNearest(color);
+      cacheSize++;
+      if (cacheSize * 2 > cachedColors.length) {
+        final int[] oldColors = cachedColors;
+        final int[] oldIndexes = cachedIndexes;
+        cachedColors = new int[oldColors.length * 2];
+        cachedIndexes = new int[oldColors.length * 2];
+        Arrays.fill(cachedIndexes, -1);
+        for (int i = 0; i < oldColors.length; i++) {
+          if (oldIndexes[i] >= 0) {
+            final int newSlot = findCacheSlot(oldColors[i]);
+            cachedColors[newSlot] = oldColors[i];
+            cachedIndexes[newSlot] = oldIndexes[i];
+          }
+        }
+        slot = findCacheSlot(color);
+      }
+    }
+    return cachedIndexes[slot];
+  }
+
+  private int[] createPalette() {
+    final int[] entries = new int[MAX_COLORS];
+    int entryCount = 0;
+    if (!overflow && (size <= MAX_COLORS)) {
+      for (int slot = 0; slot < colors.length; slot++) {
+        if (counts[slot] > 0) {
+          entries[entryCount++] = colors[slot];
+        }
+      }
+    } else {
+      final long[] byCount = new long[size];
+      int index = 0;
+      for (int slot = 0; slot < colors.length; slot++) {
+        if (counts[slot] > 0) {
+          byCount[index++] = ((long)counts[slot] << 32) | (colors[slot] & 0xFFFFFFFFL);
+        }
+      }
+      Arrays.sort(byCount);
+      final int dominant = (size > 0) ? (int)byCount[size - 1] : 0xFFFFFFFF;
+
+      entryCount = addColor(entries, entryCount, dominant);
+      for (int i = 0; (i < seedColors.length) && (entryCount < MAX_COLORS - RESERVED_COLORS); i++) {
+        entryCount = addColor(entries, entryCount, 0xFF000000 | seedColors[i]);
+      }
+      final int seedCount = entryCount;
+      for (int i = 1; i < seedCount; i++) {
+        for (int step = 1; (step <= RAMP_STEPS) && (entryCount < MAX_COLORS - RESERVED_COLORS); step++) {
+          entryCount = addColor(entries, entryCount, blend(entries[i], dominant, step, RAMP_STEPS + 1));
+        }
+      }
+      // Frequent colors unlike the entries first, then the most frequent ones left
+      for (int i = size - 1; (i >= 0) && (entryCount < MAX_COLORS); i--) {
+        if (distance(entries, entryCount, (int)byCount[i]) > MIN_FILL_DISTANCE) {
+          entries[entryCount++] = (int)byCount[i];
+        }
+      }
+      for (int i = size - 1; (i >= 0) && (entryCount < MAX_COLORS); i--) {
+        entryCount = addColor(entries, entryCount, (int)byCount[i]);
+      }
+    }
+
+    // Translucent entries first, so the tRNS chunk stops at the last of them
+    final int[] result = new int[entryCount];
+    int index = 0;
+    for (int i = 0; i < entryCount; i++) {
+      if ((entries[i] >>> 24) != 0xFF) {
+        result[index++] = entries[i];
+      }
+    }
+    for (int i = 0; i < entryCount; i++) {
+      if ((entries[i] >>> 24) == 0xFF) {
+        result[index++] = entries[i];
+      }
+    }
+    return result;
+  }
+
+  private static int addColor(int[] entries, int entryCount, int color) {
+    for (int i = 0; i < entryCount; i++) {
+      if (entries[i] == color) {
+        return entryCount;
+      }
+    }
+    entries[entryCount] = color;
+    return entryCount + 1;
+  }
+
+  /**
+   * Returns the colour <code>step / steps</code> of the way from the first colour to the second one.
+   */
+  private static int blend(int from, int to, int step, int steps) {
+    int result = 0;
+    for (int shift = 0; shift < 32; shift += 8) {
+      final int fromValue = (from >>> shift) & 0xFF;
+      final int toValue = (to >>> shift) & 0xFF;
+      result |= ((fromValue + (toValue - fromValue) * step / steps) & 0xFF) << shift;
+    }
+    return result;
+  }
+
+  private int findNearest(int color) {
+    int nearest = 0;
+    int nearestDistance = Integer.MAX_VALUE;
+    for (int i = 0; i < palette.length; i++) {
+      final int distance = distance(color, palette[i]);
+      if (distance < nearestDistance) {
+        nearest = i;
+        nearestDistance = distance;
+        if (distance == 0) {
+          break;
+        }
+      }
+    }
+    return nearest;
+  }
+
+  /**
+   * Returns the squared distance of the color to the nearest of the entries.
+   */
+  private static int distance(int[] entries, int entryCount, int color) {
+    int nearestDistance = Integer.MAX_VALUE;
+    for (int i = 0; i < entryCount; i++) {
+      nearestDistance = Math.min(nearestDistance, distance(color, entries[i]));
+    }
+    return nearestDistance;
+  }
+
+  private static int distance(int color1, int color2) {
+    final int da = (color1 >>> 24) - (color2 >>> 24);
+    final int dr = ((color1 >> 16) & 0xFF) - ((color2 >> 16) & 0xFF);
+    final int dg = ((color1 >> 8) & 0xFF) - ((color2 >> 8) & 0xFF);
+    final int db = (color1 & 0xFF) - (color2 & 0xFF);
+    return da * da + dr * dr + dg * dg + db * db;
+  }
+
+  private void rehash() {
+    final int[] oldColors = colors;
+    final int[] oldCounts = counts;
+    colors = new int[oldColors.length * 2];
+    counts = new int[oldColors.length * 2];
+    for (int i = 0; i < oldColors.length; i++) {
+      if (oldCounts[i] > 0) {
+        final int slot = findSlot(colors, counts, oldColors[i]);
+        colors[slot] = oldColors[i];
+        counts[slot] = oldCounts[i];
+      }
+    }
+    lastSlot = -1;
+  }
+
+  private static int findSlot(int[] colors, int[] counts, int color) {
+    final int mask = colors.length - 1;
+    int slot = hash(color) & mask;
+    while ((counts[slot] > 0) && (colors[slot] != color)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private int findCacheSlot(int color) {
+    final int mask = cachedColors.length - 1;
+    int slot = hash(color) & mask;
+    while ((cachedIndexes[slot] >= 0) && (cachedColors[slot] != color)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private static int hash(int color) {
+    final int h = color * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+}
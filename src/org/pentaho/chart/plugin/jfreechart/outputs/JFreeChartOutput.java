@@ -17,6 +17,9 @@
 
 package org.pentaho.chart.plugin.jfreechart.outputs;
 
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -24,8 +27,9 @@ import java.io.Writer;
 import java.io.StringWriter;
 
 import org.jfree.chart.ChartRenderingInfo;
-import org.jfree.chart.ChartUtilities;
 import org.jfree.chart.JFreeChart;
+import org.jfree.chart.encoders.EncoderUtil;
+import org.jfree.chart.encoders.ImageFormat;
 import org.jfree.chart.entity.StandardEntityCollection;
 import org.jfree.chart.imagemap.ImageMapUtilities;
 import org.pentaho.chart.plugin.api.IOutput;
@@ -38,8 +42,23 @@ import org.pentaho.chart.plugin.api.PersistenceException;
  */
 public class JFreeChartOutput implements IOutput {
 
-  private JFreeChart chart;
-  private ChartRenderingInfo info;
+  /**
+   * Default memory cap of the render surface pool, which holds a few large renders.
+   */
+  public static final long DEFAULT_SURFACE_POOL_BYTES = 32L * 1024 * 1024;
+
+  private static volatile PngEncoder defaultPngEncoder;
+  private static volatile RenderSurfacePool renderSurfacePool = new RenderSurfacePool(DEFAULT_SURFACE_POOL_BYTES);
+
+  private final JFreeChart chart;
+  /**
+   * RGB colors seeding the palette of indexed PNG files.
+   */
+  private volatile int[] paletteColors;
+  /**
+   * Rendering info of the last completed call to persistChart, used by persistMap.
+   */
+  private volatile ChartRenderingInfo info;
 
   public JFreeChartOutput(final JFreeChart chart)
   {
@@ -77,30 +96,130 @@ public class JFreeChartOutput implements IOutput {
    * @see org.pentaho.chart.plugin.api.IOutput#persistChart(java.io.OutputStream, int)
    */
   public OutputStream persistChart(OutputStream outputStream, IOutput.OutputTypes fileType, int width, int height) throws PersistenceException {
-    info = new ChartRenderingInfo(new StandardEntityCollection());
+    return persistChart(outputStream, fileType, width, height, defaultPngEncoder);
+  }
+
+  /**
+   * Persists the chart, encoding PNG files with the specified encoder.
+   *
+   * @param pngEncoder the encoder of PNG files, or <code>null</code> to encode them with <code>EncoderUtil</code>
+   */
+  public OutputStream persistChart(OutputStream outputStream, IOutput.OutputTypes fileType, int width, int height, PngEncoder pngEncoder) throws PersistenceException {
     if (outputStream == null) {
       outputStream = new ByteArrayOutputStream();
     }
-    
+    info = writeChart(outputStream, fileType, width, height, pngEncoder);
+    return outputStream;
+  }
+
+  public ChartRenderingInfo writeChart(OutputStream outputStream, IOutput.OutputTypes fileType, int width, int height) throws PersistenceException {
+    return writeChart(outputStream, fileType, width, height, defaultPngEncoder);
+  }
+
+  /**
+   * Renders the chart to the output stream and returns the rendering info of this render only, for use with
+   * {@link #getMap(String, ChartRenderingInfo)}. Renders of the same output are serialized since a
+   * <code>JFreeChart</code> can not be drawn by several threads at once; images are encoded after the chart has been
+   * drawn. The chart is drawn into an image of the render surface pool if one is installed.
+   *
+   * @param pngEncoder the encoder of PNG files, or <code>null</code> to encode them with <code>EncoderUtil</code>
+   */
+  public ChartRenderingInfo writeChart(OutputStream outputStream, IOutput.OutputTypes fileType, int width, int height, PngEncoder pngEncoder) throws PersistenceException {
+    final ChartRenderingInfo renderingInfo = new ChartRenderingInfo(new StandardEntityCollection());
     try {
       outputStream.flush();
     } catch (IOException e1) {
       throw new PersistenceException(e1);
     }
-    if (fileType == IOutput.OutputTypes.FILE_TYPE_JPEG) {
+    if ((fileType != null) && (fileType != IOutput.OutputTypes.FILE_TYPE_JPEG) && (fileType != IOutput.OutputTypes.FILE_TYPE_PNG)
+        && (fileType != IOutput.OutputTypes.FILE_TYPE_PNG_INDEXED)) {
+      return renderingInfo;
+    }
+
+    final RenderSurfacePool surfacePool = renderSurfacePool;
+    final int imageType = (fileType == IOutput.OutputTypes.FILE_TYPE_JPEG) ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+    final BufferedImage image = (surfacePool != null) ? surfacePool.acquire(width, height, imageType) : new BufferedImage(width, height, imageType);
+    try {
+      final Graphics2D graphics = image.createGraphics();
       try {
-        ChartUtilities.writeChartAsJPEG(outputStream, chart, width, height, info);
-      } catch (IOException e) {
-        throw new PersistenceException(e);
+        drawChart(graphics, new Rectangle2D.Double(0, 0, width, height), renderingInfo);
+      } finally {
+        graphics.dispose();
       }
-    } else if ((fileType == IOutput.OutputTypes.FILE_TYPE_PNG) || (fileType == null)) {
-      try {
-        ChartUtilities.writeChartAsPNG(outputStream, chart, width, height, info);
-      } catch (IOException e) {
-        throw new PersistenceException(e);
+      if (fileType == IOutput.OutputTypes.FILE_TYPE_JPEG) {
+        // the encoder's default quality, as used by ChartUtilities.writeChartAsJPEG
+        EncoderUtil.writeBufferedImage(image, ImageFormat.JPEG, outputStream);
+      } else if (fileType == IOutput.OutputTypes.FILE_TYPE_PNG_INDEXED) {
+        (pngEncoder != null ? pngEncoder : new PngEncoder(PngEncoder.Profile.BALANCED)).encodeIndexed(image, paletteColors, outputStream);
+      } else if (pngEncoder != null) {
+        pngEncoder.encode(image, outputStream);
+      } else {
+        EncoderUtil.writeBufferedImage(image, ImageFormat.PNG, outputStream);
+      }
+    } catch (IOException e) {
+      throw new PersistenceException(e);
+    } finally {
+      if (surfacePool != null) {
+        surfacePool.release(image);
       }
     }
-    return outputStream;
+    return renderingInfo;
+  }
+
+  /**
+   * Draws the chart into the area of the graphics, holding the lock of the chart. Called by
+   * {@link #writeChart(OutputStream, IOutput.OutputTypes, int, int, PngEncoder)} before the image is encoded, outside
+   * of this method; subclasses may override it to publish pending data changes while the chart is locked.
+   */
+  protected void drawChart(Graphics2D graphics, Rectangle2D area, ChartRenderingInfo renderingInfo) {
+    synchronized (chart) {
+      chart.draw(graphics, area, null, renderingInfo);
+    }
+  }
+
+  /**
+   * Returns the RGB colors seeding the palette of indexed PNG files, or <code>null</code>.
+   */
+  public int[] getPaletteColors() {
+    return paletteColors;
+  }
+
+  /**
+   * Sets the RGB colors seeding the palette of indexed PNG files, typically the colors of the chart palette and
+   * backgrounds. Antialiased edges are matched by blends of these colors.
+   */
+  public void setPaletteColors(int[] paletteColors) {
+    this.paletteColors = paletteColors;
+  }
+
+  /**
+   * Returns the pool of images charts are drawn into, or <code>null</code> if every render allocates its image.
+   */
+  public static RenderSurfacePool getRenderSurfacePool() {
+    return renderSurfacePool;
+  }
+
+  /**
+   * Sets the pool of images charts are drawn into, or <code>null</code> to allocate an image for every render.
+   */
+  public static void setRenderSurfacePool(RenderSurfacePool surfacePool) {
+    renderSurfacePool = surfacePool;
+  }
+
+  /**
+   * Returns the encoder of PNG files used when none is specified, or <code>null</code>, the default, if they are
+   * encoded with <code>EncoderUtil</code>.
+   */
+  public static PngEncoder getDefaultPngEncoder() {
+    return defaultPngEncoder;
+  }
+
+  /**
+   * Sets the encoder of PNG files used when none is specified, or <code>null</code> to encode them with
+   * <code>EncoderUtil</code>.
+   */
+  public static void setDefaultPngEncoder(PngEncoder pngEncoder) {
+    defaultPngEncoder = pngEncoder;
   }
 
   /* (non-Javadoc)
@@ -125,7 +244,14 @@ public class JFreeChartOutput implements IOutput {
    * @see org.pentaho.chart.plugin.api.IOutput#getMap(java.lang.String)
    */
   public String getMap(String mapName) {
-    return ImageMapUtilities.getImageMap(mapName, info);
+    return getMap(mapName, info);
+  }
+
+  /**
+   * Returns the image map of a render returned by {@link #writeChart(OutputStream, IOutput.OutputTypes, int, int)}.
+   */
+  public String getMap(String mapName, ChartRenderingInfo renderingInfo) {
+    return ImageMapUtilities.getImageMap(mapName, renderingInfo);
   }
 //
 //  /* (non-Javadoc)
@@ -0,0 +1,135 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.plugin.jfreechart.outputs;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+
+import org.jfree.chart.ChartRenderingInfo;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.CategoryPlot;
+import org.jfree.chart.renderer.category.CategoryItemRenderer;
+import org.pentaho.chart.data.MultiSeriesDataModel;
+import org.pentaho.chart.plugin.jfreechart.dataset.StatisticsCategoryDataset;
+
+/**
+ * Output of a category chart kept between updates of its data, for charts refreshed while new data keeps coming in.
+ * Values are added to or replaced in the chart data model through the output. The retained dataset updates only the
+ * changed cells, and the changes are published to the chart when it is next rendered, so the chart is redrawn
+ * without converting the data model again nor creating and initializing a new chart and plot.
+ * <p/>
+ * Updates and renders may be called from different threads; they are serialized on the chart.
+ */
+public class JFreeLiveChartOutput extends JFreeChartOutput {
+
+  private final JFreeChart chart;
+  private final MultiSeriesDataModel dataModel;
+  private final StatisticsCategoryDataset dataset;
+  /**
+   * RGB colors of the series, cycled when there are more series than colors.
+   */
+  private volatile List<Integer> seriesColors;
+
+  /**
+   * @param chart     the chart, whose category plot displays <code>dataset</code>
+   * @param dataModel the data model of the chart
+   * @param dataset   the dataset over <code>dataModel</code>
+   */
+  public JFreeLiveChartOutput(final JFreeChart chart, final MultiSeriesDataModel dataModel,
+                              final StatisticsCategoryDataset dataset)
+  {
+    super(chart);
+    this.chart = chart;
+    this.dataModel = dataModel;
+    this.dataset = dataset;
+    dataModel.addModelListener(dataset);
+  }
+
+  /**
+   * Returns the data model of the chart. It must only be modified through this output.
+   */
+  public MultiSeriesDataModel getDataModel() {
+    return dataModel;
+  }
+
+  /**
+   * Returns the RGB colors painting the series added by updates, or <code>null</code>.
+   */
+  public List<Integer> getSeriesColors() {
+    return seriesColors;
+  }
+
+  /**
+   * Sets the RGB colors painting the series which have no paint when the chart is drawn, typically the series added by
+   * updates: the series is painted with the color at its index, cycling through the colors.
+   */
+  public void setSeriesColors(final List<Integer> seriesColors) {
+    this.seriesColors = seriesColors;
+  }
+
+  /**
+   * Adds the value to the value of the category and series, adding the category or series if they are new.
+   */
+  public void addValue(final String categoryName, final String seriesName, final Number value) {
+    synchronized (chart) {
+      dataModel.addValue(categoryName, seriesName, value);
+    }
+  }
+
+  /**
+   * Replaces the value of the category and series, a <code>null</code> value removing it.
+   */
+  public void setValue(final String categoryName, final String seriesName, final Number value) {
+    synchronized (chart) {
+      dataModel.setValue(categoryName, seriesName, value);
+    }
+  }
+
+  /**
+   * Publishes the updates made since the previous render to the chart, paints the new series, then draws it. Updates
+   * wait while the chart is drawn, but not while the image is encoded.
+   */
+  protected void drawChart(final Graphics2D graphics, final Rectangle2D area, final ChartRenderingInfo renderingInfo) {
+    synchronized (chart) {
+      dataset.fireChanges();
+      paintSeries();
+      super.drawChart(graphics, area, renderingInfo);
+    }
+  }
+
+  private void paintSeries() {
+    final List<Integer> colors = seriesColors;
+    if ((colors == null) || colors.isEmpty()) {
+      return;
+    }
+    final CategoryPlot plot = chart.getCategoryPlot();
+    for (int j = 0; j < plot.getRendererCount(); j++) {
+      final CategoryItemRenderer renderer = plot.getRenderer(j);
+      if (renderer == null) {
+        continue;
+      }
+      for (int i = 0; i < dataset.getRowCount(); i++) {
+        if (renderer.getSeriesPaint(i) == null) {
+          renderer.setSeriesPaint(i, new Color(0x00FFFFFF & colors.get(i % colors.size())));
+        }
+      }
+    }
+  }
+}
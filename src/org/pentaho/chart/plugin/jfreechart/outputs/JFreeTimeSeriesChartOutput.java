@@ -0,0 +1,65 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.plugin.jfreechart.outputs;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+
+import org.jfree.chart.ChartRenderingInfo;
+import org.jfree.chart.JFreeChart;
+import org.pentaho.chart.data.TimeSeriesDataModel;
+import org.pentaho.chart.plugin.jfreechart.dataset.TimeSeriesModelDataset;
+
+/**
+ * Output of a chart of a <code>TimeSeriesDataModel</code>. Points may keep being appended to the model while the
+ * output is kept: each render draws the points held by the model at that time, without creating a new chart.
+ * Appends wait while the chart is drawn.
+ */
+public class JFreeTimeSeriesChartOutput extends JFreeChartOutput {
+
+  private final TimeSeriesDataModel dataModel;
+  private final TimeSeriesModelDataset dataset;
+
+  /**
+   * @param chart     the chart, whose plot displays <code>dataset</code>
+   * @param dataModel the data model of the chart
+   * @param dataset   the dataset over <code>dataModel</code>
+   */
+  public JFreeTimeSeriesChartOutput(final JFreeChart chart, final TimeSeriesDataModel dataModel,
+                                    final TimeSeriesModelDataset dataset)
+  {
+    super(chart);
+    this.dataModel = dataModel;
+    this.dataset = dataset;
+  }
+
+  public TimeSeriesDataModel getDataModel() {
+    return dataModel;
+  }
+
+  /**
+   * Publishes the points appended since the previous render to the chart, then draws it. Appends wait while the chart
+   * is drawn, but not while the image is encoded.
+   */
+  protected void drawChart(final Graphics2D graphics, final Rectangle2D area, final ChartRenderingInfo renderingInfo) {
+    synchronized (dataModel) {
+      dataset.fireChanges();
+      super.drawChart(graphics, area, renderingInfo);
+    }
+  }
+}
@@ -0,0 +1,732 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.plugin.jfreechart.outputs;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodes images as 8 bit truecolor PNG files, with an alpha channel only if the image has translucent pixels.
+ * <p/>
+ * The compression effort is chosen by a {@link Profile}. Deflaters and row buffers are kept per thread and reused by
+ * later images. If a fork/join pool is supplied, large images are cut into bands of rows which are deflated in
+ * parallel and joined into one zlib stream; the bands are written in order as soon as they are compressed.
+ * <p/>
+ * Instances are immutable and may be shared by several threads.
+ */
+public class PngEncoder {
+
+  /**
+   * Trade-off between encoding speed and file size.
+   */
+  public enum Profile {
+    /**
+     * Fastest compression of unfiltered rows.
+     */
+    FASTEST(Deflater.BEST_SPEED, FILTER_NONE),
+    /**
+     * Default compression of rows filtered against their left neighbour, which suits the flat areas of charts.
+     */
+    BALANCED(Deflater.DEFAULT_COMPRESSION, FILTER_SUB),
+    /**
+     * Best compression, choosing the filter of each row by the minimum sum of absolute differences heuristic.
+     */
+    SMALLEST(Deflater.BEST_COMPRESSION, FILTER_ADAPTIVE);
+
+    private final int level;
+    private final int filter;
+
+    private Profile(int level, int filter) {
+      this.level = level;
+      this.filter = filter;
+    }
+  }
+
+  private static final int FILTER_NONE = 0;
+  private static final int FILTER_SUB = 1;
+  private static final int FILTER_UP = 2;
+  private static final int FILTER_AVERAGE = 3;
+  private static final int FILTER_PAETH = 4;
+  private static final int FILTER_ADAPTIVE = -1;
+
+  private static final byte[] SIGNATURE = {(byte)0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+  private static final byte[] IHDR = {'I', 'H', 'D', 'R'};
+  private static final byte[] PLTE = {'P', 'L', 'T', 'E'};
+  private static final byte[] TRNS = {'t', 'R', 'N', 'S'};
+  private static final byte[] IDAT = {'I', 'D', 'A', 'T'};
+  private static final byte[] IEND = {'I', 'E', 'N', 'D'};
+  private static final int COLOR_TYPE_RGB = 2;
+  private static final int COLOR_TYPE_INDEXED = 3;
+  private static final int COLOR_TYPE_RGBA = 6;
+
+  /**
+   * Size of the IDAT chunks written while deflating.
+   */
+  private static final int CHUNK_SIZE = 64 * 1024;
+  /**
+   * Amount of filtered image data deflated by each parallel band.
+   */
+  private static final int BAND_SIZE = 256 * 1024;
+  /**
+   * Amount of filtered image data below which images are deflated by the calling thread only.
+   */
+  public static final int DEFAULT_PARALLEL_THRESHOLD = 1024 * 1024;
+
+  private static final ThreadLocal<EncoderState> encoderState = new ThreadLocal<EncoderState>() {
+    protected EncoderState initialValue() {
+      return new EncoderState();
+    }
+  };
+
+  private final Profile profile;
+  private final ForkJoinPool pool;
+  private final int parallelThreshold;
+
+  public PngEncoder(Profile profile) {
+    this(profile, null, DEFAULT_PARALLEL_THRESHOLD);
+  }
+
+  /**
+   * @param profile the compression profile
+   * @param pool the pool deflating bands of large images, or <code>null</code> to encode on the calling thread only
+   * @param parallelThreshold the amount of filtered image data from which images are deflated in parallel
+   */
+  public PngEncoder(Profile profile, ForkJoinPool pool, int parallelThreshold) {
+    if (profile == null) {
+      throw new NullPointerException();
+    }
+    this.profile = profile;
+    this.pool = pool;
+    this.parallelThreshold = parallelThreshold;
+  }
+
+  public Profile getProfile() {
+    return profile;
+  }
+
+  public ForkJoinPool getPool() {
+    return pool;
+  }
+
+  /**
+   * Writes the image as a PNG file. The output stream is neither flushed nor closed.
+   */
+  public void encode(BufferedImage image, OutputStream outputStream) throws IOException {
+    final PixelSource pixels = new PixelSource(image);
+    writeImage(pixels, pixels.hasAlpha() ? COLOR_TYPE_RGBA : COLOR_TYPE_RGB, profile.filter, null, outputStream);
+  }
+
+  /**
+   * Writes the image as an 8 bit indexed PNG file, quantizing it to 256 colours if it has more. The output stream is
+   * neither flushed nor closed.
+   *
+   * @param seedColors RGB colours which should be part of the palette, such as the colours of the chart palette and
+   *          backgrounds, or <code>null</code>
+   */
+  public void encodeIndexed(BufferedImage image, int[] seedColors, OutputStream outputStream) throws IOException {
+    final PixelSource pixels = new PixelSource(image);
+    final int width = pixels.width;
+    final int height = pixels.height;
+    final ColorQuantizer quantizer = new ColorQuantizer(seedColors);
+    final int[] row = new int[width];
+    for (int y = 0; y < height; y++) {
+      quantizer.addPixels(pixels.getPixels(y, row), width);
+    }
+    final byte[] indexes = new byte[width * height];
+    for (int y = 0; y < height; y++) {
+      pixels.getPixels(y, row);
+      for (int x = 0, index = y * width; x < width; x++, index++) {
+        indexes[index] = (byte)quantizer.getIndex(row[x]);
+      }
+    }
+    // Filtering does not pay off on palette indexes
+    writeImage(new IndexedSource(width, height, indexes), COLOR_TYPE_INDEXED, FILTER_NONE, quantizer.getPalette(), outputStream);
+  }
+
+  private void writeImage(RowSource rows, int colorType, int filterType, int[] palette, OutputStream outputStream) throws IOException {
+    final int width = rows.width;
+    final int height = rows.height;
+    final EncoderState state = encoderState.get();
+
+    outputStream.write(SIGNATURE);
+    final byte[] header = new byte[13];
+    putInt(header, 0, width);
+    putInt(header, 4, height);
+    header[8] = 8;
+    header[9] = (byte)colorType;
+    writeChunk(outputStream, IHDR, header, 0, header.length, state.crc);
+    if (palette != null) {
+      writePalette(outputStream, palette, state.crc);
+    }
+
+    final IdatWriter idat = new IdatWriter(outputStream, state);
+    idat.write(0x78);
+    idat.write(getZlibFlags(profile.level));
+    final long rowSize = 1 + (long)width * rows.bytesPerPixel;
+    final long dataSize = rowSize * height;
+    long adler;
+    if ((pool != null) && (pool.getParallelism() > 1) && (dataSize >= parallelThreshold) && (dataSize > BAND_SIZE)) {
+      adler = deflateBands(rows, filterType, (int)Math.max(1, BAND_SIZE / rowSize), idat);
+    } else {
+      final Deflater deflater = state.getDeflater(profile.level);
+      final RowFilter filter = state.getRowFilter(width, rows.bytesPerPixel);
+      final Adler32 checksum = state.adler;
+      checksum.reset();
+      for (int y = 0; y < height; y++) {
+        final byte[] row = filter.filterRow(rows, y, filterType);
+        checksum.update(row, 0, filter.rowSize);
+        deflater.setInput(row, 0, filter.rowSize);
+        while (!deflater.needsInput()) {
+          idat.write(state.deflateBuffer, 0, deflater.deflate(state.deflateBuffer));
+        }
+      }
+      deflater.finish();
+      while (!deflater.finished()) {
+        idat.write(state.deflateBuffer, 0, deflater.deflate(state.deflateBuffer));
+      }
+      adler = checksum.getValue();
+    }
+    idat.writeInt((int)adler);
+    idat.flush();
+
+    writeChunk(outputStream, IEND, header, 0, 0, state.crc);
+  }
+
+  /**
+   * Writes the PLTE chunk of the ARGB palette, and a tRNS chunk if it has translucent entries, which must come first.
+   */
+  private static void writePalette(OutputStream outputStream, int[] palette, CRC32 crc) throws IOException {
+    final byte[] entries = new byte[palette.length * 3];
+    int translucentCount = 0;
+    for (int i = 0; i < palette.length; i++) {
+      entries[i * 3] = (byte)(palette[i] >> 16);
+      entries[i * 3 + 1] = (byte)(palette[i] >> 8);
+      entries[i * 3 + 2] = (byte)palette[i];
+      if ((palette[i] >>> 24) != 0xFF) {
+        translucentCount = i + 1;
+      }
+    }
+    writeChunk(outputStream, PLTE, entries, 0, entries.length, crc);
+    if (translucentCount > 0) {
+      final byte[] alphas = new byte[translucentCount];
+      for (int i = 0; i < translucentCount; i++) {
+        alphas[i] = (byte)(palette[i] >>> 24);
+      }
+      writeChunk(outputStream, TRNS, alphas, 0, alphas.length, crc);
+    }
+  }
+
+  /**
+   * Deflates bands of rows on the pool and writes them in order, returning the Adler-32 checksum of all rows.
+   */
+  private long deflateBands(RowSource rows, int filterType, int bandRows, IdatWriter idat) throws IOException {
+    final int height = rows.height;
+    final List<ForkJoinTask<DeflatedBand>> bands = new ArrayList<ForkJoinTask<DeflatedBand>>();
+    for (int firstRow = 0; firstRow < height; firstRow += bandRows) {
+      final int lastRow = Math.min(height, firstRow + bandRows);
+      bands.add(pool.submit(new DeflateBandTask(rows, profile.level, filterType, firstRow, lastRow, lastRow == height)));
+    }
+    long adler = 1;
+    for (ForkJoinTask<DeflatedBand> task : bands) {
+      final DeflatedBand band = task.join();
+      band.data.writeTo(idat);
+      adler = combineAdler32(adler, band.adler, band.length);
+    }
+    return adler;
+  }
+
+  /**
+   * Returns the checksum of two sequences from the checksums of each, as zlib's <code>adler32_combine</code>.
+   */
+  static long combineAdler32(long adler1, long adler2, long length2) {
+    final long base = 65521;
+    final long remainder = length2 % base;
+    long sum1 = adler1 & 0xFFFF;
+    long sum2 = (remainder * sum1) % base;
+    sum1 += (adler2 & 0xFFFF) + base - 1;
+    sum2 += ((adler1 >> 16) & 0xFFFF) + ((adler2 >> 16) & 0xFFFF) + base - remainder;
+    if (sum1 >= base) {
+      sum1 -= base;
+    }
+    if (sum1 >= base) {
+      sum1 -= base;
+    }
+    if (sum2 >= (base << 1)) {
+      sum2 -= (base << 1);
+    }
+    if (sum2 >= base) {
+      sum2 -= base;
+    }
+    return sum1 | (sum2 << 16);
+  }
+
+  /**
+   * Returns the second byte of the zlib header for a deflate stream using 32K windows and the specified level.
+   */
+  private static int getZlibFlags(int level) {
+    int compressionLevel;
+    if (level == Deflater.BEST_SPEED) {
+      compressionLevel = 0;
+    } else if (level == Deflater.DEFAULT_COMPRESSION || level == 6) {
+      compressionLevel = 2;
+    } else if (level < 6) {
+      compressionLevel = 1;
+    } else {
+      compressionLevel = 3;
+    }
+    final int flags = compressionLevel << 6;
+    return flags + (31 - ((0x78 << 8) + flags) % 31) % 31;
+  }
+
+  private static void writeChunk(OutputStream outputStream, byte[] type, byte[] data, int offset, int length, CRC32 crc) throws IOException {
+    final byte[] lengthBytes = new byte[4];
+    putInt(lengthBytes, 0, length);
+    outputStream.write(lengthBytes);
+    outputStream.write(type);
+    outputStream.write(data, offset, length);
+    crc.reset();
+    crc.update(type);
+    crc.update(data, offset, length);
+    putInt(lengthBytes, 0, (int)crc.getValue());
+    outputStream.write(lengthBytes);
+  }
+
+  private static void putInt(byte[] bytes, int offset, int value) {
+    bytes[offset] = (byte)(value >>> 24);
+    bytes[offset + 1] = (byte)(value >>> 16);
+    bytes[offset + 2] = (byte)(value >>> 8);
+    bytes[offset + 3] = (byte)value;
+  }
+
+  /**
+   * Supplies the samples of the rows of an image.
+   */
+  private abstract static class RowSource {
+    final int width;
+    final int height;
+    final int bytesPerPixel;
+
+    RowSource(int width, int height, int bytesPerPixel) {
+      this.width = width;
+      this.height = height;
+      this.bytesPerPixel = bytesPerPixel;
+    }
+
+    /**
+     * Writes the samples of a row to the buffer, starting at index <code>1</code>.
+     */
+    abstract void getRow(int y, byte[] samples, int[] pixelBuffer);
+  }
+
+  /**
+   * Reads the pixels of an image as non premultiplied ARGB values, straight from the data buffer of integer packed
+   * images.
+   */
+  private static class PixelSource extends RowSource {
+    private final BufferedImage image;
+    private final int[] data;
+    private final int offset;
+    private final int scanlineStride;
+    private final boolean hasAlpha;
+
+    PixelSource(BufferedImage image) {
+      this(image, image.getColorModel().hasAlpha() && hasTranslucentPixel(image));
+    }
+
+    private PixelSource(BufferedImage image, boolean hasAlpha) {
+      super(image.getWidth(), image.getHeight(), hasAlpha ? 4 : 3);
+      this.image = image;
+      this.hasAlpha = hasAlpha;
+      final int type = image.getType();
+      if (((type == BufferedImage.TYPE_INT_ARGB) || (type == BufferedImage.TYPE_INT_RGB))
+          && (image.getRaster().getDataBuffer() instanceof DataBufferInt)
+          && (image.getRaster().getSampleModel() instanceof SinglePixelPackedSampleModel)) {
+        final SinglePixelPackedSampleModel sampleModel = (SinglePixelPackedSampleModel)image.getRaster().getSampleModel();
+        final DataBufferInt dataBuffer = (DataBufferInt)image.getRaster().getDataBuffer();
+        this.data = dataBuffer.getData();
+        this.scanlineStride = sampleModel.getScanlineStride();
+        this.offset = dataBuffer.getOffset()
+            - image.getRaster().getSampleModelTranslateY() * scanlineStride - image.getRaster().getSampleModelTranslateX();
+      } else {
+        this.data = null;
+        this.scanlineStride = 0;
+        this.offset = 0;
+      }
+    }
+
+    boolean hasAlpha() {
+      return hasAlpha;
+    }
+
+    private static boolean hasTranslucentPixel(BufferedImage image) {
+      final PixelSource pixels = new PixelSource(image, true);
+      final int[] row = new int[pixels.width];
+      for (int y = 0; y < pixels.height; y++) {
+        pixels.getPixels(y, row);
+        for (int x = 0; x < row.length; x++) {
+          if ((row[x] >>> 24) != 0xFF) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+
+    private int[] readRow(int y, int[] row) {
+      return image.getRGB(0, y, width, 1, row, 0, width);
+    }
+
+    /**
+     * Copies the ARGB values of a row to the buffer, which is returned.
+     */
+    int[] getPixels(int y, int[] row) {
+      if (data == null) {
+        readRow(y, row);
+      } else {
+        System.arraycopy(data, offset + y * scanlineStride, row, 0, width);
+      }
+      if (!hasAlpha) {
+        for (int x = 0; x < width; x++) {
+          row[x] |= 0xFF000000;
+        }
+      }
+      return row;
+    }
+
+    void getRow(int y, byte[] samples, int[] pixelBuffer) {
+      final int[] pixels = (data == null) ? readRow(y, pixelBuffer) : data;
+      final int start = (data == null) ? 0 : offset + y * scanlineStride;
+      int index = 1;
+      if (hasAlpha) {
+        for (int x = start; x < start + width; x++) {
+          final int pixel = pixels[x];
+          samples[index++] = (byte)(pixel >> 16);
+          samples[index++] = (byte)(pixel >> 8);
+          samples[index++] = (byte)pixel;
+          samples[index++] = (byte)(pixel >>> 24);
+        }
+      } else {
+        for (int x = start; x < start + width; x++) {
+          final int pixel = pixels[x];
+          samples[index++] = (byte)(pixel >> 16);
+          samples[index++] = (byte)(pixel >> 8);
+          samples[index++] = (byte)pixel;
+        }
+      }
+    }
+  }
+
+  /**
+   * Supplies rows of palette indexes.
+   */
+  private static class IndexedSource extends RowSource {
+    private final byte[] indexes;
+
+    IndexedSource(int width, int height, byte[] indexes) {
+      super(width, height, 1);
+      this.indexes = indexes;
+    }
+
+    void getRow(int y, byte[] samples, int[] pixelBuffer) {
+      System.arraycopy(indexes, y * width, samples, 1, width);
+    }
+  }
+
+  /**
+   * Reads and filters the rows of an image, keeping the samples of the previous row. The filtered rows start with
+   * their filter type byte.
+   */
+  private static class RowFilter {
+    private final int bytesPerPixel;
+    private final int rowSize;
+    private final int[] pixelBuffer;
+    private byte[] current;
+    private byte[] previous;
+    private final byte[][] filtered = new byte[5][];
+    private int previousRow = -2;
+
+    RowFilter(int width, int bytesPerPixel) {
+      this.bytesPerPixel = bytesPerPixel;
+      this.rowSize = 1 + width * bytesPerPixel;
+      this.pixelBuffer = new int[width];
+      this.current = new byte[rowSize];
+      this.previous = new byte[rowSize];
+      for (int i = 0; i < filtered.length; i++) {
+        filtered[i] = new byte[rowSize];
+      }
+    }
+
+    boolean fits(int width, int bytesPerPixel) {
+      return (this.bytesPerPixel == bytesPerPixel) && (this.rowSize == 1 + width * bytesPerPixel);
+    }
+
+    /**
+     * Returns the filtered row in a buffer which is valid until the next call.
+     */
+    byte[] filterRow(RowSource pixels, int y, int filter) {
+      if (y == 0) {
+        Arrays.fill(previous, (byte)0);
+      } else if (previousRow != y - 1) {
+        pixels.getRow(y - 1, previous, pixelBuffer);
+      }
+      pixels.getRow(y, current, pixelBuffer);
+
+      byte[] row;
+      if (filter == FILTER_ADAPTIVE) {
+        row = filtered[FILTER_NONE];
+        long bestSum = Long.MAX_VALUE;
+        for (int type = FILTER_NONE; type <= FILTER_PAETH; type++) {
+          final long sum = filter(type, filtered[type]);
+          if (sum < bestSum) {
+            bestSum = sum;
+            row = filtered[type];
+          }
+        }
+      } else {
+        row = filtered[filter];
+        filter(filter, row);
+      }
+
+      final byte[] swap = previous;
+      previous = current;
+      current = swap;
+      previousRow = y;
+      return row;
+    }
+
+    /**
+     * Filters the current row into the buffer and returns the sum of the absolute values of the filtered bytes.
+     */
+    private long filter(int type, byte[] out) {
+      final byte[] raw = current;
+      final byte[] up = previous;
+      final int bpp = bytesPerPixel;
+      out[0] = (byte)type;
+      long sum = 0;
+      switch (type) {
+        case FILTER_NONE:
+          System.arraycopy(raw, 1, out, 1, rowSize - 1);
+          for (int i = 1; i < rowSize; i++) {
+            sum += Math.abs(out[i]);
+          }
+          break;
+        case FILTER_SUB:
+          for (int i = 1; i < rowSize; i++) {
+            final int left = (i > bpp) ? raw[i - bpp] & 0xFF : 0;
+            out[i] = (byte)(raw[i] - left);
+            sum += Math.abs(out[i]);
+          }
+          break;
+        case FILTER_UP:
+          for (int i = 1; i < rowSize; i++) {
+            out[i] = (byte)(raw[i] - up[i]);
+            sum += Math.abs(out[i]);
+          }
+          break;
+        case FILTER_AVERAGE:
+          for (int i = 1; i < rowSize; i++) {
+            final int left = (i > bpp) ? raw[i - bpp] & 0xFF : 0;
+            out[i] = (byte)(raw[i] - ((left + (up[i] & 0xFF)) >>> 1));
+            sum += Math.abs(out[i]);
+          }
+          break;
+        default:
+          for (int i = 1; i < rowSize; i++) {
+            final int left = (i > bpp) ? raw[i - bpp] & 0xFF : 0;
+            final int above = up[i] & 0xFF;
+            final int upperLeft = (i > bpp) ? up[i - bpp] & 0xFF : 0;
+            final int estimate = left + above - upperLeft;
+            final int leftDistance = Math.abs(estimate - left);
+            final int aboveDistance = Math.abs(estimate - above);
+            final int upperLeftDistance = Math.abs(estimate - upperLeft);
+            final int predictor;
+            if ((leftDistance <= aboveDistance) && (leftDistance <= upperLeftDistance)) {
+              predictor = left;
+            } else if (aboveDistance <= upperLeftDistance) {
+              predictor = above;
+            } else {
+              predictor = upperLeft;
+            }
+            out[i] = (byte)(raw[i] - predictor);
+            sum += Math.abs(out[i]);
+          }
+          break;
+      }
+      return sum;
+    }
+  }
+
+  /**
+   * Deflater and buffers reused by the encodings of a thread.
+   */
+  private static class EncoderState {
+    private final CRC32 crc = new CRC32();
+    private final Adler32 adler = new Adler32();
+    private final byte[] deflateBuffer = new byte[CHUNK_SIZE];
+    private final byte[] chunkBuffer = new byte[CHUNK_SIZE];
+    private Deflater deflater;
+    private RowFilter rowFilter;
+
+    Deflater getDeflater(int level) {
+      if (deflater == null) {
+        deflater = new Deflater(level, true);
+      } else {
+        deflater.reset();
+        deflater.setLevel(level);
+      }
+      return deflater;
+    }
+
+    RowFilter getRowFilter(int width, int bytesPerPixel) {
+      if ((rowFilter == null) || !rowFilter.fits(width, bytesPerPixel)) {
+        rowFilter = new RowFilter(width, bytesPerPixel);
+      }
+      rowFilter.previousRow = -2;
+      return rowFilter;
+    }
+  }
+
+  /**
+   * Writes the zlib stream as IDAT chunks of {@link #CHUNK_SIZE} bytes.
+   */
+  private static class IdatWriter extends OutputStream {
+    private final OutputStream outputStream;
+    private final CRC32 crc;
+    private final byte[] buffer;
+    private int count;
+
+    IdatWriter(OutputStream outputStream, EncoderState state) {
+      this.outputStream = outputStream;
+      this.crc = state.crc;
+      this.buffer = state.chunkBuffer;
+    }
+
+    public void write(int b) throws IOException {
+      if (count == buffer.length) {
+        flush();
+      }
+      buffer[count++] = (byte)b;
+    }
+
+    public void write(byte[] b, int offset, int length) throws IOException {
+      while (length > 0) {
+        if (count == buffer.length) {
+          flush();
+        }
+        final int copied = Math.min(length, buffer.length - count);
+        System.arraycopy(b, offset, buffer, count, copied);
+        count += copied;
+        offset += copied;
+        length -= copied;
+      }
+    }
+
+    void writeInt(int value) throws IOException {
+      write(value >>> 24);
+      write(value >>> 16);
+      write(value >>> 8);
+      write(value);
+    }
+
+    public void flush() throws IOException {
+      if (count > 0) {
+        writeChunk(outputStream, IDAT, buffer, 0, count, crc);
+        count = 0;
+      }
+    }
+  }
+
+  private static class DeflatedBand {
+    private final ByteArrayOutputStream data;
+    private final long adler;
+    private final long length;
+
+    DeflatedBand(ByteArrayOutputStream data, long adler, long length) {
+      this.data = data;
+      this.adler = adler;
+      this.length = length;
+    }
+  }
+
+  /**
+   * Filters and deflates a band of rows into a raw deflate block sequence ending on a byte boundary, or ending the
+   * stream for the last band.
+   */
+  private static class DeflateBandTask extends RecursiveTask<DeflatedBand> {
+    private static final long serialVersionUID = 1L;
+
+    private final RowSource rows;
+    private final int level;
+    private final int filterType;
+    private final int firstRow;
+    private final int lastRow;
+    private final boolean lastBand;
+
+    DeflateBandTask(RowSource rows, int level, int filterType, int firstRow, int lastRow, boolean lastBand) {
+      this.rows = rows;
+      this.level = level;
+      this.filterType = filterType;
+      this.firstRow = firstRow;
+      this.lastRow = lastRow;
+      this.lastBand = lastBand;
+    }
+
+    protected DeflatedBand compute() {
+      final EncoderState state = encoderState.get();
+      final Deflater deflater = state.getDeflater(level);
+      final RowFilter filter = state.getRowFilter(rows.width, rows.bytesPerPixel);
+      final Adler32 checksum = new Adler32();
+      final byte[] buffer = state.deflateBuffer;
+      final ByteArrayOutputStream data = new ByteArrayOutputStream(BAND_SIZE / 4);
+      for (int y = firstRow; y < lastRow; y++) {
+        final byte[] row = filter.filterRow(rows, y, filterType);
+        checksum.update(row, 0, filter.rowSize);
+        deflater.setInput(row, 0, filter.rowSize);
+        while (!deflater.needsInput()) {
+          data.write(buffer, 0, deflater.deflate(buffer));
+        }
+      }
+      if (lastBand) {
+        deflater.finish();
+        while (!deflater.finished()) {
+          data.write(buffer, 0, deflater.deflate(buffer));
+        }
+      } else {
+        int length;
+        do {
+          length = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+          data.write(buffer, 0, length);
+        } while (length == buffer.length);
+      }
+      return new DeflatedBand(data, checksum.getValue(), (long)(lastRow - firstRow) * filter.rowSize);
+    }
+  }
+}
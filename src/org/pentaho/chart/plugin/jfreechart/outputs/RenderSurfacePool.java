@@ -0,0 +1,166 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.plugin.jfreechart.outputs;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Pool of images charts are drawn into, keyed by size and image type, so that renders of the same size reuse their
+ * raster memory instead of allocating it for every render.
+ * <p/>
+ * Released images are cleared to transparent black before they are pooled again. The memory held by pooled images is
+ * capped; when a released image does not fit, the images of the least recently used sizes are dropped first.
+ * Instances are thread safe.
+ */
+public class RenderSurfacePool {
+
+  private final long maxBytes;
+  private final Map<SurfaceKey, ArrayDeque<BufferedImage>> surfaces =
+      new LinkedHashMap<SurfaceKey, ArrayDeque<BufferedImage>>(16, 0.75f, true);
+  private long pooledBytes;
+
+  /**
+   * @param maxBytes the maximum raster memory held by pooled images
+   */
+  public RenderSurfacePool(long maxBytes) {
+    if (maxBytes < 0) {
+      throw new IllegalArgumentException();
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  /**
+   * Returns the raster memory currently held by pooled images.
+   */
+  public synchronized long getPooledBytes() {
+    return pooledBytes;
+  }
+
+  /**
+   * Returns a cleared image of the specified size and type, pooled or new. The image belongs to the caller until it
+   * is {@link #release(BufferedImage) released}.
+   */
+  public BufferedImage acquire(int width, int height, int imageType) {
+    synchronized (this) {
+      final ArrayDeque<BufferedImage> images = surfaces.get(new SurfaceKey(width, height, imageType));
+      if ((images != null) && !images.isEmpty()) {
+        final BufferedImage image = images.pop();
+        pooledBytes -= getBytes(image);
+        return image;
+      }
+    }
+    return new BufferedImage(width, height, imageType);
+  }
+
+  /**
+   * Clears the image and pools it for later renders, unless it does not fit in the memory cap. The caller must not use
+   * the image afterwards.
+   */
+  public void release(BufferedImage image) {
+    final long bytes = getBytes(image);
+    if (bytes > maxBytes) {
+      return;
+    }
+    clear(image);
+    synchronized (this) {
+      final Iterator<ArrayDeque<BufferedImage>> eldest = surfaces.values().iterator();
+      while ((pooledBytes + bytes > maxBytes) && eldest.hasNext()) {
+        final ArrayDeque<BufferedImage> images = eldest.next();
+        while ((pooledBytes + bytes > maxBytes) && !images.isEmpty()) {
+          pooledBytes -= getBytes(images.removeLast());
+        }
+        if (images.isEmpty()) {
+          eldest.remove();
+        }
+      }
+      final SurfaceKey key = new SurfaceKey(image.getWidth(), image.getHeight(), image.getType());
+      ArrayDeque<BufferedImage> images = surfaces.get(key);
+      if (images == null) {
+        images = new ArrayDeque<BufferedImage>();
+        surfaces.put(key, images);
+      }
+      images.push(image);
+      pooledBytes += bytes;
+    }
+  }
+
+  /**
+   * Drops all pooled images.
+   */
+  public synchronized void clear() {
+    surfaces.clear();
+    pooledBytes = 0;
+  }
+
+  private static void clear(BufferedImage image) {
+    final DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+    if ((dataBuffer instanceof DataBufferInt) && (dataBuffer.getNumBanks() == 1)) {
+      Arrays.fill(((DataBufferInt)dataBuffer).getData(), 0);
+    } else {
+      final Graphics2D graphics = image.createGraphics();
+      try {
+        graphics.setComposite(AlphaComposite.Clear);
+        graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+      } finally {
+        graphics.dispose();
+      }
+    }
+  }
+
+  private static long getBytes(BufferedImage image) {
+    final DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+    return (long)dataBuffer.getSize() * dataBuffer.getNumBanks() * DataBuffer.getDataTypeSize(dataBuffer.getDataType()) / 8;
+  }
+
+  private static class SurfaceKey {
+    private final int width;
+    private final int height;
+    private final int imageType;
+
+    SurfaceKey(int width, int height, int imageType) {
+      this.width = width;
+      this.height = height;
+      this.imageType = imageType;
+    }
+
+    public boolean equals(Object obj) {
+      if (!(obj instanceof SurfaceKey)) {
+        return false;
+      }
+      final SurfaceKey other = (SurfaceKey)obj;
+      return (width == other.width) && (height == other.height) && (imageType == other.imageType);
+    }
+
+    public int hashCode() {
+      return (width * 31 + height) * 31 + imageType;
+    }
+  }
+}
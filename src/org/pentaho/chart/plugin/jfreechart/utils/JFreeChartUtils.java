@@ -85,6 +85,49 @@ public class JFreeChartUtils extends ChartUtils {
 
     return syntheticColumnName.append(data.getRowMetadata(row, ChartTableModel.ROW_NAME)).toString();
   }
+
+  /**
+   * Divides the number by the scaling factor of a chart data model, rounding the result to at most as many decimals
+   * as the number has, between 2 and 6. <code>null</code>, <code>0</code> and <code>1</code> factors leave the number
+   * unchanged.
+   *
+   * @param number the number to scale, may be <code>null</code>
+   * @param scale  the scaling factor
+   * @return the scaled number
+   */
+  public static Number scaleNumber(Number number, Number scale) {
+    Number scaledNumber = number;
+    if ((number != null) && (scale != null) && !scale.equals(1) && !scale.equals(0)) {
+      
+      int startingSignificantDigits = 0;
+      if (!(number instanceof Integer)) {
+        int indexOfDecimalPoint = number.toString().indexOf(".");
+        if (indexOfDecimalPoint >= 0) {
+          String fractionalPart = number.toString().substring(indexOfDecimalPoint + 1);
+          if ((fractionalPart.length() > 1) || Integer.parseInt(fractionalPart) > 0) {
+            startingSignificantDigits = fractionalPart.length();
+          }
+        }
+      }
+      
+      int preferredSignificantDigits = Math.max(2, Math.min(startingSignificantDigits, 6));
+      
+      scaledNumber = number.doubleValue() / scale.doubleValue();
+      int scaledSignificantDigits = 0;
+      int indexOfDecimalPoint = scaledNumber.toString().indexOf(".");
+      String fractionalPart = scaledNumber.toString().substring(indexOfDecimalPoint + 1);
+      if ((fractionalPart.length() > 1) || Integer.parseInt(fractionalPart) > 0) {
+        scaledSignificantDigits = fractionalPart.length();
+      }
+      
+      if (scaledSignificantDigits > preferredSignificantDigits) {
+        double multiplier = Math.pow(10, preferredSignificantDigits);
+        scaledNumber = Math.round(scaledNumber.doubleValue() * multiplier) / multiplier;
+      }
+    }  
+    return scaledNumber;
+  }
+
   /**
    * @param data
    * @param column
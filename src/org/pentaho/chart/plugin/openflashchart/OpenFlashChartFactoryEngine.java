@@ -20,8 +20,10 @@ package org.pentaho.chart.plugin.openflashchart;
 import java.awt.Color;
 import java.awt.Paint;
 import java.io.Serializable;
+import java.text.DateFormat;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 
 import ofc4j.model.Chart;
@@ -57,11 +59,13 @@ import org.pentaho.chart.css.keys.ChartStyleKeys;
 import org.pentaho.chart.css.styles.ChartOrientationStyle;
 import org.pentaho.chart.css.styles.ChartSeriesType;
 import org.pentaho.chart.data.MultiSeriesDataModel;
+import org.pentaho.chart.data.ChartDataStatistics;
 import org.pentaho.chart.data.ChartTableModel;
 import org.pentaho.chart.data.IChartDataModel;
 import org.pentaho.chart.data.MultiSeriesXYDataModel;
 import org.pentaho.chart.data.NamedValue;
 import org.pentaho.chart.data.NamedValuesDataModel;
+import org.pentaho.chart.data.TimeSeriesDataModel;
 import org.pentaho.chart.data.XYDataModel;
 import org.pentaho.chart.data.XYDataPoint;
 import org.pentaho.chart.data.MultiSeriesDataModel.DomainData;
@@ -72,7 +76,6 @@ import org.pentaho.chart.model.ChartModel;
 import org.pentaho.chart.model.Grid;
 import org.pentaho.chart.model.LinePlot;
 import org.pentaho.chart.model.NumericAxis;
-import org.pentaho.chart.model.Palette;
 import org.pentaho.chart.model.PiePlot;
 import org.pentaho.chart.model.Plot;
 import org.pentaho.chart.model.ScatterPlot;
@@ -86,6 +89,7 @@ import org.pentaho.chart.plugin.api.ChartResult;
 import org.pentaho.chart.plugin.api.IOutput;
 import org.pentaho.chart.plugin.jfreechart.utils.ColorFactory;
 import org.pentaho.chart.plugin.openflashchart.outputs.OpenFlashChartOutput;
+import org.pentaho.chart.plugin.openflashchart.outputs.OpenFlashChartStreamingOutput;
 import org.pentaho.reporting.libraries.css.dom.LayoutStyle;
 import org.pentaho.reporting.libraries.css.keys.border.BorderStyleKeys;
 import org.pentaho.reporting.libraries.css.keys.color.ColorStyleKeys;
@@ -100,10 +104,7 @@ public class OpenFlashChartFactoryEngine implements Serializable {
 
   private static final long serialVersionUID = -1079376910255750394L;
   
-  private static final int STACK_MIN_INDEX = 0;
-  private static final int STACK_MAX_INDEX = 1;
-  
-  private class AxisConfiguration {
+  static class AxisConfiguration {
     private AxisConfiguration(int minValue, int maxValue, int stepSize) {
       this.maxValue= maxValue;
       this.minValue = minValue;
@@ -124,7 +125,11 @@ public class OpenFlashChartFactoryEngine implements Serializable {
   
   public IOutput makeChart(ChartModel chartModel, IChartDataModel chartTableModel, IChartLinkGenerator chartLinkGenerator) {
     IOutput chartOutput = null;
-    if (chartModel.getPlot() instanceof BarPlot) {
+    if ((chartTableModel instanceof TimeSeriesDataModel) && ((chartModel.getPlot() instanceof LinePlot) || (chartModel.getPlot() instanceof AreaPlot))) {
+      chartOutput = new OpenFlashChartOutput(makeTimeSeriesChart(chartModel, (TimeSeriesDataModel)chartTableModel));
+    } else if ((chartTableModel instanceof MultiSeriesDataModel) && OpenFlashChartJsonWriter.canWrite(chartModel)) {
+      chartOutput = new OpenFlashChartStreamingOutput(this, chartModel, (MultiSeriesDataModel)chartTableModel, chartLinkGenerator);
+    } else if (chartModel.getPlot() instanceof BarPlot) {
       chartOutput = new OpenFlashChartOutput(makeBarChart(chartModel, (MultiSeriesDataModel)chartTableModel, chartLinkGenerator));
     } else if (chartModel.getPlot() instanceof LinePlot) {
       chartOutput = new OpenFlashChartOutput(makeLineChart(chartModel, (MultiSeriesDataModel)chartTableModel, chartLinkGenerator));
@@ -222,18 +227,7 @@ public class OpenFlashChartFactoryEngine implements Serializable {
   
   private YAxis createYAxis(TwoAxisPlot twoAxisPlot) {
     YAxis ya = new YAxis();
-    Grid grid = twoAxisPlot.getGrid();
-    if (twoAxisPlot.getGrid().getHorizontalLinesVisible()) {
-      Integer color = grid.getHorizontalLineColor();
-      if (color == null) {
-        color = Grid.DEFAULT_GRID_COLOR;
-      }
-      ya.setGridColour("#" + Integer.toHexString(0x00FFFFFF & color));
-    } else if (twoAxisPlot.getBackground() instanceof Integer) { 
-      ya.setGridColour("#" + Integer.toHexString(0x00FFFFFF & (Integer)twoAxisPlot.getBackground()));
-    } else {
-      ya.setGridColour("#" + Integer.toHexString(Color.WHITE.getRGB()));
-    }
+    ya.setGridColour(getHorizontalGridColour(twoAxisPlot));
     if (twoAxisPlot.getVerticalAxis().getColor() != null) {
       ya.setColour("#" + Integer.toHexString(twoAxisPlot.getVerticalAxis().getColor()));
     }
@@ -276,22 +270,49 @@ public class OpenFlashChartFactoryEngine implements Serializable {
   
   private XAxis createXAxis(TwoAxisPlot twoAxisPlot) {
     XAxis xa = new XAxis();
+    xa.setGridColour(getVerticalGridColour(twoAxisPlot));
+    if (twoAxisPlot.getHorizontalAxis().getColor() != null) {
+      xa.setColour("#" + Integer.toHexString(twoAxisPlot.getHorizontalAxis().getColor()));
+    }
+    return xa;
+  }
+
+  /**
+   * Returns the colour of the grid lines drawn across the y axis, which are hidden by drawing them in the plot
+   * background colour.
+   */
+  String getHorizontalGridColour(TwoAxisPlot twoAxisPlot) {
+    Grid grid = twoAxisPlot.getGrid();
+    if (grid.getHorizontalLinesVisible()) {
+      Integer color = grid.getHorizontalLineColor();
+      if (color == null) {
+        color = Grid.DEFAULT_GRID_COLOR;
+      }
+      return "#" + Integer.toHexString(0x00FFFFFF & color);
+    } else if (twoAxisPlot.getBackground() instanceof Integer) { 
+      return "#" + Integer.toHexString(0x00FFFFFF & (Integer)twoAxisPlot.getBackground());
+    } else {
+      return "#" + Integer.toHexString(Color.WHITE.getRGB());
+    }
+  }
+
+  /**
+   * Returns the colour of the grid lines drawn across the x axis, which are hidden by drawing them in the plot
+   * background colour.
+   */
+  String getVerticalGridColour(TwoAxisPlot twoAxisPlot) {
     Grid grid = twoAxisPlot.getGrid();
     if (grid.getVerticalLinesVisible()) {
       Integer color = grid.getVerticalLineColor();
       if (color == null) {
         color = Grid.DEFAULT_GRID_COLOR;
       }
-      xa.setGridColour("#" + Integer.toHexString(0x00FFFFFF & color));
+      return "#" + Integer.toHexString(0x00FFFFFF & color);
     } else if (twoAxisPlot.getBackground() instanceof Integer) { 
-      xa.setGridColour("#" + Integer.toHexString(0x00FFFFFF & (Integer)twoAxisPlot.getBackground()));
+      return "#" + Integer.toHexString(0x00FFFFFF & (Integer)twoAxisPlot.getBackground());
     } else {
-      xa.setGridColour("#" + Integer.toHexString(Color.WHITE.getRGB()));
+      return "#" + Integer.toHexString(Color.WHITE.getRGB());
     }
-    if (twoAxisPlot.getHorizontalAxis().getColor() != null) {
-      xa.setColour("#" + Integer.toHexString(twoAxisPlot.getHorizontalAxis().getColor()));
-    }
-    return xa;
   }
   
   public Chart makeAreaChart(ChartModel chartModel, MultiSeriesDataModel chartTableModel, IChartLinkGenerator linkGenerator) {
@@ -299,7 +320,7 @@ public class OpenFlashChartFactoryEngine implements Serializable {
     AreaPlot areaPlot = (AreaPlot)chartModel.getPlot();
 
     chart.setXAxis(createXAxis(areaPlot, chartTableModel.getDomainData()));
-    Palette palette = getPalette(areaPlot);
+    List<Integer> palette = ChartUtils.getPlotColors(areaPlot);
     
     int idx = 0;
     for (SeriesData series : chartTableModel.getSeriesData()) {
@@ -398,7 +419,7 @@ public class OpenFlashChartFactoryEngine implements Serializable {
     }
     pieChart.addSlices(slices);
 
-    Palette palette = getPalette(piePlot);
+    List<Integer> palette = ChartUtils.getPlotColors(piePlot);
     
     ArrayList<String> strColors = new ArrayList<String>();
     for (Integer color : palette) {
@@ -411,19 +432,6 @@ public class OpenFlashChartFactoryEngine implements Serializable {
     return chart;
   }
   
-  private Palette getPalette(Plot plot) {
-    Palette palette = new Palette();
-    if (plot.getPalette() != null) {
-      palette.addAll(plot.getPalette());
-    }
-    
-    ArrayList<Integer> defaultColors = new ArrayList<Integer>(Plot.DEFAULT_PALETTE);
-    defaultColors.removeAll(palette);
-    palette.addAll(defaultColors);
-    
-    return palette;
-  }
-  
   private AxisConfiguration getAxisConfiguration(NumericAxis axis, List<Number> axisValues) {
 
     Number minValue = axis.getMinValue();
@@ -486,91 +494,39 @@ public class OpenFlashChartFactoryEngine implements Serializable {
     return rangeDescription;
   }
   
-  private AxisConfiguration getAxisConfiguration(TwoAxisPlot twoAxisPlot, MultiSeriesDataModel chartTableModel) {
+  AxisConfiguration getAxisConfiguration(TwoAxisPlot twoAxisPlot, MultiSeriesDataModel chartTableModel) {
     Number minValue = twoAxisPlot.getRangeAxis().getMinValue();
     Number maxValue = twoAxisPlot.getRangeAxis().getMaxValue();
     
     boolean calculateMinValue = (minValue == null);
     boolean calculateMaxValue = (maxValue == null);
     
-    boolean hasChartData = false;
-    
-    List<SeriesData> seriesList = chartTableModel.getSeriesData();
+    ChartDataStatistics statistics = chartTableModel.getStatistics();
+    boolean hasChartData = statistics.getCount() > 0;
     
-    if ((twoAxisPlot instanceof BarPlot) && (((BarPlot)twoAxisPlot).getFlavor() == BarPlotFlavor.STACKED)) {
-      int numCategories = chartTableModel.getDomainData().size();
-      Number[][] stackRanges = new Number[numCategories][];
-      for (SeriesData series : seriesList) {
-        int index = 0;
-        for (NamedValue namedValue : series) {
-          Number value = namedValue.getValue();
-          hasChartData = hasChartData || (value != null);
-          if (value != null) {
-            value = scaleNumber(value, chartTableModel.getScalingFactor());
-            Number[] stackRange = stackRanges[index];
-            if (stackRange == null) {
-              if (value.doubleValue() < 0) {
-                stackRanges[index] = new Number[] { value, 0 };
-              } else {
-                stackRanges[index] = new Number[] { 0, value };
-              }
-            } else {
-              if (value.doubleValue() < 0) {
-                stackRange[STACK_MIN_INDEX] = stackRange[STACK_MIN_INDEX].doubleValue() + value.doubleValue();
-              } else {
-                stackRange[STACK_MAX_INDEX] = stackRange[STACK_MAX_INDEX].doubleValue() + value.doubleValue();
-              }
-            }
-          }
-          index++;
-        }
+    if (hasChartData) {
+      // Stacked bars start at zero and grow by the positive and negative values of each category
+      double dataMin;
+      double dataMax;
+      if ((twoAxisPlot instanceof BarPlot) && (((BarPlot)twoAxisPlot).getFlavor() == BarPlotFlavor.STACKED)) {
+        dataMin = statistics.getMinStackExtent();
+        dataMax = statistics.getMaxStackExtent();
+      } else {
+        dataMin = statistics.getMin();
+        dataMax = statistics.getMax();
       }
-      if (hasChartData) {
-        for (int column = 0; column < numCategories; column++) {
-          Number[] stackRange = stackRanges[column];
-          
-          if (calculateMaxValue) {
-            if (maxValue == null) {
-              maxValue = stackRange[STACK_MAX_INDEX];
-            } else if (stackRange[STACK_MAX_INDEX] != null) {
-              maxValue = Math.max(maxValue.doubleValue(), stackRange[STACK_MAX_INDEX].doubleValue());
-            }
-          }
-          
-          if (calculateMinValue) {
-            if (minValue == null) {
-              minValue = stackRange[STACK_MIN_INDEX];
-            } else if (stackRange[STACK_MIN_INDEX] != null) {
-              minValue = Math.min(minValue.doubleValue(), stackRange[STACK_MIN_INDEX].doubleValue());
-            }
-          }
-        }
+      Number scaledMin = scaleNumber(dataMin, chartTableModel.getScalingFactor());
+      Number scaledMax = scaleNumber(dataMax, chartTableModel.getScalingFactor());
+      if (scaledMin.doubleValue() > scaledMax.doubleValue()) {
+        Number swap = scaledMin;
+        scaledMin = scaledMax;
+        scaledMax = swap;
       }
-    } else {
-      for (SeriesData series : seriesList) {
-        for (NamedValue namedValue : series) {
-          Number value = namedValue.getValue();
-          hasChartData = hasChartData || (value != null);
-          if (value != null) {
-            value = scaleNumber(value, chartTableModel.getScalingFactor());
-          }
-          if (calculateMaxValue) {
-            if (maxValue == null) {
-              maxValue = value;
-            } else if (value != null) {
-              maxValue = Math.max(maxValue.doubleValue(), value.doubleValue());
-            }
-          }
-          
-          if (calculateMinValue) {
-            if (minValue == null) {
-              minValue = value;
-            } else if (value != null) {
-              minValue = Math.min(minValue.doubleValue(), value.doubleValue());
-            }
-          }
-          
-        }
+      if (calculateMinValue) {
+        minValue = scaledMin;
+      }
+      if (calculateMaxValue) {
+        maxValue = scaledMax;
       }
     }
 
@@ -611,7 +567,7 @@ public class OpenFlashChartFactoryEngine implements Serializable {
     
 
     BarPlot barPlot = (BarPlot)chartModel.getPlot();
-    Palette palette = getPalette(barPlot);
+    List<Integer> palette = ChartUtils.getPlotColors(barPlot);
     
     if (barPlot.getOpacity() != null) {
       stackedBarChart.setAlpha(barPlot.getOpacity());
@@ -635,7 +591,7 @@ public class OpenFlashChartFactoryEngine implements Serializable {
         }
         
         Number value = namedValue.getValue();
-        if ((value != null) && !value.equals(0)) {
+        if ((value != null) && (value.doubleValue() != 0)) {
           StackValue stackValue = new StackValue(scaleNumber(value, chartTableModel.getScalingFactor()), color);
           if (chartLinkGenerator != null) {
             String barLink = chartLinkGenerator.generateLink(namedValue.getName(), category.getDomainName(), namedValue.getValue());
@@ -757,7 +713,7 @@ public class OpenFlashChartFactoryEngine implements Serializable {
     horizontalBarChart.setTooltip("#val#");
     
     BarPlot barPlot = (BarPlot) chartModel.getPlot();    
-    Palette palette = getPalette(barPlot);
+    List<Integer> palette = ChartUtils.getPlotColors(barPlot);
     if (barPlot.getOpacity() != null) {
       horizontalBarChart.setAlpha(barPlot.getOpacity());
     }
@@ -790,7 +746,7 @@ public class OpenFlashChartFactoryEngine implements Serializable {
   private BarChart makeVerticalBarChart(ChartModel chartModel, SeriesData dataSeries, int seriesIdx, Number scalingFactor, IChartLinkGenerator chartLinkGenerator) {
     BarChart verticalBarChart = null;
     BarPlot barPlot = (BarPlot) chartModel.getPlot();
-    Palette palette = getPalette(barPlot);
+    List<Integer> palette = ChartUtils.getPlotColors(barPlot);
     if (barPlot.getFlavor() != null) {
       switch (barPlot.getFlavor()) {
         case THREED:
@@ -865,7 +821,7 @@ public class OpenFlashChartFactoryEngine implements Serializable {
         index++;
       }
 
-      List<DomainData> categories = dataModel.getDomainData();
+      List<DomainData> categories = new ArrayList<DomainData>(dataModel.getDomainData());
       // BISERVER-3075 hack for bug in OFC2 where categories are rendered backwards...
       Collections.reverse(categories);
       chart.setYAxis(createYAxis(barPlot, categories));
@@ -906,7 +862,7 @@ public class OpenFlashChartFactoryEngine implements Serializable {
 
     chart.setXAxis(createXAxis(linePlot, chartTableModel.getDomainData()));
 
-    Palette palette = getPalette(linePlot);
+    List<Integer> palette = ChartUtils.getPlotColors(linePlot);
 
     int index = 0;
     for (SeriesData dataSeries : chartTableModel.getSeriesData()) {
@@ -965,6 +921,98 @@ public class OpenFlashChartFactoryEngine implements Serializable {
     return chart;
   }
   
+  /**
+   * Creates a line or area chart of the points of a sliding window. Open Flash Chart line charts have no time axis, so
+   * points are placed by position: the newest points of all series line up at the right end of the chart and the x
+   * axis is labelled with the times of the series holding the most points.
+   */
+  public Chart makeTimeSeriesChart(ChartModel chartModel, TimeSeriesDataModel dataModel) {
+    Chart chart = createBasicGraphChart(chartModel);
+    TwoAxisPlot twoAxisPlot = (TwoAxisPlot)chartModel.getPlot();
+    List<Integer> palette = ChartUtils.getPlotColors(twoAxisPlot);
+    List<Number> rangeValues = new ArrayList<Number>();
+
+    synchronized (dataModel) {
+      int pointCount = 0;
+      int labelSeries = -1;
+      for (int series = 0; series < dataModel.getSeriesCount(); series++) {
+        if (dataModel.getItemCount(series) > pointCount) {
+          pointCount = dataModel.getItemCount(series);
+          labelSeries = series;
+        }
+      }
+
+      DateFormat timeFormat = DateFormat.getTimeInstance(DateFormat.MEDIUM);
+      List<String> labels = new ArrayList<String>(pointCount);
+      for (int item = 0; item < pointCount; item++) {
+        labels.add(timeFormat.format(new Date(dataModel.getTimestamp(labelSeries, item))));
+      }
+      XAxis xAxis = createXAxis(twoAxisPlot);
+      xAxis.setLabels(labels);
+      xAxis.getLabels().setRotation(getLabelRotation(twoAxisPlot.getHorizontalAxis()));
+      chart.setXAxis(xAxis);
+
+      for (int series = 0; series < dataModel.getSeriesCount(); series++) {
+        LineChart lineChart = null;
+        String color = (palette.size() > series) ? "#" + Integer.toHexString(0x00FFFFFF & palette.get(series)) : null; //$NON-NLS-1$
+        if (twoAxisPlot instanceof AreaPlot) {
+          AreaHollowChart areaChart = new AreaHollowChart();
+          areaChart.setWidth(2);
+          areaChart.setDotSize(4);
+          if (color != null) {
+            areaChart.setFill(color);
+          }
+          lineChart = areaChart;
+        } else {
+          lineChart = new LineChart(LineChart.Style.DOT);
+          Integer lineWidth = ((LinePlot)twoAxisPlot).getLineWidth();
+          lineChart.setWidth((lineWidth == null || lineWidth <= 0) ? 1 : lineWidth);
+          lineChart.setDotSize(lineChart.getWidth() + 2);
+        }
+        lineChart.setHaloSize(0);
+        if (twoAxisPlot.getOpacity() != null) {
+          lineChart.setAlpha(twoAxisPlot.getOpacity());
+        }
+        if ((chartModel.getLegend() != null) && chartModel.getLegend().getVisible()) {
+          lineChart.setText(dataModel.getSeriesName(series));
+          Integer legendSize = chartModel.getLegend().getFontSize();
+          if ((legendSize != null) && (legendSize > 0)) {
+            lineChart.setFontSize(legendSize);
+          }
+        }
+        lineChart.setTooltip("#val#"); //$NON-NLS-1$
+        if (color != null) {
+          lineChart.setColour(color);
+        }
+
+        int itemCount = dataModel.getItemCount(series);
+        ArrayList<Dot> dots = new ArrayList<Dot>(pointCount);
+        for (int item = itemCount; item < pointCount; item++) {
+          dots.add(null);
+        }
+        for (int item = 0; item < itemCount; item++) {
+          double value = dataModel.getValue(series, item);
+          if (Double.isNaN(value)) {
+            dots.add(null);
+          } else {
+            Number scaledValue = scaleNumber(value, dataModel.getScalingFactor());
+            rangeValues.add(scaledValue);
+            dots.add(new Dot(scaledValue));
+          }
+        }
+        lineChart.addDots(dots);
+        chart.addElements(lineChart);
+      }
+    }
+
+    AxisConfiguration rangeDescription = getAxisConfiguration(twoAxisPlot.getRangeAxis(), rangeValues);
+    if (rangeDescription != null) {
+      chart.setYAxis(createYAxis(twoAxisPlot, rangeDescription));
+    }
+
+    return chart;
+  }
+  
   /**
    * @deprecated
    */
@@ -0,0 +1,431 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.plugin.openflashchart;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+import org.pentaho.chart.ChartUtils;
+import org.pentaho.chart.IChartLinkGenerator;
+import org.pentaho.chart.data.MultiSeriesDataModel;
+import org.pentaho.chart.model.AreaPlot;
+import org.pentaho.chart.model.BarPlot;
+import org.pentaho.chart.model.ChartModel;
+import org.pentaho.chart.model.LinePlot;
+import org.pentaho.chart.model.StyledText;
+import org.pentaho.chart.model.TwoAxisPlot;
+import org.pentaho.chart.model.Axis.LabelOrientation;
+import org.pentaho.chart.model.BarPlot.BarPlotFlavor;
+import org.pentaho.chart.model.Plot.Orientation;
+import org.pentaho.chart.plugin.openflashchart.OpenFlashChartFactoryEngine.AxisConfiguration;
+
+/**
+ * Writes the Open Flash Chart JSON document of a chart straight from the chart and data models, without building the
+ * ofc4j object graph and its string form first. Memory use does not grow with the size of the data, and the first
+ * bytes are written before the last values are read.
+ * <p/>
+ * The documents hold the same settings as the ofc4j charts built by {@link OpenFlashChartFactoryEngine}. Only vertical
+ * bar charts which are neither stacked nor sketched, line charts and area charts are supported, see
+ * {@link #canWrite(ChartModel)}. Instances are not thread safe.
+ */
+public class OpenFlashChartJsonWriter {
+
+  private static final long MAX_EXACT_LONG = 1L << 53;
+  private static final int FRACTION_DIGITS = 6;
+  private static final double FRACTION_SCALE = 1e6;
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray(); //$NON-NLS-1$
+
+  private final OpenFlashChartFactoryEngine chartFactory;
+  private final Writer writer;
+  private final char[] digits = new char[24];
+  /**
+   * Whether the next name or value must be preceded by a comma.
+   */
+  private boolean separate;
+
+  /**
+   * @param chartFactory the engine whose scaling and axis ranges are used
+   * @param writer the writer receiving the document, which should be buffered
+   */
+  public OpenFlashChartJsonWriter(OpenFlashChartFactoryEngine chartFactory, Writer writer) {
+    this.chartFactory = chartFactory;
+    this.writer = writer;
+  }
+
+  /**
+   * Returns whether documents of the chart can be written.
+   */
+  public static boolean canWrite(ChartModel chartModel) {
+    if (chartModel.getPlot() instanceof BarPlot) {
+      BarPlot barPlot = (BarPlot)chartModel.getPlot();
+      return !Orientation.HORIZONTAL.equals(barPlot.getOrientation()) && (barPlot.getFlavor() != BarPlotFlavor.STACKED)
+          && (barPlot.getFlavor() != BarPlotFlavor.SKETCH);
+    }
+    return (chartModel.getPlot() instanceof LinePlot) || (chartModel.getPlot() instanceof AreaPlot);
+  }
+
+  /**
+   * Writes the document of the chart. The writer is not flushed.
+   */
+  public void writeChart(ChartModel chartModel, MultiSeriesDataModel dataModel, IChartLinkGenerator linkGenerator) throws IOException {
+    TwoAxisPlot twoAxisPlot = (TwoAxisPlot)chartModel.getPlot();
+    boolean threeD = (twoAxisPlot instanceof BarPlot) && (((BarPlot)twoAxisPlot).getFlavor() == BarPlotFlavor.THREED);
+
+    beginObject();
+    if ((chartModel.getTitle() != null) && (chartModel.getTitle().getText() != null) && chartModel.getTitle().getText().trim().length() > 0) {
+      name("title"); //$NON-NLS-1$
+      beginObject();
+      member("text", chartModel.getTitle().getText()); //$NON-NLS-1$
+      String cssFontStyleString = chartModel.getTitle().getStyle().getStyleString();
+      if (cssFontStyleString.trim().length() > 0) {
+        member("style", cssFontStyleString); //$NON-NLS-1$
+      }
+      endObject();
+    }
+    writeText("x_legend", twoAxisPlot.getHorizontalAxis().getLegend()); //$NON-NLS-1$
+    writeText("y_legend", twoAxisPlot.getVerticalAxis().getLegend()); //$NON-NLS-1$
+    if (chartModel.getBackground() instanceof Integer) {
+      member("bg_colour", "#" + Integer.toHexString(0x00FFFFFF & (Integer)chartModel.getBackground())); //$NON-NLS-1$ //$NON-NLS-2$
+    } else {
+      member("bg_colour", "#" + Integer.toHexString(0x00FFFFFF & Color.WHITE.getRGB())); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    if (twoAxisPlot.getBackground() instanceof Integer) {
+      member("inner_bg_colour", "#" + Integer.toHexString(0x00FFFFFF & (Integer)twoAxisPlot.getBackground())); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+    name("x_axis"); //$NON-NLS-1$
+    beginObject();
+    member("grid-colour", chartFactory.getVerticalGridColour(twoAxisPlot)); //$NON-NLS-1$
+    if (twoAxisPlot.getHorizontalAxis().getColor() != null) {
+      member("colour", "#" + Integer.toHexString(twoAxisPlot.getHorizontalAxis().getColor())); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    if (threeD) {
+      name("3d"); //$NON-NLS-1$
+      value(3);
+    }
+    name("labels"); //$NON-NLS-1$
+    beginObject();
+    name("labels"); //$NON-NLS-1$
+    beginArray();
+    List<String> domainNames = dataModel.getDomainNames();
+    for (int domain = 0; domain < domainNames.size(); domain++) {
+      value(domainNames.get(domain));
+    }
+    endArray();
+    LabelOrientation labelOrientation = twoAxisPlot.getHorizontalAxis().getLabelOrientation();
+    if (labelOrientation == LabelOrientation.DIAGONAL) {
+      member("rotate", "diagonal"); //$NON-NLS-1$ //$NON-NLS-2$
+    } else if (labelOrientation == LabelOrientation.VERTICAL) {
+      member("rotate", "vertical"); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    endObject();
+    endObject();
+
+    AxisConfiguration rangeDescription = chartFactory.getAxisConfiguration(twoAxisPlot, dataModel);
+    if (rangeDescription != null) {
+      name("y_axis"); //$NON-NLS-1$
+      beginObject();
+      member("grid-colour", chartFactory.getHorizontalGridColour(twoAxisPlot)); //$NON-NLS-1$
+      if (twoAxisPlot.getVerticalAxis().getColor() != null) {
+        member("colour", "#" + Integer.toHexString(twoAxisPlot.getVerticalAxis().getColor())); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+      name("min"); //$NON-NLS-1$
+      value(rangeDescription.minValue);
+      name("max"); //$NON-NLS-1$
+      value(rangeDescription.maxValue);
+      name("steps"); //$NON-NLS-1$
+      value(rangeDescription.stepSize);
+      endObject();
+    }
+
+    name("elements"); //$NON-NLS-1$
+    beginArray();
+    List<Integer> palette = ChartUtils.getPlotColors(twoAxisPlot);
+    for (int series = 0; series < dataModel.getSeriesCount(); series++) {
+      writeElement(chartModel, dataModel, series, palette, linkGenerator);
+    }
+    endArray();
+    endObject();
+  }
+
+  private void writeElement(ChartModel chartModel, MultiSeriesDataModel dataModel, int series, List<Integer> palette, IChartLinkGenerator linkGenerator) throws IOException {
+    TwoAxisPlot twoAxisPlot = (TwoAxisPlot)chartModel.getPlot();
+    String seriesName = dataModel.getSeriesNames().get(series);
+    String color = (palette.size() > series) ? "#" + Integer.toHexString(0x00FFFFFF & palette.get(series)) : null; //$NON-NLS-1$
+
+    beginObject();
+    String valueName;
+    if (twoAxisPlot instanceof BarPlot) {
+      BarPlotFlavor flavor = ((BarPlot)twoAxisPlot).getFlavor();
+      if (flavor == BarPlotFlavor.THREED) {
+        member("type", "bar_3d"); //$NON-NLS-1$ //$NON-NLS-2$
+      } else if (flavor == BarPlotFlavor.GLASS) {
+        member("type", "bar_glass"); //$NON-NLS-1$ //$NON-NLS-2$
+      } else {
+        member("type", "bar"); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+      valueName = "top"; //$NON-NLS-1$
+    } else if (twoAxisPlot instanceof AreaPlot) {
+      member("type", "area_hollow"); //$NON-NLS-1$ //$NON-NLS-2$
+      name("width"); //$NON-NLS-1$
+      value(2);
+      name("dot-size"); //$NON-NLS-1$
+      value(4);
+      name("halo-size"); //$NON-NLS-1$
+      value(0);
+      member("fill", color); //$NON-NLS-1$
+      valueName = "value"; //$NON-NLS-1$
+    } else {
+      member("type", "line_dot"); //$NON-NLS-1$ //$NON-NLS-2$
+      Integer lineWidth = ((LinePlot)twoAxisPlot).getLineWidth();
+      int width = (lineWidth == null || lineWidth <= 0) ? 1 : lineWidth;
+      name("width"); //$NON-NLS-1$
+      value(width);
+      name("dot-size"); //$NON-NLS-1$
+      value(width + 2);
+      name("halo-size"); //$NON-NLS-1$
+      value(0);
+      valueName = "value"; //$NON-NLS-1$
+    }
+    if ((chartModel.getLegend() != null) && chartModel.getLegend().getVisible()) {
+      member("text", seriesName); //$NON-NLS-1$
+      Integer legendSize = chartModel.getLegend().getFontSize();
+      if ((legendSize != null) && (legendSize > 0)) {
+        name("font-size"); //$NON-NLS-1$
+        value(legendSize);
+      }
+    }
+    member("tip", "#val#"); //$NON-NLS-1$ //$NON-NLS-2$
+    if (twoAxisPlot.getOpacity() != null) {
+      name("alpha"); //$NON-NLS-1$
+      value(Double.parseDouble(twoAxisPlot.getOpacity().toString()));
+    }
+    member("colour", color); //$NON-NLS-1$
+
+    name("values"); //$NON-NLS-1$
+    beginArray();
+    Number scalingFactor = dataModel.getScalingFactor();
+    boolean scaled = (scalingFactor != null) && !scalingFactor.equals(1) && !scalingFactor.equals(0);
+    List<String> domainNames = dataModel.getDomainNames();
+    for (int domain = 0; domain < domainNames.size(); domain++) {
+      double value = dataModel.getDouble(series, domain);
+      if (Double.isNaN(value)) {
+        if (twoAxisPlot instanceof BarPlot) {
+          beginObject();
+          endObject();
+        } else {
+          nullValue();
+        }
+        continue;
+      }
+      beginObject();
+      name(valueName);
+      if (scaled) {
+        value(chartFactory.scaleNumber(value, scalingFactor).doubleValue());
+      } else {
+        value(value);
+      }
+      if (linkGenerator != null) {
+        String link = linkGenerator.generateLink(seriesName, domainNames.get(domain), value);
+        if (link != null) {
+          member("on-click", link.replaceAll("javascript:", "")); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        }
+      }
+      endObject();
+    }
+    endArray();
+    endObject();
+  }
+
+  private void writeText(String name, StyledText styledText) throws IOException {
+    if ((styledText != null) && (styledText.getText() != null) && (styledText.getText().trim().length() > 0)) {
+      name(name);
+      beginObject();
+      member("text", styledText.getText()); //$NON-NLS-1$
+      if (styledText.getStyle().getStyleString().length() > 0) {
+        member("style", styledText.getStyle().getStyleString()); //$NON-NLS-1$
+      }
+      endObject();
+    }
+  }
+
+  private void beginObject() throws IOException {
+    if (separate) {
+      writer.write(',');
+    }
+    writer.write('{');
+    separate = false;
+  }
+
+  private void endObject() throws IOException {
+    writer.write('}');
+    separate = true;
+  }
+
+  private void beginArray() throws IOException {
+    if (separate) {
+      writer.write(',');
+    }
+    writer.write('[');
+    separate = false;
+  }
+
+  private void endArray() throws IOException {
+    writer.write(']');
+    separate = true;
+  }
+
+  private void name(String name) throws IOException {
+    value(name);
+    writer.write(':');
+    separate = false;
+  }
+
+  /**
+   * Writes a name and string value, or nothing if the value is <code>null</code>.
+   */
+  private void member(String name, String value) throws IOException {
+    if (value != null) {
+      name(name);
+      value(value);
+    }
+  }
+
+  private void nullValue() throws IOException {
+    if (separate) {
+      writer.write(',');
+    }
+    writer.write("null"); //$NON-NLS-1$
+    separate = true;
+  }
+
+  private void value(String value) throws IOException {
+    if (separate) {
+      writer.write(',');
+    }
+    writer.write('"');
+    int start = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if ((c >= 0x20) && (c != '"') && (c != '\\') && (c != '\u2028') && (c != '\u2029')) {
+        continue;
+      }
+      writer.write(value, start, i - start);
+      start = i + 1;
+      switch (c) {
+        case '"':
+          writer.write("\\\""); //$NON-NLS-1$
+          break;
+        case '\\':
+          writer.write("\\\\"); //$NON-NLS-1$
+          break;
+        case '\n':
+          writer.write("\\n"); //$NON-NLS-1$
+          break;
+        case '\r':
+          writer.write("\\r"); //$NON-NLS-1$
+          break;
+        case '\t':
+          writer.write("\\t"); //$NON-NLS-1$
+          break;
+        default:
+          writer.write("\\u"); //$NON-NLS-1$
+          writer.write(HEX_DIGITS[(c >> 12) & 0xF]);
+          writer.write(HEX_DIGITS[(c >> 8) & 0xF]);
+          writer.write(HEX_DIGITS[(c >> 4) & 0xF]);
+          writer.write(HEX_DIGITS[c & 0xF]);
+          break;
+      }
+    }
+    writer.write(value, start, value.length() - start);
+    writer.write('"');
+    separate = true;
+  }
+
+  private void value(long value) throws IOException {
+    if (separate) {
+      writer.write(',');
+    }
+    writeLong(value);
+    separate = true;
+  }
+
+  /**
+   * Writes the number without allocating when it is integral or has at most six fraction digits; other numbers are
+   * written in the format of <code>Double.toString</code>.
+   */
+  private void value(double value) throws IOException {
+    if (Double.isNaN(value) || Double.isInfinite(value)) {
+      nullValue();
+      return;
+    }
+    if (separate) {
+      writer.write(',');
+    }
+    separate = true;
+    if ((value > -MAX_EXACT_LONG) && (value < MAX_EXACT_LONG) && (value == Math.rint(value))) {
+      writeLong((long)value);
+      return;
+    }
+    double scaledValue = Math.rint(value * FRACTION_SCALE);
+    if ((Math.abs(scaledValue) < MAX_EXACT_LONG) && (scaledValue / FRACTION_SCALE == value)) {
+      long fixedPoint = (long)scaledValue;
+      if (fixedPoint < 0) {
+        writer.write('-');
+        fixedPoint = -fixedPoint;
+      }
+      writeLong(fixedPoint / (long)FRACTION_SCALE);
+      int fraction = (int)(fixedPoint % (long)FRACTION_SCALE);
+      int length = FRACTION_DIGITS;
+      while ((length > 1) && (fraction % 10 == 0)) {
+        fraction /= 10;
+        length--;
+      }
+      digits[0] = '.';
+      for (int i = length; i > 0; i--) {
+        digits[i] = (char)('0' + fraction % 10);
+        fraction /= 10;
+      }
+      writer.write(digits, 0, length + 1);
+      return;
+    }
+    writer.write(Double.toString(value));
+  }
+
+  private void writeLong(long value) throws IOException {
+    if (value == Long.MIN_VALUE) {
+      writer.write(Long.toString(value));
+      return;
+    }
+    int position = digits.length;
+    boolean negative = value < 0;
+    if (negative) {
+      value = -value;
+    }
+    do {
+      digits[--position] = (char)('0' + (value % 10));
+      value /= 10;
+    } while (value != 0);
+    if (negative) {
+      digits[--position] = '-';
+    }
+    writer.write(digits, position, digits.length - position);
+  }
+}
@@ -0,0 +1,91 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.plugin.openflashchart.outputs;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import ofc4j.model.Chart;
+
+import org.pentaho.chart.IChartLinkGenerator;
+import org.pentaho.chart.data.MultiSeriesDataModel;
+import org.pentaho.chart.model.AreaPlot;
+import org.pentaho.chart.model.BarPlot;
+import org.pentaho.chart.model.ChartModel;
+import org.pentaho.chart.plugin.api.IOutput;
+import org.pentaho.chart.plugin.api.PersistenceException;
+import org.pentaho.chart.plugin.openflashchart.OpenFlashChartFactoryEngine;
+import org.pentaho.chart.plugin.openflashchart.OpenFlashChartJsonWriter;
+
+/**
+ * Open Flash Chart output streaming the JSON document from the chart and data models with an
+ * {@link OpenFlashChartJsonWriter}. The ofc4j chart is only built if {@link #getDrawable()} is called.
+ */
+public class OpenFlashChartStreamingOutput implements IOutput {
+
+  private static final int BUFFER_SIZE = 8192;
+
+  private final OpenFlashChartFactoryEngine chartFactory;
+  private final ChartModel chartModel;
+  private final MultiSeriesDataModel dataModel;
+  private final IChartLinkGenerator linkGenerator;
+  private Chart chart;
+
+  public OpenFlashChartStreamingOutput(OpenFlashChartFactoryEngine chartFactory, ChartModel chartModel, MultiSeriesDataModel dataModel, IChartLinkGenerator linkGenerator)
+  {
+    this.chartFactory = chartFactory;
+    this.chartModel = chartModel;
+    this.dataModel = dataModel;
+    this.linkGenerator = linkGenerator;
+  }
+
+  public OutputStream persistChart(OutputStream outputStream, IOutput.OutputTypes fileType, int width, int height) throws PersistenceException {
+    if (outputStream == null) {
+      outputStream = new ByteArrayOutputStream();
+    }
+    try {
+      Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, "utf-8"), BUFFER_SIZE); //$NON-NLS-1$
+      new OpenFlashChartJsonWriter(chartFactory, writer).writeChart(chartModel, dataModel, linkGenerator);
+      writer.flush();
+    } catch (IOException e) {
+      throw new PersistenceException(e);
+    }
+    return outputStream;
+  }
+
+  public Writer persistMap(Writer outputStream, String mapName) throws PersistenceException {
+    throw new UnsupportedOperationException();
+  }
+
+  public synchronized Object getDrawable() {
+    if (chart == null) {
+      if (chartModel.getPlot() instanceof BarPlot) {
+        chart = chartFactory.makeBarChart(chartModel, dataModel, linkGenerator);
+      } else if (chartModel.getPlot() instanceof AreaPlot) {
+        chart = chartFactory.makeAreaChart(chartModel, dataModel, linkGenerator);
+      } else {
+        chart = chartFactory.makeLineChart(chartModel, dataModel, linkGenerator);
+      }
+    }
+    return chart;
+  }
+}
@@ -54,6 +54,11 @@ public class HeirarchicalLinkedListItem implements Cloneable {
    */
   private long modNumber = 0L;
 
+  /**
+   * Indicates this item (and all of its children) can no longer be modified.
+   */
+  private boolean frozen = false;
+
   /**
    * Returns the modification number for this item. This number can be used
    * to determine if a cache is invalid by comparing this number to the value when the
@@ -64,6 +69,25 @@ public class HeirarchicalLinkedListItem implements Cloneable {
     return modNumber;
   }
 
+  /**
+   * Indicates if this item has been frozen and can no longer be modified.
+   */
+  public boolean isFrozen() {
+    return frozen;
+  }
+
+  /**
+   * Prevents any further modification of this item and all of its children. Once frozen, every method that
+   * modifies the heirarchy (or the content of a subclass) will throw an <code>IllegalStateException</code>.
+   * This allows a completed heirarchy to be shared safely between readers.
+   */
+  public void freeze() {
+    frozen = true;
+    for (HeirarchicalLinkedListItem item = firstChild; item != null; item = item.next) {
+      item.freeze();
+    }
+  }
+
   /**
    * Returns the parent item of this item. It will return <code>null</code> if this item has no parent.
    */
@@ -104,8 +128,12 @@ public class HeirarchicalLinkedListItem implements Cloneable {
 
   /**
    * Removes this item from the heirarchy.
+   *
+   * @throws IllegalStateException indicates this item has been frozen
    */
-  public void removeItem() {
+  public void removeItem() throws IllegalStateException {
+    checkModifiable();
+
     // Remove this item from the current heirarchy
     boolean modified = false;
     if (prev != null) {
@@ -192,8 +220,10 @@ public class HeirarchicalLinkedListItem implements Cloneable {
    *
    * @param newChild the item to be added at the end of the list.
    * @throws IllegalArgumentException indicates the supplied new child is <code>null</code>
+   * @throws IllegalStateException    indicates this item has been frozen
    */
   protected void addChildItem(final HeirarchicalLinkedListItem newChild) throws IllegalArgumentException {
+    checkModifiable();
     addLastChildItem(newChild);
     markModified();
   }
@@ -208,6 +238,7 @@ public class HeirarchicalLinkedListItem implements Cloneable {
    */
   protected void insertAfter(final HeirarchicalLinkedListItem newChild, final HeirarchicalLinkedListItem target)
       throws IllegalArgumentException, IllegalStateException {
+    checkModifiable();
     if (newChild == null || target == null) {
       throw new IllegalArgumentException();
     }
@@ -238,6 +269,7 @@ public class HeirarchicalLinkedListItem implements Cloneable {
    */
   protected void insertBefore(final HeirarchicalLinkedListItem newChild, final HeirarchicalLinkedListItem target)
       throws IllegalArgumentException, IllegalStateException {
+    checkModifiable();
     if (newChild == null || target == null) {
       throw new IllegalArgumentException();
     }
@@ -266,6 +298,7 @@ public class HeirarchicalLinkedListItem implements Cloneable {
    * @throws IllegalStateException    indicates the new child already has a parent defined
    */
   protected void addFirstChildItem(final HeirarchicalLinkedListItem newChild) throws IllegalArgumentException, IllegalStateException {
+    checkModifiable();
     if (firstChild == null) {
       addChildItem(newChild);
     } else {
@@ -284,6 +317,7 @@ public class HeirarchicalLinkedListItem implements Cloneable {
    * @throws IllegalStateException    indicates the new child already has a parent defined
    */
   protected void addLastChildItem(final HeirarchicalLinkedListItem newChild) throws IllegalArgumentException, IllegalStateException {
+    checkModifiable();
     if (newChild == null) {
       throw new IllegalArgumentException();
     }
@@ -309,9 +343,10 @@ public class HeirarchicalLinkedListItem implements Cloneable {
    * NOTE: this method is private but may be changed to protected if the need arises to override this method
    *
    * @throws IllegalArgumentException indicates the supplied new parent is <code>null</code>
-   * @throws IllegalStateException    indicates this item already has a parent defined
+   * @throws IllegalStateException    indicates this item already has a parent defined or has been frozen
    */
   private void setParentItem(final HeirarchicalLinkedListItem newParent) throws IllegalArgumentException, IllegalStateException {
+    checkModifiable();
     if (newParent == null) {
       throw new IllegalArgumentException();
     }
@@ -398,6 +433,17 @@ public class HeirarchicalLinkedListItem implements Cloneable {
     markModified();
   }
 
+  /**
+   * Verifies this item may be modified.
+   *
+   * @throws IllegalStateException indicates this item has been frozen
+   */
+  protected void checkModifiable() throws IllegalStateException {
+    if (frozen) {
+      throw new IllegalStateException("Item has been frozen and can not be modified"); // TODO: externalize
+    }
+  }
+
   /**
    * Indicates that the item (or one of its children) has been modified.
    */
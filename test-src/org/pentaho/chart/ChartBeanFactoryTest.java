@@ -21,22 +21,42 @@
  ******************************************************************************/
 package org.pentaho.chart;
 
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
+import org.pentaho.chart.data.IChartDataModel;
+import org.pentaho.chart.data.LargestTriangleThreeBucketsDecimator;
 import org.pentaho.chart.data.MultiSeriesDataModel;
+import org.pentaho.chart.model.ChartDataDefinition;
 import org.pentaho.chart.model.ChartModel;
+import org.pentaho.chart.model.LinePlot;
 import org.pentaho.chart.plugin.ChartDataOverflowException;
+import org.pentaho.chart.plugin.IChartPlugin;
 import org.pentaho.chart.plugin.NoChartDataException;
+import org.pentaho.chart.plugin.api.IOutput;
+import org.pentaho.chart.plugin.api.IOutput.OutputTypes;
 import org.pentaho.commons.connection.IPentahoMetaData;
 import org.pentaho.metadata.model.concept.types.DataType;
 
@@ -117,4 +137,148 @@ public class ChartBeanFactoryTest {
     assertEquals( expected, model.getSeriesData( expected ).getSeriesName() );
   }
 
+  @Test
+  public void testCreateChartOutputs() throws Exception {
+    final byte[] chart = new byte[20000];
+    for ( int i = 0; i < chart.length; i++ ) {
+      chart[i] = (byte) i;
+    }
+    IOutput output = mock( IOutput.class );
+    when( output.persistChart( any( OutputStream.class ), any( OutputTypes.class ), anyInt(), anyInt() ) ).thenAnswer(
+        new Answer<OutputStream>() {
+          public OutputStream answer( InvocationOnMock invocation ) throws Throwable {
+            OutputStream outputStream = (OutputStream) invocation.getArguments()[0];
+            outputStream.write( chart, 0, 100 );
+            outputStream.write( chart, 100, chart.length - 100 );
+            return outputStream;
+          }
+        } );
+    IChartPlugin plugin = mock( IChartPlugin.class );
+    when( plugin.getPluginId() ).thenReturn( "test" );
+    when( plugin.renderChartDocument( any( ChartModel.class ), any( IChartDataModel.class ),
+        any( IChartLinkGenerator.class ) ) ).thenReturn( output );
+    ChartBeanFactory.loadDefaultChartPlugins( Arrays.asList( plugin ) );
+    try {
+      ChartModel chartModel = new ChartModel();
+      chartModel.setChartEngineId( "test" );
+      Object[][] queryResults = new Object[][] { { "domain", "series", 1 } };
+
+      InputStream inputStream =
+          ChartBeanFactory.createChart( queryResults, 1, false, 2, 1, 0, chartModel, null, 10, 10,
+              OutputTypes.FILE_TYPE_PNG );
+      byte[] read = new byte[chart.length + 1];
+      int length = 0;
+      for ( int n = inputStream.read( read ); n > 0; n = inputStream.read( read, length, read.length - length ) ) {
+        length += n;
+      }
+      assertArrayEquals( chart, Arrays.copyOf( read, length ) );
+
+      ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+      ChartBeanFactory.createChart( queryResults, 1, false, 2, 1, 0, chartModel, null, 10, 10,
+          OutputTypes.FILE_TYPE_PNG, outputStream );
+      assertArrayEquals( chart, outputStream.toByteArray() );
+
+      outputStream = new ByteArrayOutputStream();
+      ChartBeanFactory.createChart( queryResults, 1, false, 2, 1, 0, chartModel, null, 10, 10,
+          OutputTypes.FILE_TYPE_PNG, Channels.newChannel( outputStream ) );
+      assertArrayEquals( chart, outputStream.toByteArray() );
+
+      // a buffer too small for the chart is replaced by a larger one
+      for ( ByteBuffer buffer : new ByteBuffer[] { ByteBuffer.allocate( 32768 ), ByteBuffer.allocateDirect( 1000 ) } ) {
+        ByteBuffer result =
+            ChartBeanFactory.createChart( queryResults, 1, false, 2, 1, 0, chartModel, null, 10, 10,
+                OutputTypes.FILE_TYPE_PNG, buffer );
+        if ( buffer.capacity() >= chart.length ) {
+          assertSame( buffer, result );
+        } else {
+          assertNotSame( buffer, result );
+        }
+        assertEquals( buffer.isDirect(), result.isDirect() );
+        byte[] content = new byte[result.remaining()];
+        result.get( content );
+        assertArrayEquals( chart, content );
+      }
+    } finally {
+      ChartBeanFactory.loadDefaultChartPlugins( new ArrayList<IChartPlugin>() );
+    }
+  }
+
+  @Test
+  public void testCreateChartWithDataDefinition() throws Exception {
+    final List<IChartDataModel> dataModels = new ArrayList<IChartDataModel>();
+    final IOutput output = mock( IOutput.class );
+    IChartPlugin plugin = mock( IChartPlugin.class );
+    when( plugin.getPluginId() ).thenReturn( "test" );
+    when( plugin.renderChartDocument( any( ChartModel.class ), any( IChartDataModel.class ),
+        any( IChartLinkGenerator.class ) ) ).thenAnswer( new Answer<IOutput>() {
+          public IOutput answer( InvocationOnMock invocation ) throws Throwable {
+            dataModels.add( (IChartDataModel) invocation.getArguments()[1] );
+            return output;
+          }
+        } );
+    ChartBeanFactory.loadDefaultChartPlugins( Arrays.asList( plugin ) );
+    try {
+      ChartModel chartModel = new ChartModel();
+      chartModel.setChartEngineId( "test" );
+      Object[][] queryResults =
+          new Object[][] { { "Q1", "east", 1 }, { "Q2", "east", 5 }, { "Q3", "east", 3 }, { "Q4", "west", 2 } };
+      ChartDataDefinition dataDefinition = new ChartDataDefinition();
+      dataDefinition.setMaxCategories( 2 );
+      dataDefinition.setOtherName( "rest" );
+      dataDefinition.setScalingFactor( 10 );
+
+      ChartBeanFactory.createChart( queryResults, dataDefinition, 2, 1, 0, chartModel, null, 10, 10,
+          OutputTypes.FILE_TYPE_PNG );
+      MultiSeriesDataModel model = (MultiSeriesDataModel) dataModels.get( 0 );
+      assertEquals( Arrays.asList( "Q2", "Q3", "rest" ), model.getDomainNames() );
+      assertEquals( 1.0, model.getDouble( model.getSeriesIndex( "east" ), model.getDomainIndex( "rest" ) ), 0 );
+      assertEquals( 2.0, model.getDouble( model.getSeriesIndex( "west" ), model.getDomainIndex( "rest" ) ), 0 );
+      assertEquals( 10, model.getScalingFactor().intValue() );
+
+      dataDefinition.setMaxCategories( null );
+      ChartBeanFactory.createChart( queryResults, dataDefinition, 2, 1, 0, chartModel, null, 10, 10,
+          OutputTypes.FILE_TYPE_PNG );
+      assertEquals( 4, ( (MultiSeriesDataModel) dataModels.get( 1 ) ).getDomainCount() );
+    } finally {
+      ChartBeanFactory.loadDefaultChartPlugins( new ArrayList<IChartPlugin>() );
+    }
+  }
+
+  @Test
+  public void testCreateDecimatedChart() throws Exception {
+    final List<IChartDataModel> dataModels = new ArrayList<IChartDataModel>();
+    final IOutput output = mock( IOutput.class );
+    IChartPlugin plugin = mock( IChartPlugin.class );
+    when( plugin.getPluginId() ).thenReturn( "test" );
+    when( plugin.renderChartDocument( any( ChartModel.class ), any( IChartDataModel.class ),
+        any( IChartLinkGenerator.class ) ) ).thenAnswer( new Answer<IOutput>() {
+          public IOutput answer( InvocationOnMock invocation ) throws Throwable {
+            dataModels.add( (IChartDataModel) invocation.getArguments()[1] );
+            return output;
+          }
+        } );
+    ChartBeanFactory.loadDefaultChartPlugins( Arrays.asList( plugin ) );
+    ChartBeanFactory.setDataDecimator( new LargestTriangleThreeBucketsDecimator() );
+    try {
+      ChartModel chartModel = new ChartModel();
+      chartModel.setChartEngineId( "test" );
+      chartModel.setPlot( new LinePlot() );
+      Object[][] queryResults = new Object[10000][];
+      for ( int i = 0; i < queryResults.length; i++ ) {
+        queryResults[i] = new Object[] { "d" + i, ( i % 2 == 0 ) ? "east" : "west", i % 97 };
+      }
+
+      // at the default limit, a 400 pixels wide chart is decimated to the points its series may chart
+      ChartBeanFactory.createChart( queryResults, 1, false, 2, 1, 0, chartModel, null, 400, 300,
+          OutputTypes.FILE_TYPE_PNG );
+      MultiSeriesDataModel model = (MultiSeriesDataModel) dataModels.get( 0 );
+      assertEquals( 2, model.getSeriesCount() );
+      assertTrue( model.getDomainCount() > 2 );
+      assertTrue( model.getDomainCount() * model.getSeriesCount() <= ChartBeanFactory.getMaxDataPointsPerChart() );
+    } finally {
+      ChartBeanFactory.setDataDecimator( null );
+      ChartBeanFactory.loadDefaultChartPlugins( new ArrayList<IChartPlugin>() );
+    }
+  }
+
 }
@@ -0,0 +1,241 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+import org.pentaho.chart.data.LargestTriangleThreeBucketsDecimator;
+import org.pentaho.chart.data.MultiSeriesDataModel;
+import org.pentaho.chart.data.NamedValuesDataModel;
+import org.pentaho.chart.data.TopNAggregator;
+import org.pentaho.chart.model.ChartModel;
+import org.pentaho.chart.model.LinePlot;
+import org.pentaho.chart.plugin.ChartDataOverflowException;
+import org.pentaho.chart.plugin.NoChartDataException;
+import org.pentaho.commons.connection.IPentahoMetaData;
+import org.pentaho.metadata.model.concept.types.DataType;
+
+public class ChartDataModelBuilderTest {
+
+  @Test
+  public void testStreamedRowsAreSummed() throws ChartDataOverflowException, NoChartDataException {
+    ChartDataModelBuilder builder = new ChartDataModelBuilder( mock( ChartModel.class ), false, 2, 1, 0, null );
+    Object[] row = new Object[3];
+    row[0] = "2015";
+    row[1] = "east";
+    row[2] = 1;
+    builder.addRow( row );
+    // the row array is not retained, so it can be reused
+    row[1] = "west";
+    row[2] = 2;
+    builder.addRow( row );
+    row[1] = "east";
+    row[2] = 3;
+    builder.addRow( row );
+
+    MultiSeriesDataModel model = (MultiSeriesDataModel) builder.build( 1 );
+    assertEquals( 1, model.getDomainCount() );
+    assertEquals( 2, model.getSeriesCount() );
+    assertEquals( 4.0, model.getSeriesData( "east" ).getNamedValue( "2015" ).getValue().doubleValue(), 0.0 );
+    assertEquals( 2, builder.getNumberOfDataPoints() );
+  }
+
+  @Test
+  public void testOverflowStopsReading() throws NoChartDataException {
+    ChartDataModelBuilder builder = new ChartDataModelBuilder( mock( ChartModel.class ), false, 1, -1, 0, null );
+    builder.setMaxDataPoints( 2 );
+    Iterator<Object[]> rows =
+        Arrays.asList( new Object[] { "a", 1 }, new Object[] { "b", 2 }, new Object[] { "c", 3 },
+            new Object[] { "d", 4 } ).iterator();
+    try {
+      builder.addRows( rows );
+      fail( "Shouldn't reach here" );
+    } catch ( ChartDataOverflowException e ) {
+      assertEquals( 3, e.getNumberOfDataPoints() );
+      assertEquals( 2, e.getMaxAllowedDataPoints() );
+    }
+    assertTrue( rows.hasNext() );
+  }
+
+  @Test
+  public void testNamedValues() throws ChartDataOverflowException, NoChartDataException {
+    ChartDataModelBuilder builder = new ChartDataModelBuilder( mock( ChartModel.class ), true, 1, -1, 0, null );
+    builder.addRows( new Object[][] { { "a", 1 }, { "b", null }, { "a", 2.5 } } );
+    NamedValuesDataModel model = (NamedValuesDataModel) builder.build( 10 );
+    assertEquals( Arrays.asList( "a", "b" ), model.getNames() );
+    assertEquals( 3.5, model.getNamedValue( "a" ).getValue().doubleValue(), 0.0 );
+    assertEquals( 0, model.getNamedValue( "b" ).getValue().intValue() );
+    assertEquals( 10, model.getScalingFactor() );
+  }
+
+  @Test
+  public void testLineChartsAreDecimated() throws ChartDataOverflowException, NoChartDataException {
+    ChartModel chartModel = new ChartModel();
+    chartModel.setPlot( new LinePlot() );
+    ChartDataModelBuilder builder = new ChartDataModelBuilder( chartModel, false, 1, -1, 0, null );
+    builder.setMaxDataPoints( 20 );
+    builder.setDataDecimator( new LargestTriangleThreeBucketsDecimator(), 20 );
+    for ( int i = 0; i < 1000; i++ ) {
+      builder.addRow( new Object[] { "d" + i, i } );
+    }
+
+    NamedValuesDataModel model = (NamedValuesDataModel) builder.build( 1 );
+    assertEquals( 1000, builder.getNumberOfDataPoints() );
+    assertEquals( 20, model.size() );
+  }
+
+  @Test
+  public void testDecimatedModelsAreLimited() throws ChartDataOverflowException, NoChartDataException {
+    ChartModel chartModel = new ChartModel();
+    chartModel.setPlot( new LinePlot() );
+    ChartDataModelBuilder builder = new ChartDataModelBuilder( chartModel, false, 2, 1, 0, null );
+    builder.setMaxDataPoints( 500 );
+    builder.setDataDecimator( new LargestTriangleThreeBucketsDecimator(), 400 );
+    // Each series peaks at other domains, so the union of the domains kept grows with the number of series
+    addSeries( builder, 50, 1000 );
+
+    MultiSeriesDataModel model = (MultiSeriesDataModel) builder.build( 1 );
+    assertEquals( 50, model.getSeriesCount() );
+    assertTrue( model.getDomainCount() > 2 );
+    assertTrue( model.getDomainCount() * model.getSeriesCount() <= 500 );
+  }
+
+  @Test
+  public void testTooManySeriesToDecimate() throws NoChartDataException {
+    ChartModel chartModel = new ChartModel();
+    chartModel.setPlot( new LinePlot() );
+    ChartDataModelBuilder builder = new ChartDataModelBuilder( chartModel, false, 2, 1, 0, null );
+    builder.setMaxDataPoints( 500 );
+    builder.setDataDecimator( new LargestTriangleThreeBucketsDecimator(), 400 );
+    try {
+      addSeries( builder, 200, 100 );
+      builder.build( 1 );
+      fail( "Shouldn't reach here" );
+    } catch ( ChartDataOverflowException e ) {
+      assertTrue( e.getNumberOfDataPoints() > 500 );
+      assertEquals( 500, e.getMaxAllowedDataPoints() );
+    }
+  }
+
+  private static void addSeries( ChartDataModelBuilder builder, int seriesCount, int domainCount )
+    throws ChartDataOverflowException {
+    for ( int series = 0; series < seriesCount; series++ ) {
+      for ( int domain = 0; domain < domainCount; domain++ ) {
+        builder.addRow( new Object[] { "d" + domain, "s" + series, ( domain + series ) % 7 } );
+      }
+    }
+  }
+
+  @Test
+  public void testTopNIsNotLimitedByRows() throws ChartDataOverflowException, NoChartDataException {
+    ChartDataModelBuilder builder = new ChartDataModelBuilder( mock( ChartModel.class ), false, 1, -1, 0, null );
+    builder.setMaxDataPoints( 5 );
+    builder.setTopNAggregator( new TopNAggregator( 4, 0, null ) );
+    for ( int i = 0; i < 100; i++ ) {
+      builder.addRow( new Object[] { "c" + i, i } );
+    }
+
+    NamedValuesDataModel model = (NamedValuesDataModel) builder.build( 1 );
+    assertEquals( Arrays.asList( "c96", "c97", "c98", "c99", "Other" ), model.getNames() );
+    assertEquals( 4950.0 - 96 - 97 - 98 - 99, model.getNamedValue( "Other" ).getValue().doubleValue(), 0.0 );
+  }
+
+  @Test
+  public void testParallelBuildMatchesSequentialBuild() throws ChartDataOverflowException, NoChartDataException {
+    Object[][] rows = new Object[50000][];
+    for ( int i = 0; i < rows.length; i++ ) {
+      rows[i] = new Object[] { "d" + ( ( i * 7 ) % 101 ), "s" + ( i % 13 ), i % 17 == 0 ? null : i % 5 };
+    }
+    ForkJoinPool pool = new ForkJoinPool( 4 );
+    try {
+      ChartDataModelBuilder sequential = new ChartDataModelBuilder( mock( ChartModel.class ), false, 2, 1, 0, null );
+      sequential.setMaxDataPoints( 10000 );
+      sequential.addRows( rows );
+      ChartDataModelBuilder parallel = new ChartDataModelBuilder( mock( ChartModel.class ), false, 2, 1, 0, null );
+      parallel.setMaxDataPoints( 10000 );
+      parallel.addRows( rows, pool );
+
+      MultiSeriesDataModel expected = (MultiSeriesDataModel) sequential.build( 1 );
+      MultiSeriesDataModel actual = (MultiSeriesDataModel) parallel.build( 1 );
+      assertEquals( expected.getDomainNames(), actual.getDomainNames() );
+      assertEquals( expected.getSeriesNames(), actual.getSeriesNames() );
+      for ( int series = 0; series < expected.getSeriesCount(); series++ ) {
+        for ( int domain = 0; domain < expected.getDomainCount(); domain++ ) {
+          assertEquals( expected.getValue( series, domain ), actual.getValue( series, domain ) );
+        }
+      }
+      assertEquals( sequential.getNumberOfDataPoints(), parallel.getNumberOfDataPoints() );
+
+      sequential = new ChartDataModelBuilder( mock( ChartModel.class ), true, 2, -1, 0, null );
+      sequential.setMaxDataPoints( 1000 );
+      sequential.addRows( rows );
+      parallel = new ChartDataModelBuilder( mock( ChartModel.class ), true, 2, -1, 0, null );
+      parallel.setMaxDataPoints( 1000 );
+      parallel.addRows( rows, pool );
+      assertEquals( ( (NamedValuesDataModel) sequential.build( 1 ) ).getNames(),
+          ( (NamedValuesDataModel) parallel.build( 1 ) ).getNames() );
+      assertEquals( ( (NamedValuesDataModel) sequential.build( 1 ) ).getNamedValue( "d42" ).getValue().doubleValue(),
+          ( (NamedValuesDataModel) parallel.build( 1 ) ).getNamedValue( "d42" ).getValue().doubleValue(), 0.0 );
+
+      parallel = new ChartDataModelBuilder( mock( ChartModel.class ), false, 2, 1, 0, null );
+      parallel.setMaxDataPoints( 100 );
+      try {
+        parallel.addRows( rows, pool );
+        fail( "Shouldn't reach here" );
+      } catch ( ChartDataOverflowException e ) {
+        // expected
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testLabelsAreFormattedOncePerColumn() throws ChartDataOverflowException, NoChartDataException {
+    IPentahoMetaData metaData = mock( IPentahoMetaData.class );
+    when( metaData.getAttribute( 0, 0, "mask" ) ).thenReturn( "00" );
+    when( metaData.getAttribute( 0, 0, "datatype" ) ).thenReturn( DataType.NUMERIC );
+    ChartDataModelBuilder builder = new ChartDataModelBuilder( mock( ChartModel.class ), false, 2, 1, 0, metaData );
+    for ( int i = 0; i < 1200; i++ ) {
+      builder.addRow( new Object[] { i % 12 + 1, "s", 1 } );
+    }
+
+    MultiSeriesDataModel model = (MultiSeriesDataModel) builder.build( 1 );
+    assertEquals( 12, model.getDomainCount() );
+    assertEquals( "01", model.getDomainNames().get( 0 ) );
+    assertEquals( 100, model.getValue( 0, 11 ).intValue() );
+    verify( metaData, times( 1 ) ).getAttribute( 0, 0, "mask" );
+    verify( metaData, times( 1 ) ).getAttribute( 0, 1, "datatype" );
+  }
+
+  @Test( expected = NoChartDataException.class )
+  public void testNoData() throws ChartDataOverflowException, NoChartDataException {
+    new ChartDataModelBuilder( mock( ChartModel.class ), false, 1, -1, 0, null ).build( 1 );
+  }
+}
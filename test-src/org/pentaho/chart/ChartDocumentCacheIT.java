@@ -0,0 +1,176 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+
+import junit.framework.TestCase;
+
+import org.pentaho.chart.core.ChartDocument;
+import org.pentaho.chart.core.ChartElement;
+import org.pentaho.reporting.libraries.resourceloader.ResourceException;
+
+/**
+ * Unit tests for the ChartDocumentCache class.
+ */
+public class ChartDocumentCacheIT extends TestCase
+{
+  protected void setUp() throws Exception
+  {
+    super.setUp();
+
+    // Boot the charting library - required for parsing configuration
+    ChartBoot.getInstance().start();
+  }
+
+  protected void tearDown() throws Exception
+  {
+    ChartFactory.setChartDocumentCache(null);
+    super.tearDown();
+  }
+
+  /**
+   * Tests that parsed documents are shared until they are invalidated
+   */
+  public void testSharedDocuments() throws ResourceException
+  {
+    final ChartDocumentCache cache = new ChartDocumentCache();
+    ChartFactory.setChartDocumentCache(cache);
+    final URL url = getClass().getResource("test1.xml");
+
+    final ChartDocument styled = ChartFactory.getChartDocument(url);
+    assertSame(styled, ChartFactory.getChartDocument(url, true));
+    assertTrue(styled.getRootElement().isStyleResolved());
+
+    final ChartDocument raw = ChartFactory.getChartDocument(url, false);
+    assertNotSame(styled, raw);
+    assertEquals(2, cache.getSize());
+
+    cache.invalidate(url);
+    assertEquals(0, cache.getSize());
+    assertNotSame(styled, ChartFactory.getChartDocument(url));
+  }
+
+  /**
+   * Tests that a caller can not modify the shared document seen by the next caller
+   */
+  public void testSharedDocumentsAreFrozen() throws ResourceException
+  {
+    final ChartDocumentCache cache = new ChartDocumentCache();
+    final URL url = getClass().getResource("test1.xml");
+
+    final ChartDocument chart = cache.getChartDocument(url, true);
+    assertTrue(chart.isFrozen());
+    final ChartElement stylesheet = chart.getRootElement().getFirstChildItem();
+    final Object stylesheetClass = stylesheet.getAttribute("class");
+    final String stylesheetText = stylesheet.getText();
+    final int childCount = chart.getRootElement().getChildCount();
+    final long modNumber = chart.getModNumber();
+
+    try
+    {
+      stylesheet.setAttribute("class", "modified");
+      fail("Should not be able to modify a shared document");
+    }
+    catch (IllegalStateException ise)
+    {
+      // correct
+    }
+    try
+    {
+      stylesheet.setText("modified");
+      fail("Should not be able to modify a shared document");
+    }
+    catch (IllegalStateException ise)
+    {
+      // correct
+    }
+    try
+    {
+      chart.getRootElement().addChildElement(new ChartElement());
+      fail("Should not be able to modify a shared document");
+    }
+    catch (IllegalStateException ise)
+    {
+      // correct
+    }
+    try
+    {
+      chart.setResourceKey(null);
+      fail("Should not be able to modify a shared document");
+    }
+    catch (IllegalStateException ise)
+    {
+      // correct
+    }
+
+    final ChartDocument next = cache.getChartDocument(url, true);
+    assertSame(chart, next);
+    assertEquals(stylesheetClass, next.getRootElement().getFirstChildItem().getAttribute("class"));
+    assertEquals(stylesheetText, next.getRootElement().getFirstChildItem().getText());
+    assertEquals(childCount, next.getRootElement().getChildCount());
+    assertEquals(modNumber, next.getModNumber());
+    assertNotNull(next.getResourceKey());
+  }
+
+  /**
+   * Tests that a modified chart definition is parsed again
+   */
+  public void testModifiedDefinition() throws Exception
+  {
+    final File file = File.createTempFile("chart", ".xml");
+    try
+    {
+      copy(getClass().getResource("test1.xml"), file);
+      final ChartDocumentCache cache = new ChartDocumentCache();
+      final ChartDocument chart = cache.getChartDocument(file.toURI().toURL(), false);
+      assertSame(chart, cache.getChartDocument(file.toURI().toURL(), false));
+
+      copy(getClass().getResource("test1.xml"), file);
+      assertTrue(file.setLastModified(file.lastModified() + 60000));
+      assertNotSame(chart, cache.getChartDocument(file.toURI().toURL(), false));
+    }
+    finally
+    {
+      file.delete();
+    }
+  }
+
+  private static void copy(final URL source, final File target) throws Exception
+  {
+    final InputStream in = source.openStream();
+    final OutputStream out = new FileOutputStream(target);
+    try
+    {
+      final byte[] buffer = new byte[4096];
+      for (int read = in.read(buffer); read >= 0; read = in.read(buffer))
+      {
+        out.write(buffer, 0, read);
+      }
+    }
+    finally
+    {
+      in.close();
+      out.close();
+    }
+  }
+}
@@ -0,0 +1,236 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.pentaho.chart.data.IChartDataModel;
+import org.pentaho.chart.data.NamedValuesDataModel;
+import org.pentaho.chart.model.BarPlot;
+import org.pentaho.chart.model.ChartModel;
+import org.pentaho.chart.model.LinePlot;
+import org.pentaho.chart.plugin.ChartPluginRegistry;
+import org.pentaho.chart.plugin.ChartProcessingException;
+import org.pentaho.chart.plugin.IChartPlugin;
+import org.pentaho.chart.plugin.api.IOutput;
+import org.pentaho.chart.plugin.api.IOutput.OutputTypes;
+
+public class ChartRenderServiceTest {
+
+  private static final String ENGINE_ID = "test";
+
+  private final AtomicInteger activeRenders = new AtomicInteger();
+  private final AtomicInteger maxActiveRenders = new AtomicInteger();
+
+  @Before
+  public void setUp() throws Exception {
+    IChartPlugin plugin = mock( IChartPlugin.class );
+    when( plugin.getPluginId() ).thenReturn( ENGINE_ID );
+    when( plugin.renderChartDocument( any( ChartModel.class ), any( IChartDataModel.class ),
+        any( IChartLinkGenerator.class ) ) ).thenAnswer( new Answer<IOutput>() {
+          public IOutput answer( InvocationOnMock invocation ) throws Throwable {
+            return createOutput( ( (ChartModel) invocation.getArguments()[0] ).getTitle().getText() );
+          }
+        } );
+    ChartBeanFactory.loadDefaultChartPlugins( Arrays.asList( plugin ) );
+  }
+
+  @After
+  public void tearDown() {
+    ChartBeanFactory.loadDefaultChartPlugins( new ArrayList<IChartPlugin>() );
+  }
+
+  @Test
+  public void testConcurrentRenders() throws Exception {
+    ChartRenderService service = new ChartRenderService( 4, 2 );
+    List<Future<byte[]>> results = new ArrayList<Future<byte[]>>();
+    for ( int i = 0; i < 50; i++ ) {
+      results.add( service.submit( createChartModel( "chart" + i ), new NamedValuesDataModel(), null, 10, 10,
+          OutputTypes.FILE_TYPE_PNG ) );
+    }
+    for ( int i = 0; i < 50; i++ ) {
+      assertArrayEquals( ( "chart" + i ).getBytes( "UTF-8" ), results.get( i ).get() );
+    }
+    service.shutdown();
+    assertTrue( service.awaitTermination( 10, TimeUnit.SECONDS ) );
+  }
+
+  @Test
+  public void testCallerSuppliedExecutor() throws Exception {
+    ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      ChartRenderService service = new ChartRenderService( executor, 2 );
+      List<Future<byte[]>> results = new ArrayList<Future<byte[]>>();
+      for ( int i = 0; i < 20; i++ ) {
+        results.add( service.submit( new ChartRenderJob( createChartModel( "c" ), new NamedValuesDataModel(), 10, 10,
+            OutputTypes.FILE_TYPE_PNG ) ) );
+      }
+      for ( Future<byte[]> result : results ) {
+        assertEquals( 1, result.get().length );
+      }
+      assertTrue( maxActiveRenders.get() <= 2 );
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void testUnknownEngine() throws Exception {
+    ChartModel chartModel = createChartModel( "x" );
+    chartModel.setChartEngineId( "unknown" );
+    ChartRenderService service = new ChartRenderService( 1, 1 );
+    try {
+      service.submit( chartModel, new NamedValuesDataModel(), null, 10, 10, OutputTypes.FILE_TYPE_PNG ).get();
+      fail( "Shouldn't reach here" );
+    } catch ( ExecutionException e ) {
+      assertTrue( e.getCause() instanceof ChartProcessingException );
+    }
+    service.shutdown();
+  }
+
+  @Test
+  public void testSubmitAfterShutdown() throws Exception {
+    ChartRenderService service = new ChartRenderService( 1, 1 );
+    service.shutdown();
+    try {
+      service.submit( createChartModel( "x" ), new NamedValuesDataModel(), null, 10, 10, OutputTypes.FILE_TYPE_PNG );
+      fail( "Shouldn't reach here" );
+    } catch ( RejectedExecutionException e ) {
+      // expected
+    }
+    try {
+      service.submitBatch( Arrays.asList( new ChartRenderJob( createChartModel( "x" ), new NamedValuesDataModel(), 10,
+          10, OutputTypes.FILE_TYPE_PNG ) ) );
+      fail( "Shouldn't reach here" );
+    } catch ( RejectedExecutionException e ) {
+      // expected
+    }
+    assertTrue( service.awaitTermination( 10, TimeUnit.SECONDS ) );
+  }
+
+  @Test
+  public void testBatch() throws Exception {
+    List<ChartRenderJob> jobs = new ArrayList<ChartRenderJob>();
+    for ( int i = 0; i < 20; i++ ) {
+      jobs.add( new ChartRenderJob( createChartModel( "chart" + i ), new NamedValuesDataModel(), 10, 10,
+          OutputTypes.FILE_TYPE_PNG ) );
+    }
+    ChartModel unknownEngine = createChartModel( "x" );
+    unknownEngine.setChartEngineId( "unknown" );
+    jobs.add( new ChartRenderJob( unknownEngine, new NamedValuesDataModel(), 10, 10, OutputTypes.FILE_TYPE_PNG ) );
+
+    ChartRenderService service = new ChartRenderService( 4, 2 );
+    ChartRenderBatch batch = service.submitBatch( jobs );
+    assertEquals( 21, batch.size() );
+    boolean[] seen = new boolean[21];
+    while ( batch.hasNext() ) {
+      ChartRenderResult result = batch.next();
+      assertSame( jobs.get( result.getIndex() ), result.getJob() );
+      seen[result.getIndex()] = true;
+      if ( result.getIndex() < 20 ) {
+        assertTrue( result.isSuccessful() );
+        assertArrayEquals( ( "chart" + result.getIndex() ).getBytes( "UTF-8" ), result.getChart() );
+      } else {
+        assertTrue( result.getError() instanceof ChartProcessingException );
+        assertNull( result.getChart() );
+      }
+    }
+    for ( boolean jobSeen : seen ) {
+      assertTrue( jobSeen );
+    }
+    assertNull( batch.next() );
+    service.shutdown();
+  }
+
+  @Test
+  public void testSharedPlotColors() {
+    assertSame( ChartUtils.getPlotColors( new BarPlot() ), ChartUtils.getPlotColors( new LinePlot() ) );
+    assertSame( ChartUtils.getFont( "serif", null, null, 12 ), ChartUtils.getFont( "serif", null, null, 12 ) );
+  }
+
+  @Test
+  public void testPluginRegistry() {
+    ChartPluginRegistry registry = new ChartPluginRegistry();
+    IChartPlugin first = mock( IChartPlugin.class );
+    when( first.getPluginId() ).thenReturn( ENGINE_ID );
+    IChartPlugin second = mock( IChartPlugin.class );
+    when( second.getPluginId() ).thenReturn( ENGINE_ID );
+
+    registry.setPlugins( Arrays.asList( first, second ) );
+    assertSame( second, registry.getPlugin( ENGINE_ID ) );
+    assertNull( registry.getPlugin( "other" ) );
+    registry.register( first );
+    assertSame( first, registry.getPlugin( ENGINE_ID ) );
+    assertEquals( 1, registry.getPlugins().size() );
+  }
+
+  private IOutput createOutput( final String content ) throws Exception {
+    IOutput output = mock( IOutput.class );
+    when( output.persistChart( any( OutputStream.class ), any( OutputTypes.class ), anyInt(), anyInt() ) ).thenAnswer(
+        new Answer<OutputStream>() {
+          public OutputStream answer( InvocationOnMock invocation ) throws Throwable {
+            int active = activeRenders.incrementAndGet();
+            synchronized ( maxActiveRenders ) {
+              maxActiveRenders.set( Math.max( maxActiveRenders.get(), active ) );
+            }
+            try {
+              Thread.sleep( 5 );
+              OutputStream outputStream = (OutputStream) invocation.getArguments()[0];
+              outputStream.write( content.getBytes( "UTF-8" ) );
+              return outputStream;
+            } finally {
+              activeRenders.decrementAndGet();
+            }
+          }
+        } );
+    return output;
+  }
+
+  private ChartModel createChartModel( String title ) {
+    ChartModel chartModel = new ChartModel();
+    chartModel.setChartEngineId( ENGINE_ID );
+    chartModel.getTitle().setText( title );
+    return chartModel;
+  }
+}
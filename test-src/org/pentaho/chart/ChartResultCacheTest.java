@@ -0,0 +1,154 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.pentaho.chart.data.IChartDataModel;
+import org.pentaho.chart.data.NamedValue;
+import org.pentaho.chart.data.NamedValuesDataModel;
+import org.pentaho.chart.model.ChartModel;
+import org.pentaho.chart.plugin.IChartPlugin;
+import org.pentaho.chart.plugin.api.IOutput;
+import org.pentaho.chart.plugin.api.IOutput.OutputTypes;
+
+public class ChartResultCacheTest {
+
+  private static final String ENGINE_ID = "test";
+
+  private IChartPlugin plugin;
+  private long now;
+
+  @Before
+  public void setUp() throws Exception {
+    IOutput output = mock( IOutput.class );
+    when( output.persistChart( any( OutputStream.class ), any( OutputTypes.class ), anyInt(), anyInt() ) ).thenAnswer(
+        new Answer<OutputStream>() {
+          public OutputStream answer( InvocationOnMock invocation ) throws Throwable {
+            OutputStream outputStream = (OutputStream) invocation.getArguments()[0];
+            outputStream.write( new byte[] { 1, 2, 3, 4 } );
+            return outputStream;
+          }
+        } );
+    plugin = mock( IChartPlugin.class );
+    when( plugin.getPluginId() ).thenReturn( ENGINE_ID );
+    when( plugin.renderChartDocument( any( ChartModel.class ), any( IChartDataModel.class ),
+        any( IChartLinkGenerator.class ) ) ).thenReturn( output );
+    ChartBeanFactory.loadDefaultChartPlugins( Arrays.asList( plugin ) );
+  }
+
+  @After
+  public void tearDown() {
+    ChartBeanFactory.loadDefaultChartPlugins( new ArrayList<IChartPlugin>() );
+  }
+
+  @Test
+  public void testHitsAndMisses() throws Exception {
+    ChartResultCache cache = new ChartResultCache( 10, 1000, 0 );
+    byte[] first = cache.getChart( createChartModel( "a" ), createData( 1 ), null, 100, 100, OutputTypes.FILE_TYPE_PNG );
+    byte[] second =
+        cache.getChart( createChartModel( "a" ), createData( 1.0 ), null, 100, 100, OutputTypes.FILE_TYPE_PNG );
+    assertSame( first, second );
+    assertArrayEquals( new byte[] { 1, 2, 3, 4 }, first );
+    assertEquals( 1, cache.getHitCount() );
+    assertEquals( 1, cache.getMissCount() );
+
+    assertNotSame( first,
+        cache.getChart( createChartModel( "a" ), createData( 2 ), null, 100, 100, OutputTypes.FILE_TYPE_PNG ) );
+    assertNotSame( first,
+        cache.getChart( createChartModel( "a" ), createData( 1 ), null, 100, 50, OutputTypes.FILE_TYPE_PNG ) );
+    assertNotSame( first,
+        cache.getChart( createChartModel( "b" ), createData( 1 ), null, 100, 100, OutputTypes.FILE_TYPE_PNG ) );
+    assertEquals( 4, cache.getSize() );
+    assertEquals( 16, cache.getCachedBytes() );
+
+    cache.invalidate( createChartModel( "a" ) );
+    assertEquals( 1, cache.getSize() );
+    cache.invalidateAll();
+    assertEquals( 0, cache.getSize() );
+    assertEquals( 0, cache.getCachedBytes() );
+  }
+
+  @Test
+  public void testEviction() throws Exception {
+    ChartResultCache cache = new ChartResultCache( 2, 1000, 60000 ) {
+      long currentTimeMillis() {
+        return now;
+      }
+    };
+    ChartModel chartModel = createChartModel( "a" );
+    cache.getChart( chartModel, createData( 1 ), null, 100, 100, OutputTypes.FILE_TYPE_PNG );
+    cache.getChart( chartModel, createData( 2 ), null, 100, 100, OutputTypes.FILE_TYPE_PNG );
+    // touch the first chart so that the second one is the least recently used
+    cache.getChart( chartModel, createData( 1 ), null, 100, 100, OutputTypes.FILE_TYPE_PNG );
+    cache.getChart( chartModel, createData( 3 ), null, 100, 100, OutputTypes.FILE_TYPE_PNG );
+    assertEquals( 2, cache.getSize() );
+    assertEquals( 1, cache.getEvictionCount() );
+    cache.getChart( chartModel, createData( 1 ), null, 100, 100, OutputTypes.FILE_TYPE_PNG );
+    assertEquals( 2, cache.getHitCount() );
+
+    now += 60000;
+    cache.getChart( chartModel, createData( 1 ), null, 100, 100, OutputTypes.FILE_TYPE_PNG );
+    assertEquals( 2, cache.getHitCount() );
+    assertEquals( 4, cache.getMissCount() );
+    verify( plugin, times( 4 ) ).renderChartDocument( any( ChartModel.class ), any( IChartDataModel.class ),
+        any( IChartLinkGenerator.class ) );
+  }
+
+  @Test
+  public void testLinkedChartsAreNotCached() throws Exception {
+    ChartResultCache cache = new ChartResultCache( 10, 1000, 0 );
+    IChartLinkGenerator linkGenerator = mock( IChartLinkGenerator.class );
+    cache.getChart( createChartModel( "a" ), createData( 1 ), linkGenerator, 100, 100, OutputTypes.FILE_TYPE_PNG );
+    cache.getChart( createChartModel( "a" ), createData( 1 ), linkGenerator, 100, 100, OutputTypes.FILE_TYPE_PNG );
+    assertEquals( 0, cache.getSize() );
+    assertEquals( 0, cache.getHitCount() );
+  }
+
+  private ChartModel createChartModel( String title ) {
+    ChartModel chartModel = new ChartModel();
+    chartModel.setChartEngineId( ENGINE_ID );
+    chartModel.getTitle().setText( title );
+    return chartModel;
+  }
+
+  private IChartDataModel createData( Number value ) {
+    NamedValuesDataModel dataModel = new NamedValuesDataModel();
+    dataModel.add( new NamedValue( "east", value ) );
+    dataModel.add( new NamedValue( "west", 5 ) );
+    return dataModel;
+  }
+}
@@ -0,0 +1,113 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.data;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.pentaho.chart.data.ColumnarChartTableModel.ColumnType;
+
+/**
+ * This class tests ColumnarChartTableModel class
+ */
+public class ColumnarChartTableModelTest extends TestCase {
+  final Object[][] dataSample = {
+      {"Mary", new Integer(5), new Double(1.5), null}, //$NON-NLS-1$
+      {"Alison", new Integer(3), null, "x"}, //$NON-NLS-1$ //$NON-NLS-2$
+      {"Kathy", null, new Integer(2)}, //$NON-NLS-1$
+  };
+
+  @Test
+  /**
+   * Initializes data and checks the storage chosen for each column
+   */
+  public final void testDataInit() {
+    final ColumnarChartTableModel ct = new ColumnarChartTableModel();
+    ct.setData(dataSample);
+
+    assertEquals(3, ct.getRowCount());
+    assertEquals(4, ct.getColumnCount());
+    assertEquals(ColumnType.OBJECT, ct.getColumnType(0));
+    assertEquals(ColumnType.LONG, ct.getColumnType(1));
+    assertEquals(ColumnType.DOUBLE, ct.getColumnType(2));
+    assertEquals(ColumnType.OBJECT, ct.getColumnType(3));
+
+    assertEquals("Mary", ct.getValueAt(0, 0)); //$NON-NLS-1$
+    assertEquals(5L, ct.getValueAt(0, 1));
+    assertNull(ct.getValueAt(2, 1));
+    assertEquals(2.0, ct.getValueAt(2, 2));
+    assertNull(ct.getValueAt(2, 3));
+    assertNull(ct.getValueAt(-1, 0));
+    assertNull(ct.getValueAt(0, 100));
+
+    assertEquals(3.0, ct.getDouble(1, 1), 0.0);
+    assertEquals(1.5, ct.getDouble(0, 2), 0.0);
+    assertTrue(Double.isNaN(ct.getDouble(1, 2)));
+    assertTrue(Double.isNaN(ct.getDouble(0, 0)));
+  }
+
+  @Test
+  /**
+   * Checks that setting values widens the column storage as required
+   */
+  public final void testSetValueAt() {
+    final ColumnarChartTableModel ct = new ColumnarChartTableModel(2, 2);
+    assertNull(ct.getValueAt(0, 0));
+    assertTrue(Double.isNaN(ct.getDouble(1, 1)));
+
+    ct.setValueAt(7, 0, 0);
+    assertEquals(ColumnType.LONG, ct.getColumnType(0));
+    ct.setValueAt(0.25, 1, 0);
+    assertEquals(ColumnType.DOUBLE, ct.getColumnType(0));
+    assertEquals(7.0, ct.getDouble(0, 0), 0.0);
+    assertEquals(0.25, ct.getDouble(1, 0), 0.0);
+
+    ct.setValueAt("label", 0, 1); //$NON-NLS-1$
+    ct.setValueAt(4, 1, 1);
+    assertEquals(ColumnType.OBJECT, ct.getColumnType(1));
+    assertEquals("label", ct.getValueAt(0, 1)); //$NON-NLS-1$
+    assertEquals(4.0, ct.getDouble(1, 1), 0.0);
+
+    ct.setValueAt(null, 1, 0);
+    assertNull(ct.getValueAt(1, 0));
+
+    try {
+      ct.setValueAt(1, 2, 0);
+      fail("Shouldn't reach here"); //$NON-NLS-1$
+    } catch (ArrayIndexOutOfBoundsException e) {
+    }
+  }
+
+  @Test
+  /**
+   * Checks rotated access matches ChartTableModel
+   */
+  public final void testRotation() {
+    final ChartTableModel expected = new ChartTableModel(true);
+    expected.setData(dataSample);
+    final ColumnarChartTableModel ct = new ColumnarChartTableModel();
+    ct.setRotated(true);
+    ct.setData(dataSample);
+    ct.setColumnName(0, "first"); //$NON-NLS-1$
+
+    assertEquals(expected.getRowCount(), ct.getRowCount());
+    assertEquals(expected.getColumnCount(), ct.getColumnCount());
+    assertEquals("Alison", ct.getValueAt(0, 1)); //$NON-NLS-1$
+    assertEquals(3.0, ct.getDouble(1, 1), 0.0);
+    assertEquals("first", ct.getColumnName(0)); //$NON-NLS-1$
+  }
+}
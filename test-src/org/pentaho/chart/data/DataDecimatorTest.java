@@ -0,0 +1,121 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+public class DataDecimatorTest {
+
+  @Test
+  public void testLargestTriangleThreeBuckets() {
+    final NamedValuesDataModel model = createSeries(1000);
+    final NamedValuesDataModel decimated =
+        (NamedValuesDataModel) new LargestTriangleThreeBucketsDecimator().decimate(model, 100);
+
+    assertEquals(100, decimated.size());
+    final List<String> names = decimated.getNames();
+    assertEquals("d0", names.get(0)); //$NON-NLS-1$
+    assertEquals("d999", names.get(99)); //$NON-NLS-1$
+    // the spike is the most significant point of its bucket
+    assertTrue(names.contains("d500")); //$NON-NLS-1$
+    assertEquals(1000.0, decimated.getNamedValue("d500").getValue().doubleValue(), 0.0); //$NON-NLS-1$
+    assertEquals(model.getScalingFactor(), decimated.getScalingFactor());
+  }
+
+  @Test
+  public void testMinMax() {
+    final NamedValuesDataModel model = createSeries(1000);
+    model.getNamedValue("d250").setValue(-1000); //$NON-NLS-1$
+    final NamedValuesDataModel decimated = (NamedValuesDataModel) new MinMaxDecimator().decimate(model, 100);
+
+    assertTrue(decimated.size() <= 102);
+    assertEquals(1000.0, decimated.getNamedValue("d500").getValue().doubleValue(), 0.0); //$NON-NLS-1$
+    assertEquals(-1000.0, decimated.getNamedValue("d250").getValue().doubleValue(), 0.0); //$NON-NLS-1$
+    assertEquals("d999", decimated.getNames().get(decimated.size() - 1)); //$NON-NLS-1$
+  }
+
+  @Test
+  public void testAverage() {
+    final NamedValuesDataModel model = new NamedValuesDataModel();
+    for (int i = 0; i < 12; i++) {
+      model.add(new NamedValue("d" + i, i < 8 ? Integer.valueOf(i) : null)); //$NON-NLS-1$
+    }
+    final NamedValuesDataModel decimated = (NamedValuesDataModel) new AverageDecimator().decimate(model, 3);
+
+    assertEquals(3, decimated.size());
+    final Iterator<NamedValue> values = decimated.iterator();
+    NamedValue value = values.next();
+    assertEquals("d0", value.getName()); //$NON-NLS-1$
+    assertEquals(1.5, value.getValue().doubleValue(), 0.0);
+    value = values.next();
+    assertEquals("d4", value.getName()); //$NON-NLS-1$
+    assertEquals(5.5, value.getValue().doubleValue(), 0.0);
+    value = values.next();
+    assertEquals("d8", value.getName()); //$NON-NLS-1$
+    assertNull(value.getValue());
+  }
+
+  @Test
+  public void testMultiSeries() {
+    final MultiSeriesDataModel model = new MultiSeriesDataModel();
+    for (int i = 0; i < 1000; i++) {
+      model.addValue("d" + i, "flat", 1); //$NON-NLS-1$ //$NON-NLS-2$
+      model.addValue("d" + i, "spiky", i == 123 ? 500 : 0); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    final MultiSeriesDataModel decimated =
+        (MultiSeriesDataModel) new LargestTriangleThreeBucketsDecimator().decimate(model, 50);
+
+    assertTrue(decimated.getDomainCount() <= 100);
+    assertEquals(model.getSeriesNames(), decimated.getSeriesNames());
+    final int spike = decimated.getDomainIndex("d123"); //$NON-NLS-1$
+    assertTrue(spike >= 0);
+    assertEquals(500.0, decimated.getDouble(decimated.getSeriesIndex("spiky"), spike), 0.0); //$NON-NLS-1$
+    assertEquals(1.0, decimated.getDouble(decimated.getSeriesIndex("flat"), spike), 0.0); //$NON-NLS-1$
+  }
+
+  @Test
+  public void testSmallModelsAreUnchanged() {
+    final NamedValuesDataModel model = createSeries(10);
+    assertSame(model, new LargestTriangleThreeBucketsDecimator().decimate(model, 10));
+    assertSame(model, new MinMaxDecimator().decimate(model, 100));
+    final XYDataModel xyModel = new XYDataModel();
+    assertSame(xyModel, new AverageDecimator().decimate(xyModel, 2));
+  }
+
+  /**
+   * Creates a slowly rising series with a single spike in the middle.
+   */
+  private static NamedValuesDataModel createSeries(int size) {
+    final NamedValuesDataModel model = new NamedValuesDataModel();
+    final List<NamedValue> values = new ArrayList<NamedValue>();
+    for (int i = 0; i < size; i++) {
+      values.add(new NamedValue("d" + i, i == size / 2 ? 1000 : i / 100.0)); //$NON-NLS-1$
+    }
+    model.addAll(values);
+    return model;
+  }
+}
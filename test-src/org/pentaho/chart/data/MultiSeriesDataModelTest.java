@@ -0,0 +1,256 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+import org.pentaho.chart.data.MultiSeriesDataModel.DomainData;
+import org.pentaho.chart.data.MultiSeriesDataModel.SeriesData;
+
+/**
+ * This class tests MultiSeriesDataModel class
+ */
+public class MultiSeriesDataModelTest extends TestCase {
+
+  @Test
+  /**
+   * Checks ordering, summing and null filling of values
+   */
+  public final void testAddValue() {
+    final MultiSeriesDataModel model = new MultiSeriesDataModel();
+    model.addValue("Q1", "east", 1); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q2", "east", null); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q1", "west", 2); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q1", "east", 3.5); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q1", "west", null); //$NON-NLS-1$ //$NON-NLS-2$
+
+    assertEquals(Arrays.asList("Q1", "Q2"), model.getDomainNames()); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(Arrays.asList("east", "west"), model.getSeriesNames()); //$NON-NLS-1$ //$NON-NLS-2$
+
+    final List<DomainData> domains = model.getDomainData();
+    assertEquals(2, domains.size());
+    assertEquals("Q1", domains.get(0).getDomainName()); //$NON-NLS-1$
+    assertEquals(Arrays.asList("east", "west"), domains.get(0).getSeries()); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(4.5, domains.get(0).getNamedValue("east").getValue().doubleValue(), 0.0); //$NON-NLS-1$
+    assertEquals(2.0, domains.get(0).getNamedValue("west").getValue().doubleValue(), 0.0); //$NON-NLS-1$
+    assertNull(domains.get(1).getNamedValue("east").getValue()); //$NON-NLS-1$
+    assertNull(domains.get(1).getNamedValue("west").getValue()); //$NON-NLS-1$
+
+    final SeriesData west = model.getSeriesData("west"); //$NON-NLS-1$
+    assertEquals(Arrays.asList("Q1", "Q2"), west.getDomains()); //$NON-NLS-1$ //$NON-NLS-2$
+    assertNull(model.getSeriesData("north")); //$NON-NLS-1$
+    assertNull(model.getDomainData("Q3")); //$NON-NLS-1$
+    assertTrue(Double.isNaN(model.getDouble(1, 1)));
+  }
+
+  @Test
+  /**
+   * Checks that values survive growing the matrix
+   */
+  public final void testManyDomains() {
+    final MultiSeriesDataModel model = new MultiSeriesDataModel();
+    for (int i = 0; i < 100; i++) {
+      for (int j = 0; j < 7; j++) {
+        model.addValue("d" + i, "s" + j, i * j); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+    }
+    assertEquals(100, model.getDomainCount());
+    assertEquals(7, model.getSeriesCount());
+    assertEquals(99.0 * 6, model.getDouble(model.getSeriesIndex("s6"), model.getDomainIndex("d99")), 0.0); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(3.0 * 5, model.getSeriesData("s5").getNamedValue("d3").getValue().doubleValue(), 0.0); //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
+  @Test
+  /**
+   * Checks that series and domain data are shared, read-only views of the model
+   */
+  public final void testViews() {
+    final MultiSeriesDataModel model = new MultiSeriesDataModel();
+    model.addValue("Q1", "east", 1); //$NON-NLS-1$ //$NON-NLS-2$
+
+    final List<SeriesData> seriesList = model.getSeriesData();
+    assertSame(seriesList, model.getSeriesData());
+    final SeriesData east = seriesList.get(0);
+    assertSame(east, model.getSeriesData("east")); //$NON-NLS-1$
+    final DomainData q1 = model.getDomainData("Q1"); //$NON-NLS-1$
+    assertSame(q1, model.getDomainData().get(0));
+
+    model.addValue("Q2", "east", 2); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q1", "west", 3); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q1", "east", 4); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(2, east.size());
+    assertEquals(2, seriesList.size());
+    assertEquals(Arrays.asList("east", "west"), q1.getSeries()); //$NON-NLS-1$ //$NON-NLS-2$
+
+    double total = 0;
+    for (NamedValue namedValue : east) {
+      total += namedValue.getValue().doubleValue();
+    }
+    assertEquals(7.0, total, 0.0);
+    assertTrue(q1.contains(new NamedValue("west", 3))); //$NON-NLS-1$
+    assertFalse(q1.contains(new NamedValue("west", 2))); //$NON-NLS-1$
+    assertFalse(east.isEmpty());
+
+    try {
+      east.add(new NamedValue("Q3", 1)); //$NON-NLS-1$
+      fail("Shouldn't reach here"); //$NON-NLS-1$
+    } catch (UnsupportedOperationException e) {
+    }
+    try {
+      east.iterator().remove();
+      fail("Shouldn't reach here"); //$NON-NLS-1$
+    } catch (UnsupportedOperationException e) {
+    }
+  }
+
+  @Test
+  /**
+   * Checks the statistics are kept up to date as values are added and summed
+   */
+  public final void testStatistics() {
+    final MultiSeriesDataModel model = new MultiSeriesDataModel();
+    final ChartDataStatistics statistics = model.getStatistics();
+    assertEquals(0, statistics.getCount());
+    assertTrue(Double.isNaN(statistics.getMin()));
+
+    model.addValue("Q1", "east", 5); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q1", "west", -2); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q2", "east", 3); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q2", "west", 4); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q3", "east", null); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(4, statistics.getCount());
+    assertEquals(2, statistics.getNullCount());
+    assertEquals(10.0, statistics.getSum(), 0.0);
+    assertEquals(-2.0, statistics.getMin(), 0.0);
+    assertEquals(5.0, statistics.getMax(), 0.0);
+    assertEquals(5.0, statistics.getPositiveStackExtent(0), 0.0);
+    assertEquals(-2.0, statistics.getNegativeStackExtent(0), 0.0);
+    assertEquals(7.0, statistics.getMaxStackExtent(), 0.0);
+    assertEquals(-2.0, statistics.getMinStackExtent(), 0.0);
+
+    // Summing into the maximum moves it below another value, so the statistics must be refreshed from the model
+    model.addValue("Q1", "east", -6); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(4, statistics.getCount());
+    assertEquals(4.0, statistics.getSum(), 0.0);
+    assertEquals(4.0, statistics.getMax(), 0.0);
+    assertEquals(-2.0, statistics.getMin(), 0.0);
+    assertEquals(0.0, statistics.getPositiveStackExtent(0), 0.0);
+    assertEquals(-3.0, statistics.getNegativeStackExtent(0), 0.0);
+    assertEquals(-3.0, statistics.getMinStackExtent(), 0.0);
+
+    for (int i = 0; i < 100; i++) {
+      model.addValue("D" + i, "north", i); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    assertEquals(99.0, statistics.getMax(), 0.0);
+    assertEquals(99.0, statistics.getPositiveStackExtent(model.getDomainIndex("D99")), 0.0); //$NON-NLS-1$
+  }
+
+  @Test
+  /**
+   * Checks codes and lookups of the label dictionary backing the domain and series names
+   */
+  public final void testLabelDictionary() {
+    final LabelDictionary dictionary = new LabelDictionary();
+    for (int i = 0; i < 1000; i++) {
+      assertEquals(i, dictionary.add("label" + i)); //$NON-NLS-1$
+    }
+    assertEquals(1000, dictionary.size());
+    assertEquals(10, dictionary.add("label10")); //$NON-NLS-1$
+    assertEquals(999, dictionary.getCode("label999")); //$NON-NLS-1$
+    assertEquals(-1, dictionary.getCode("other")); //$NON-NLS-1$
+    assertEquals(-1, dictionary.getCode(null));
+    assertEquals(1000, dictionary.add(null));
+    assertEquals(1000, dictionary.getCode(null));
+    assertEquals("label5", dictionary.getLabels().get(5)); //$NON-NLS-1$
+    assertEquals(1001, dictionary.getLabels().size());
+
+    final MultiSeriesDataModel model = new MultiSeriesDataModel();
+    model.addValue("Q1", "east", 1); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q2", "Q1", 2); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(1, model.getDomainIndex("Q2")); //$NON-NLS-1$
+    assertEquals(1, model.getSeriesIndex("Q1")); //$NON-NLS-1$
+    assertEquals(-1, model.getSeriesIndex("Q2")); //$NON-NLS-1$
+  }
+
+  @Test
+  /**
+   * Checks replacing and removing values, and the notifications of changed cells
+   */
+  public final void testSetValue() {
+    final MultiSeriesDataModel model = new MultiSeriesDataModel();
+    final List<String> changes = new ArrayList<String>();
+    model.addModelListener(new IMultiSeriesDataModelListener() {
+      public void valueChanged(final MultiSeriesDataModel changedModel, final int seriesIndex, final int domainIndex) {
+        changes.add(seriesIndex + ":" + domainIndex); //$NON-NLS-1$
+      }
+    });
+    model.addValue("Q1", "east", 1); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q2", "east", 5); //$NON-NLS-1$ //$NON-NLS-2$
+    model.setValue("Q1", "east", 3); //$NON-NLS-1$ //$NON-NLS-2$
+    model.setValue("Q1", "west", -2); //$NON-NLS-1$ //$NON-NLS-2$
+    model.setValue("Q2", "east", null); //$NON-NLS-1$ //$NON-NLS-2$
+
+    assertEquals(Arrays.asList("0:0", "0:1", "0:0", "1:0", "0:1"), changes); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+    assertEquals(3.0, model.getValue(0, 0).doubleValue(), 0.0);
+    assertNull(model.getValue(0, 1));
+    final ChartDataStatistics statistics = model.getStatistics();
+    assertEquals(2, statistics.getCount());
+    assertEquals(1.0, statistics.getSum(), 0.0);
+    assertEquals(-2.0, statistics.getMin(), 0.0);
+    assertEquals(3.0, statistics.getMax(), 0.0);
+    assertEquals(3.0, statistics.getMaxStackExtent(), 0.0);
+  }
+
+  @Test
+  /**
+   * Checks that views are copied and serialized with their values
+   */
+  public final void testCopyViews() throws Exception {
+    final MultiSeriesDataModel model = new MultiSeriesDataModel();
+    model.addValue("Q1", "east", 1); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q2", "east", 2); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q2", "west", 3); //$NON-NLS-1$ //$NON-NLS-2$
+    model.getDomainData("Q2").setScalingFactor(10); //$NON-NLS-1$
+
+    final SeriesData east = model.getSeriesData("east"); //$NON-NLS-1$
+    final List<NamedValue> copy = new ArrayList<NamedValue>(east);
+    assertEquals(2, copy.size());
+    assertEquals("Q2", copy.get(1).getName()); //$NON-NLS-1$
+    assertEquals(2.0, copy.get(1).getValue().doubleValue(), 0.0);
+    assertEquals(2, east.toArray().length);
+    assertEquals(2, east.toArray(new NamedValue[0]).length);
+
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(model.getDomainData("Q2")); //$NON-NLS-1$
+    out.close();
+    final NamedValuesDataModel domain =
+        (NamedValuesDataModel) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+    assertEquals(Arrays.asList("east", "west"), domain.getNames()); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(3.0, domain.getNamedValue("west").getValue().doubleValue(), 0.0); //$NON-NLS-1$
+    assertEquals(10, domain.getScalingFactor().intValue());
+  }
+}
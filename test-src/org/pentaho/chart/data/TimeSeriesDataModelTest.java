@@ -0,0 +1,89 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.data;
+
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+/**
+ * This class tests TimeSeriesDataModel class
+ */
+public class TimeSeriesDataModelTest extends TestCase {
+
+  @Test
+  /**
+   * Checks that full series drop their oldest points
+   */
+  public final void testSlidingWindow() {
+    final TimeSeriesDataModel model = new TimeSeriesDataModel(3);
+    assertEquals(0, model.addSeries("cpu")); //$NON-NLS-1$
+    assertEquals(1, model.addSeries("memory")); //$NON-NLS-1$
+    assertEquals(0, model.addSeries("cpu")); //$NON-NLS-1$
+    assertEquals(-1, model.getSeriesIndex("disk")); //$NON-NLS-1$
+
+    for (int i = 1; i <= 5; i++) {
+      model.addPoint("cpu", i * 1000L, i); //$NON-NLS-1$
+    }
+    model.addPoint(1, 4000L, Double.NaN);
+
+    assertEquals(Arrays.asList("cpu", "memory"), model.getSeriesNames()); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(3, model.getItemCount(0));
+    assertEquals(3000L, model.getTimestamp(0, 0));
+    assertEquals(3.0, model.getValue(0, 0), 0);
+    assertEquals(5000L, model.getTimestamp(0, 2));
+    assertEquals(5.0, model.getValue(0, 2), 0);
+    assertEquals(1, model.getItemCount(1));
+    assertTrue(Double.isNaN(model.getValue(1, 0)));
+
+    try {
+      model.getValue(0, 3);
+      fail("Shouldn't reach here"); //$NON-NLS-1$
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    }
+  }
+
+  @Test
+  /**
+   * Checks dropping points by age
+   */
+  public final void testRemoveOlderThan() {
+    final TimeSeriesDataModel model = new TimeSeriesDataModel(4);
+    for (int i = 1; i <= 6; i++) {
+      model.addPoint("cpu", i * 1000L, i); //$NON-NLS-1$
+      model.addPoint("memory", i * 500L, i); //$NON-NLS-1$
+    }
+
+    long modificationCount = model.getModificationCount();
+    model.removeOlderThan(4500L);
+    assertTrue(model.getModificationCount() > modificationCount);
+    assertEquals(2, model.getItemCount(0));
+    assertEquals(5000L, model.getTimestamp(0, 0));
+    assertEquals(0, model.getItemCount(1));
+
+    modificationCount = model.getModificationCount();
+    model.removeOlderThan(4500L);
+    assertEquals(modificationCount, model.getModificationCount());
+
+    model.addPoint("memory", 7000L, 7); //$NON-NLS-1$
+    assertEquals(1, model.getItemCount(1));
+    assertEquals(7.0, model.getValue(1, 0), 0);
+  }
+}
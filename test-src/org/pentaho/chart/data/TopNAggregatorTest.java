@@ -0,0 +1,94 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.junit.Test;
+import org.pentaho.chart.model.ChartDataDefinition;
+
+public class TopNAggregatorTest {
+
+  @Test
+  public void testNamedValues() {
+    final NamedValuesDataModel model = new NamedValuesDataModel();
+    model.add(new NamedValue("a", 5)); //$NON-NLS-1$
+    model.add(new NamedValue("b", 1)); //$NON-NLS-1$
+    model.add(new NamedValue("c", -9)); //$NON-NLS-1$
+    model.add(new NamedValue("d", null)); //$NON-NLS-1$
+    model.add(new NamedValue("e", 2)); //$NON-NLS-1$
+    model.setScalingFactor(10);
+
+    final NamedValuesDataModel aggregated =
+        (NamedValuesDataModel) new TopNAggregator(3, 0, "rest").aggregate(model); //$NON-NLS-1$
+    assertEquals(Arrays.asList("a", "c", "e", "rest"), aggregated.getNames()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+    assertEquals(1.0, aggregated.getNamedValue("rest").getValue().doubleValue(), 0.0); //$NON-NLS-1$
+    assertEquals(10, aggregated.getScalingFactor());
+    assertEquals(5, model.size());
+
+    assertSame(model, new TopNAggregator(5, 0, null).aggregate(model));
+  }
+
+  @Test
+  public void testMultiSeries() {
+    final MultiSeriesDataModel model = new MultiSeriesDataModel();
+    model.addValue("Q1", "east", 1); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q1", "west", 2); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q1", "north", 100); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q2", "east", 10); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q3", "west", 20); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q3", "north", 1); //$NON-NLS-1$ //$NON-NLS-2$
+
+    final MultiSeriesDataModel aggregated =
+        (MultiSeriesDataModel) new TopNAggregator(2, 1, "other").aggregate(model); //$NON-NLS-1$
+    assertEquals(Arrays.asList("Q1", "Q3", "other"), aggregated.getDomainNames()); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    assertEquals(Arrays.asList("north", "other"), aggregated.getSeriesNames()); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(100.0, aggregated.getDouble(0, 0), 0.0);
+    assertEquals(3.0, aggregated.getDouble(1, 0), 0.0);
+    assertEquals(1.0, aggregated.getDouble(0, 1), 0.0);
+    assertEquals(20.0, aggregated.getDouble(1, 1), 0.0);
+    assertNull(aggregated.getValue(0, 2));
+    assertEquals(10.0, aggregated.getDouble(1, 2), 0.0);
+  }
+
+  @Test
+  public void testSelectLargest() {
+    final BitSet selected = TopNAggregator.selectLargest(new double[] {3, 1, 3, 7, 3, 0}, 3);
+    final BitSet expected = new BitSet();
+    expected.set(0);
+    expected.set(2);
+    expected.set(3);
+    assertEquals(expected, selected);
+  }
+
+  @Test
+  public void testDataDefinition() {
+    final ChartDataDefinition dataDefinition = new ChartDataDefinition();
+    assertNull(TopNAggregator.forDataDefinition(dataDefinition));
+    dataDefinition.setMaxCategories(10);
+    final TopNAggregator aggregator = TopNAggregator.forDataDefinition(dataDefinition);
+    assertEquals(10, aggregator.getMaxCategories());
+    assertEquals(0, aggregator.getMaxSeries());
+    assertEquals("Other", aggregator.getOtherName()); //$NON-NLS-1$
+  }
+}
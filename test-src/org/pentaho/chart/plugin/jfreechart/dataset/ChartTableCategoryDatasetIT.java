@@ -0,0 +1,180 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+
+package org.pentaho.chart.plugin.jfreechart.dataset;
+
+import junit.framework.TestCase;
+
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.junit.Test;
+import org.pentaho.chart.ChartBoot;
+import org.pentaho.chart.ChartFactory;
+import org.pentaho.chart.core.ChartDocument;
+import org.pentaho.chart.data.ChartTableModel;
+import org.pentaho.chart.data.ColumnarChartTableModel;
+import org.pentaho.chart.plugin.jfreechart.utils.JFreeChartUtils;
+import org.pentaho.reporting.libraries.base.config.Configuration;
+
+/**
+ * Compares <code>ChartTableCategoryDataset</code> with the <code>DefaultCategoryDataset</code> the category dataset
+ * generator used to copy from the same table.
+ */
+public class ChartTableCategoryDatasetIT extends TestCase {
+
+  private static final Object[][] DATA = {
+      {1.5, 2, null},
+      {3, null, -4.25},
+      {null, null, null},
+      {5, 6, 7},
+      {8, Double.NaN, "n/a"}}; //$NON-NLS-1$
+
+  protected void setUp() throws Exception {
+    super.setUp();
+    ChartBoot.getInstance().start();
+  }
+
+  @Test
+  public void testAllColumns() throws Exception {
+    final ChartDocument chartDocument = getChartDocument("ChartTableCategoryDatasetTest1.xml"); //$NON-NLS-1$
+    final ChartTableModel data = createChartTableModel(new ChartTableModel(), new String[] {"Jan", "Feb", "Mar", "Apr", "May"}, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+        new String[] {"budget", "sales", "forecast"}); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+    final ChartTableCategoryDataset dataset = new ChartTableCategoryDataset(chartDocument, data);
+    assertSameDataset(copyDataset(chartDocument, data, null), dataset);
+    // The empty row is left out
+    assertEquals(4, dataset.getRowCount());
+    assertEquals(3, dataset.getColumnCount());
+    assertNull(dataset.getValue("Jan", "forecast")); //$NON-NLS-1$ //$NON-NLS-2$
+    assertNull(dataset.getValue("May", "forecast")); //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
+  @Test
+  public void testDuplicateKeys() throws Exception {
+    final ChartDocument chartDocument = getChartDocument("ChartTableCategoryDatasetTest1.xml"); //$NON-NLS-1$
+    final String[] rowNames = {"Jan", "Feb", "Jan", "Feb", "Jan"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+    final String[] columnNames = {"sales", "budget", "sales"}; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    for (ChartTableModel data : new ChartTableModel[] {new ChartTableModel(), new ColumnarChartTableModel()}) {
+      createChartTableModel(data, rowNames, columnNames);
+      final ChartTableCategoryDataset dataset = new ChartTableCategoryDataset(chartDocument, data);
+      assertSameDataset(copyDataset(chartDocument, data, null), dataset);
+      assertEquals(2, dataset.getRowCount());
+      assertEquals(2, dataset.getColumnCount());
+      // The last value of the merged rows and columns wins
+      assertEquals(8.0, dataset.getValue("Jan", "sales").doubleValue(), 0); //$NON-NLS-1$ //$NON-NLS-2$
+      assertEquals(7.0, dataset.getValue("Feb", "sales").doubleValue(), 0); //$NON-NLS-1$ //$NON-NLS-2$
+      assertEquals(6.0, dataset.getValue("Feb", "budget").doubleValue(), 0); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+  }
+
+  @Test
+  public void testColumnSubsets() throws Exception {
+    final ChartDocument chartDocument = getChartDocument("ChartTableCategoryDatasetTest1.xml"); //$NON-NLS-1$
+    final ChartTableModel data = createChartTableModel(new ChartTableModel(), new String[] {"Jan", "Feb", "Mar", "Apr", "May"}, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+        new String[] {"budget", "sales", "forecast"}); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    final Integer[][] subsets = {{}, {0}, {1}, {0, 2}, {1, 2}, {2, 0}, {0, 1, 2, 7}};
+    for (Integer[] columnPositions : subsets) {
+      assertSameDataset(copyDataset(chartDocument, data, columnPositions),
+          new ChartTableCategoryDataset(chartDocument, data, columnPositions));
+    }
+    final ChartTableCategoryDataset dataset = new ChartTableCategoryDataset(chartDocument, data, new Integer[] {1});
+    // Rows without a value in the selected columns are left out
+    assertEquals(2, dataset.getRowCount());
+    assertEquals(1, dataset.getColumnCount());
+    assertEquals("sales", dataset.getColumnKey(0)); //$NON-NLS-1$
+  }
+
+  @Test
+  public void testScale() throws Exception {
+    final ChartDocument chartDocument = getChartDocument("ChartTableCategoryDatasetTest2.xml"); //$NON-NLS-1$
+    assertEquals(0.5, JFreeChartUtils.getScale(chartDocument), 0);
+    final ChartTableModel data = createChartTableModel(new ColumnarChartTableModel(), new String[] {"Jan", "Feb", "Mar", "Apr", "May"}, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$
+        new String[] {"budget", "sales", "forecast"}); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+
+    final ChartTableCategoryDataset dataset = new ChartTableCategoryDataset(chartDocument, data, new Integer[] {0, 2});
+    assertSameDataset(copyDataset(chartDocument, data, new Integer[] {0, 2}), dataset);
+    assertEquals(0.75, dataset.getValue("Jan", "budget").doubleValue(), 0); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(-2.125, dataset.getValue("Feb", "forecast").doubleValue(), 0); //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
+  private ChartDocument getChartDocument(final String fileName) throws Exception {
+    return ChartFactory.getChartDocument(getClass().getResource(fileName));
+  }
+
+  private static ChartTableModel createChartTableModel(final ChartTableModel data, final String[] rowNames,
+                                                       final String[] columnNames) {
+    data.setData(DATA);
+    for (int row = 0; row < rowNames.length; row++) {
+      data.setRowName(row, rowNames[row]);
+    }
+    for (int column = 0; column < columnNames.length; column++) {
+      data.setColumnName(column, columnNames[column]);
+    }
+    return data;
+  }
+
+  /**
+   * Copies the table into a <code>DefaultCategoryDataset</code> row by row, as the category dataset generator did
+   * before it read the table through <code>ChartTableCategoryDataset</code>.
+   */
+  private static DefaultCategoryDataset copyDataset(final ChartDocument chartDocument, final ChartTableModel data,
+                                                    final Integer[] columnPositions) {
+    final DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+    final Configuration config = ChartBoot.getInstance().getGlobalConfig();
+    final String noRowNameSpecified = config.getConfigProperty("org.pentaho.chart.namespace.row_name_not_defined"); //$NON-NLS-1$
+    final String noColumnName = config.getConfigProperty("org.pentaho.chart.namespace.column_name_not_defined"); //$NON-NLS-1$
+    final double scale = JFreeChartUtils.getScale(chartDocument);
+    for (int row = 0; row < data.getRowCount(); row++) {
+      int positionCounter = 0;
+      for (int column = 0; column < data.getColumnCount(); column++) {
+        if (columnPositions != null) {
+          if (positionCounter >= columnPositions.length) {
+            break;
+          }
+          if (column != columnPositions[positionCounter]) {
+            continue;
+          }
+          positionCounter++;
+        }
+        final String rawColumnName = JFreeChartUtils.getColumnName(data, column);
+        final String columnName = rawColumnName != null ? rawColumnName : noColumnName + column;
+        final Object rawRowName = JFreeChartUtils.getRawRowName(data, chartDocument, row);
+        final String rowName = rawRowName != null ? String.valueOf(rawRowName) : (noRowNameSpecified + row);
+        final double rawValue = data.getDouble(row, column);
+        if (!Double.isNaN(rawValue)) {
+          dataset.setValue(rawValue * scale, rowName, columnName);
+        }
+      }
+    }
+    return dataset;
+  }
+
+  private static void assertSameDataset(final CategoryDataset expected, final CategoryDataset actual) {
+    assertEquals(expected.getRowKeys(), actual.getRowKeys());
+    assertEquals(expected.getColumnKeys(), actual.getColumnKeys());
+    for (int row = 0; row < expected.getRowCount(); row++) {
+      assertEquals(row, actual.getRowIndex(expected.getRowKey(row)));
+      for (int column = 0; column < expected.getColumnCount(); column++) {
+        assertEquals(column, actual.getColumnIndex(expected.getColumnKey(column)));
+        assertEquals(expected.getValue(row, column), actual.getValue(row, column));
+      }
+    }
+    assertEquals(-1, actual.getRowIndex("missing")); //$NON-NLS-1$
+    assertEquals(-1, actual.getColumnIndex("missing")); //$NON-NLS-1$
+  }
+}
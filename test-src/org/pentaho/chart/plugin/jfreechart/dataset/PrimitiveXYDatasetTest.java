@@ -0,0 +1,83 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.plugin.jfreechart.dataset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.jfree.data.Range;
+import org.jfree.data.general.DatasetUtilities;
+import org.junit.Test;
+import org.pentaho.chart.data.ColumnarChartTableModel;
+import org.pentaho.chart.data.MultiSeriesXYDataModel;
+import org.pentaho.chart.data.XYDataModel;
+import org.pentaho.chart.data.XYDataPoint;
+
+public class PrimitiveXYDatasetTest {
+
+  @Test
+  public void testDataModel() {
+    XYDataModel data = new XYDataModel();
+    data.add(new XYDataPoint(3, 30));
+    data.add(new XYDataPoint(1, null));
+    data.add(new XYDataPoint(2.5, -4));
+
+    PrimitiveXYDataset dataset = PrimitiveXYDataset.fromDataModel(data);
+    assertEquals(1, dataset.getSeriesCount());
+    assertEquals("", dataset.getSeriesKey(0));
+    assertEquals(3, dataset.getItemCount(0));
+    assertEquals(3.0, dataset.getXValue(0, 0), 0);
+    assertEquals(1.0, dataset.getX(0, 1).doubleValue(), 0);
+    assertNull(dataset.getY(0, 1));
+    assertEquals(-4.0, dataset.getYValue(0, 2), 0);
+    assertEquals(new Range(1, 3), DatasetUtilities.findDomainBounds(dataset));
+    assertEquals(new Range(-4, 30), DatasetUtilities.findRangeBounds(dataset));
+  }
+
+  @Test
+  public void testMultiSeriesDataModel() {
+    MultiSeriesXYDataModel data = new MultiSeriesXYDataModel();
+    data.addDataPoint("b", 1, 2);
+    data.addDataPoint("a", 3, 4);
+    data.addDataPoint("b", 5, 6);
+
+    PrimitiveXYDataset dataset = PrimitiveXYDataset.fromDataModel(data);
+    assertEquals(2, dataset.getSeriesCount());
+    assertEquals("b", dataset.getSeriesKey(0));
+    assertEquals(2, dataset.getItemCount(0));
+    assertEquals(5.0, dataset.getXValue(0, 1), 0);
+    assertEquals("a", dataset.getSeriesKey(1));
+    assertEquals(4.0, dataset.getYValue(1, 0), 0);
+  }
+
+  @Test
+  public void testTableModel() {
+    ColumnarChartTableModel data = new ColumnarChartTableModel();
+    data.setData(new Object[][] { { 1, 10.5, null }, { 2, 20.5, 7 } });
+    data.setColumnName(1, "first");
+    data.setColumnName(2, "second");
+
+    PrimitiveXYDataset dataset = PrimitiveXYDataset.fromTableModel(data, 0, 1, 2);
+    assertEquals(2, dataset.getSeriesCount());
+    assertEquals("first", dataset.getSeriesKey(0));
+    assertEquals(2.0, dataset.getXValue(1, 1), 0);
+    assertEquals(20.5, dataset.getYValue(0, 1), 0);
+    assertNull(dataset.getY(1, 0));
+    assertEquals(new Range(7, 20.5), dataset.getRangeBounds(false));
+  }
+}
@@ -0,0 +1,123 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+
+package org.pentaho.chart.plugin.jfreechart.dataset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.general.DatasetChangeEvent;
+import org.jfree.data.general.DatasetChangeListener;
+import org.junit.Test;
+import org.pentaho.chart.data.MultiSeriesDataModel;
+
+public class StatisticsCategoryDatasetTest {
+
+  @Test
+  public void testSerialization() throws Exception {
+    MultiSeriesDataModel model = new MultiSeriesDataModel();
+    model.addValue("Q1", "east", 10); //$NON-NLS-1$ //$NON-NLS-2$
+    model.addValue("Q2", "west", 30); //$NON-NLS-1$ //$NON-NLS-2$
+    model.setScalingFactor(10);
+    JFreeChart chart = ChartFactory.createBarChart("sales", "quarter", "amount", new StatisticsCategoryDataset(model), //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        PlotOrientation.VERTICAL, true, false, false);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream(bytes);
+    out.writeObject(chart);
+    out.close();
+    JFreeChart copy = (JFreeChart) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+
+    CategoryDataset dataset = copy.getCategoryPlot().getDataset();
+    assertEquals(2, dataset.getRowCount());
+    assertEquals(2, dataset.getColumnCount());
+    assertEquals(1.0, dataset.getValue("east", "Q1").doubleValue(), 0); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(3.0, dataset.getValue("west", "Q2").doubleValue(), 0); //$NON-NLS-1$ //$NON-NLS-2$
+    assertNull(dataset.getValue("west", "Q1")); //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
+  @Test
+  public void testScaledUpdates() throws Exception {
+    MultiSeriesDataModel model = new MultiSeriesDataModel();
+    model.addValue("Q1", "east", 10); //$NON-NLS-1$ //$NON-NLS-2$
+    model.setScalingFactor(10);
+    assertUpdates(model);
+  }
+
+  @Test
+  public void testUpdates() throws Exception {
+    MultiSeriesDataModel model = new MultiSeriesDataModel();
+    model.addValue("Q1", "east", 1); //$NON-NLS-1$ //$NON-NLS-2$
+    assertUpdates(model);
+  }
+
+  /**
+   * Adds series and domains past the initial capacity of the dataset over a model holding "east" 1 in "Q1" once
+   * scaled, and checks the values and the change events.
+   */
+  private static void assertUpdates(MultiSeriesDataModel model) {
+    double scale = model.getScalingFactor() != null ? model.getScalingFactor().doubleValue() : 1;
+    StatisticsCategoryDataset dataset = new StatisticsCategoryDataset(model);
+    final AtomicInteger events = new AtomicInteger();
+    dataset.addChangeListener(new DatasetChangeListener() {
+      public void datasetChanged(DatasetChangeEvent event) {
+        events.incrementAndGet();
+      }
+    });
+    model.addModelListener(dataset);
+    assertFalse(dataset.fireChanges());
+
+    model.addValue("Q1", "east", 2 * scale); //$NON-NLS-1$ //$NON-NLS-2$
+    for (int i = 0; i < 5; i++) {
+      model.addValue("D" + i, "S" + i, i * scale); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    model.setValue("D4", "east", -0.5 * scale); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(0, events.get());
+    assertTrue(dataset.fireChanges());
+    assertEquals(1, events.get());
+    assertFalse(dataset.fireChanges());
+    assertEquals(1, events.get());
+
+    assertEquals(6, dataset.getRowCount());
+    assertEquals(6, dataset.getColumnCount());
+    assertEquals(3.0, dataset.getValue("east", "Q1").doubleValue(), 0); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(-0.5, dataset.getValue("east", "D4").doubleValue(), 0); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(4.0, dataset.getValue("S4", "D4").doubleValue(), 0); //$NON-NLS-1$ //$NON-NLS-2$
+    assertNull(dataset.getValue("S4", "Q1")); //$NON-NLS-1$ //$NON-NLS-2$
+    assertNull(dataset.getValue("east", "D0")); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(-0.5, dataset.getRangeLowerBound(false), 0);
+    assertEquals(4.0, dataset.getRangeUpperBound(false), 0);
+
+    model.setValue("D4", "east", null); //$NON-NLS-1$ //$NON-NLS-2$
+    assertTrue(dataset.fireChanges());
+    assertEquals(2, events.get());
+    assertNull(dataset.getValue("east", "D4")); //$NON-NLS-1$ //$NON-NLS-2$
+  }
+}
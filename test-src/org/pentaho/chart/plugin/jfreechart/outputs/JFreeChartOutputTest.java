@@ -0,0 +1,152 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+
+package org.pentaho.chart.plugin.jfreechart.outputs;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.ChartUtilities;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.CategoryPlot;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.junit.Test;
+import org.pentaho.chart.data.MultiSeriesDataModel;
+import org.pentaho.chart.data.TimeSeriesDataModel;
+import org.pentaho.chart.plugin.api.IOutput;
+import org.pentaho.chart.plugin.jfreechart.dataset.StatisticsCategoryDataset;
+import org.pentaho.chart.plugin.jfreechart.dataset.TimeSeriesModelDataset;
+
+public class JFreeChartOutputTest {
+
+  @Test
+  public void testJpeg() throws Exception {
+    JFreeChart chart = createChart();
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    ChartUtilities.writeChartAsJPEG(expected, chart, 300, 200);
+
+    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    new JFreeChartOutput(chart).persistChart(actual, IOutput.OutputTypes.FILE_TYPE_JPEG, 300, 200);
+    assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+  }
+
+  @Test
+  public void testDefaultPng() throws Exception {
+    JFreeChart chart = createChart();
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    ChartUtilities.writeChartAsPNG(expected, chart, 300, 200);
+
+    ByteArrayOutputStream actual = new ByteArrayOutputStream();
+    new JFreeChartOutput(chart).persistChart(actual, IOutput.OutputTypes.FILE_TYPE_PNG, 300, 200);
+    assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+  }
+
+  @Test
+  public void testPooledPng() throws Exception {
+    JFreeChart chart = createChart();
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    ChartUtilities.writeChartAsPNG(expected, chart, 300, 200);
+
+    JFreeChartOutput output = new JFreeChartOutput(chart);
+    for (int i = 0; i < 2; i++) {
+      ByteArrayOutputStream actual = new ByteArrayOutputStream();
+      output.persistChart(actual, IOutput.OutputTypes.FILE_TYPE_PNG, 300, 200, null);
+      assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+    }
+  }
+
+  @Test
+  public void testTimeSeriesEncodedOutsideLocks() throws Exception {
+    final TimeSeriesDataModel dataModel = new TimeSeriesDataModel(10);
+    dataModel.addPoint("load", 1000, 1); //$NON-NLS-1$
+    final TimeSeriesModelDataset dataset = new TimeSeriesModelDataset(dataModel);
+    final JFreeChart chart = ChartFactory.createTimeSeriesChart("load", "time", "value", dataset, true, false, false); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    final AtomicInteger encoded = new AtomicInteger();
+    PngEncoder pngEncoder = new PngEncoder(PngEncoder.Profile.FASTEST) {
+      public void encode(BufferedImage image, OutputStream outputStream) throws IOException {
+        assertFalse(Thread.holdsLock(dataModel));
+        assertFalse(Thread.holdsLock(chart));
+        encoded.incrementAndGet();
+        super.encode(image, outputStream);
+      }
+    };
+
+    JFreeTimeSeriesChartOutput output = new JFreeTimeSeriesChartOutput(chart, dataModel, dataset);
+    output.writeChart(new ByteArrayOutputStream(), IOutput.OutputTypes.FILE_TYPE_PNG, 300, 200, pngEncoder);
+    dataModel.addPoint("load", 2000, 3); //$NON-NLS-1$
+    assertEquals(1000, dataset.getDomainUpperBound(false), 0);
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    output.writeChart(outputStream, IOutput.OutputTypes.FILE_TYPE_PNG, 300, 200, pngEncoder);
+    assertEquals(2000, dataset.getDomainUpperBound(false), 0);
+    assertEquals(2, encoded.get());
+    assertTrue(outputStream.size() > 0);
+  }
+
+  @Test
+  public void testLiveChartUpdates() throws Exception {
+    MultiSeriesDataModel dataModel = new MultiSeriesDataModel();
+    dataModel.addValue("Q1", "east", 10); //$NON-NLS-1$ //$NON-NLS-2$
+    dataModel.setScalingFactor(10);
+    StatisticsCategoryDataset dataset = new StatisticsCategoryDataset(dataModel);
+    JFreeChart chart = ChartFactory.createBarChart("sales", "quarter", "amount", dataset, PlotOrientation.VERTICAL, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        true, false, false);
+    CategoryPlot plot = chart.getCategoryPlot();
+    plot.getRenderer().setSeriesPaint(0, Color.RED);
+    JFreeLiveChartOutput output = new JFreeLiveChartOutput(chart, dataModel, dataset);
+    output.setSeriesColors(Arrays.asList(0x112233, 0x445566));
+    output.writeChart(new ByteArrayOutputStream(), IOutput.OutputTypes.FILE_TYPE_PNG, 300, 200, null);
+    assertEquals(1.0, plot.getRangeAxis().getUpperBound(), 0.5);
+
+    output.addValue("Q2", "west", 200); //$NON-NLS-1$ //$NON-NLS-2$
+    output.setValue("Q1", "north", 50); //$NON-NLS-1$ //$NON-NLS-2$
+    output.addValue("Q1", "east", 20); //$NON-NLS-1$ //$NON-NLS-2$
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    output.writeChart(outputStream, IOutput.OutputTypes.FILE_TYPE_PNG, 300, 200, null);
+    assertTrue(outputStream.size() > 0);
+
+    assertEquals(3, plot.getDataset().getRowCount());
+    assertEquals(2, plot.getDataset().getColumnCount());
+    assertEquals(3.0, plot.getDataset().getValue("east", "Q1").doubleValue(), 0); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(20.0, plot.getDataset().getValue("west", "Q2").doubleValue(), 0); //$NON-NLS-1$ //$NON-NLS-2$
+    assertTrue(plot.getRangeAxis().getUpperBound() >= 20);
+    assertEquals(Color.RED, plot.getRenderer().getSeriesPaint(0));
+    assertEquals(new Color(0x445566), plot.getRenderer().getSeriesPaint(1));
+    assertEquals(new Color(0x112233), plot.getRenderer().getSeriesPaint(2));
+  }
+
+  private static JFreeChart createChart() {
+    DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+    dataset.addValue(1, "east", "Q1"); //$NON-NLS-1$ //$NON-NLS-2$
+    dataset.addValue(3, "east", "Q2"); //$NON-NLS-1$ //$NON-NLS-2$
+    dataset.addValue(2, "west", "Q1"); //$NON-NLS-1$ //$NON-NLS-2$
+    return ChartFactory.createBarChart("sales", "quarter", "amount", dataset, PlotOrientation.VERTICAL, true, false, //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+        false);
+  }
+}
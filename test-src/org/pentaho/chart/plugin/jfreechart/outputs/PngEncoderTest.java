@@ -0,0 +1,171 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+package org.pentaho.chart.plugin.jfreechart.outputs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Adler32;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+import org.pentaho.chart.plugin.jfreechart.outputs.PngEncoder.Profile;
+
+public class PngEncoderTest {
+
+  @Test
+  public void testProfiles() throws Exception {
+    BufferedImage image = createImage(BufferedImage.TYPE_INT_RGB, 101, 67);
+    for (Profile profile : Profile.values()) {
+      byte[] png = encode(new PngEncoder(profile), image);
+      assertEquals(2, png[25]);
+      assertSamePixels(image, ImageIO.read(new ByteArrayInputStream(png)));
+    }
+  }
+
+  @Test
+  public void testAlpha() throws Exception {
+    BufferedImage image = createImage(BufferedImage.TYPE_INT_ARGB, 40, 30);
+    byte[] png = encode(new PngEncoder(Profile.BALANCED), image);
+    assertEquals(2, png[25]);
+
+    image.setRGB(3, 4, 0x80FF0000);
+    png = encode(new PngEncoder(Profile.SMALLEST), image);
+    assertEquals(6, png[25]);
+    assertSamePixels(image, ImageIO.read(new ByteArrayInputStream(png)));
+  }
+
+  @Test
+  public void testParallelDeflate() throws Exception {
+    ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      BufferedImage image = createImage(BufferedImage.TYPE_INT_ARGB, 500, 900);
+      image.setRGB(0, 0, 0);
+      for (Profile profile : Profile.values()) {
+        byte[] png = encode(new PngEncoder(profile, pool, 0), image);
+        assertSamePixels(image, ImageIO.read(new ByteArrayInputStream(png)));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public void testIndexed() throws Exception {
+    BufferedImage image = createImage(BufferedImage.TYPE_INT_ARGB, 120, 80);
+    image.setRGB(5, 5, 0x40102030);
+    byte[] png = encode(new PngEncoder(Profile.BALANCED), image, new int[] {0xFF0000});
+    assertEquals(3, png[25]);
+    assertSamePixels(image, ImageIO.read(new ByteArrayInputStream(png)));
+  }
+
+  @Test
+  public void testQuantized() throws Exception {
+    BufferedImage image = new BufferedImage(300, 200, BufferedImage.TYPE_INT_RGB);
+    Graphics2D graphics = image.createGraphics();
+    graphics.setColor(Color.WHITE);
+    graphics.fillRect(0, 0, 300, 200);
+    graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+    Color[] colors = {Color.RED, Color.BLUE, new Color(0x336699)};
+    for (int i = 0; i < 60; i++) {
+      graphics.setColor(colors[i % colors.length]);
+      graphics.drawLine(i * 5, 0, 300 - i * 3, 200);
+    }
+    graphics.setPaint(new GradientPaint(0, 0, Color.GREEN, 300, 0, Color.YELLOW));
+    graphics.fillRect(0, 150, 300, 20);
+    graphics.dispose();
+
+    byte[] png = encode(new PngEncoder(Profile.BALANCED), image, new int[] {0xFFFFFF, 0xFF0000, 0x0000FF, 0x336699});
+    assertEquals(3, png[25]);
+    BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(png));
+    for (int y = 0; y < 200; y++) {
+      for (int x = 0; x < 300; x++) {
+        int expected = image.getRGB(x, y);
+        int actual = decoded.getRGB(x, y);
+        if ((expected == Color.WHITE.getRGB()) || (expected == Color.RED.getRGB()) || (expected == Color.BLUE.getRGB())) {
+          assertEquals(expected, actual);
+        }
+        for (int shift = 0; shift < 24; shift += 8) {
+          assertTrue(x + "," + y + " " + Integer.toHexString(expected) + " " + Integer.toHexString(actual), Math.abs(((expected >> shift) & 0xFF) - ((actual >> shift) & 0xFF)) <= 48);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testCombineAdler32() {
+    byte[] data = new byte[100000];
+    new Random(1).nextBytes(data);
+    Adler32 whole = new Adler32();
+    whole.update(data);
+    Adler32 first = new Adler32();
+    first.update(data, 0, 30000);
+    Adler32 second = new Adler32();
+    second.update(data, 30000, 70000);
+    assertEquals(whole.getValue(), PngEncoder.combineAdler32(first.getValue(), second.getValue(), 70000));
+  }
+
+  private static byte[] encode(PngEncoder encoder, BufferedImage image, int[] seedColors) throws Exception {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    encoder.encodeIndexed(image, seedColors, outputStream);
+    return outputStream.toByteArray();
+  }
+
+  private static byte[] encode(PngEncoder encoder, BufferedImage image) throws Exception {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    encoder.encode(image, outputStream);
+    return outputStream.toByteArray();
+  }
+
+  private static BufferedImage createImage(int type, int width, int height) {
+    BufferedImage image = new BufferedImage(width, height, type);
+    Graphics2D graphics = image.createGraphics();
+    graphics.setColor(Color.WHITE);
+    graphics.fillRect(0, 0, width, height);
+    Random random = new Random(width);
+    for (int i = 0; i < 20; i++) {
+      graphics.setColor(new Color(random.nextInt(0x1000000)));
+      graphics.fillRect(random.nextInt(width), random.nextInt(height), random.nextInt(width / 2), random.nextInt(height / 2));
+    }
+    graphics.dispose();
+    for (int i = 0; i < 50; i++) {
+      image.setRGB(random.nextInt(width), random.nextInt(height), 0xFF000000 | random.nextInt(0x1000000));
+    }
+    return image;
+  }
+
+  private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+    assertEquals(expected.getWidth(), actual.getWidth());
+    assertEquals(expected.getHeight(), actual.getHeight());
+    for (int y = 0; y < expected.getHeight(); y++) {
+      for (int x = 0; x < expected.getWidth(); x++) {
+        assertEquals(expected.getRGB(x, y), actual.getRGB(x, y));
+      }
+    }
+  }
+}
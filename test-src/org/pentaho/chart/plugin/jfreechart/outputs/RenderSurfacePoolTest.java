@@ -0,0 +1,65 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+
+package org.pentaho.chart.plugin.jfreechart.outputs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+public class RenderSurfacePoolTest {
+
+  @Test
+  public void testReuse() {
+    RenderSurfacePool pool = new RenderSurfacePool(1024 * 1024);
+    BufferedImage image = pool.acquire(20, 10, BufferedImage.TYPE_INT_ARGB);
+    image.setRGB(5, 5, 0xFF123456);
+    pool.release(image);
+    assertEquals(20 * 10 * 4, pool.getPooledBytes());
+
+    assertNotSame(image, pool.acquire(20, 10, BufferedImage.TYPE_INT_RGB));
+    assertNotSame(image, pool.acquire(10, 20, BufferedImage.TYPE_INT_ARGB));
+    assertSame(image, pool.acquire(20, 10, BufferedImage.TYPE_INT_ARGB));
+    assertEquals(0, pool.getPooledBytes());
+    assertEquals(0, image.getRGB(5, 5));
+  }
+
+  @Test
+  public void testMemoryCap() {
+    RenderSurfacePool pool = new RenderSurfacePool(2 * 100 * 100 * 4);
+    BufferedImage first = new BufferedImage(100, 100, BufferedImage.TYPE_INT_RGB);
+    BufferedImage second = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+    BufferedImage third = new BufferedImage(50, 200, BufferedImage.TYPE_INT_ARGB);
+    pool.release(first);
+    pool.release(second);
+    pool.release(third);
+    assertEquals(2 * 100 * 100 * 4, pool.getPooledBytes());
+
+    // the least recently used size was dropped
+    assertNotSame(first, pool.acquire(100, 100, BufferedImage.TYPE_INT_RGB));
+    assertSame(second, pool.acquire(100, 100, BufferedImage.TYPE_INT_ARGB));
+    assertSame(third, pool.acquire(50, 200, BufferedImage.TYPE_INT_ARGB));
+
+    pool.release(new BufferedImage(300, 300, BufferedImage.TYPE_INT_ARGB));
+    assertEquals(0, pool.getPooledBytes());
+  }
+}
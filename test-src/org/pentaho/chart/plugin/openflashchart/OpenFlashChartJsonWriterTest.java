@@ -0,0 +1,224 @@
+/*!
+* This program is free software; you can redistribute it and/or modify it under the
+* terms of the GNU Lesser General Public License, version 2.1 as published by the Free Software
+* Foundation.
+*
+* You should have received a copy of the GNU Lesser General Public License along with this
+* program; if not, you can obtain a copy at http://www.gnu.org/licenses/old-licenses/lgpl-2.1.html
+* or from the Free Software Foundation, Inc.,
+* 51 Franklin Street, Fifth Floor, Boston, MA 02110-1301 USA.
+*
+* This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+* without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+* See the GNU Lesser General Public License for more details.
+*
+* Copyright (c) 2002-2013 Pentaho Corporation..  All rights reserved.
+*/
+
+
+package org.pentaho.chart.plugin.openflashchart;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+import java.util.Iterator;
+import java.util.TreeSet;
+
+import ofc4j.model.Chart;
+
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONObject;
+import org.junit.Test;
+import org.pentaho.chart.IChartLinkGenerator;
+import org.pentaho.chart.data.MultiSeriesDataModel;
+import org.pentaho.chart.model.AreaPlot;
+import org.pentaho.chart.model.BarPlot;
+import org.pentaho.chart.model.ChartModel;
+import org.pentaho.chart.model.LinePlot;
+import org.pentaho.chart.model.StyledText;
+import org.pentaho.chart.model.TwoAxisPlot;
+import org.pentaho.chart.model.Axis.LabelOrientation;
+import org.pentaho.chart.model.BarPlot.BarPlotFlavor;
+import org.pentaho.chart.model.Plot.Orientation;
+
+/**
+ * Compares the documents of the JSON writer with the string form of the ofc4j charts built for the same models.
+ */
+public class OpenFlashChartJsonWriterTest {
+
+  private final OpenFlashChartFactoryEngine engine = new OpenFlashChartFactoryEngine();
+
+  @Test
+  public void testBarChart() throws Exception {
+    ChartModel chartModel = createChartModel(new BarPlot());
+    MultiSeriesDataModel dataModel = createDataModel();
+    assertSameDocument(engine.makeBarChart(chartModel, dataModel, null), chartModel, dataModel, null);
+  }
+
+  @Test
+  public void testBarFlavors() throws Exception {
+    for (BarPlotFlavor flavor : new BarPlotFlavor[] {BarPlotFlavor.PLAIN, BarPlotFlavor.THREED, BarPlotFlavor.GLASS}) {
+      ChartModel chartModel = createChartModel(new BarPlot(flavor));
+      MultiSeriesDataModel dataModel = createDataModel();
+      assertSameDocument(engine.makeBarChart(chartModel, dataModel, null), chartModel, dataModel, null);
+    }
+  }
+
+  @Test
+  public void testLineChart() throws Exception {
+    LinePlot linePlot = new LinePlot();
+    linePlot.setLineWidth(3);
+    linePlot.setOpacity(0.5f);
+    ChartModel chartModel = createChartModel(linePlot);
+    MultiSeriesDataModel dataModel = createDataModel();
+    assertSameDocument(engine.makeLineChart(chartModel, dataModel, null), chartModel, dataModel, null);
+  }
+
+  @Test
+  public void testAreaChart() throws Exception {
+    ChartModel chartModel = createChartModel(new AreaPlot());
+    MultiSeriesDataModel dataModel = createDataModel();
+    assertSameDocument(engine.makeAreaChart(chartModel, dataModel, null), chartModel, dataModel, null);
+  }
+
+  @Test
+  public void testScalingAndLinks() throws Exception {
+    IChartLinkGenerator linkGenerator = new IChartLinkGenerator() {
+      public String generateLink(String seriesName, String domainName, Number rangeValue) {
+        return "javascript:show('" + seriesName + "', '" + domainName + "', " + rangeValue + ")"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+      }
+
+      public String generateLink(String seriesName, Number domainValue, Number rangeValue) {
+        return null;
+      }
+    };
+    MultiSeriesDataModel dataModel = createDataModel();
+    dataModel.setScalingFactor(1000);
+    ChartModel chartModel = createChartModel(new BarPlot());
+    assertSameDocument(engine.makeBarChart(chartModel, dataModel, linkGenerator), chartModel, dataModel, linkGenerator);
+    chartModel = createChartModel(new LinePlot());
+    assertSameDocument(engine.makeLineChart(chartModel, dataModel, linkGenerator), chartModel, dataModel, linkGenerator);
+  }
+
+  @Test
+  public void testDefaults() throws Exception {
+    ChartModel chartModel = new ChartModel();
+    chartModel.setPlot(new LinePlot());
+    chartModel.getLegend().setVisible(false);
+    MultiSeriesDataModel dataModel = new MultiSeriesDataModel();
+    dataModel.addValue("Q1", "east", 1); //$NON-NLS-1$ //$NON-NLS-2$
+    assertSameDocument(engine.makeLineChart(chartModel, dataModel, null), chartModel, dataModel, null);
+
+    chartModel.setPlot(new BarPlot());
+    assertSameDocument(engine.makeBarChart(chartModel, dataModel, null), chartModel, dataModel, null);
+  }
+
+  @Test
+  public void testNumbers() throws Exception {
+    double[] values = {0, -0.5, -2.25, 0.1 + 0.2, 1234567.891, -1e-7, 4.9e-324, 1e20, -1e300, Long.MAX_VALUE, 1L << 53};
+    MultiSeriesDataModel dataModel = new MultiSeriesDataModel();
+    for (int i = 0; i < values.length; i++) {
+      dataModel.addValue("D" + i, "S", values[i]); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    dataModel.addValue("missing", "S", null); //$NON-NLS-1$ //$NON-NLS-2$
+    ChartModel chartModel = createChartModel(new LinePlot());
+
+    JSONArray dots = writeChart(chartModel, dataModel, null).getJSONArray("elements").getJSONObject(0).getJSONArray("values"); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(values.length + 1, dots.length());
+    for (int i = 0; i < values.length; i++) {
+      assertEquals(values[i], dots.getJSONObject(i).getDouble("value"), 0); //$NON-NLS-1$
+    }
+    assertTrue(dots.isNull(values.length));
+
+    chartModel.setPlot(new BarPlot());
+    JSONArray bars = writeChart(chartModel, dataModel, null).getJSONArray("elements").getJSONObject(0).getJSONArray("values"); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(-0.5, bars.getJSONObject(1).getDouble("top"), 0); //$NON-NLS-1$
+    assertFalse(bars.getJSONObject(values.length).has("top")); //$NON-NLS-1$
+  }
+
+  @Test
+  public void testEscaping() throws Exception {
+    String name = "Q\"1\\\n\t\u0001\u2028"; //$NON-NLS-1$
+    MultiSeriesDataModel dataModel = new MultiSeriesDataModel();
+    dataModel.addValue(name, "east", 1); //$NON-NLS-1$
+    ChartModel chartModel = createChartModel(new LinePlot());
+    chartModel.getTitle().setText(name);
+
+    JSONObject document = writeChart(chartModel, dataModel, null);
+    assertEquals(name, document.getJSONObject("title").getString("text")); //$NON-NLS-1$ //$NON-NLS-2$
+    assertEquals(name, document.getJSONObject("x_axis").getJSONObject("labels").getJSONArray("labels").getString(0)); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+  }
+
+  private static ChartModel createChartModel(TwoAxisPlot plot) {
+    ChartModel chartModel = new ChartModel();
+    chartModel.setPlot(plot);
+    chartModel.getTitle().setText("Sales"); //$NON-NLS-1$
+    chartModel.setBackground(0xFFEEDD);
+    chartModel.getLegend().setVisible(true);
+    plot.setBackground(0x112233);
+    plot.setOrientation(Orientation.VERTICAL);
+    plot.getHorizontalAxis().setLegend(new StyledText("Quarter")); //$NON-NLS-1$
+    plot.getVerticalAxis().setLegend(new StyledText("Amount")); //$NON-NLS-1$
+    plot.getHorizontalAxis().setLabelOrientation(LabelOrientation.DIAGONAL);
+    return chartModel;
+  }
+
+  /**
+   * Returns two series over four domains with missing values, negative fractions, and very small and large values.
+   */
+  private static MultiSeriesDataModel createDataModel() {
+    MultiSeriesDataModel dataModel = new MultiSeriesDataModel();
+    dataModel.addValue("Q1", "east", 1); //$NON-NLS-1$ //$NON-NLS-2$
+    dataModel.addValue("Q2", "east", -2.25); //$NON-NLS-1$ //$NON-NLS-2$
+    dataModel.addValue("Q3", "east", 0.000125); //$NON-NLS-1$ //$NON-NLS-2$
+    dataModel.addValue("Q1", "west", 1234567.891); //$NON-NLS-1$ //$NON-NLS-2$
+    dataModel.addValue("Q2", "west", null); //$NON-NLS-1$ //$NON-NLS-2$
+    dataModel.addValue("Q4", "west", -0.5); //$NON-NLS-1$ //$NON-NLS-2$
+    return dataModel;
+  }
+
+  private JSONObject writeChart(ChartModel chartModel, MultiSeriesDataModel dataModel, IChartLinkGenerator linkGenerator) throws Exception {
+    StringWriter writer = new StringWriter();
+    new OpenFlashChartJsonWriter(engine, writer).writeChart(chartModel, dataModel, linkGenerator);
+    return new JSONObject(writer.toString());
+  }
+
+  private void assertSameDocument(Chart expected, ChartModel chartModel, MultiSeriesDataModel dataModel, IChartLinkGenerator linkGenerator) throws Exception {
+    assertSameValue("", new JSONObject(expected.toString()), writeChart(chartModel, dataModel, linkGenerator)); //$NON-NLS-1$
+  }
+
+  private static void assertSameValue(String path, Object expected, Object actual) throws Exception {
+    if (expected instanceof JSONObject) {
+      assertTrue(path, actual instanceof JSONObject);
+      JSONObject expectedObject = (JSONObject) expected;
+      JSONObject actualObject = (JSONObject) actual;
+      assertEquals(path, keys(expectedObject), keys(actualObject));
+      for (String key : keys(expectedObject)) {
+        assertSameValue(path + "/" + key, expectedObject.get(key), actualObject.get(key)); //$NON-NLS-1$
+      }
+    } else if (expected instanceof JSONArray) {
+      assertTrue(path, actual instanceof JSONArray);
+      JSONArray expectedArray = (JSONArray) expected;
+      JSONArray actualArray = (JSONArray) actual;
+      assertEquals(path, expectedArray.length(), actualArray.length());
+      for (int i = 0; i < expectedArray.length(); i++) {
+        assertSameValue(path + "/" + i, expectedArray.get(i), actualArray.get(i)); //$NON-NLS-1$
+      }
+    } else if (expected instanceof Number) {
+      assertTrue(path, actual instanceof Number);
+      assertEquals(path, ((Number) expected).doubleValue(), ((Number) actual).doubleValue(), 0);
+    } else {
+      assertEquals(path, expected, actual);
+    }
+  }
+
+  private static TreeSet<String> keys(JSONObject object) {
+    TreeSet<String> keys = new TreeSet<String>();
+    for (Iterator<?> iterator = object.keys(); iterator.hasNext();) {
+      keys.add((String) iterator.next());
+    }
+    return keys;
+  }
+}
@@ -531,4 +531,57 @@ public class HeirarchicalLinkedListItemTest extends TestCase {
     assertEquals(child5, child2.getNextDepthFirstItem());
     assertNull(child5.getNextDepthFirstItem());
   }
+
+  /**
+   * Tests the <code>freeze()</code> method.
+   */
+  @SuppressWarnings("nls")
+  public void testFreeze() {
+    final HeirarchicalLinkedListItem parent = new HeirarchicalLinkedListItem();
+    final HeirarchicalLinkedListItem child1 = new HeirarchicalLinkedListItem();
+    final HeirarchicalLinkedListItem child2 = new HeirarchicalLinkedListItem();
+    parent.addChildItem(child1);
+    child1.addChildItem(child2);
+    parent.freeze();
+    assertTrue(parent.isFrozen());
+    assertTrue("children should be frozen with their parent", child2.isFrozen());
+    final long modNumber = parent.getModNumber();
+
+    try {
+      child1.addChildItem(new HeirarchicalLinkedListItem());
+      fail("can't add a child to a frozen item");
+    } catch (IllegalStateException ise) {
+      // correct
+    }
+    try {
+      parent.insertBefore(new HeirarchicalLinkedListItem(), child1);
+      fail("can't insert a child into a frozen item");
+    } catch (IllegalStateException ise) {
+      // correct
+    }
+    try {
+      child2.removeItem();
+      fail("can't remove a frozen item");
+    } catch (IllegalStateException ise) {
+      // correct
+    }
+
+    final HeirarchicalLinkedListItem frozenRoot = new HeirarchicalLinkedListItem();
+    frozenRoot.freeze();
+    final HeirarchicalLinkedListItem newParent = new HeirarchicalLinkedListItem();
+    try {
+      newParent.addChildItem(frozenRoot);
+      fail("can't add a frozen item to another item");
+    } catch (IllegalStateException ise) {
+      // correct
+    }
+
+    // Make sure nothing changed
+    assertEquals(modNumber, parent.getModNumber());
+    assertEquals(1, parent.getChildCount());
+    assertEquals(1, child1.getChildCount());
+    assertEquals(child1, child2.getParentItem());
+    assertNull(newParent.getFirstChildItem());
+    assertNull(frozenRoot.getParentItem());
+  }
 }